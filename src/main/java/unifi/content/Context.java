@@ -1,19 +1,71 @@
 package unifi.content;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
 import com.badlogic.gdx.utils.Disposable;
 
 import unifi.content.res.Resources;
+import unifi.view.Style;
+import unifi.view.StyleResolver;
 
 public class Context implements Disposable {
 
+  @Nullable private Resources mResources;
+  @Nullable private StyleResolver mStyleResolver;
+
   public Context() {}
 
   @Override
   public void dispose() {
-    // TODO: Dispose resources instance
+    if (mResources != null) {
+      mResources.dispose();
+      mResources = null;
+    }
   }
 
+  /**
+   * Returns the resources of this context, creating them if necessary.
+   */
+  @NonNull
   public Resources getResources() {
-    throw new UnsupportedOperationException();
+    if (mResources == null) {
+      mResources = new Resources();
+    }
+
+    return mResources;
+  }
+
+  /**
+   * Returns the resolver of the styles of the views of this context, creating
+   * it if necessary.
+   */
+  @NonNull
+  public StyleResolver getStyleResolver() {
+    if (mStyleResolver == null) {
+      mStyleResolver = new StyleResolver();
+    }
+
+    return mStyleResolver;
+  }
+
+  /**
+   * Returns the theme of this context, or {@code null} if it has none.
+   *
+   * @see StyleResolver#getTheme()
+   */
+  @Nullable
+  public Style getTheme() {
+    return mStyleResolver != null ? mStyleResolver.getTheme() : null;
+  }
+
+  /**
+   * Sets the theme of this context, i.e., the style applied to every view
+   * inflated with it, which invalidates its resolved styles.
+   *
+   * @see StyleResolver#setTheme(Style)
+   */
+  public void setTheme(@Nullable Style theme) {
+    getStyleResolver().setTheme(theme);
   }
 }
@@ -0,0 +1,210 @@
+package unifi.content.res;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only bundle of assets packed into a single file by
+ * {@link AssetBundlePacker}, which is memory-mapped so that opening it costs a
+ * single file open, and reading an asset costs no system calls or copies.
+ *
+ * <p>Assets are identified by integer ids, which are their indexes in the
+ * bundle, assigned in the lexicographic order of their paths, and can also be
+ * looked up by path. The file is laid out as follows, in big-endian order:
+ * <pre>
+ * header  magic (int), version (int), entry count (int), reserved (int)
+ * index   for each entry: data offset (long), data length (int),
+ *         name offset (int), name length (int), reserved (int)
+ * names   the UTF-8 paths of the entries, relative to the packed directory
+ * data    the contents of the entries, each aligned to {@value #ALIGNMENT} bytes
+ * </pre>
+ *
+ * <p>Since the index has a fixed layout, the entry of an id is found without
+ * searching.
+ */
+public class AssetBundle implements Disposable {
+
+  /**
+   * Magic number of bundle files, {@code "UNFB"}.
+   */
+  static final int MAGIC = 0x554E4642;
+  static final int VERSION = 1;
+
+  static final int HEADER_SIZE = 16;
+  static final int ENTRY_SIZE = 24;
+
+  /**
+   * Alignment of the data of each entry, in bytes.
+   */
+  static final int ALIGNMENT = 8;
+
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /**
+   * Id returned by {@link #getId(String)} for paths not in the bundle.
+   */
+  public static final int NO_ID = -1;
+
+  @NonNull private final File mFile;
+  @Nullable private MappedByteBuffer mBuffer;
+  private final int mEntryCount;
+
+  @NonNull private final String[] mPaths;
+  @NonNull private final Map<String, Integer> mIds;
+
+  /**
+   * Opens the bundle stored in the specified file.
+   *
+   * @throws GdxRuntimeException if the file cannot be read or is not a bundle
+   */
+  @NonNull
+  public static AssetBundle open(@NonNull File file) {
+    if (file == null) {
+      throw new IllegalArgumentException("file cannot be null");
+    }
+
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+         FileChannel channel = raf.getChannel()) {
+      // The mapping stays valid once the channel is closed
+      return new AssetBundle(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IOException e) {
+      throw new GdxRuntimeException("Cannot open asset bundle: " + file, e);
+    }
+  }
+
+  private AssetBundle(@NonNull File file, @NonNull MappedByteBuffer buffer) {
+    mFile = file;
+    mBuffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new GdxRuntimeException("Not an asset bundle: " + file);
+    } else if (buffer.getInt(4) != VERSION) {
+      throw new GdxRuntimeException("Unsupported asset bundle version " + buffer.getInt(4)
+          + ": " + file);
+    }
+
+    mEntryCount = buffer.getInt(8);
+    if (mEntryCount < 0 || HEADER_SIZE + (long) mEntryCount * ENTRY_SIZE > buffer.capacity()) {
+      throw new GdxRuntimeException("Corrupt asset bundle index: " + file);
+    }
+
+    mPaths = new String[mEntryCount];
+    mIds = new HashMap<>(mEntryCount * 4 / 3 + 1);
+    final byte[] name = new byte[256];
+    for (int id = 0; id < mEntryCount; id++) {
+      final int entry = HEADER_SIZE + id * ENTRY_SIZE;
+      final int nameOffset = buffer.getInt(entry + 12);
+      final int nameLength = buffer.getInt(entry + 16);
+      final byte[] bytes = nameLength <= name.length ? name : new byte[nameLength];
+      final ByteBuffer slice = buffer.duplicate();
+      slice.position(nameOffset);
+      slice.get(bytes, 0, nameLength);
+      mPaths[id] = new String(bytes, 0, nameLength, UTF_8);
+      mIds.put(mPaths[id], id);
+    }
+  }
+
+  /**
+   * Returns the file of this bundle.
+   */
+  @NonNull
+  public File getFile() {
+    return mFile;
+  }
+
+  /**
+   * Returns the number of assets in this bundle.
+   */
+  public int getEntryCount() {
+    return mEntryCount;
+  }
+
+  /**
+   * Returns the id of the asset with the specified path, or {@link #NO_ID} if
+   * it is not in this bundle.
+   */
+  public int getId(@NonNull String path) {
+    final Integer id = mIds.get(path);
+    return id != null ? id : NO_ID;
+  }
+
+  /**
+   * Indicates whether or not the asset with the specified path is in this
+   * bundle.
+   */
+  public boolean contains(@NonNull String path) {
+    return mIds.containsKey(path);
+  }
+
+  /**
+   * Returns the path of the asset with the specified id.
+   */
+  @NonNull
+  public String getPath(@IntRange(from = 0) int id) {
+    checkId(id);
+    return mPaths[id];
+  }
+
+  /**
+   * Returns the length of the asset with the specified id, in bytes.
+   */
+  public int getLength(@IntRange(from = 0) int id) {
+    checkId(id);
+    return buffer().getInt(HEADER_SIZE + id * ENTRY_SIZE + 8);
+  }
+
+  /**
+   * Returns a read-only buffer of the contents of the asset with the
+   * specified id, which shares the mapped memory of this bundle. The buffer
+   * must not be used once this bundle is disposed.
+   */
+  @NonNull
+  public ByteBuffer getBuffer(@IntRange(from = 0) int id) {
+    checkId(id);
+    final MappedByteBuffer buffer = buffer();
+    final int entry = HEADER_SIZE + id * ENTRY_SIZE;
+    final long offset = buffer.getLong(entry);
+    final int length = buffer.getInt(entry + 8);
+    final ByteBuffer slice = buffer.asReadOnlyBuffer();
+    slice.position((int) offset);
+    slice.limit((int) offset + length);
+    return slice.slice();
+  }
+
+  /**
+   * Disposes this bundle. The mapped memory is released once the buffers
+   * returned by {@link #getBuffer(int)} are garbage collected.
+   */
+  @Override
+  public void dispose() {
+    mBuffer = null;
+  }
+
+  @NonNull
+  private MappedByteBuffer buffer() {
+    if (mBuffer == null) {
+      throw new IllegalStateException("AssetBundle has been disposed");
+    }
+
+    return mBuffer;
+  }
+
+  private void checkId(int id) {
+    if (id < 0 || id >= mEntryCount) {
+      throw new IndexOutOfBoundsException("id must be in range [0.." + mEntryCount + ")");
+    }
+  }
+}
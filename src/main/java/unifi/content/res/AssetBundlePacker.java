@@ -0,0 +1,142 @@
+package unifi.content.res;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Build-time tool which packs the files of an asset directory into an
+ * {@link AssetBundle}. The id of each asset is written to the standard output
+ * as {@code <id> <path>}, one per line, so that it can be referred to by id.
+ *
+ * <p>Usage: {@code AssetBundlePacker <asset directory> <bundle file>}
+ */
+public class AssetBundlePacker {
+  private AssetBundlePacker() {}
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: AssetBundlePacker <asset directory> <bundle file>");
+      System.exit(1);
+    }
+
+    final File dir = new File(args[0]);
+    if (!dir.isDirectory()) {
+      System.err.println("Not a directory: " + dir);
+      System.exit(1);
+    }
+
+    final List<String> paths = pack(dir, new File(args[1]));
+    final PrintStream out = System.out;
+    for (int id = 0; id < paths.size(); id++) {
+      out.println(id + " " + paths.get(id));
+    }
+  }
+
+  /**
+   * Packs the files of the specified directory and its subdirectories into
+   * the given bundle file.
+   *
+   * @param dir    The asset directory
+   * @param bundle The bundle file, which is overwritten
+   *
+   * @return The paths of the packed files, relative to {@code dir} and
+   *         separated by {@code '/'}, indexed by id
+   */
+  @NonNull
+  public static List<String> pack(@NonNull File dir, @NonNull File bundle) throws IOException {
+    final List<String> paths = new ArrayList<>();
+    collect(dir, "", paths);
+    Collections.sort(paths);
+
+    final int count = paths.size();
+    final byte[][] names = new byte[count][];
+    final long[] lengths = new long[count];
+    int namesLength = 0;
+    for (int i = 0; i < count; i++) {
+      names[i] = paths.get(i).getBytes(AssetBundle.UTF_8);
+      namesLength += names[i].length;
+      lengths[i] = new File(dir, paths.get(i)).length();
+      if (lengths[i] > Integer.MAX_VALUE) {
+        throw new IOException("Asset too large to be bundled: " + paths.get(i));
+      }
+    }
+
+    final long namesOffset = AssetBundle.HEADER_SIZE + (long) count * AssetBundle.ENTRY_SIZE;
+    long offset = align(namesOffset + namesLength);
+    final long[] offsets = new long[count];
+    for (int i = 0; i < count; i++) {
+      offsets[i] = offset;
+      offset = align(offset + lengths[i]);
+    }
+
+    if (offset > Integer.MAX_VALUE) {
+      throw new IOException("Assets too large to be bundled: " + offset + " bytes");
+    }
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(bundle)))) {
+      out.writeInt(AssetBundle.MAGIC);
+      out.writeInt(AssetBundle.VERSION);
+      out.writeInt(count);
+      out.writeInt(0);
+
+      int nameOffset = (int) namesOffset;
+      for (int i = 0; i < count; i++) {
+        out.writeLong(offsets[i]);
+        out.writeInt((int) lengths[i]);
+        out.writeInt(nameOffset);
+        out.writeInt(names[i].length);
+        out.writeInt(0);
+        nameOffset += names[i].length;
+      }
+
+      for (byte[] name : names) {
+        out.write(name);
+      }
+
+      for (int i = 0; i < count; i++) {
+        pad(out, offsets[i]);
+        Files.copy(new File(dir, paths.get(i)).toPath(), out);
+      }
+    }
+
+    return paths;
+  }
+
+  private static void collect(@NonNull File dir, @NonNull String prefix,
+                              @NonNull List<String> paths) {
+    final File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    for (File file : files) {
+      if (file.isDirectory()) {
+        collect(file, prefix + file.getName() + '/', paths);
+      } else {
+        paths.add(prefix + file.getName());
+      }
+    }
+  }
+
+  private static long align(long offset) {
+    final int alignment = AssetBundle.ALIGNMENT;
+    return (offset + alignment - 1) / alignment * alignment;
+  }
+
+  private static void pad(@NonNull DataOutputStream out, long offset) throws IOException {
+    while (out.size() < offset) {
+      out.write(0);
+    }
+  }
+}
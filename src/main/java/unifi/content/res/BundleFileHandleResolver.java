@@ -0,0 +1,160 @@
+package unifi.content.res;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Resolves the paths of the assets in an {@link AssetBundle} to handles which
+ * read them from its mapped memory, and the other paths with a fallback
+ * resolver.
+ */
+class BundleFileHandleResolver implements FileHandleResolver {
+
+  @NonNull private final FileHandleResolver mFallback;
+  @Nullable private AssetBundle mBundle;
+
+  BundleFileHandleResolver(@NonNull FileHandleResolver fallback) {
+    mFallback = fallback;
+  }
+
+  @Nullable
+  AssetBundle getBundle() {
+    return mBundle;
+  }
+
+  void setBundle(@Nullable AssetBundle bundle) {
+    mBundle = bundle;
+  }
+
+  @Override
+  public FileHandle resolve(String fileName) {
+    final AssetBundle bundle = mBundle;
+    if (bundle != null) {
+      final int id = bundle.getId(fileName);
+      if (id != AssetBundle.NO_ID) {
+        return new BundleFileHandle(this, bundle, id);
+      }
+    }
+
+    return mFallback.resolve(fileName);
+  }
+
+  /**
+   * Handle of an asset in a bundle. Paths relative to it are resolved by the
+   * resolver, so that the dependencies of an asset, e.g., the pages of a
+   * font, are also read from the bundle.
+   */
+  static final class BundleFileHandle extends FileHandle {
+    @NonNull private final BundleFileHandleResolver mResolver;
+    @NonNull private final AssetBundle mBundle;
+    private final int mId;
+
+    BundleFileHandle(@NonNull BundleFileHandleResolver resolver, @NonNull AssetBundle bundle,
+                     int id) {
+      super(bundle.getPath(id), Files.FileType.Internal);
+      mResolver = resolver;
+      mBundle = bundle;
+      mId = id;
+    }
+
+    @Override
+    public InputStream read() {
+      return new ByteBufferInputStream(mBundle.getBuffer(mId));
+    }
+
+    @Override
+    public byte[] readBytes() {
+      final ByteBuffer buffer = mBundle.getBuffer(mId);
+      final byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    }
+
+    @Override
+    public long length() {
+      return mBundle.getLength(mId);
+    }
+
+    @Override
+    public boolean exists() {
+      return true;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return false;
+    }
+
+    @Override
+    public FileHandle child(String name) {
+      throw new GdxRuntimeException("Cannot get the child of a file: " + path());
+    }
+
+    @Override
+    public FileHandle sibling(String name) {
+      return mResolver.resolve(parentPath() + name);
+    }
+
+    @Override
+    public FileHandle parent() {
+      final String parent = parentPath();
+      return mResolver.resolve(parent.isEmpty() ? "" : parent.substring(0, parent.length() - 1));
+    }
+
+    /**
+     * Returns the path of the directory of this asset, ending with a
+     * {@code '/'}, or the empty string if it is at the root of the bundle.
+     */
+    @NonNull
+    private String parentPath() {
+      final String path = path();
+      return path.substring(0, path.lastIndexOf('/') + 1);
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+    @NonNull private final ByteBuffer mBuffer;
+
+    ByteBufferInputStream(@NonNull ByteBuffer buffer) {
+      mBuffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return mBuffer.hasRemaining() ? mBuffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(@NonNull byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      } else if (!mBuffer.hasRemaining()) {
+        return -1;
+      }
+
+      len = Math.min(len, mBuffer.remaining());
+      mBuffer.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public long skip(long n) {
+      final int skipped = (int) Math.max(0, Math.min(n, mBuffer.remaining()));
+      mBuffer.position(mBuffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return mBuffer.remaining();
+    }
+  }
+}
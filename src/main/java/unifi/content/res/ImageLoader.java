@@ -0,0 +1,540 @@
+package unifi.content.res;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.KTXTextureData;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import unifi.graphics.AtlasManager;
+import unifi.graphics.ImageDecoder;
+import unifi.graphics.ReloadableTexture;
+import unifi.graphics.drawable.AsyncDrawable;
+import unifi.graphics.drawable.Drawable;
+import unifi.graphics.drawable.TextureDrawable;
+import unifi.runtime.SystemClock;
+import unifi.util.Log;
+
+/**
+ * Loads images without stalling the rendering thread. Images are decoded into
+ * {@link Pixmap pixmaps} by a pool of background threads, and uploaded to the
+ * GPU by {@link #update(long)}, which must be called once per frame on the
+ * rendering thread and only uploads as many images as fit within a time
+ * budget. Until then, each image is drawn as a placeholder by the
+ * {@link AsyncDrawable} returned by {@link #load(String, Drawable)}.
+ *
+ * <p>Images whose drawables are on screen, i.e., which were drawn in the last
+ * frame, are decoded and uploaded before those which are merely visible,
+ * which are in turn loaded before those which are not. Images whose drawables
+ * are no longer reachable are not loaded at all.
+ *
+ * <p>Images small enough to be {@linkplain AtlasManager#canPack packed} are
+ * packed into the atlas, and larger images are given their own
+ * {@link ReloadableTexture reloadable textures}, which are owned by this
+ * loader.
+ *
+ * <p>Images in compressed GPU formats, see {@link ImageDecoder#isCompressed},
+ * are read and prepared in the background, and uploaded as they are.
+ */
+public class ImageLoader implements Disposable {
+
+  private static final String TAG = "ImageLoader";
+
+  /**
+   * Default time budget of {@link #update(long)}, in nanoseconds.
+   */
+  public static final long DEFAULT_UPLOAD_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
+  static final int PRIORITY_HIDDEN = 0;
+  static final int PRIORITY_VISIBLE = 1;
+  static final int PRIORITY_ON_SCREEN = 2;
+
+  @NonNull private final FileHandleResolver mResolver;
+  @NonNull private final AtlasManager mAtlas;
+
+  @NonNull private final ThreadPoolExecutor mDecoder;
+
+  /**
+   * Requests which have not been uploaded yet, by path.
+   */
+  @NonNull private final Map<String, Request> mRequests = new HashMap<>();
+
+  /**
+   * Requests decoded by the background threads, waiting to be uploaded.
+   */
+  @NonNull private final ConcurrentLinkedQueue<Request> mDecoded = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Requests taken from {@link #mDecoded} which did not fit in the budget of
+   * the frame they were taken in.
+   */
+  @NonNull private final List<Request> mUploadQueue = new ArrayList<>();
+
+  @NonNull private final Map<String, TextureRegion> mRegions = new HashMap<>();
+  @NonNull private final List<Texture> mTextures = new ArrayList<>();
+
+  @NonNull private final AtomicInteger mSequence = new AtomicInteger();
+
+  /**
+   * Time of the previous call to {@link #update(long)}, in milliseconds.
+   */
+  private long mLastUpdateTime = Long.MIN_VALUE;
+
+  private boolean mUseMipMaps;
+
+  private int mUploadCount;
+  private long mUploadNanos;
+
+  /**
+   * Constructs an image loader decoding images on one less thread than there
+   * are processors, with a minimum of one.
+   *
+   * @param resolver The resolver of the paths of the images
+   * @param atlas    The atlas into which small images are packed
+   */
+  public ImageLoader(@NonNull FileHandleResolver resolver, @NonNull AtlasManager atlas) {
+    this(resolver, atlas, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  }
+
+  /**
+   * Constructs an image loader decoding images on the specified number of
+   * threads.
+   *
+   * @param resolver The resolver of the paths of the images
+   * @param atlas    The atlas into which small images are packed
+   * @param threads  The number of threads decoding images
+   */
+  public ImageLoader(@NonNull FileHandleResolver resolver, @NonNull AtlasManager atlas,
+                     @IntRange(from = 1) int threads) {
+    if (resolver == null) {
+      throw new IllegalArgumentException("resolver cannot be null");
+    } else if (atlas == null) {
+      throw new IllegalArgumentException("atlas cannot be null");
+    } else if (threads <= 0) {
+      throw new IllegalArgumentException("threads must be > 0");
+    }
+
+    mResolver = resolver;
+    mAtlas = atlas;
+    mDecoder = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+          private final AtomicInteger mCount = new AtomicInteger();
+
+          @Override
+          public Thread newThread(@NonNull Runnable r) {
+            Thread thread = new Thread(r, TAG + "-" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+          }
+        });
+  }
+
+  /**
+   * Returns a drawable of the image at the specified path, which draws the
+   * specified placeholder until the image is loaded. If the image has already
+   * been loaded, then its drawable is returned directly. This must be called
+   * on the rendering thread.
+   *
+   * @param path        The path of the image, resolved by the resolver of this
+   *                    loader
+   * @param placeholder The drawable drawn until the image is loaded, or
+   *                    {@code null} to draw nothing
+   */
+  @NonNull
+  public Drawable load(@NonNull String path, @Nullable Drawable placeholder) {
+    return load(path, placeholder, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+  }
+
+  /**
+   * Returns a drawable of the image at the specified path downsampled to the
+   * size at which it is displayed, e.g., the measured size of its view, which
+   * draws the specified placeholder until the image is loaded. Images are
+   * cached by path and {@linkplain ImageDecoder#getSizeBucket(int) size
+   * bucket}. This must be called on the rendering thread.
+   *
+   * @param path        The path of the image, resolved by the resolver of this
+   *                    loader
+   * @param placeholder The drawable drawn until the image is loaded, or
+   *                    {@code null} to draw nothing
+   * @param width       The width at which the image is displayed, in pixels,
+   *                    or {@link ImageDecoder#ORIGINAL_SIZE}
+   * @param height      The height at which the image is displayed, in pixels,
+   *                    or {@link ImageDecoder#ORIGINAL_SIZE}
+   *
+   * @see ImageDecoder
+   */
+  @NonNull
+  public Drawable load(@NonNull String path, @Nullable Drawable placeholder,
+                       int width, int height) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    final String key = ImageDecoder.getCacheKey(path, width, height);
+    final TextureRegion region = mRegions.get(key);
+    if (region != null) {
+      return new TextureDrawable(region);
+    }
+
+    final AsyncDrawable drawable = new AsyncDrawable(placeholder);
+    Request request = mRequests.get(key);
+    if (request == null) {
+      request = new Request(key, path, width, height, mSequence.getAndIncrement());
+      mRequests.put(key, request);
+      request.addDrawable(drawable);
+      mDecoder.execute(request);
+    } else {
+      request.addDrawable(drawable);
+    }
+
+    return drawable;
+  }
+
+  /**
+   * Indicates whether or not mipmaps are generated for the images given their
+   * own textures.
+   */
+  public boolean isUsingMipMaps() {
+    return mUseMipMaps;
+  }
+
+  /**
+   * Sets whether or not mipmaps are generated for the images given their own
+   * textures, which are then sampled when the images are drawn smaller than
+   * their size, at the cost of a third more memory. This only applies to the
+   * images uploaded after this call.
+   */
+  public void setUseMipMaps(boolean useMipMaps) {
+    mUseMipMaps = useMipMaps;
+  }
+
+  /**
+   * Returns the region of the image cached under the specified key if it has
+   * been loaded by this loader, or {@code null} otherwise.
+   *
+   * @param key The path of the image, or its {@linkplain
+   *            ImageDecoder#getCacheKey cache key} if it was downsampled
+   */
+  @Nullable
+  public TextureRegion findRegion(@NonNull String key) {
+    return mRegions.get(key);
+  }
+
+  /**
+   * Returns the number of images which have been requested but not uploaded
+   * yet.
+   */
+  public int getPendingCount() {
+    return mRequests.size();
+  }
+
+  /**
+   * Uploads the images which were decoded since the last call, most important
+   * first, until the specified time budget has been spent, and swaps the
+   * placeholders of their drawables. At least one image is uploaded per call,
+   * if any were decoded, so that loading always progresses. This must be
+   * called once per frame on the rendering thread, before the
+   * {@linkplain AtlasManager#update() atlas is updated}.
+   *
+   * @param budgetNanos The time budget of the uploads, in nanoseconds
+   *
+   * @return The number of images uploaded
+   */
+  public int update(long budgetNanos) {
+    final long lastUpdateTime = mLastUpdateTime;
+    mLastUpdateTime = SystemClock.millisTime();
+    if (mRequests.isEmpty()) {
+      return 0;
+    }
+
+    updatePriorities(lastUpdateTime);
+
+    Request decoded;
+    while ((decoded = mDecoded.poll()) != null) {
+      mUploadQueue.add(decoded);
+    }
+
+    if (mUploadQueue.isEmpty()) {
+      return 0;
+    }
+
+    Collections.sort(mUploadQueue);
+    final long start = SystemClock.nanoTime();
+    int uploaded = 0;
+    final Iterator<Request> it = mUploadQueue.iterator();
+    while (it.hasNext()) {
+      if (uploaded > 0 && SystemClock.nanoTime() - start >= budgetNanos) {
+        break;
+      }
+
+      final Request request = it.next();
+      it.remove();
+      upload(request);
+      uploaded++;
+    }
+
+    mUploadCount += uploaded;
+    mUploadNanos += SystemClock.nanoTime() - start;
+    return uploaded;
+  }
+
+  /**
+   * Recomputes the priorities of the pending requests from the visibility of
+   * their drawables, and cancels the requests whose drawables are no longer
+   * reachable.
+   */
+  private void updatePriorities(long lastUpdateTime) {
+    final Iterator<Request> it = mRequests.values().iterator();
+    while (it.hasNext()) {
+      final Request request = it.next();
+      final int priority = request.computePriority(lastUpdateTime);
+      if (priority < 0) {
+        // No drawables are reachable, so there is no need to load the image
+        if (mDecoder.remove(request) || request.isDecoded()) {
+          mDecoded.remove(request);
+          mUploadQueue.remove(request);
+          request.disposeDecoded();
+          it.remove();
+        }
+
+        continue;
+      }
+
+      if (priority != request.mPriority) {
+        // Requests are reordered by removing and queueing them again, since
+        // the queue of the decoder does not observe changes of priority
+        final boolean queued = mDecoder.remove(request);
+        request.mPriority = priority;
+        if (queued) {
+          mDecoder.execute(request);
+        }
+      }
+    }
+  }
+
+  private void upload(@NonNull Request request) {
+    mRequests.remove(request.mKey);
+    final Pixmap pixmap = request.mPixmap;
+    final TextureData data = request.mTextureData;
+    final TextureRegion region;
+    if (data != null) {
+      // Compressed data is uploaded as is, with its mip levels
+      request.mTextureData = null;
+      final Texture texture = new ReloadableTexture(mResolver.resolve(request.mPath), data);
+      mTextures.add(texture);
+      region = new TextureRegion(texture);
+    } else if (pixmap == null) {
+      // Decoding failed, so the placeholders are kept
+      return;
+    } else if (mAtlas.canPack(pixmap.getWidth(), pixmap.getHeight())) {
+      region = mAtlas.pack(request.mKey, pixmap);
+      request.disposeDecoded();
+    } else {
+      // The texture takes ownership of the pixmap
+      request.mPixmap = null;
+      final Texture texture = new ReloadableTexture(mResolver.resolve(request.mPath), pixmap,
+          request.mWidth, request.mHeight, mUseMipMaps);
+      mTextures.add(texture);
+      region = new TextureRegion(texture);
+    }
+
+    mRegions.put(request.mKey, region);
+
+    Drawable.ConstantState state = null;
+    for (WeakReference<AsyncDrawable> ref : request.mDrawables) {
+      final AsyncDrawable drawable = ref.get();
+      if (drawable == null) {
+        continue;
+      }
+
+      final Drawable loaded;
+      if (state == null) {
+        loaded = new TextureDrawable(region);
+        state = loaded.getConstantState();
+      } else {
+        loaded = state.newDrawable();
+      }
+
+      drawable.setLoadedDrawable(loaded);
+    }
+  }
+
+  /**
+   * Returns the number of images uploaded since the last call to
+   * {@link #resetStatistics()}.
+   */
+  public int getUploadCount() {
+    return mUploadCount;
+  }
+
+  /**
+   * Returns the time spent uploading images since the last call to
+   * {@link #resetStatistics()}, in nanoseconds.
+   */
+  public long getUploadNanos() {
+    return mUploadNanos;
+  }
+
+  /**
+   * Resets the upload statistics.
+   */
+  public void resetStatistics() {
+    mUploadCount = 0;
+    mUploadNanos = 0;
+  }
+
+  @Override
+  public void dispose() {
+    mDecoder.shutdownNow();
+    try {
+      mDecoder.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    for (Request request : mRequests.values()) {
+      request.disposeDecoded();
+    }
+
+    for (Texture texture : mTextures) {
+      texture.dispose();
+    }
+
+    mRequests.clear();
+    mDecoded.clear();
+    mUploadQueue.clear();
+    mRegions.clear();
+    mTextures.clear();
+  }
+
+  /**
+   * Request to load an image, shared by all of the drawables of its path.
+   * Requests are ordered by decreasing priority, and then by the order in
+   * which they were made.
+   */
+  final class Request implements Runnable, Comparable<Request> {
+    @NonNull final String mKey;
+    @NonNull final String mPath;
+    final int mWidth;
+    final int mHeight;
+    final int mSequence;
+    @NonNull final List<WeakReference<AsyncDrawable>> mDrawables = new ArrayList<>(1);
+
+    volatile int mPriority = PRIORITY_VISIBLE;
+
+    /**
+     * Decoded image, set by the decoder before the request is queued for
+     * upload, or {@code null} if it has not been decoded or decoding failed.
+     */
+    @Nullable volatile Pixmap mPixmap;
+
+    /**
+     * Prepared data of an image in a compressed GPU format, which is set
+     * instead of {@link #mPixmap}.
+     */
+    @Nullable volatile TextureData mTextureData;
+
+    Request(@NonNull String key, @NonNull String path, int width, int height, int sequence) {
+      mKey = key;
+      mPath = path;
+      mWidth = width;
+      mHeight = height;
+      mSequence = sequence;
+    }
+
+    void addDrawable(@NonNull AsyncDrawable drawable) {
+      mDrawables.add(new WeakReference<>(drawable));
+    }
+
+    /**
+     * Returns the priority of this request given the time of the previous
+     * frame, or {@code -1} if none of its drawables are reachable.
+     */
+    int computePriority(long lastUpdateTime) {
+      int priority = -1;
+      final Iterator<WeakReference<AsyncDrawable>> it = mDrawables.iterator();
+      while (it.hasNext()) {
+        final AsyncDrawable drawable = it.next().get();
+        if (drawable == null) {
+          it.remove();
+        } else if (drawable.getDrawTime() >= lastUpdateTime) {
+          return PRIORITY_ON_SCREEN;
+        } else {
+          priority = Math.max(priority,
+              drawable.isVisible() ? PRIORITY_VISIBLE : PRIORITY_HIDDEN);
+        }
+      }
+
+      return priority;
+    }
+
+    boolean isDecoded() {
+      return mPixmap != null || mTextureData != null;
+    }
+
+    void disposeDecoded() {
+      final Pixmap pixmap = mPixmap;
+      if (pixmap != null) {
+        pixmap.dispose();
+        mPixmap = null;
+      }
+
+      final TextureData data = mTextureData;
+      if (data instanceof KTXTextureData) {
+        ((KTXTextureData) data).disposePreparedData();
+      }
+
+      mTextureData = null;
+    }
+
+    @Override
+    public void run() {
+      try {
+        final FileHandle file = mResolver.resolve(mPath);
+        if (ImageDecoder.isCompressed(mPath)) {
+          // Reading and inflating the file is the expensive part
+          final TextureData data = ImageDecoder.loadCompressed(file);
+          data.prepare();
+          mTextureData = data;
+        } else {
+          mPixmap = ImageDecoder.decode(file, mWidth, mHeight);
+        }
+      } catch (RuntimeException e) {
+        Log.e(TAG, "Failed to decode " + mPath, e);
+      }
+
+      mDecoded.add(this);
+    }
+
+    @Override
+    public int compareTo(@NonNull Request other) {
+      if (mPriority != other.mPriority) {
+        return mPriority > other.mPriority ? -1 : 1;
+      }
+
+      return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+    }
+  }
+}
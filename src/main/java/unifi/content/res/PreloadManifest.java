@@ -0,0 +1,143 @@
+package unifi.content.res;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import unifi.graphics.Font;
+import unifi.graphics.ImageDecoder;
+
+/**
+ * The assets a screen needs before it is first drawn, which are loaded
+ * together by {@link Resources#preload(PreloadManifest)}. A manifest may
+ * {@linkplain #include(PreloadManifest) include} the manifests of the
+ * components of its screen, whose assets are then loaded along with its own,
+ * so each component only declares the assets it uses directly. Assets needed
+ * by several manifests are only loaded once.
+ */
+public class PreloadManifest {
+
+  @NonNull private final List<Image> mImages = new ArrayList<>();
+  @NonNull private final List<FontAsset> mFonts = new ArrayList<>();
+  @NonNull private final List<PreloadManifest> mIncludes = new ArrayList<>();
+
+  /**
+   * Adds the image at the specified path at its original size.
+   *
+   * @see Resources#getTextureRegion(String)
+   */
+  public void addImage(@NonNull String path) {
+    addImage(path, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+  }
+
+  /**
+   * Adds the image at the specified path downsampled to the size at which it
+   * is displayed.
+   *
+   * @see Resources#getTextureRegion(String, int, int)
+   */
+  public void addImage(@NonNull String path, int width, int height) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    mImages.add(new Image(path, width, height));
+  }
+
+  /**
+   * Adds the bitmap font at the specified path.
+   *
+   * @see Resources#getFont(String)
+   */
+  public void addFont(@NonNull String path) {
+    addFont(path, Font.DISTANCE_FIELD_NONE, 0);
+  }
+
+  /**
+   * Adds the bitmap font at the specified path, whose pages may store the
+   * distance fields of its glyphs.
+   *
+   * @see Resources#getFont(String, int, float)
+   */
+  public void addFont(@NonNull String path, @Font.DistanceField int distanceField,
+                      float spread) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    mFonts.add(new FontAsset(path, distanceField, spread));
+  }
+
+  /**
+   * Includes the assets of the specified manifest, and of the manifests it
+   * includes, in this manifest.
+   */
+  public void include(@NonNull PreloadManifest manifest) {
+    if (manifest == null) {
+      throw new IllegalArgumentException("manifest cannot be null");
+    }
+
+    mIncludes.add(manifest);
+  }
+
+  /**
+   * Collects the assets of this manifest and of the manifests it includes,
+   * transitively, without duplicates. Manifests included several times, or
+   * including each other, are only visited once.
+   *
+   * @param visited The manifests already visited
+   * @param images  The images collected, by cache key
+   * @param fonts   The fonts collected, by path
+   */
+  void resolve(@NonNull Set<PreloadManifest> visited, @NonNull Map<String, Image> images,
+               @NonNull Map<String, FontAsset> fonts) {
+    if (!visited.add(this)) {
+      return;
+    }
+
+    for (Image image : mImages) {
+      if (!images.containsKey(image.mKey)) {
+        images.put(image.mKey, image);
+      }
+    }
+
+    for (FontAsset font : mFonts) {
+      if (!fonts.containsKey(font.mPath)) {
+        fonts.put(font.mPath, font);
+      }
+    }
+
+    for (PreloadManifest include : mIncludes) {
+      include.resolve(visited, images, fonts);
+    }
+  }
+
+  static final class Image {
+    @NonNull final String mPath;
+    @NonNull final String mKey;
+    final int mWidth;
+    final int mHeight;
+
+    Image(@NonNull String path, int width, int height) {
+      mPath = path;
+      mKey = ImageDecoder.getCacheKey(path, width, height);
+      mWidth = width;
+      mHeight = height;
+    }
+  }
+
+  static final class FontAsset {
+    @NonNull final String mPath;
+    @Font.DistanceField final int mDistanceField;
+    final float mSpread;
+
+    FontAsset(@NonNull String path, @Font.DistanceField int distanceField, float spread) {
+      mPath = path;
+      mDistanceField = distanceField;
+      mSpread = spread;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package unifi.content.res;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Timings of a call to {@link Resources#preload(PreloadManifest)}, broken
+ * down by phase, so that the cost of starting a screen can be attributed.
+ */
+public final class PreloadResult {
+
+  final int mImageCount;
+  final int mFontCount;
+  final int mFailureCount;
+  final long mResolveNanos;
+  final long mDecodeNanos;
+  final long mUploadNanos;
+
+  PreloadResult(int imageCount, int fontCount, int failureCount,
+                long resolveNanos, long decodeNanos, long uploadNanos) {
+    mImageCount = imageCount;
+    mFontCount = fontCount;
+    mFailureCount = failureCount;
+    mResolveNanos = resolveNanos;
+    mDecodeNanos = decodeNanos;
+    mUploadNanos = uploadNanos;
+  }
+
+  /**
+   * Returns the number of images loaded, excluding those which were already
+   * loaded.
+   */
+  public int getImageCount() {
+    return mImageCount;
+  }
+
+  /**
+   * Returns the number of fonts loaded, excluding those which were already
+   * loaded.
+   */
+  public int getFontCount() {
+    return mFontCount;
+  }
+
+  /**
+   * Returns the number of images and fonts which could not be loaded, and
+   * which are instead loaded when they are first used.
+   */
+  public int getFailureCount() {
+    return mFailureCount;
+  }
+
+  /**
+   * Returns the time spent collecting the assets of the manifest and of the
+   * manifests it includes, in nanoseconds.
+   */
+  public long getResolveNanos() {
+    return mResolveNanos;
+  }
+
+  /**
+   * Returns the time spent reading and decoding the images in parallel, and
+   * loading the fonts, in nanoseconds.
+   */
+  public long getDecodeNanos() {
+    return mDecodeNanos;
+  }
+
+  /**
+   * Returns the time spent uploading the decoded images to the GPU, in
+   * nanoseconds.
+   */
+  public long getUploadNanos() {
+    return mUploadNanos;
+  }
+
+  /**
+   * Returns the total time spent preloading, in nanoseconds.
+   */
+  public long getTotalNanos() {
+    return mResolveNanos + mDecodeNanos + mUploadNanos;
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    return "PreloadResult{"
+        + "images=" + mImageCount
+        + ", fonts=" + mFontCount
+        + ", failures=" + mFailureCount
+        + ", resolve=" + mResolveNanos / 1000 + "us"
+        + ", decode=" + mDecodeNanos / 1000 + "us"
+        + ", upload=" + mUploadNanos / 1000 + "us"
+        + '}';
+  }
+}
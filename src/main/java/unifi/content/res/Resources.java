@@ -1,23 +1,115 @@
 package unifi.content.res;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.BitmapFontLoader;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import unifi.graphics.AtlasManager;
+import unifi.graphics.Font;
+import unifi.graphics.ImageDecoder;
+import unifi.graphics.ReloadableTexture;
+import unifi.graphics.TextureRegistry;
+import unifi.graphics.drawable.Drawable;
+import unifi.graphics.drawable.TextureDrawable;
+import unifi.util.Log;
 
 public class Resources implements Disposable {
 
   @NonNull static final String TAG = "Resources";
 
+  /**
+   * Estimated size of a pixel of the images loaded, as stored by the atlas,
+   * see {@link #getDrawableBytesSaved()}.
+   */
+  static final int BYTES_PER_PIXEL = 4;
+
   @NonNull final AssetManager mAssets;
 
-  private Resources() {
-    mAssets = new AssetManager();
+  /**
+   * Resolver of {@link #mAssets}, which reads the assets in the asset bundle,
+   * if any, from the bundle.
+   */
+  @NonNull final BundleFileHandleResolver mResolver;
+
+  @NonNull final AtlasManager mAtlas;
+
+  @NonNull final Map<String, Font> mFonts = new HashMap<>();
+  @Nullable Font mDefaultFont;
+
+  @Nullable ImageLoader mImageLoader;
+
+  /**
+   * Textures of the images too large to be packed, by path, which are
+   * evicted by the {@link TextureRegistry} when over its budget.
+   */
+  @NonNull final Map<String, ReloadableTexture> mTextures = new HashMap<>();
+
+  /**
+   * Constant states of the drawables loaded by {@link #getDrawable(String)},
+   * which are only retained while a drawable sharing them is reachable.
+   */
+  @NonNull final Map<String, WeakReference<Drawable.ConstantState>> mDrawableCache
+      = new HashMap<>();
+
+  private int mDrawableCacheHits;
+  private int mDrawableCacheMisses;
+  private long mDrawableBytesSaved;
+
+  public Resources() {
+    mResolver = new BundleFileHandleResolver(new InternalFileHandleResolver());
+    mAssets = new AssetManager(mResolver);
+    mAtlas = new AtlasManager();
   }
 
   @Override
   public void dispose() {
+    for (Font font : mFonts.values()) {
+      font.dispose();
+    }
+
+    mFonts.clear();
+    mDrawableCache.clear();
+    if (mDefaultFont != null) {
+      mDefaultFont.dispose();
+      mDefaultFont = null;
+    }
+
+    if (mImageLoader != null) {
+      mImageLoader.dispose();
+      mImageLoader = null;
+    }
+
+    for (ReloadableTexture texture : mTextures.values()) {
+      texture.dispose();
+    }
+
+    mTextures.clear();
     mAssets.dispose();
+    mAtlas.dispose();
   }
 
   /**
@@ -27,4 +119,609 @@ public class Resources implements Disposable {
   public final AssetManager getAssets() {
     return mAssets;
   }
+
+  /**
+   * Returns the asset bundle from which assets are read, or {@code null} if
+   * they are read from individual files.
+   */
+  @Nullable
+  public AssetBundle getAssetBundle() {
+    return mResolver.getBundle();
+  }
+
+  /**
+   * Sets the asset bundle from which assets are read. Assets whose paths are
+   * in the bundle are read from its mapped memory, without opening their
+   * files, and the others are read from their files. The bundle is not
+   * disposed by these resources.
+   *
+   * @param bundle The asset bundle, or {@code null} to read every asset from
+   *               its file
+   */
+  public void setAssetBundle(@Nullable AssetBundle bundle) {
+    mResolver.setBundle(bundle);
+  }
+
+  /**
+   * Returns the path of the asset with the specified id in the asset bundle.
+   *
+   * @throws IllegalStateException if there is no asset bundle
+   */
+  @NonNull
+  public String getAssetPath(int id) {
+    final AssetBundle bundle = mResolver.getBundle();
+    if (bundle == null) {
+      throw new IllegalStateException("No asset bundle has been set");
+    }
+
+    return bundle.getPath(id);
+  }
+
+  /**
+   * Returns the atlas into which small images loaded through these resources
+   * are packed.
+   */
+  @NonNull
+  public final AtlasManager getAtlas() {
+    return mAtlas;
+  }
+
+  /**
+   * Returns the loader of the images loaded asynchronously through these
+   * resources, creating it if necessary.
+   */
+  @NonNull
+  public ImageLoader getImageLoader() {
+    if (mImageLoader == null) {
+      mImageLoader = new ImageLoader(mAssets.getFileHandleResolver(), mAtlas);
+    }
+
+    return mImageLoader;
+  }
+
+  /**
+   * Uploads the images loaded asynchronously which were decoded since the last
+   * call, within the specified time budget. This is called once per frame by
+   * the view root, before the atlas is updated.
+   *
+   * @return The number of images uploaded
+   *
+   * @see ImageLoader#update(long)
+   */
+  public int updateImages(long budgetNanos) {
+    return mImageLoader != null ? mImageLoader.update(budgetNanos) : 0;
+  }
+
+  /**
+   * Loads the image at the specified path and returns a region containing it.
+   * Images small enough to be {@linkplain AtlasManager#canPack packed} are
+   * packed into the {@linkplain #getAtlas() atlas}, so that they share the
+   * same texture as the other small images, and larger images are loaded as
+   * their own {@link ReloadableTexture}, which the {@link TextureRegistry}
+   * may evict when they are not drawn, and reloads when they are drawn again.
+   *
+   * <p>Images in compressed GPU formats, i.e., ETC1 and KTX files (see
+   * {@link ImageDecoder#isCompressed(String)}), are uploaded as they are with
+   * their mip levels, if any, and are never packed.
+   *
+   * <p>Note: Regions of packed images are only usable once the atlas has been
+   * {@linkplain AtlasManager#update() updated}.
+   *
+   * @param path The path of the image, resolved by the asset manager
+   */
+  @NonNull
+  public TextureRegion getTextureRegion(@NonNull String path) {
+    return getTextureRegion(path, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+  }
+
+  /**
+   * Loads the image with the specified id in the asset bundle and returns a
+   * region containing it.
+   *
+   * @see #getTextureRegion(String)
+   */
+  @NonNull
+  public TextureRegion getTextureRegion(int id) {
+    return getTextureRegion(getAssetPath(id));
+  }
+
+  /**
+   * Loads the image at the specified path {@linkplain ImageDecoder downsampled}
+   * to the size at which it is displayed, e.g., the measured size of its view,
+   * and returns a region containing it. Downsampled images are cached by path
+   * and {@linkplain ImageDecoder#getSizeBucket(int) size bucket}, and packed
+   * or given their own textures like {@link #getTextureRegion(String)}.
+   *
+   * @param path   The path of the image, resolved by the asset manager
+   * @param width  The width at which the image is displayed, in pixels, or
+   *               {@link ImageDecoder#ORIGINAL_SIZE}
+   * @param height The height at which the image is displayed, in pixels, or
+   *               {@link ImageDecoder#ORIGINAL_SIZE}
+   */
+  @NonNull
+  public TextureRegion getTextureRegion(@NonNull String path, int width, int height) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    final String key = ImageDecoder.getCacheKey(path, width, height);
+    TextureRegion region = findTextureRegion(key);
+    if (region != null) {
+      return region;
+    }
+
+    final FileHandle file = mAssets.getFileHandleResolver().resolve(path);
+    if (ImageDecoder.isCompressed(path)) {
+      return putTexture(key, new ReloadableTexture(file));
+    }
+
+    return putImage(key, path, file, ImageDecoder.decode(file, width, height), width, height);
+  }
+
+  /**
+   * Packs the specified decoded image into the atlas if it is small enough,
+   * or else uploads it as its own texture, and caches it under the specified
+   * key. The pixmap is owned by this method.
+   */
+  @NonNull
+  private TextureRegion putImage(@NonNull String key, @NonNull String path,
+                                 @NonNull FileHandle file, @NonNull Pixmap pixmap,
+                                 int width, int height) {
+    if (mAtlas.canPack(pixmap.getWidth(), pixmap.getHeight())) {
+      final TextureRegion region = mAtlas.pack(key, pixmap);
+      pixmap.dispose();
+      return region;
+    }
+
+    if (key.equals(path)) {
+      return putTexture(key, new ReloadableTexture(file, pixmap));
+    }
+
+    return putTexture(key, new ReloadableTexture(file, pixmap, width, height, false));
+  }
+
+  @NonNull
+  private TextureRegion putTexture(@NonNull String key, @NonNull ReloadableTexture texture) {
+    mTextures.put(key, texture);
+    return new TextureRegion(texture);
+  }
+
+  /**
+   * Returns the region of the image cached under the specified key, or
+   * {@code null} if it has not been loaded yet.
+   */
+  @Nullable
+  private TextureRegion findTextureRegion(@NonNull String key) {
+    TextureRegion region = mAtlas.findRegion(key);
+    if (region != null) {
+      return region;
+    }
+
+    if (mImageLoader != null) {
+      region = mImageLoader.findRegion(key);
+      if (region != null) {
+        return region;
+      }
+    }
+
+    final ReloadableTexture texture = mTextures.get(key);
+    return texture != null ? new TextureRegion(texture) : null;
+  }
+
+  /**
+   * Loads the assets of the specified manifest, and of the manifests it
+   * includes, which have not been loaded yet, so that the screen using them
+   * can be drawn without loading anything. This should be called before the
+   * first frame of the screen is drawn, e.g., when it is created, and blocks
+   * until every asset is uploaded:
+   * <ol>
+   * <li><em>Resolve</em>: the manifests are flattened into the unique assets
+   *     which are not cached yet.
+   * <li><em>Decode</em>: the images are read and decoded in parallel, on one
+   *     thread per available core, while the asset manager loads the fonts.
+   * <li><em>Upload</em>: the decoded images are packed into the atlas, which
+   *     is then updated, or uploaded as their own textures, on the calling
+   *     thread, which must own the GL context.
+   * </ol>
+   * Images which cannot be decoded are logged and skipped, and are loaded
+   * again when they are first used.
+   *
+   * @return The timings of each phase
+   */
+  @NonNull
+  public PreloadResult preload(@NonNull PreloadManifest manifest) {
+    if (manifest == null) {
+      throw new IllegalArgumentException("manifest cannot be null");
+    }
+
+    final long resolveStart = System.nanoTime();
+    final Map<String, PreloadManifest.Image> images = new LinkedHashMap<>();
+    final Map<String, PreloadManifest.FontAsset> fonts = new LinkedHashMap<>();
+    manifest.resolve(new HashSet<PreloadManifest>(), images, fonts);
+    for (Iterator<String> it = images.keySet().iterator(); it.hasNext(); ) {
+      if (findTextureRegion(it.next()) != null) {
+        it.remove();
+      }
+    }
+
+    fonts.keySet().removeAll(mFonts.keySet());
+
+    final long decodeStart = System.nanoTime();
+    final List<Future<PreloadTask>> tasks = new ArrayList<>(images.size());
+    if (!images.isEmpty()) {
+      final int threads = Math.min(images.size(), Runtime.getRuntime().availableProcessors());
+      final ExecutorService executor = Executors.newFixedThreadPool(threads);
+      for (PreloadManifest.Image image : images.values()) {
+        final FileHandle file = mAssets.getFileHandleResolver().resolve(image.mPath);
+        tasks.add(executor.submit(new PreloadTask(image, file)));
+      }
+
+      executor.shutdown();
+    }
+
+    int failures = 0;
+    for (PreloadManifest.FontAsset font : fonts.values()) {
+      loadFont(font.mPath);
+    }
+
+    while (true) {
+      try {
+        // The asset manager reads the fonts on its own thread meanwhile
+        mAssets.finishLoading();
+        break;
+      } catch (GdxRuntimeException e) {
+        Log.e(TAG, "Failed to preload font", e);
+        failures++;
+      }
+    }
+
+    final List<PreloadTask> decoded = new ArrayList<>(tasks.size());
+    boolean interrupted = false;
+    for (Future<PreloadTask> task : tasks) {
+      while (true) {
+        try {
+          decoded.add(task.get());
+          break;
+        } catch (InterruptedException e) {
+          // Decoding cannot be interrupted, so wait for it regardless
+          interrupted = true;
+        } catch (ExecutionException e) {
+          throw new GdxRuntimeException(e.getCause());
+        }
+      }
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    final long uploadStart = System.nanoTime();
+    for (PreloadTask task : decoded) {
+      final PreloadManifest.Image image = task.mImage;
+      if (task.mTextureData != null) {
+        putTexture(image.mKey, new ReloadableTexture(task.mFile, task.mTextureData));
+      } else if (task.mPixmap != null) {
+        putImage(image.mKey, image.mPath, task.mFile, task.mPixmap, image.mWidth, image.mHeight);
+      } else {
+        failures++;
+      }
+    }
+
+    mAtlas.update();
+    for (PreloadManifest.FontAsset font : fonts.values()) {
+      if (mAssets.isLoaded(font.mPath, BitmapFont.class)) {
+        putFont(font.mPath, font.mDistanceField, font.mSpread);
+      }
+    }
+
+    final long uploadEnd = System.nanoTime();
+    final PreloadResult result = new PreloadResult(images.size(), fonts.size(), failures,
+        decodeStart - resolveStart, uploadStart - decodeStart, uploadEnd - uploadStart);
+    Log.d(TAG, result.toString());
+    return result;
+  }
+
+  /**
+   * Returns a new drawable of the image at the specified path. The image is
+   * only loaded once, and drawables of the same path share a single
+   * {@linkplain Drawable#getConstantState() constant state} for as long as
+   * any of them is reachable. Changes to the state of one of them, e.g., its
+   * alpha, propagate to the others, unless it is
+   * {@linkplain Drawable#mutate() mutated} first.
+   *
+   * @param path The path of the image, see {@link #getTextureRegion(String)}
+   */
+  @NonNull
+  public Drawable getDrawable(@NonNull String path) {
+    return getDrawable(path, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+  }
+
+  /**
+   * Returns a new drawable of the image with the specified id in the asset
+   * bundle.
+   *
+   * @see #getDrawable(String)
+   */
+  @NonNull
+  public Drawable getDrawable(int id) {
+    return getDrawable(getAssetPath(id));
+  }
+
+  /**
+   * Returns a new drawable of the image at the specified path downsampled to
+   * the size at which it is displayed. Drawables of the same path and size
+   * bucket share their state, see {@link #getDrawable(String)}.
+   *
+   * @param path   The path of the image
+   * @param width  The width at which the image is displayed, in pixels, or
+   *               {@link ImageDecoder#ORIGINAL_SIZE}
+   * @param height The height at which the image is displayed, in pixels, or
+   *               {@link ImageDecoder#ORIGINAL_SIZE}
+   *
+   * @see #getTextureRegion(String, int, int)
+   */
+  @NonNull
+  public Drawable getDrawable(@NonNull String path, int width, int height) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    final String key = ImageDecoder.getCacheKey(path, width, height);
+    final WeakReference<Drawable.ConstantState> ref = mDrawableCache.get(key);
+    final Drawable.ConstantState state = ref != null ? ref.get() : null;
+    if (state != null) {
+      // The state retains the region, so its image is still loaded
+      final Drawable drawable = state.newDrawable();
+      mDrawableCacheHits++;
+      mDrawableBytesSaved += getByteCount(key);
+      return drawable;
+    }
+
+    mDrawableCacheMisses++;
+    purgeDrawableCache();
+    final boolean loaded = isImageLoaded(key);
+    final Drawable drawable = new TextureDrawable(getTextureRegion(path, width, height));
+    if (loaded) {
+      mDrawableBytesSaved += getByteCount(key);
+    }
+
+    mDrawableCache.put(key, new WeakReference<>(drawable.getConstantState()));
+    return drawable;
+  }
+
+  /**
+   * Indicates whether or not the image with the specified cache key is loaded,
+   * either packed into the atlas or as its own texture.
+   */
+  private boolean isImageLoaded(@NonNull String key) {
+    return mAtlas.findRegion(key) != null || mTextures.containsKey(key);
+  }
+
+  /**
+   * Returns the estimated size of the image cached under the specified key,
+   * in bytes. The size is taken from the bounds the image was packed into, or
+   * from its texture, rather than from a drawable of it, whose intrinsic size
+   * is still 0 if it was packed since the atlas was last updated.
+   */
+  private long getByteCount(@NonNull String key) {
+    final TextureRegion region = findTextureRegion(key);
+    if (region == null) {
+      return 0;
+    }
+
+    return (long) region.getRegionWidth() * region.getRegionHeight() * BYTES_PER_PIXEL;
+  }
+
+  /**
+   * Returns a drawable of the image at the specified path without blocking
+   * the rendering thread to load it. If the image has not been loaded yet,
+   * then it is decoded in the background by the {@linkplain #getImageLoader()
+   * image loader}, and the returned drawable draws the specified placeholder
+   * until it is uploaded, and then invalidates itself.
+   *
+   * @param path        The path of the image, resolved by the asset manager
+   * @param placeholder The drawable drawn until the image is loaded, or
+   *                    {@code null} to draw nothing
+   *
+   * @see unifi.graphics.drawable.AsyncDrawable
+   */
+  @NonNull
+  public Drawable getDrawableAsync(@NonNull String path, @Nullable Drawable placeholder) {
+    return getDrawableAsync(path, placeholder,
+        ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+  }
+
+  /**
+   * Returns a drawable of the image at the specified path downsampled to the
+   * size at which it is displayed, without blocking the rendering thread to
+   * load it, see {@link #getDrawableAsync(String, Drawable)}.
+   *
+   * @param path        The path of the image, resolved by the asset manager
+   * @param placeholder The drawable drawn until the image is loaded, or
+   *                    {@code null} to draw nothing
+   * @param width       The width at which the image is displayed, in pixels,
+   *                    or {@link ImageDecoder#ORIGINAL_SIZE}
+   * @param height      The height at which the image is displayed, in pixels,
+   *                    or {@link ImageDecoder#ORIGINAL_SIZE}
+   */
+  @NonNull
+  public Drawable getDrawableAsync(@NonNull String path, @Nullable Drawable placeholder,
+                                   int width, int height) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    final String key = ImageDecoder.getCacheKey(path, width, height);
+    final WeakReference<Drawable.ConstantState> ref = mDrawableCache.get(key);
+    if ((ref != null && ref.get() != null) || isImageLoaded(key)) {
+      return getDrawable(path, width, height);
+    }
+
+    return getImageLoader().load(path, placeholder, width, height);
+  }
+
+  /**
+   * Removes the entries of drawables which are no longer reachable.
+   */
+  private void purgeDrawableCache() {
+    final Iterator<WeakReference<Drawable.ConstantState>> it
+        = mDrawableCache.values().iterator();
+    while (it.hasNext()) {
+      if (it.next().get() == null) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of drawables whose state was found in the cache since
+   * the last call to {@link #resetDrawableCacheStatistics()}, i.e., which
+   * shared the state of another drawable instead of creating their own.
+   */
+  public int getDrawableCacheHits() {
+    return mDrawableCacheHits;
+  }
+
+  /**
+   * Returns the number of drawables whose state was not in the cache, and so
+   * was created, since the last call to
+   * {@link #resetDrawableCacheStatistics()}. Their image is only loaded if it
+   * is not already, see {@link #getDrawableBytesSaved()}.
+   */
+  public int getDrawableCacheMisses() {
+    return mDrawableCacheMisses;
+  }
+
+  /**
+   * Returns an estimate of the number of texture bytes which were not
+   * allocated because the image of a drawable was already loaded, since the
+   * last call to {@link #resetDrawableCacheStatistics()}. Images are shared
+   * by the atlas and the textures of these resources whether or not the
+   * state of their drawables is cached, so this counts every drawable of an
+   * image but the one which loaded it, including cache misses.
+   */
+  public long getDrawableBytesSaved() {
+    return mDrawableBytesSaved;
+  }
+
+  /**
+   * Resets the drawable cache statistics.
+   */
+  public void resetDrawableCacheStatistics() {
+    mDrawableCacheHits = 0;
+    mDrawableCacheMisses = 0;
+    mDrawableBytesSaved = 0;
+  }
+
+  /**
+   * Loads the bitmap font at the specified path and returns it. Fonts are
+   * shared, so all text drawn with the same font shares its glyph pages and
+   * its cache of glyph runs.
+   *
+   * @param path The path of the {@code .fnt} file, resolved by the asset manager
+   */
+  @NonNull
+  public Font getFont(@NonNull String path) {
+    return getFont(path, Font.DISTANCE_FIELD_NONE, 0);
+  }
+
+  /**
+   * Loads the bitmap font at the specified path, whose pages may store the
+   * distance fields of its glyphs, and returns it. A distance field font is
+   * drawn sharply at every text size, so a single font is enough for all of
+   * them. Fonts are cached by path, so the same path should always be loaded
+   * as the same kind of font.
+   *
+   * @param path          The path of the {@code .fnt} file, resolved by the
+   *                      asset manager
+   * @param distanceField The contents of the pages of the font
+   * @param spread        The distance from the edges of the glyphs at which
+   *                      their distance fields saturate, in texels
+   *
+   * @see Font#Font(BitmapFont, boolean, int, int, float)
+   */
+  @NonNull
+  public Font getFont(@NonNull String path, @Font.DistanceField int distanceField,
+                      float spread) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    Font font = mFonts.get(path);
+    if (font != null) {
+      return font;
+    }
+
+    loadFont(path);
+    mAssets.finishLoadingAsset(path);
+    return putFont(path, distanceField, spread);
+  }
+
+  /**
+   * Queues the bitmap font at the specified path to be loaded by the asset
+   * manager.
+   */
+  private void loadFont(@NonNull String path) {
+    BitmapFontLoader.BitmapFontParameter params = new BitmapFontLoader.BitmapFontParameter();
+    params.flip = true; // Canvas is y-down
+    mAssets.load(path, BitmapFont.class, params);
+  }
+
+  /**
+   * Wraps the bitmap font at the specified path, which must have been loaded
+   * by the asset manager, and caches it.
+   */
+  @NonNull
+  private Font putFont(@NonNull String path, @Font.DistanceField int distanceField,
+                       float spread) {
+    final Font font = new Font(mAssets.get(path, BitmapFont.class), false,
+        Font.DEFAULT_GLYPH_RUN_CACHE_SIZE, distanceField, spread);
+    mFonts.put(path, font);
+    return font;
+  }
+
+  /**
+   * Returns the font used to draw text when no other font is specified, which
+   * is the font embedded in libGDX.
+   */
+  @NonNull
+  public Font getDefaultFont() {
+    if (mDefaultFont == null) {
+      mDefaultFont = new Font(new BitmapFont(true), true, Font.DEFAULT_GLYPH_RUN_CACHE_SIZE);
+    }
+
+    return mDefaultFont;
+  }
+
+  /**
+   * Decodes an image of a manifest on a thread of the preloading pool.
+   */
+  private static final class PreloadTask implements Callable<PreloadTask> {
+    @NonNull final PreloadManifest.Image mImage;
+    @NonNull final FileHandle mFile;
+    @Nullable Pixmap mPixmap;
+    @Nullable TextureData mTextureData;
+
+    PreloadTask(@NonNull PreloadManifest.Image image, @NonNull FileHandle file) {
+      mImage = image;
+      mFile = file;
+    }
+
+    @Override
+    public PreloadTask call() {
+      try {
+        if (ImageDecoder.isCompressed(mImage.mPath)) {
+          final TextureData data = ImageDecoder.loadCompressed(mFile);
+          data.prepare();
+          mTextureData = data;
+        } else {
+          mPixmap = ImageDecoder.decode(mFile, mImage.mWidth, mImage.mHeight);
+        }
+      } catch (RuntimeException e) {
+        Log.e(TAG, "Failed to decode " + mImage.mPath, e);
+      }
+
+      return this;
+    }
+  }
 }
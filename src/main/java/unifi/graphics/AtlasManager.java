@@ -0,0 +1,283 @@
+package unifi.graphics;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs small images into shared texture pages at runtime, so that drawing
+ * many of them (e.g., a grid of icons) does not need to switch textures, and
+ * therefore does not need to flush the batch, between each of them.
+ *
+ * <p>Images are packed on the CPU by {@link #pack(String, Pixmap)}, which
+ * returns a {@link TextureRegion} immediately, however that region is only
+ * usable after the next call to {@link #update()}, which uploads the modified
+ * pages. Until then, the region has no texture, but already has the size of
+ * the image, so that views drawing it can be measured. {@link #update()} must
+ * be called on the rendering thread.
+ *
+ * <p>Every atlas contains a {@linkplain #getWhitePixel() white pixel} which
+ * {@link Canvas} can tint to draw solid colors using the same texture as the
+ * packed images.
+ */
+public class AtlasManager implements Disposable {
+
+  /**
+   * Default width and height of each page, in pixels.
+   */
+  public static final int DEFAULT_PAGE_SIZE = 1024;
+
+  /**
+   * Default maximum width and height of the images which will be packed, in
+   * pixels. Larger images should be given their own textures.
+   */
+  public static final int DEFAULT_MAX_PACKED_SIZE = 128;
+
+  /**
+   * Number of transparent pixels between each packed image, to avoid bleeding
+   * when sampled with linear filtering.
+   */
+  private static final int PADDING = 2;
+
+  private static final String WHITE_PIXEL_NAME = "unifi:white";
+
+  @NonNull private final PixmapPacker mPacker;
+  private final int mMaxPackedSize;
+
+  @NonNull private final Map<String, TextureRegion> mRegions = new HashMap<>();
+  @NonNull private final List<PendingRegion> mPending = new ArrayList<>();
+
+  @NonNull private final TextureRegion mWhitePixel;
+
+  @NonNull private Texture.TextureFilter mMinFilter = Texture.TextureFilter.Linear;
+  @NonNull private Texture.TextureFilter mMagFilter = Texture.TextureFilter.Linear;
+
+  /**
+   * Constructs an atlas with pages of {@value #DEFAULT_PAGE_SIZE} pixels
+   * accepting images up to {@value #DEFAULT_MAX_PACKED_SIZE} pixels.
+   */
+  public AtlasManager() {
+    this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_PACKED_SIZE);
+  }
+
+  /**
+   * Constructs an atlas with pages of the specified size accepting images up
+   * to the specified maximum size.
+   *
+   * @param pageSize      The width and height of each page, in pixels
+   * @param maxPackedSize The maximum width and height of images which can be
+   *                      packed, in pixels
+   */
+  public AtlasManager(@IntRange(from = 1) int pageSize, @IntRange(from = 1) int maxPackedSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("pageSize must be > 0");
+    } else if (maxPackedSize <= 0 || maxPackedSize + PADDING > pageSize) {
+      throw new IllegalArgumentException("maxPackedSize must be in range (0.."
+          + (pageSize - PADDING) + "]");
+    }
+
+    mPacker = new PixmapPacker(pageSize, pageSize, Pixmap.Format.RGBA8888, PADDING, false);
+    mMaxPackedSize = maxPackedSize;
+
+    // 3x3 so that the center texel is surrounded by white when filtered
+    Pixmap white = new Pixmap(3, 3, Pixmap.Format.RGBA8888);
+    white.setColor(com.badlogic.gdx.graphics.Color.WHITE);
+    white.fill();
+    Rectangle bounds = mPacker.pack(WHITE_PIXEL_NAME, white);
+    white.dispose();
+    mWhitePixel = new PackedRegion(1, 1);
+    mPending.add(new PendingRegion(mWhitePixel, WHITE_PIXEL_NAME,
+        (int) bounds.x + 1, (int) bounds.y + 1, 1, 1));
+  }
+
+  /**
+   * Sets the filters used when sampling the pages of this atlas. This only
+   * applies to pages uploaded after this call.
+   */
+  public void setFilter(@NonNull Texture.TextureFilter minFilter,
+                        @NonNull Texture.TextureFilter magFilter) {
+    if (minFilter == null) {
+      throw new IllegalArgumentException("minFilter cannot be null");
+    } else if (magFilter == null) {
+      throw new IllegalArgumentException("magFilter cannot be null");
+    }
+
+    mMinFilter = minFilter;
+    mMagFilter = magFilter;
+  }
+
+  /**
+   * Indicates whether or not an image with the specified dimensions is small
+   * enough to be packed into this atlas.
+   */
+  public boolean canPack(int width, int height) {
+    return 0 < width && width <= mMaxPackedSize
+        && 0 < height && height <= mMaxPackedSize;
+  }
+
+  /**
+   * Packs the specified image into this atlas. The returned region is only
+   * usable after the next call to {@link #update()}, however its
+   * {@linkplain TextureRegion#getRegionWidth() width} and
+   * {@linkplain TextureRegion#getRegionHeight() height} are those of the
+   * image right away. If an image has already been packed with the same name,
+   * then its region is returned instead.
+   *
+   * <p>Note: The pixels are copied, so {@code pixmap} can be disposed once
+   * this returns.
+   *
+   * @param name   The unique name of the image, generally its path
+   * @param pixmap The image to pack
+   *
+   * @return The region of the atlas where the image is packed
+   *
+   * @throws IllegalArgumentException if the image cannot be packed
+   *
+   * @see #canPack(int, int)
+   */
+  @NonNull
+  public TextureRegion pack(@NonNull String name, @NonNull Pixmap pixmap) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    } else if (pixmap == null) {
+      throw new IllegalArgumentException("pixmap cannot be null");
+    } else if (!canPack(pixmap.getWidth(), pixmap.getHeight())) {
+      throw new IllegalArgumentException("Cannot pack " + name + ": "
+          + pixmap.getWidth() + "x" + pixmap.getHeight()
+          + " exceeds " + mMaxPackedSize + "x" + mMaxPackedSize);
+    }
+
+    TextureRegion region = mRegions.get(name);
+    if (region != null) {
+      return region;
+    }
+
+    Rectangle bounds = mPacker.pack(name, pixmap);
+    region = new PackedRegion((int) bounds.width, (int) bounds.height);
+    mRegions.put(name, region);
+    mPending.add(new PendingRegion(region, name,
+        (int) bounds.x, (int) bounds.y, (int) bounds.width, (int) bounds.height));
+    return region;
+  }
+
+  /**
+   * Returns the region of the image packed with the specified name, or
+   * {@code null} if no such image has been packed.
+   */
+  @Nullable
+  public TextureRegion findRegion(@NonNull String name) {
+    return mRegions.get(name);
+  }
+
+  /**
+   * Returns the region of the white pixel packed into this atlas. Drawing this
+   * region tinted with a color draws that solid color.
+   */
+  @NonNull
+  public TextureRegion getWhitePixel() {
+    return mWhitePixel;
+  }
+
+  /**
+   * Returns the number of pages used by this atlas.
+   */
+  public int getPageCount() {
+    return mPacker.getPages().size;
+  }
+
+  /**
+   * Uploads the pages which were modified since the last call and resolves
+   * the regions of the images packed since then. This must be called on the
+   * rendering thread, before the packed regions are drawn.
+   *
+   * @return {@code true} if any pages were uploaded, {@code false} otherwise
+   */
+  public boolean update() {
+    if (mPending.isEmpty()) {
+      return false;
+    }
+
+    for (PixmapPacker.Page page : mPacker.getPages()) {
+      page.updateTexture(mMinFilter, mMagFilter, false);
+      TextureRegistry.getInstance().register(page.getTexture());
+    }
+
+    for (PendingRegion pending : mPending) {
+      int pageIndex = mPacker.getPageIndex(pending.mName);
+      Texture texture = mPacker.getPages().get(pageIndex).getTexture();
+      pending.mRegion.setTexture(texture);
+      pending.mRegion.setRegion(pending.mX, pending.mY, pending.mWidth, pending.mHeight);
+    }
+
+    mPending.clear();
+    return true;
+  }
+
+  @Override
+  public void dispose() {
+    for (PixmapPacker.Page page : mPacker.getPages()) {
+      if (page.getTexture() != null) {
+        TextureRegistry.getInstance().unregister(page.getTexture());
+      }
+    }
+
+    mPacker.dispose();
+    mRegions.clear();
+    mPending.clear();
+  }
+
+  /**
+   * Region of a packed image, which has the size of the image before its page
+   * is uploaded and its texture set.
+   */
+  private static final class PackedRegion extends TextureRegion {
+    final int mWidth;
+    final int mHeight;
+
+    PackedRegion(int width, int height) {
+      mWidth = width;
+      mHeight = height;
+    }
+
+    @Override
+    public int getRegionWidth() {
+      return getTexture() != null ? super.getRegionWidth() : mWidth;
+    }
+
+    @Override
+    public int getRegionHeight() {
+      return getTexture() != null ? super.getRegionHeight() : mHeight;
+    }
+  }
+
+  private static final class PendingRegion {
+    @NonNull final TextureRegion mRegion;
+    @NonNull final String mName;
+    final int mX;
+    final int mY;
+    final int mWidth;
+    final int mHeight;
+
+    PendingRegion(@NonNull TextureRegion region, @NonNull String name,
+                  int x, int y, int width, int height) {
+      mRegion = region;
+      mName = name;
+      mX = x;
+      mY = y;
+      mWidth = width;
+      mHeight = height;
+    }
+  }
+}
@@ -6,13 +6,14 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.HdpiUtils;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Disposable;
@@ -29,17 +30,41 @@ public class Canvas implements Disposable {
 
   private static final int MAX_RECT_POOL_SIZE = 32;
 
+  /**
+   * Number of vertex components of a quad given to
+   * {@link #draw(Texture, float[], int, int)}.
+   */
+  public static final int QUAD_SIZE = 20;
+
   private static float convertColor(@ColorInt int color) {
     return NumberUtils.intToFloatColor(Color.abgr(color));
   }
 
   private final Vector3 tmp = new Vector3();
   private final Rect mScissors = new Rect();
+
+  /**
+   * Tracks the scissor state, so that unchanged clip bounds do not flush the
+   * batch or issue redundant calls. Shared with {@link #mUnifiBatch}, if any.
+   */
+  @NonNull private final GLStateCache mGLState;
   @NonNull private final Viewport mViewport;
 
   //region Batch
   @NonNull private final Batch mBatch;
   private final boolean mOwnsBatch;
+
+  /**
+   * {@link #mBatch} if it is a {@link UnifiBatch}, so that quads can be drawn
+   * with their color without changing the color of the batch.
+   */
+  @Nullable private final UnifiBatch mUnifiBatch;
+
+  /**
+   * {@link #mBatch} if it is a {@link SoftwareBatch}, whose scissor box is set
+   * on the batch instead of through OpenGL.
+   */
+  @Nullable private final SoftwareBatch mSoftwareBatch;
   @NonNull private final Matrix4 mTransformationMatrix;
   @Nullable BatchState mRestorableState;
 
@@ -78,9 +103,64 @@ public class Canvas implements Disposable {
   }
   //endregion
 
-  @NonNull private final Pixmap mPixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+  /**
+   * 1x1 white texture used to draw solid colors when no atlas is used.
+   */
   @Nullable private Texture mTexture;
 
+  /**
+   * Pixels of {@link #mTexture}, retained so that a {@link SoftwareBatch} can
+   * sample them.
+   */
+  @Nullable private Pixmap mPixmap;
+
+  /**
+   * Region of a white pixel, tinted to draw solid colors. Solid colors share
+   * the texture of this region, so they only break the batch if this region
+   * does not belong to the same texture as the images drawn around them.
+   */
+  @Nullable private TextureRegion mSolid;
+
+  /**
+   * Texture last {@linkplain TextureRegistry#touch(Texture) touched} in this
+   * frame, so consecutive quads of the same texture only touch it once.
+   */
+  @Nullable private Texture mTouchedTexture;
+
+  /**
+   * Number of render calls issued by the batch during the last frame, or
+   * {@code -1} if the batch does not report it.
+   */
+  private int mRenderCalls = -1;
+
+  /**
+   * Quads recorded since the clip bounds or transformation last changed, when
+   * they need to be reordered before being drawn.
+   */
+  @NonNull private final DrawCommandBuffer mCommands = new DrawCommandBuffer();
+
+  /**
+   * Number of batch breaks avoided by reordering quads during the last frame.
+   */
+  private int mBatchBreaksSaved;
+
+  /**
+   * Number of quads drawn with blending disabled in the opaque pass during the
+   * last frame.
+   */
+  private int mOpaqueQuads;
+
+  /**
+   * Number of quads rejected during the last frame because they were hidden
+   * behind opaque quads.
+   */
+  private int mRejectedQuads;
+
+  /**
+   * Scratch vertices of the glyph runs being drawn.
+   */
+  @NonNull private float[] mTextVertices = new float[32 * QUAD_SIZE];
+
   private static final int INITIAL_SAVE_COUNT = 16;
   private static final int SAVE_COUNT_GROW_SIZE = 16;
   @NonNull RectF[] mSaves;
@@ -94,7 +174,10 @@ public class Canvas implements Disposable {
     mViewport = new ScalingViewport(Scaling.fit,
         Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), camera);
 
-    mBatch = new SpriteBatch();
+    mGLState = new GLStateCache();
+    mUnifiBatch = new UnifiBatch(mGLState);
+    mSoftwareBatch = null;
+    mBatch = mUnifiBatch;
     mOwnsBatch = true;
     mTransformationMatrix = mBatch.getTransformMatrix();
 
@@ -103,12 +186,28 @@ public class Canvas implements Disposable {
   }
 
   public Canvas(@NonNull Viewport viewport) {
+    this(viewport, (GLStateCache) null);
+  }
+
+  /**
+   * Constructs a canvas drawing with its own {@link UnifiBatch}, which sets
+   * the OpenGL state through the specified state cache, e.g., one issuing its
+   * calls to a counting {@link com.badlogic.gdx.graphics.GL20} mock.
+   *
+   * @param viewport The viewport of the canvas
+   * @param state    The cache through which the canvas and its batch set the
+   *                 OpenGL state, or {@code null} to create one
+   */
+  public Canvas(@NonNull Viewport viewport, @Nullable GLStateCache state) {
     if (viewport == null) {
       throw new IllegalArgumentException("Cannot create a canvas with a null Viewport");
     }
 
     mViewport = viewport;
-    mBatch = new SpriteBatch();
+    mGLState = state != null ? state : new GLStateCache();
+    mUnifiBatch = new UnifiBatch(mGLState);
+    mSoftwareBatch = null;
+    mBatch = mUnifiBatch;
     mOwnsBatch = true;
     mTransformationMatrix = mBatch.getTransformMatrix();
 
@@ -122,6 +221,9 @@ public class Canvas implements Disposable {
     }
 
     mBatch = batch;
+    mUnifiBatch = batch instanceof UnifiBatch ? (UnifiBatch) batch : null;
+    mGLState = mUnifiBatch != null ? mUnifiBatch.getGLStateCache() : new GLStateCache();
+    mSoftwareBatch = batch instanceof SoftwareBatch ? (SoftwareBatch) batch : null;
     mOwnsBatch = false;
     mTransformationMatrix = batch.getTransformMatrix();
 
@@ -144,6 +246,9 @@ public class Canvas implements Disposable {
 
     mViewport = viewport;
     mBatch = batch;
+    mUnifiBatch = batch instanceof UnifiBatch ? (UnifiBatch) batch : null;
+    mGLState = mUnifiBatch != null ? mUnifiBatch.getGLStateCache() : new GLStateCache();
+    mSoftwareBatch = batch instanceof SoftwareBatch ? (SoftwareBatch) batch : null;
     mOwnsBatch = false;
     mTransformationMatrix = batch.getTransformMatrix();
 
@@ -171,8 +276,12 @@ public class Canvas implements Disposable {
   @CallSuper
   public final void dispose() {
     if (mOwnsBatch) mBatch.dispose();
-    mPixmap.dispose();
-    if (mTexture != null) mTexture.dispose();
+    if (mTexture != null) {
+      TextureRegistry.getInstance().unregister(mTexture);
+      mTexture.dispose();
+    }
+
+    if (mPixmap != null) mPixmap.dispose();
     onDispose();
   }
 
@@ -194,9 +303,21 @@ public class Canvas implements Disposable {
       mRestorableState.save(mBatch);
     }
 
-    mBatch.begin();
-    mBatch.enableBlending();
+    mCommands.resetStatistics();
+
+    mTouchedTexture = null;
+
+    // Other code may have modified the state since the last frame
+    mGLState.invalidate();
+    mGLState.resetStatistics();
+
+    // Set before begin() so the batch uploads its matrices only once
+    if (!mBatch.isBlendingEnabled()) {
+      mBatch.enableBlending();
+    }
+
     mBatch.setProjectionMatrix(mViewport.getCamera().combined);
+    mBatch.begin();
     onBegin();
   }
 
@@ -219,7 +340,18 @@ public class Canvas implements Disposable {
    * clipping.
    */
   public final void end() {
+    replayCommands();
+    mBatchBreaksSaved = mCommands.getBatchBreaksSaved();
+    mOpaqueQuads = mCommands.getOpaqueQuads();
+    mRejectedQuads = mCommands.getRejectedQuads();
     mBatch.end();
+    if (mUnifiBatch != null) {
+      mRenderCalls = mUnifiBatch.renderCalls;
+    } else if (mBatch instanceof SpriteBatch) {
+      mRenderCalls = ((SpriteBatch) mBatch).renderCalls;
+    } else {
+      mRenderCalls = -1;
+    }
     restoreToCount(0);
     onEnd();
 
@@ -235,10 +367,139 @@ public class Canvas implements Disposable {
    */
   protected final void onEnd() {}
 
+  /**
+   * Returns the number of render calls, that is, the number of times the batch
+   * was flushed to the GPU, issued during the last frame, or {@code -1} if the
+   * batch used by this canvas does not report it.
+   */
+  public int getRenderCalls() {
+    return mRenderCalls;
+  }
+
+  /**
+   * Returns the tracker through which this canvas sets its OpenGL state. Its
+   * statistics are reset by {@link #begin()}, so after {@link #end()} they
+   * describe the calls issued and elided during the last frame.
+   */
+  @NonNull
+  public GLStateCache getGLStateCache() {
+    return mGLState;
+  }
+
+  /**
+   * Sets the region of a white pixel which is tinted to draw solid colors,
+   * e.g., {@link AtlasManager#getWhitePixel()}. Drawing solid colors using
+   * the same texture as the images drawn around them avoids breaking the
+   * batch. If {@code null}, then a 1x1 white texture owned by this canvas is
+   * used.
+   */
+  public void setSolidColorRegion(@Nullable TextureRegion region) {
+    mSolid = region;
+  }
+
+  /**
+   * Indicates whether or not quads are reordered to reduce batch breaks.
+   *
+   * @see #setDrawReorderingEnabled(boolean)
+   */
+  public boolean isDrawReorderingEnabled() {
+    return mCommands.isReorderingEnabled();
+  }
+
+  /**
+   * Sets whether or not quads are reordered to reduce batch breaks. When
+   * enabled, draw calls are recorded until the clip bounds or transformation
+   * change, or the canvas is {@linkplain #flush() flushed}, and quads which do
+   * not overlap any of the quads drawn in-between are regrouped by texture
+   * and blend state. The relative order of overlapping quads is preserved, so
+   * the rendered result is unchanged.
+   *
+   * @see #getBatchBreaksSaved()
+   */
+  public void setDrawReorderingEnabled(boolean enabled) {
+    if (mCommands.isReorderingEnabled() != enabled) {
+      replayCommands();
+      mCommands.setReorderingEnabled(enabled);
+    }
+  }
+
+  /**
+   * Returns the number of batch breaks, that is, texture or blend state
+   * changes between consecutive quads, avoided by reordering quads during the
+   * last frame.
+   *
+   * @see #setDrawReorderingEnabled(boolean)
+   */
+  public int getBatchBreaksSaved() {
+    return mBatchBreaksSaved;
+  }
+
+  /**
+   * Indicates whether or not opaque quads are drawn first with blending
+   * disabled.
+   *
+   * @see #setOpaqueFirstEnabled(boolean)
+   */
+  public boolean isOpaqueFirstEnabled() {
+    return mCommands.isOpaqueFirstEnabled();
+  }
+
+  /**
+   * Sets whether or not opaque quads are drawn first with blending disabled.
+   * When enabled, draw calls are recorded until the clip bounds or
+   * transformation change, or the canvas is {@linkplain #flush() flushed}.
+   * Quads completely hidden behind opaque quads drawn after them are then
+   * rejected, and the remaining opaque quads are drawn in an opaque pass
+   * without blending before the translucent pass, which reduces the fill-rate
+   * cost of large opaque areas. The rendered result is unchanged.
+   *
+   * <p>A quad is opaque if it is tinted with a fully opaque color and is
+   * either a solid color or a texture whose format has no alpha channel.
+   *
+   * @see #getOpaqueQuadCount()
+   * @see #getRejectedQuadCount()
+   */
+  public void setOpaqueFirstEnabled(boolean enabled) {
+    if (mCommands.isOpaqueFirstEnabled() != enabled) {
+      replayCommands();
+      mCommands.setOpaqueFirstEnabled(enabled);
+    }
+  }
+
+  /**
+   * Returns the number of quads drawn with blending disabled in the opaque
+   * pass during the last frame.
+   *
+   * @see #setOpaqueFirstEnabled(boolean)
+   */
+  public int getOpaqueQuadCount() {
+    return mOpaqueQuads;
+  }
+
+  /**
+   * Returns the number of quads which were not drawn during the last frame
+   * because they were hidden behind opaque quads.
+   *
+   * @see #setOpaqueFirstEnabled(boolean)
+   */
+  public int getRejectedQuadCount() {
+    return mRejectedQuads;
+  }
+
+  /**
+   * Submits any recorded quads to the batch.
+   */
+  private void replayCommands() {
+    if (!mCommands.isEmpty()) {
+      mCommands.replay(mBatch);
+    }
+  }
+
   /**
    * Renders the pending draw commands to the canvas without calling {@link #end()}.
    */
   public final void flush() {
+    replayCommands();
     mBatch.flush();
     onFlush();
   }
@@ -293,7 +554,6 @@ public class Canvas implements Disposable {
    * @see #clipRect(Rect)
    */
   public boolean clipRect(float left, float top, float right, float bottom) {
-    flush();
     if (mClip == null) {
       assert mSaves.length > 0 : "mSaves initial size should be > 0";
       if (mSaves[0] != null) {
@@ -302,16 +562,70 @@ public class Canvas implements Disposable {
       } else {
         mClip = new RectF(left, top, right, bottom);
       }
+    } else if (!mClip.intersect(left, top, right, bottom)) {
+      mClip.set(left, top, left, top);
+    }
 
-      Gdx.gl.glEnable(GL20.GL_SCISSOR_TEST);
-    } else {
-      mClip.intersect(left, top, right, bottom);
+    return applyClip();
+  }
+
+  /**
+   * Applies the current clip bounds to the scissor state. Pending draw
+   * commands are only flushed if the scissor state actually changes.
+   *
+   * @return {@code true} if the clip bounds are non-empty, {@code false} otherwise
+   */
+  private boolean applyClip() {
+    if (mSoftwareBatch != null) {
+      return applySoftwareClip(mSoftwareBatch);
     }
 
-    calculateScissors(mScissors, left, top, right, bottom);
-    int width = mScissors.right - mScissors.left;
-    int height = mScissors.bottom - mScissors.top;
-    HdpiUtils.glScissor(mScissors.left, mScissors.top, width, height);
+    final GLStateCache state = mGLState;
+    if (mClip == null) {
+      if (state.wouldChangeScissorTest(false)) {
+        flush();
+      }
+
+      state.setScissorTestEnabled(false);
+      return true;
+    }
+
+    calculateScissors(mScissors, mClip.left, mClip.top, mClip.right, mClip.bottom);
+    final int width = Math.max(0, mScissors.right - mScissors.left);
+    final int height = Math.max(0, mScissors.bottom - mScissors.top);
+    final int x = HdpiUtils.toBackBufferX(mScissors.left);
+    final int y = HdpiUtils.toBackBufferY(mScissors.top);
+    final int backBufferWidth = HdpiUtils.toBackBufferX(width);
+    final int backBufferHeight = HdpiUtils.toBackBufferY(height);
+    if (state.wouldChangeScissorTest(true)
+        || state.wouldChangeScissor(x, y, backBufferWidth, backBufferHeight)) {
+      flush();
+    }
+
+    state.setScissorTestEnabled(true);
+    state.setScissor(x, y, backBufferWidth, backBufferHeight);
+    return width > 0 && height > 0;
+  }
+
+  /**
+   * Applies the current clip bounds to the scissor box of a software batch,
+   * whose pixels map one-to-one to the screen coordinates of the viewport.
+   *
+   * @return {@code true} if the clip bounds are non-empty, {@code false} otherwise
+   */
+  private boolean applySoftwareClip(@NonNull SoftwareBatch batch) {
+    // Recorded quads must be drawn with the previous clip
+    replayCommands();
+    if (mClip == null) {
+      batch.setScissorTestEnabled(false);
+      return true;
+    }
+
+    calculateScissors(mScissors, mClip.left, mClip.top, mClip.right, mClip.bottom);
+    final int width = Math.max(0, mScissors.right - mScissors.left);
+    final int height = Math.max(0, mScissors.bottom - mScissors.top);
+    batch.setScissorTestEnabled(true);
+    batch.setScissor(mScissors.left, mScissors.top, width, height);
     return width > 0 && height > 0;
   }
 
@@ -416,6 +730,7 @@ public class Canvas implements Disposable {
   public final void restore() {
     if (mSaveCount == 0) {
       mClip = null;
+      applyClip();
       return;
     }
 
@@ -425,13 +740,7 @@ public class Canvas implements Disposable {
     }
 
     mSaveCount--;
-    flush();
-    if (mClip == null) {
-      Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
-    } else {
-      HdpiUtils.glScissor((int) mClip.left, (int) mClip.top,
-          (int) (mClip.right - mClip.left), (int) (mClip.bottom - mClip.top));
-    }
+    applyClip();
   }
 
   /**
@@ -460,9 +769,7 @@ public class Canvas implements Disposable {
     }
 
     mSaveCount = saveCount;
-    if (mClip == null) {
-      Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
-    }
+    applyClip();
   }
 
   /**
@@ -472,6 +779,7 @@ public class Canvas implements Disposable {
    * @param dy The y-axis offset
    */
   public void translate(int dx, int dy) {
+    replayCommands();
     mTransformationMatrix.translate(dx, dy, 0);
   }
 
@@ -482,36 +790,107 @@ public class Canvas implements Disposable {
    * @param sy The amount to scale in the y-direction
    */
   public void scale(int sx, int sy) {
+    replayCommands();
     mTransformationMatrix.scale(sx, sy, 1);
   }
 
   /**
-   * Prepares the specified paint to be used as a tint for the batch.
+   * Returns the packed color used to tint draws using the specified paint.
    */
-  private void prepareTint(@Nullable Paint paint) {
+  private static float tintOf(@Nullable Paint paint) {
     if (paint == null) {
-      mBatch.setColor(NO_TINT);
+      return NO_TINT;
+    }
+
+    return paint.getPackedColor();
+  }
+
+  /**
+   * Indicates whether or not draws using the specified paint are tinted with
+   * a fully opaque color.
+   */
+  private static boolean isOpaque(@Nullable Paint paint) {
+    return paint == null || Color.alpha(paint.mColor) == 255;
+  }
+
+  /**
+   * Returns the region which should be tinted to draw solid colors.
+   */
+  @NonNull
+  private TextureRegion getSolid() {
+    if (mSolid == null) {
+      if (mTexture == null) {
+        mPixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        mPixmap.drawPixel(0, 0, Color.rgba(Color.WHITE));
+        mTexture = new Texture(mPixmap);
+        TextureRegistry.getInstance().register(mTexture);
+        // Uploading the texture bound it behind the back of the state cache
+        mGLState.invalidate();
+      }
+
+      mSolid = new TextureRegion(mTexture);
+    }
+
+    return mSolid;
+  }
+
+  /**
+   * Draws a quad. All draw calls go through this method, so that they can be
+   * recorded when the quads need to be reordered.
+   *
+   * @param opaque Whether or not every pixel of the quad is fully opaque
+   */
+  private void drawQuad(@NonNull Texture texture, float x, float y, float width, float height,
+                        float u, float v, float u2, float v2, float color, boolean opaque) {
+    touch(texture);
+    if (mCommands.isRecording()) {
+      mCommands.add(texture, x, y, width, height, u, v, u2, v2, color,
+          mBatch.isBlendingEnabled(), opaque);
+      return;
+    }
+
+    if (mUnifiBatch != null) {
+      mUnifiBatch.draw(texture, x, y, width, height, u, v, u2, v2, color);
       return;
     }
 
-    mBatch.setColor(convertColor(paint.mColor));
+    mBatch.setColor(color);
+    mBatch.draw(texture, x, y, width, height, u, v, u2, v2);
   }
 
   /**
-   * Prepares the specified paint to be used as a solid color texture.
+   * Marks the specified texture as drawn in the {@link TextureRegistry},
+   * which reloads it if it was evicted.
    */
-  private void preparePixmap(@NonNull Paint paint) {
-    if (paint == null) throw new IllegalArgumentException("paint cannot be null");
-    mPixmap.drawPixel(0, 0, Color.rgba(paint.mColor));
-    mTexture = new Texture(mPixmap);
+  private void touch(@NonNull Texture texture) {
+    if (texture == mTouchedTexture) {
+      return;
+    }
+
+    mTouchedTexture = texture;
+    if (TextureRegistry.getInstance().touch(texture)) {
+      // Reloading the texture bound it behind the back of the state cache
+      mGLState.invalidate();
+    }
+  }
+
+  /**
+   * Draws a solid colored quad.
+   */
+  private void drawSolid(float x, float y, float width, float height, float color,
+                         boolean opaque) {
+    final TextureRegion solid = getSolid();
+    drawQuad(solid.getTexture(), x, y, width, height,
+        solid.getU(), solid.getV(), solid.getU2(), solid.getV2(), color, opaque);
   }
 
   /**
    * Fills this canvas with the specified paint.
    */
   public void fill(@NonNull Paint paint) {
-    preparePixmap(paint);
-    mBatch.draw(mTexture, 0, 0, mViewport.getWorldWidth(), mViewport.getWorldHeight());
+    if (paint == null) throw new IllegalArgumentException("paint cannot be null");
+    drawSolid(0, 0, mViewport.getWorldWidth(), mViewport.getWorldHeight(), tintOf(paint),
+        isOpaque(paint));
   }
 
   /**
@@ -527,7 +906,9 @@ public class Canvas implements Disposable {
    * @param paint The paint to fill the bounds with
    */
   public void drawRect(float l, float t, float r, float b, @NonNull Paint paint) {
-    preparePixmap(paint);
+    if (paint == null) throw new IllegalArgumentException("paint cannot be null");
+    final float color = tintOf(paint);
+    final boolean opaque = isOpaque(paint);
     final float width = r - l;
     final float height = b - t;
     switch (paint.mStyle) {
@@ -536,15 +917,15 @@ public class Canvas implements Disposable {
         final float strokeWidth = paint.mStrokeWidth;
         final float doubleStrokeWidth = strokeWidth * 2f;
         if (doubleStrokeWidth < width && doubleStrokeWidth < height) {
-          mBatch.draw(mTexture, l, t, width, strokeWidth);
-          mBatch.draw(mTexture, l, t + height - strokeWidth, width, strokeWidth);
-          mBatch.draw(mTexture, l, t, strokeWidth, height);
-          mBatch.draw(mTexture, l + width - strokeWidth, t, strokeWidth, height);
+          drawSolid(l, t, width, strokeWidth, color, opaque);
+          drawSolid(l, t + height - strokeWidth, width, strokeWidth, color, opaque);
+          drawSolid(l, t, strokeWidth, height, color, opaque);
+          drawSolid(l + width - strokeWidth, t, strokeWidth, height, color, opaque);
           break;
         }
       case FILL:
       default:
-        mBatch.draw(mTexture, l, t, width, height);
+        drawSolid(l, t, width, height, color, opaque);
     }
   }
 
@@ -561,6 +942,267 @@ public class Canvas implements Disposable {
     drawRect(bounds.left, bounds.top, bounds.right, bounds.bottom, paint);
   }
 
+  /**
+   * Draws the specified text with the given paint, which must have a
+   * {@linkplain Paint#setFont font}. The glyphs of the text are laid out once
+   * and cached by the font, see {@link #drawTextRun(GlyphRun, float, float, Paint)}.
+   *
+   * @param text  The text to draw
+   * @param x     The x-coordinate of the left edge of the text, in pixels
+   * @param y     The y-coordinate of the top of the text, in pixels
+   * @param paint The paint used to draw the text, whose color tints the glyphs
+   *
+   * @throws IllegalStateException if the paint has no font
+   */
+  public void drawText(@NonNull CharSequence text, float x, float y, @NonNull Paint paint) {
+    if (paint == null) throw new IllegalArgumentException("paint cannot be null");
+    drawTextRun(paint.font().getGlyphRun(text), x, y, paint);
+  }
+
+  /**
+   * Draws the specified glyph run with the given paint. The precomputed quads
+   * of the glyphs are only offset, scaled to the text size of the paint and
+   * tinted with its color, so the glyphs are not laid out again.
+   *
+   * <p>Glyphs of {@linkplain Font#isDistanceField() distance field fonts} are
+   * drawn with the outline and shadow of the paint, if any, when this canvas
+   * draws with a {@link UnifiBatch}, their edges being reconstructed for the
+   * current scale of this canvas by its shader.
+   *
+   * @param run   The glyph run to draw
+   * @param x     The x-coordinate of the left edge of the text, in pixels
+   * @param y     The y-coordinate of the top of the text, in pixels
+   * @param paint The paint used to draw the text, whose color tints the glyphs
+   *              and whose text size scales them
+   */
+  public void drawTextRun(@NonNull GlyphRun run, float x, float y, @NonNull Paint paint) {
+    if (run == null) throw new IllegalArgumentException("run cannot be null");
+    if (paint == null) throw new IllegalArgumentException("paint cannot be null");
+    final Font font = run.mFont;
+    if (font.isDistanceField() && mUnifiBatch != null) {
+      drawDistanceFieldRun(run, x, y, paint);
+      return;
+    }
+
+    final float scale = paint.getTextScale(font);
+    final float color = tintOf(paint);
+    for (int page = 0; page < run.mVertices.length; page++) {
+      final int count = run.mVertexCounts[page];
+      if (count == 0) {
+        continue;
+      }
+
+      draw(font.getPage(page), copyGlyphs(run, page, x, y, scale, color), 0, count);
+    }
+  }
+
+  /**
+   * Draws the specified glyph run of a distance field font, and its shadow
+   * first, if any, in the same batch.
+   */
+  private void drawDistanceFieldRun(@NonNull GlyphRun run, float x, float y,
+                                    @NonNull Paint paint) {
+    assert mUnifiBatch != null;
+    // Distance field glyphs cannot be reordered, so draw the quads recorded
+    // before them first
+    replayCommands();
+
+    final Font font = run.mFont;
+    final boolean multiChannel = font.getDistanceField() == Font.DISTANCE_FIELD_MSDF;
+    final float scale = paint.getTextScale(font);
+
+    // Distance fields go from 0 to 1 over twice their spread, in texels, and
+    // each texel covers this many pixels of the screen
+    final float fieldPerPixel = 1 / (2 * font.getDistanceFieldSpread() * scale * getPixelScale());
+    final float smoothing = 0.5f * fieldPerPixel;
+    final float outlineWidth = paint.mTextOutlineWidth * fieldPerPixel;
+    final boolean shadow = paint.hasShadowLayer();
+    final float shadowColor = shadow ? convertColor(paint.mShadowColor) : 0;
+    final float shadowSmoothing = Math.min(0.5f,
+        Math.max(smoothing, paint.mShadowRadius * fieldPerPixel));
+    final float color = tintOf(paint);
+    for (int page = 0; page < run.mVertices.length; page++) {
+      final int count = run.mVertexCounts[page];
+      if (count == 0) {
+        continue;
+      }
+
+      final Texture texture = font.getPage(page);
+      if (shadow) {
+        final float[] vertices = copyGlyphs(run, page,
+            x + paint.mShadowDx, y + paint.mShadowDy, scale, shadowColor);
+        mUnifiBatch.drawDistanceField(texture, vertices, 0, count, multiChannel,
+            shadowSmoothing, outlineWidth, paint.mShadowColor);
+      }
+
+      mUnifiBatch.drawDistanceField(texture, copyGlyphs(run, page, x, y, scale, color), 0, count,
+          multiChannel, smoothing, outlineWidth, paint.mTextOutlineColor);
+    }
+  }
+
+  /**
+   * Copies the quads of the glyphs of the specified page of a glyph run into
+   * {@link #mTextVertices}, offset, scaled and tinted.
+   */
+  @NonNull
+  private float[] copyGlyphs(@NonNull GlyphRun run, int page, float x, float y, float scale,
+                             float color) {
+    final int count = run.mVertexCounts[page];
+    if (mTextVertices.length < count) {
+      mTextVertices = new float[count];
+    }
+
+    final float[] src = run.mVertices[page];
+    final float[] dst = mTextVertices;
+    for (int i = 0; i < count; i += 5) {
+      dst[i]     = x + src[i] * scale;
+      dst[i + 1] = y + src[i + 1] * scale;
+      dst[i + 2] = color;
+      dst[i + 3] = src[i + 3];
+      dst[i + 4] = src[i + 4];
+    }
+
+    return dst;
+  }
+
+  /**
+   * Returns the number of screen pixels covered by one pixel drawn by this
+   * canvas, combining the scaling of its viewport and of its transformation.
+   */
+  private float getPixelScale() {
+    final float worldWidth = mViewport.getWorldWidth();
+    final float viewportScale = worldWidth > 0 ? mViewport.getScreenWidth() / worldWidth : 1;
+    final float scale = viewportScale * Math.abs(mTransformationMatrix.getScaleX());
+    return scale > 0 ? scale : 1;
+  }
+
+  /**
+   * Draws an anti-aliased shape with the specified paint. Shapes are rendered
+   * from their signed distance fields in the same batch as textured quads if
+   * this canvas draws with a {@link UnifiBatch}, otherwise they are
+   * approximated by their bounds.
+   */
+  private void drawShape(int shape, float l, float t, float r, float b, float radius,
+                         @NonNull Paint paint) {
+    if (paint == null) throw new IllegalArgumentException("paint cannot be null");
+    if (mUnifiBatch == null) {
+      drawRect(l, t, r, b, paint);
+      return;
+    }
+
+    // Shapes cannot be reordered, so draw the quads recorded before them first
+    replayCommands();
+    final float strokeWidth = paint.mStyle == Paint.Style.STROKE ? paint.mStrokeWidth : 0;
+    mUnifiBatch.drawShape(shape, (l + r) / 2, (t + b) / 2, Math.abs(r - l) / 2,
+        Math.abs(b - t) / 2, radius, strokeWidth, 0, tintOf(paint));
+  }
+
+  /**
+   * Draws the specified rect with rounded corners with the given paint. If the
+   * paint's style is {@link Paint.Style#STROKE}, then only its outline is
+   * drawn, inside of the bounds.
+   *
+   * <p>Note: The bounds are specified assuming the y-axis is pointing down,
+   * that is, {@code (0, 0)} is located in the top left of the screen.
+   *
+   * @param l      The left edge, in pixels
+   * @param t      The top edge, in pixels
+   * @param r      The right edge, in pixels
+   * @param b      The bottom edge, in pixels
+   * @param radius The radius of the corners, in pixels
+   * @param paint  The paint to draw the rect with
+   */
+  public void drawRoundRect(float l, float t, float r, float b, float radius,
+                            @NonNull Paint paint) {
+    drawShape(UnifiBatch.SHAPE_ROUND_RECT, l, t, r, b, radius, paint);
+  }
+
+  /**
+   * Draws the specified rect with rounded corners with the given paint.
+   *
+   * @param bounds The bounds of the rect, given in pixels
+   * @param radius The radius of the corners, in pixels
+   * @param paint  The paint to draw the rect with
+   *
+   * @see #drawRoundRect(float, float, float, float, float, Paint)
+   */
+  public void drawRoundRect(@NonNull Rect bounds, float radius, @NonNull Paint paint) {
+    drawRoundRect(bounds.left, bounds.top, bounds.right, bounds.bottom, radius, paint);
+  }
+
+  /**
+   * Draws the oval inscribed in the specified bounds with the given paint. If
+   * the paint's style is {@link Paint.Style#STROKE}, then only its outline is
+   * drawn, inside of the bounds.
+   *
+   * @param l     The left edge, in pixels
+   * @param t     The top edge, in pixels
+   * @param r     The right edge, in pixels
+   * @param b     The bottom edge, in pixels
+   * @param paint The paint to draw the oval with
+   */
+  public void drawOval(float l, float t, float r, float b, @NonNull Paint paint) {
+    drawShape(UnifiBatch.SHAPE_OVAL, l, t, r, b, 0, paint);
+  }
+
+  /**
+   * Draws the oval inscribed in the specified bounds with the given paint.
+   *
+   * @param bounds The bounds of the oval, given in pixels
+   * @param paint  The paint to draw the oval with
+   *
+   * @see #drawOval(float, float, float, float, Paint)
+   */
+  public void drawOval(@NonNull Rect bounds, @NonNull Paint paint) {
+    drawOval(bounds.left, bounds.top, bounds.right, bounds.bottom, paint);
+  }
+
+  /**
+   * Draws the specified circle with the given paint. If the paint's style is
+   * {@link Paint.Style#STROKE}, then only its outline is drawn, inside of the
+   * circle.
+   *
+   * @param cx     The x-coordinate of the center, in pixels
+   * @param cy     The y-coordinate of the center, in pixels
+   * @param radius The radius, in pixels
+   * @param paint  The paint to draw the circle with
+   */
+  public void drawCircle(float cx, float cy, float radius, @NonNull Paint paint) {
+    drawShape(UnifiBatch.SHAPE_ROUND_RECT, cx - radius, cy - radius, cx + radius, cy + radius,
+        radius, paint);
+  }
+
+  /**
+   * Draws an anti-aliased line segment between the specified points, as thick
+   * as the stroke width of the given paint, regardless of its style.
+   *
+   * @param x1    The x-coordinate of the start of the line, in pixels
+   * @param y1    The y-coordinate of the start of the line, in pixels
+   * @param x2    The x-coordinate of the end of the line, in pixels
+   * @param y2    The y-coordinate of the end of the line, in pixels
+   * @param paint The paint to draw the line with
+   */
+  public void drawLine(float x1, float y1, float x2, float y2, @NonNull Paint paint) {
+    if (paint == null) throw new IllegalArgumentException("paint cannot be null");
+    final float dx = x2 - x1;
+    final float dy = y2 - y1;
+    final float length = (float) Math.sqrt(dx * dx + dy * dy);
+    final float halfStrokeWidth = paint.mStrokeWidth / 2;
+    final float rotation = MathUtils.atan2(dy, dx) * MathUtils.radiansToDegrees;
+    if (mUnifiBatch == null) {
+      final TextureRegion solid = getSolid();
+      replayCommands();
+      mBatch.setColor(tintOf(paint));
+      mBatch.draw(solid, x1, y1 - halfStrokeWidth, 0, halfStrokeWidth,
+          length, paint.mStrokeWidth, 1, 1, rotation);
+      return;
+    }
+
+    replayCommands();
+    mUnifiBatch.drawShape(UnifiBatch.SHAPE_ROUND_RECT, (x1 + x2) / 2, (y1 + y2) / 2,
+        length / 2, halfStrokeWidth, 0, 0, rotation, tintOf(paint));
+  }
+
   /**
    * Draws the specified texture, stretching it to fill the given bounds.
    *
@@ -573,9 +1215,9 @@ public class Canvas implements Disposable {
    */
   public void draw(@NonNull Texture texture, float l, float t, float r, float b,
                    @Nullable Paint paint) {
-    prepareTint(paint);
-    mBatch.draw(texture, l, t, r - l, b - t,
-        0, 0, texture.getWidth(), texture.getHeight(), false, true);
+    // v = 0 is the top of the texture, which is drawn at t since the y-axis is down
+    drawQuad(texture, l, t, r - l, b - t, 0, 0, 1, 1, tintOf(paint),
+        isOpaque(paint) && PixelFormat.isOpaque(texture));
   }
 
   /**
@@ -588,4 +1230,78 @@ public class Canvas implements Disposable {
   public void draw(@NonNull Texture texture, @NonNull Rect bounds, @Nullable Paint paint) {
     draw(texture, bounds.left, bounds.top, bounds.right, bounds.bottom, paint);
   }
+
+  /**
+   * Draws the specified texture region, stretching it to fill the given
+   * bounds. Nothing is drawn if the region has no texture, e.g., if it is the
+   * region of a packed image whose atlas has not been updated yet.
+   *
+   * @param region The texture region to render
+   * @param l      The left edge, in pixels
+   * @param t      The top edge, in pixels
+   * @param r      The right edge, in pixels
+   * @param b      The bottom edge, in pixels
+   * @param paint  The paint used to tint the region, or {@code null} for no tint
+   */
+  public void draw(@NonNull TextureRegion region, float l, float t, float r, float b,
+                   @Nullable Paint paint) {
+    final Texture texture = region.getTexture();
+    if (texture == null) {
+      // Atlas region not resolved yet
+      return;
+    }
+
+    // v is the top of the region, which is drawn at t since the y-axis is down
+    drawQuad(texture, l, t, r - l, b - t,
+        region.getU(), region.getV(), region.getU2(), region.getV2(), tintOf(paint),
+        isOpaque(paint) && PixelFormat.isOpaque(texture));
+  }
+
+  /**
+   * Draws axis-aligned quads of the specified texture from precomputed vertex
+   * data, e.g., the patches of a {@link unifi.graphics.drawable.NinePatchDrawable}.
+   * The vertices are in the format of {@link Batch#draw(Texture, float[], int, int)},
+   * that is, 4 vertices of {@code x, y, color, u, v} per quad, starting with
+   * the top left corner and going counter-clockwise, so a single buffer copy
+   * submits every quad to the batch.
+   *
+   * @param texture  The texture to render
+   * @param vertices The vertex data
+   * @param offset   The index of the first vertex component to draw
+   * @param count    The number of vertex components to draw, which must be a
+   *                 multiple of {@value #QUAD_SIZE}
+   */
+  public void draw(@NonNull Texture texture, @NonNull float[] vertices, int offset, int count) {
+    if (count % QUAD_SIZE != 0) {
+      throw new IllegalArgumentException("count must be a multiple of " + QUAD_SIZE);
+    }
+
+    if (!mCommands.isRecording()) {
+      touch(texture);
+      mBatch.draw(texture, vertices, offset, count);
+      return;
+    }
+
+    // Recorded quads need to be reordered individually
+    final boolean opaqueTexture = PixelFormat.isOpaque(texture);
+    for (int i = offset, end = offset + count; i < end; i += QUAD_SIZE) {
+      final float x = vertices[i];
+      final float y = vertices[i + 1];
+      final float color = vertices[i + 2];
+      drawQuad(texture, x, y, vertices[i + 10] - x, vertices[i + 11] - y,
+          vertices[i + 3], vertices[i + 4], vertices[i + 13], vertices[i + 14], color,
+          opaqueTexture && (NumberUtils.floatToIntColor(color) >>> 24) == 0xFF);
+    }
+  }
+
+  /**
+   * Draws the specified texture region, stretching it to fill the given bounds.
+   *
+   * @param region The texture region to render
+   * @param bounds The bounds to stretch to
+   * @param paint  The paint used to tint the region, or {@code null} for no tint
+   */
+  public void draw(@NonNull TextureRegion region, @NonNull Rect bounds, @Nullable Paint paint) {
+    draw(region, bounds.left, bounds.top, bounds.right, bounds.bottom, paint);
+  }
 }
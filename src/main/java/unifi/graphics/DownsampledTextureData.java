@@ -0,0 +1,126 @@
+package unifi.graphics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Managed texture data of an image file {@linkplain ImageDecoder#downsample
+ * downsampled} to the size at which it is displayed, so that a texture
+ * reloaded from it keeps its reduced size.
+ */
+class DownsampledTextureData implements TextureData {
+
+  @NonNull private final FileHandle mFile;
+  private final int mRequestedWidth;
+  private final int mRequestedHeight;
+  private final boolean mUseMipMaps;
+
+  @Nullable private Pixmap mPixmap;
+  private int mWidth;
+  private int mHeight;
+  @NonNull private Pixmap.Format mFormat = Pixmap.Format.RGBA8888;
+  private boolean mPrepared;
+
+  /**
+   * @param file   The image file
+   * @param pixmap The image already decoded and downsampled from the file, or
+   *               {@code null} to decode it when prepared
+   * @param width  The width at which the image is displayed, in pixels, or
+   *               {@link ImageDecoder#ORIGINAL_SIZE}
+   * @param height The height at which the image is displayed, in pixels, or
+   *               {@link ImageDecoder#ORIGINAL_SIZE}
+   */
+  DownsampledTextureData(@NonNull FileHandle file, @Nullable Pixmap pixmap,
+                         int width, int height, boolean useMipMaps) {
+    mFile = file;
+    mRequestedWidth = width;
+    mRequestedHeight = height;
+    mUseMipMaps = useMipMaps;
+    mPixmap = pixmap;
+    if (pixmap != null) {
+      setSize(pixmap);
+    }
+  }
+
+  private void setSize(@NonNull Pixmap pixmap) {
+    mWidth = pixmap.getWidth();
+    mHeight = pixmap.getHeight();
+    mFormat = pixmap.getFormat();
+  }
+
+  @Override
+  public TextureDataType getType() {
+    return TextureDataType.Pixmap;
+  }
+
+  @Override
+  public boolean isPrepared() {
+    return mPrepared;
+  }
+
+  @Override
+  public void prepare() {
+    if (mPrepared) {
+      throw new GdxRuntimeException("Already prepared");
+    }
+
+    if (mPixmap == null) {
+      mPixmap = ImageDecoder.decode(mFile, mRequestedWidth, mRequestedHeight);
+      setSize(mPixmap);
+    }
+
+    mPrepared = true;
+  }
+
+  @Override
+  public Pixmap consumePixmap() {
+    if (!mPrepared) {
+      throw new GdxRuntimeException("Call prepare() before calling consumePixmap()");
+    }
+
+    final Pixmap pixmap = mPixmap;
+    mPixmap = null;
+    mPrepared = false;
+    return pixmap;
+  }
+
+  @Override
+  public boolean disposePixmap() {
+    return true;
+  }
+
+  @Override
+  public void consumeCustomData(int target) {
+    throw new GdxRuntimeException("This TextureData implementation does not upload data itself");
+  }
+
+  @Override
+  public int getWidth() {
+    return mWidth;
+  }
+
+  @Override
+  public int getHeight() {
+    return mHeight;
+  }
+
+  @Override
+  public Pixmap.Format getFormat() {
+    return mFormat;
+  }
+
+  @Override
+  public boolean useMipMaps() {
+    return mUseMipMaps;
+  }
+
+  @Override
+  public boolean isManaged() {
+    return true;
+  }
+}
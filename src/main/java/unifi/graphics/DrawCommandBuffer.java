@@ -0,0 +1,460 @@
+package unifi.graphics;
+
+import android.support.annotation.NonNull;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+
+import java.util.Arrays;
+
+/**
+ * Records the quads drawn by a {@link Canvas} so that they can be reordered
+ * before being submitted to its {@link Batch}.
+ *
+ * <p>Quads which use the same texture and blend state are drawn in a single
+ * batch, so each change of either between two consecutive quads is a batch
+ * break. When {@linkplain #setReorderingEnabled reordering} is enabled, each
+ * recorded quad is moved back to just after the latest quad with the same
+ * texture and blend state, so long as it does not overlap any of the quads it
+ * is moved in front of. The painter's order of overlapping quads is therefore
+ * always preserved.
+ *
+ * <p>When {@linkplain #setOpaqueFirstEnabled opaque-first} rendering is
+ * enabled, the quads are walked front-to-back when replayed, and quads which
+ * are completely covered by an opaque quad drawn after them are rejected.
+ * The opaque quads which do not overlap any quad drawn before them, other
+ * than those drawn first themselves, are then drawn first with blending
+ * disabled, followed by the rest in their original order. Since
+ * {@link Batch} vertices carry no depth, opaque quads are drawn in their
+ * original (back-to-front) order rather than front-to-back, which only
+ * matters where opaque quads overlap each other.
+ *
+ * <p>A buffer only ever contains quads drawn using the same clip bounds and
+ * transformation, so it must be {@linkplain #replay replayed} whenever either
+ * of those change.
+ */
+final class DrawCommandBuffer {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * Maximum number of quads a recorded quad can be moved in front of. This
+   * bounds reordering to {@code O(n)} for large buffers.
+   */
+  private static final int MAX_LOOKBEHIND = 64;
+
+  /**
+   * Maximum number of opaque quads accumulated while rejecting hidden quads.
+   */
+  private static final int MAX_OCCLUDERS = 8;
+
+  /**
+   * Maximum number of quads which an opaque quad is individually tested
+   * against before it can be drawn first. Past that, it is tested against
+   * their union instead.
+   */
+  private static final int MAX_BARRIERS = 64;
+
+  @NonNull private DrawCommand[] mCommands = new DrawCommand[INITIAL_CAPACITY];
+  private int mCount;
+
+  /**
+   * Indices into {@link #mCommands} in the order they will be replayed.
+   */
+  @NonNull private int[] mOrder = new int[INITIAL_CAPACITY];
+
+  private boolean mReorderingEnabled;
+  private boolean mOpaqueFirstEnabled;
+
+  @NonNull private final DrawCommand[] mOccluders = new DrawCommand[MAX_OCCLUDERS];
+  @NonNull private final DrawCommand[] mBarriers = new DrawCommand[MAX_BARRIERS];
+
+  /**
+   * Number of batch breaks avoided by reordering since the last call to
+   * {@link #resetStatistics()}.
+   */
+  private int mBatchBreaksSaved;
+
+  /**
+   * Number of quads drawn first with blending disabled since the last call to
+   * {@link #resetStatistics()}.
+   */
+  private int mOpaqueQuads;
+
+  /**
+   * Number of quads rejected because they were hidden behind opaque quads
+   * since the last call to {@link #resetStatistics()}.
+   */
+  private int mRejectedQuads;
+
+  DrawCommandBuffer() {}
+
+  boolean isReorderingEnabled() {
+    return mReorderingEnabled;
+  }
+
+  void setReorderingEnabled(boolean enabled) {
+    mReorderingEnabled = enabled;
+  }
+
+  boolean isOpaqueFirstEnabled() {
+    return mOpaqueFirstEnabled;
+  }
+
+  void setOpaqueFirstEnabled(boolean enabled) {
+    mOpaqueFirstEnabled = enabled;
+  }
+
+  /**
+   * Indicates whether or not quads need to be recorded instead of being drawn
+   * immediately.
+   */
+  boolean isRecording() {
+    return mReorderingEnabled || mOpaqueFirstEnabled;
+  }
+
+  boolean isEmpty() {
+    return mCount == 0;
+  }
+
+  int getBatchBreaksSaved() {
+    return mBatchBreaksSaved;
+  }
+
+  int getOpaqueQuads() {
+    return mOpaqueQuads;
+  }
+
+  int getRejectedQuads() {
+    return mRejectedQuads;
+  }
+
+  void resetStatistics() {
+    mBatchBreaksSaved = 0;
+    mOpaqueQuads = 0;
+    mRejectedQuads = 0;
+  }
+
+  /**
+   * Records a quad. See {@link Batch#draw(Texture, float, float, float, float,
+   * float, float, float, float)} for the meaning of the parameters.
+   *
+   * @param color    The packed color used to tint the quad
+   * @param blending Whether or not the quad is drawn with blending enabled
+   * @param opaque   Whether or not every pixel of the quad is fully opaque
+   */
+  void add(@NonNull Texture texture, float x, float y, float width, float height,
+           float u, float v, float u2, float v2, float color, boolean blending,
+           boolean opaque) {
+    if (mCount == mCommands.length) {
+      mCommands = Arrays.copyOf(mCommands, mCount * 2);
+      mOrder = Arrays.copyOf(mOrder, mCount * 2);
+    }
+
+    DrawCommand command = mCommands[mCount];
+    if (command == null) {
+      command = mCommands[mCount] = new DrawCommand();
+    }
+
+    command.set(texture, x, y, width, height, u, v, u2, v2, color, blending, opaque);
+    if (mReorderingEnabled) {
+      insert(mCount);
+    } else {
+      mOrder[mCount] = mCount;
+    }
+
+    mCount++;
+  }
+
+  /**
+   * Inserts the command at the specified index into {@link #mOrder}, moving it
+   * in front of as many of the previously ordered commands as needed to place
+   * it after the latest one which it batches with.
+   */
+  private void insert(int index) {
+    final DrawCommand[] commands = mCommands;
+    final int[] order = mOrder;
+    final DrawCommand command = commands[index];
+    final int count = index;
+    final int limit = Math.max(0, count - MAX_LOOKBEHIND);
+
+    int position = count;
+    for (int i = count - 1; i >= limit; i--) {
+      final DrawCommand other = commands[order[i]];
+      if (other.batchesWith(command)) {
+        position = i + 1;
+        break;
+      } else if (other.overlaps(command)) {
+        break;
+      }
+    }
+
+    if (position < count) {
+      System.arraycopy(order, position, order, position + 1, count - position);
+    }
+
+    order[position] = index;
+  }
+
+  /**
+   * Submits the recorded commands to the specified batch in their final order
+   * and clears this buffer.
+   */
+  void replay(@NonNull Batch batch) {
+    final int count = mCount;
+    if (count == 0) {
+      return;
+    }
+
+    if (mReorderingEnabled) {
+      mBatchBreaksSaved += countBatchBreaks(false) - countBatchBreaks(true);
+    }
+
+    final DrawCommand[] commands = mCommands;
+    final int[] order = mOrder;
+    final boolean initialBlending = batch.isBlendingEnabled();
+    boolean blending = initialBlending;
+    if (mOpaqueFirstEnabled) {
+      rejectHiddenCommands();
+      hoistOpaqueCommands();
+
+      // Opaque pass
+      for (int i = 0; i < count; i++) {
+        final DrawCommand command = commands[order[i]];
+        if (command.mHoisted) {
+          if (blending) {
+            blending = false;
+            batch.disableBlending();
+          }
+
+          command.draw(batch);
+        }
+      }
+    }
+
+    for (int i = 0; i < count; i++) {
+      final DrawCommand command = commands[order[i]];
+      if (command.mRejected || command.mHoisted) {
+        command.clear();
+        continue;
+      }
+
+      if (command.mBlending != blending) {
+        blending = command.mBlending;
+        if (blending) {
+          batch.enableBlending();
+        } else {
+          batch.disableBlending();
+        }
+      }
+
+      command.draw(batch);
+      command.clear();
+    }
+
+    if (blending != initialBlending) {
+      if (initialBlending) {
+        batch.enableBlending();
+      } else {
+        batch.disableBlending();
+      }
+    }
+
+    mCount = 0;
+  }
+
+  /**
+   * Walks the commands front-to-back and marks those completely covered by an
+   * opaque command drawn after them as rejected.
+   */
+  private void rejectHiddenCommands() {
+    final DrawCommand[] commands = mCommands;
+    final DrawCommand[] occluders = mOccluders;
+    final int[] order = mOrder;
+    int occludersCount = 0;
+    for (int i = mCount - 1; i >= 0; i--) {
+      final DrawCommand command = commands[order[i]];
+      for (int j = 0; j < occludersCount; j++) {
+        if (occluders[j].contains(command)) {
+          command.mRejected = true;
+          mRejectedQuads++;
+          break;
+        }
+      }
+
+      if (!command.mRejected && command.mOpaque && occludersCount < MAX_OCCLUDERS) {
+        occluders[occludersCount++] = command;
+      }
+    }
+
+    for (int i = 0; i < occludersCount; i++) {
+      occluders[i] = null;
+    }
+  }
+
+  /**
+   * Marks the opaque commands which can be drawn before all others, i.e.,
+   * those which do not overlap any command drawn before them which cannot.
+   */
+  private void hoistOpaqueCommands() {
+    final DrawCommand[] commands = mCommands;
+    final DrawCommand[] barriers = mBarriers;
+    final int[] order = mOrder;
+    int barriersCount = 0;
+    boolean overflowed = false;
+    float left = Float.POSITIVE_INFINITY;
+    float top = Float.POSITIVE_INFINITY;
+    float right = Float.NEGATIVE_INFINITY;
+    float bottom = Float.NEGATIVE_INFINITY;
+    for (int i = 0; i < mCount; i++) {
+      final DrawCommand command = commands[order[i]];
+      if (command.mRejected) {
+        continue;
+      }
+
+      if (command.mOpaque) {
+        boolean blocked;
+        if (overflowed) {
+          blocked = left < command.mRight && command.mLeft < right
+              && top < command.mBottom && command.mTop < bottom;
+        } else {
+          blocked = false;
+          for (int j = 0; j < barriersCount; j++) {
+            if (barriers[j].overlaps(command)) {
+              blocked = true;
+              break;
+            }
+          }
+        }
+
+        if (!blocked) {
+          command.mHoisted = true;
+          mOpaqueQuads++;
+          continue;
+        }
+      }
+
+      if (barriersCount < MAX_BARRIERS) {
+        barriers[barriersCount++] = command;
+      } else {
+        overflowed = true;
+      }
+
+      left = Math.min(left, command.mLeft);
+      top = Math.min(top, command.mTop);
+      right = Math.max(right, command.mRight);
+      bottom = Math.max(bottom, command.mBottom);
+    }
+
+    for (int i = 0; i < barriersCount; i++) {
+      barriers[i] = null;
+    }
+  }
+
+  /**
+   * Counts the batch breaks between the recorded commands, either in the order
+   * they were recorded or in the order they will be replayed.
+   */
+  private int countBatchBreaks(boolean ordered) {
+    int breaks = 0;
+    DrawCommand previous = null;
+    for (int i = 0; i < mCount; i++) {
+      final DrawCommand command = mCommands[ordered ? mOrder[i] : i];
+      if (previous != null && !previous.batchesWith(command)) {
+        breaks++;
+      }
+
+      previous = command;
+    }
+
+    return breaks;
+  }
+
+  static final class DrawCommand {
+    Texture mTexture;
+    float mX;
+    float mY;
+    float mWidth;
+    float mHeight;
+    float mU;
+    float mV;
+    float mU2;
+    float mV2;
+    float mColor;
+    boolean mBlending;
+    boolean mOpaque;
+
+    // Replay state
+    boolean mRejected;
+    boolean mHoisted;
+
+    // Normalized bounds, since width and height may be negative
+    float mLeft;
+    float mTop;
+    float mRight;
+    float mBottom;
+
+    void set(@NonNull Texture texture, float x, float y, float width, float height,
+             float u, float v, float u2, float v2, float color, boolean blending,
+             boolean opaque) {
+      mTexture = texture;
+      mX = x;
+      mY = y;
+      mWidth = width;
+      mHeight = height;
+      mU = u;
+      mV = v;
+      mU2 = u2;
+      mV2 = v2;
+      mColor = color;
+      mBlending = blending;
+      mOpaque = opaque;
+      mRejected = false;
+      mHoisted = false;
+
+      mLeft = Math.min(x, x + width);
+      mRight = Math.max(x, x + width);
+      mTop = Math.min(y, y + height);
+      mBottom = Math.max(y, y + height);
+    }
+
+    /**
+     * Indicates whether or not this command can be drawn in the same batch as
+     * the specified one.
+     */
+    boolean batchesWith(@NonNull DrawCommand other) {
+      return mTexture == other.mTexture && mBlending == other.mBlending;
+    }
+
+    /**
+     * Indicates whether or not the bounds of this command overlap the bounds
+     * of the specified one. Bounds which only share an edge do not overlap.
+     */
+    boolean overlaps(@NonNull DrawCommand other) {
+      return mLeft < other.mRight && other.mLeft < mRight
+          && mTop < other.mBottom && other.mTop < mBottom;
+    }
+
+    /**
+     * Indicates whether or not the bounds of this command contain the bounds
+     * of the specified one.
+     */
+    boolean contains(@NonNull DrawCommand other) {
+      return mLeft < mRight && mTop < mBottom
+          && mLeft <= other.mLeft && mTop <= other.mTop
+          && mRight >= other.mRight && mBottom >= other.mBottom;
+    }
+
+    /**
+     * Releases the reference to the texture of this command.
+     */
+    void clear() {
+      mTexture = null;
+    }
+
+    void draw(@NonNull Batch batch) {
+      batch.setColor(mColor);
+      batch.draw(mTexture, mX, mY, mWidth, mHeight, mU, mV, mU2, mV2);
+    }
+  }
+}
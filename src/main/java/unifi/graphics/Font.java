@@ -0,0 +1,326 @@
+package unifi.graphics;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import unifi.text.TextLayoutCache;
+
+/**
+ * A font whose glyphs are packed into one or more texture pages, shared by all
+ * of the text drawn with it, so glyphs batch with each other and, when drawn
+ * with a {@link UnifiBatch}, with the textures drawn around them.
+ *
+ * <p>Strings are laid out into {@link GlyphRun glyph runs}, and the most
+ * recently used runs are cached, so static text is not laid out again on each
+ * frame.
+ *
+ * <p>Fonts are backed by a {@link BitmapFont} which must be
+ * {@linkplain BitmapFont#isFlipped() flipped}, since {@link Canvas} draws
+ * with the y-axis pointing down.
+ *
+ * <p>The pages of a font may store the signed distance fields of its glyphs
+ * instead of their coverage, see {@link #DISTANCE_FIELD_SDF}. Distance field
+ * glyphs stay sharp at any text size and any scale of the {@link Canvas}, so a
+ * single page serves every size, and can be outlined and shadowed by the
+ * shader of the {@link UnifiBatch} drawing them.
+ */
+public class Font implements Disposable {
+
+  @IntDef({ DISTANCE_FIELD_NONE, DISTANCE_FIELD_SDF, DISTANCE_FIELD_MSDF })
+  @Retention(RetentionPolicy.SOURCE)
+  public @interface DistanceField {}
+
+  /**
+   * Pages store the coverage of the glyphs in their alpha channel.
+   */
+  public static final int DISTANCE_FIELD_NONE = 0;
+
+  /**
+   * Pages store the signed distance to the edges of the glyphs in their alpha
+   * channel, where {@code 0.5} is on the edge.
+   */
+  public static final int DISTANCE_FIELD_SDF = 1;
+
+  /**
+   * Pages store multi-channel signed distance fields of the glyphs, whose
+   * median of the red, green and blue channels is the distance to the edges,
+   * preserving sharp corners.
+   */
+  public static final int DISTANCE_FIELD_MSDF = 2;
+
+  /**
+   * Default maximum number of glyph runs cached by a font.
+   */
+  public static final int DEFAULT_GLYPH_RUN_CACHE_SIZE = 256;
+
+  private static final float[] EMPTY = new float[0];
+
+  @NonNull private final BitmapFont mFont;
+  private final boolean mOwnsFont;
+
+  @DistanceField private final int mDistanceField;
+  private final float mDistanceFieldSpread;
+
+  /**
+   * Cache used to lay out glyph runs, whose vertices are copied into each run.
+   */
+  @NonNull private final BitmapFontCache mLayoutCache;
+
+  @NonNull private final Map<String, GlyphRun> mGlyphRuns;
+
+  private int mHits;
+  private int mMisses;
+
+  /**
+   * Constructs a font backed by the specified bitmap font, which will not be
+   * disposed by this font, caching up to {@value #DEFAULT_GLYPH_RUN_CACHE_SIZE}
+   * glyph runs.
+   *
+   * @throws IllegalArgumentException if {@code font} is not flipped
+   */
+  public Font(@NonNull BitmapFont font) {
+    this(font, false, DEFAULT_GLYPH_RUN_CACHE_SIZE);
+  }
+
+  /**
+   * Constructs a font backed by the specified bitmap font.
+   *
+   * @param font         The bitmap font, which must be flipped
+   * @param ownsFont     Whether or not {@code font} is disposed along with
+   *                     this font
+   * @param maxGlyphRuns The maximum number of glyph runs cached
+   *
+   * @throws IllegalArgumentException if {@code font} is not flipped
+   */
+  public Font(@NonNull BitmapFont font, boolean ownsFont,
+              @IntRange(from = 0) int maxGlyphRuns) {
+    this(font, ownsFont, maxGlyphRuns, DISTANCE_FIELD_NONE, 0);
+  }
+
+  /**
+   * Constructs a font backed by the specified bitmap font, whose pages may
+   * store distance fields. The pages of distance field fonts are filtered
+   * linearly, which is needed to reconstruct the edges of their glyphs.
+   *
+   * @param font          The bitmap font, which must be flipped
+   * @param ownsFont      Whether or not {@code font} is disposed along with
+   *                      this font
+   * @param maxGlyphRuns  The maximum number of glyph runs cached
+   * @param distanceField The contents of the pages of {@code font}
+   * @param spread        The distance from the edges of the glyphs at which
+   *                      their distance fields saturate, in texels, ignored
+   *                      if {@code distanceField} is {@link #DISTANCE_FIELD_NONE}
+   *
+   * @throws IllegalArgumentException if {@code font} is not flipped, or if
+   *         {@code spread} is not positive for a distance field font
+   */
+  public Font(@NonNull BitmapFont font, boolean ownsFont,
+              @IntRange(from = 0) final int maxGlyphRuns,
+              @DistanceField int distanceField, float spread) {
+    if (font == null) {
+      throw new IllegalArgumentException("font cannot be null");
+    } else if (!font.isFlipped()) {
+      throw new IllegalArgumentException("font must be flipped, i.e., y-down");
+    } else if (maxGlyphRuns < 0) {
+      throw new IllegalArgumentException("maxGlyphRuns must be >= 0");
+    } else if (distanceField != DISTANCE_FIELD_NONE
+        && distanceField != DISTANCE_FIELD_SDF
+        && distanceField != DISTANCE_FIELD_MSDF) {
+      throw new IllegalArgumentException("Unsupported distance field: " + distanceField);
+    } else if (distanceField != DISTANCE_FIELD_NONE && !(spread > 0)) {
+      throw new IllegalArgumentException("spread must be > 0");
+    }
+
+    mFont = font;
+    mOwnsFont = ownsFont;
+    mDistanceField = distanceField;
+    mDistanceFieldSpread = distanceField == DISTANCE_FIELD_NONE ? 0 : spread;
+    if (distanceField != DISTANCE_FIELD_NONE) {
+      for (TextureRegion region : font.getRegions()) {
+        region.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+      }
+    }
+
+    mLayoutCache = font.newFontCache();
+    mGlyphRuns = new LinkedHashMap<String, GlyphRun>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, GlyphRun> eldest) {
+        return size() > maxGlyphRuns;
+      }
+    };
+  }
+
+  @Override
+  public void dispose() {
+    mGlyphRuns.clear();
+    TextLayoutCache.getInstance().remove(this);
+    if (mOwnsFont) {
+      mFont.dispose();
+    }
+  }
+
+  /**
+   * Returns the bitmap font backing this font.
+   */
+  @NonNull
+  public BitmapFont getBitmapFont() {
+    return mFont;
+  }
+
+  /**
+   * Returns the contents of the pages of this font.
+   */
+  @DistanceField
+  public int getDistanceField() {
+    return mDistanceField;
+  }
+
+  /**
+   * Indicates whether or not the pages of this font store distance fields.
+   */
+  public boolean isDistanceField() {
+    return mDistanceField != DISTANCE_FIELD_NONE;
+  }
+
+  /**
+   * Returns the distance from the edges of the glyphs at which their distance
+   * fields saturate, in texels, or {@code 0} if this font is not a distance
+   * field font.
+   */
+  public float getDistanceFieldSpread() {
+    return mDistanceFieldSpread;
+  }
+
+  /**
+   * Returns the distance between two consecutive lines of text at the natural
+   * size of this font, in pixels.
+   */
+  public float getLineHeight() {
+    return mFont.getLineHeight();
+  }
+
+  /**
+   * Returns the number of texture pages containing the glyphs of this font.
+   */
+  public int getPageCount() {
+    return mFont.getRegions().size;
+  }
+
+  /**
+   * Returns the texture of the specified page.
+   */
+  @NonNull
+  public Texture getPage(int page) {
+    return mFont.getRegion(page).getTexture();
+  }
+
+  /**
+   * Returns the glyph run of the specified text, laying it out if it is not
+   * cached.
+   */
+  @NonNull
+  public GlyphRun getGlyphRun(@NonNull CharSequence text) {
+    if (text == null) {
+      throw new IllegalArgumentException("text cannot be null");
+    }
+
+    final String key = text.toString();
+    GlyphRun run = mGlyphRuns.get(key);
+    if (run != null) {
+      mHits++;
+      return run;
+    }
+
+    mMisses++;
+    run = layout(key);
+    mGlyphRuns.put(key, run);
+    return run;
+  }
+
+  @NonNull
+  private GlyphRun layout(@NonNull String text) {
+    final BitmapFontCache cache = mLayoutCache;
+    final GlyphLayout layout = cache.setText(text, 0, 0);
+    final int pageCount = getPageCount();
+    final float[][] vertices = new float[pageCount][];
+    final int[] vertexCounts = new int[pageCount];
+    for (int page = 0; page < pageCount; page++) {
+      final int count = cache.getVertexCount(page);
+      vertexCounts[page] = count;
+      vertices[page] = count == 0 ? EMPTY : Arrays.copyOf(cache.getVertices(page), count);
+    }
+
+    final GlyphRun run = new GlyphRun(this, text, vertices, vertexCounts,
+        layout.width, layout.height);
+    cache.clear();
+    return run;
+  }
+
+  /**
+   * Returns the width of the specified text at the natural size of this font,
+   * in pixels.
+   */
+  public float measureText(@NonNull CharSequence text) {
+    return getGlyphRun(text).getWidth();
+  }
+
+  /**
+   * Returns the horizontal advance of the specified character at the natural
+   * size of this font, including the kerning with the character following it,
+   * if any. This does not lay out or cache a glyph run, so it is suitable for
+   * measuring text character by character, e.g., to break it into lines.
+   *
+   * @param ch   The character
+   * @param next The character following {@code ch}, or {@code 0} if none
+   */
+  public float getAdvance(char ch, char next) {
+    final BitmapFont.BitmapFontData data = mFont.getData();
+    BitmapFont.Glyph glyph = data.getGlyph(ch);
+    if (glyph == null) {
+      glyph = data.missingGlyph;
+      if (glyph == null) {
+        return 0;
+      }
+    }
+
+    return next == 0 ? glyph.xadvance : glyph.xadvance + glyph.getKerning(next);
+  }
+
+  /**
+   * Returns the number of glyph runs found in the cache since the last call
+   * to {@link #resetStatistics()}.
+   */
+  public int getGlyphRunHits() {
+    return mHits;
+  }
+
+  /**
+   * Returns the number of glyph runs laid out because they were not in the
+   * cache since the last call to {@link #resetStatistics()}.
+   */
+  public int getGlyphRunMisses() {
+    return mMisses;
+  }
+
+  /**
+   * Resets the glyph run cache statistics.
+   */
+  public void resetStatistics() {
+    mHits = 0;
+    mMisses = 0;
+  }
+}
@@ -0,0 +1,327 @@
+package unifi.graphics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+
+import java.util.Arrays;
+
+/**
+ * Thin tracker of the OpenGL state set by Unifi which elides calls setting a
+ * state which is already current. All scissor, blend, texture and shader
+ * state changes issued by Unifi rendering go through an instance of this
+ * class.
+ *
+ * <p>The tracker only knows about the calls made through it, so it must be
+ * {@linkplain #invalidate() invalidated} whenever other code may have modified
+ * the OpenGL state, e.g., at the beginning of each frame.
+ *
+ * <p>The number of calls issued and elided since the last call to
+ * {@link #resetStatistics()} can be queried to verify its effectiveness. The
+ * calls are issued to the {@link GL20} instance given at construction, or to
+ * {@link Gdx#gl} at the time of each call if none was given, so a counting
+ * mock can be substituted under the headless backend.
+ */
+public class GLStateCache {
+
+  private static final int UNKNOWN = -1;
+
+  private static final int MAX_TEXTURE_UNITS = 32;
+
+  @Nullable private final GL20 mGl;
+
+  // Tri-state booleans: UNKNOWN, 0 or 1
+  private int mScissorTest = UNKNOWN;
+  private int mBlend = UNKNOWN;
+
+  private boolean mScissorKnown;
+  private int mScissorX;
+  private int mScissorY;
+  private int mScissorWidth;
+  private int mScissorHeight;
+
+  private int mBlendSrcFunc = UNKNOWN;
+  private int mBlendDstFunc = UNKNOWN;
+  private int mBlendSrcFuncAlpha = UNKNOWN;
+  private int mBlendDstFuncAlpha = UNKNOWN;
+
+  private int mActiveTexture = UNKNOWN;
+  @NonNull private final int[] mBoundTextures = new int[MAX_TEXTURE_UNITS];
+
+  private int mProgram = UNKNOWN;
+  @Nullable private ShaderProgram mShader;
+
+  private int mIssuedCalls;
+  private int mElidedCalls;
+
+  /**
+   * Constructs a state cache issuing its calls to {@link Gdx#gl}.
+   */
+  public GLStateCache() {
+    this(null);
+  }
+
+  /**
+   * Constructs a state cache issuing its calls to the specified {@link GL20}
+   * instance, or to {@link Gdx#gl} at the time of each call if {@code null}.
+   */
+  public GLStateCache(@Nullable GL20 gl) {
+    mGl = gl;
+    invalidate();
+  }
+
+  @NonNull
+  private GL20 gl() {
+    return mGl != null ? mGl : Gdx.gl;
+  }
+
+  /**
+   * Forgets all tracked state, so that the next call setting each state is
+   * issued regardless of its value.
+   */
+  public void invalidate() {
+    mScissorTest = UNKNOWN;
+    mBlend = UNKNOWN;
+    mScissorKnown = false;
+    mBlendSrcFunc = UNKNOWN;
+    mBlendDstFunc = UNKNOWN;
+    mBlendSrcFuncAlpha = UNKNOWN;
+    mBlendDstFuncAlpha = UNKNOWN;
+    mActiveTexture = UNKNOWN;
+    Arrays.fill(mBoundTextures, UNKNOWN);
+    mProgram = UNKNOWN;
+    mShader = null;
+  }
+
+  /**
+   * Returns the number of calls issued since the last call to
+   * {@link #resetStatistics()}.
+   */
+  public int getIssuedCalls() {
+    return mIssuedCalls;
+  }
+
+  /**
+   * Returns the number of calls elided because they would have set a state
+   * which was already current since the last call to
+   * {@link #resetStatistics()}.
+   */
+  public int getElidedCalls() {
+    return mElidedCalls;
+  }
+
+  /**
+   * Resets the issued and elided call counters.
+   */
+  public void resetStatistics() {
+    mIssuedCalls = 0;
+    mElidedCalls = 0;
+  }
+
+  /**
+   * Indicates whether or not the scissor test is known to be enabled.
+   */
+  public boolean isScissorTestEnabled() {
+    return mScissorTest == 1;
+  }
+
+  /**
+   * Indicates whether or not setting the specified scissor test state would
+   * change the current state.
+   */
+  public boolean wouldChangeScissorTest(boolean enabled) {
+    return mScissorTest != (enabled ? 1 : 0);
+  }
+
+  /**
+   * Enables or disables {@link GL20#GL_SCISSOR_TEST}.
+   */
+  public void setScissorTestEnabled(boolean enabled) {
+    final int value = enabled ? 1 : 0;
+    if (mScissorTest == value) {
+      mElidedCalls++;
+      return;
+    }
+
+    mScissorTest = value;
+    if (enabled) {
+      gl().glEnable(GL20.GL_SCISSOR_TEST);
+    } else {
+      gl().glDisable(GL20.GL_SCISSOR_TEST);
+    }
+
+    mIssuedCalls++;
+  }
+
+  /**
+   * Indicates whether or not setting the specified scissor box would change
+   * the current one.
+   */
+  public boolean wouldChangeScissor(int x, int y, int width, int height) {
+    return !mScissorKnown
+        || mScissorX != x || mScissorY != y
+        || mScissorWidth != width || mScissorHeight != height;
+  }
+
+  /**
+   * Sets the scissor box, given in back buffer coordinates.
+   *
+   * @see GL20#glScissor(int, int, int, int)
+   */
+  public void setScissor(int x, int y, int width, int height) {
+    if (!wouldChangeScissor(x, y, width, height)) {
+      mElidedCalls++;
+      return;
+    }
+
+    mScissorKnown = true;
+    mScissorX = x;
+    mScissorY = y;
+    mScissorWidth = width;
+    mScissorHeight = height;
+    gl().glScissor(x, y, width, height);
+    mIssuedCalls++;
+  }
+
+  /**
+   * Enables or disables {@link GL20#GL_BLEND}.
+   */
+  public void setBlendingEnabled(boolean enabled) {
+    final int value = enabled ? 1 : 0;
+    if (mBlend == value) {
+      mElidedCalls++;
+      return;
+    }
+
+    mBlend = value;
+    if (enabled) {
+      gl().glEnable(GL20.GL_BLEND);
+    } else {
+      gl().glDisable(GL20.GL_BLEND);
+    }
+
+    mIssuedCalls++;
+  }
+
+  /**
+   * Sets the blend function.
+   *
+   * @see GL20#glBlendFunc(int, int)
+   */
+  public void setBlendFunc(int srcFunc, int dstFunc) {
+    setBlendFuncSeparate(srcFunc, dstFunc, srcFunc, dstFunc);
+  }
+
+  /**
+   * Sets the blend function, using separate factors for the alpha channel.
+   *
+   * @see GL20#glBlendFuncSeparate(int, int, int, int)
+   */
+  public void setBlendFuncSeparate(int srcFuncColor, int dstFuncColor,
+                                   int srcFuncAlpha, int dstFuncAlpha) {
+    if (mBlendSrcFunc == srcFuncColor && mBlendDstFunc == dstFuncColor
+        && mBlendSrcFuncAlpha == srcFuncAlpha && mBlendDstFuncAlpha == dstFuncAlpha) {
+      mElidedCalls++;
+      return;
+    }
+
+    mBlendSrcFunc = srcFuncColor;
+    mBlendDstFunc = dstFuncColor;
+    mBlendSrcFuncAlpha = srcFuncAlpha;
+    mBlendDstFuncAlpha = dstFuncAlpha;
+    if (srcFuncColor == srcFuncAlpha && dstFuncColor == dstFuncAlpha) {
+      gl().glBlendFunc(srcFuncColor, dstFuncColor);
+    } else {
+      gl().glBlendFuncSeparate(srcFuncColor, dstFuncColor, srcFuncAlpha, dstFuncAlpha);
+    }
+
+    mIssuedCalls++;
+  }
+
+  /**
+   * Makes the specified texture unit active.
+   *
+   * @param unit The texture unit, starting at {@code 0}
+   *
+   * @see GL20#glActiveTexture(int)
+   */
+  public void setActiveTexture(int unit) {
+    if (unit < 0 || unit >= MAX_TEXTURE_UNITS) {
+      throw new IllegalArgumentException("unit must be in range [0.." + MAX_TEXTURE_UNITS + ")");
+    }
+
+    if (mActiveTexture == unit) {
+      mElidedCalls++;
+      return;
+    }
+
+    mActiveTexture = unit;
+    gl().glActiveTexture(GL20.GL_TEXTURE0 + unit);
+    mIssuedCalls++;
+  }
+
+  /**
+   * Binds the specified texture handle to the specified texture unit, making
+   * that unit active if it is not already.
+   *
+   * @param unit   The texture unit, starting at {@code 0}
+   * @param handle The texture handle, as returned by
+   *               {@link com.badlogic.gdx.graphics.Texture#getTextureObjectHandle()}
+   */
+  public void bindTexture(int unit, int handle) {
+    if (unit < 0 || unit >= MAX_TEXTURE_UNITS) {
+      throw new IllegalArgumentException("unit must be in range [0.." + MAX_TEXTURE_UNITS + ")");
+    }
+
+    if (mBoundTextures[unit] == handle) {
+      mElidedCalls++;
+      return;
+    }
+
+    setActiveTexture(unit);
+    mBoundTextures[unit] = handle;
+    gl().glBindTexture(GL20.GL_TEXTURE_2D, handle);
+    mIssuedCalls++;
+  }
+
+  /**
+   * Installs the specified shader program.
+   *
+   * @param program The program handle, or {@code 0} to install none
+   */
+  public void useProgram(int program) {
+    if (mProgram == program) {
+      mElidedCalls++;
+      return;
+    }
+
+    mProgram = program;
+    mShader = null;
+    gl().glUseProgram(program);
+    mIssuedCalls++;
+  }
+
+  /**
+   * Installs the program of the specified shader. The program is installed by
+   * {@link ShaderProgram#begin()}, which compiles it again if the OpenGL
+   * context was lost, and so issues its call to {@link Gdx#gl}.
+   */
+  public void useProgram(@NonNull ShaderProgram shader) {
+    if (shader == null) {
+      throw new IllegalArgumentException("shader cannot be null");
+    }
+
+    if (mShader == shader) {
+      mElidedCalls++;
+      return;
+    }
+
+    mShader = shader;
+    mProgram = UNKNOWN;
+    shader.begin();
+    mIssuedCalls++;
+  }
+}
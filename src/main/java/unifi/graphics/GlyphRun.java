@@ -0,0 +1,82 @@
+package unifi.graphics;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Immutable result of laying out a string with a {@link Font}: the quads of
+ * its glyphs, grouped by the page of the font containing them. Glyph runs are
+ * cached by their font, so drawing the same string again only copies these
+ * quads into the batch instead of laying out its glyphs again.
+ *
+ * <p>The quads are in the vertex format of
+ * {@link Canvas#draw(com.badlogic.gdx.graphics.Texture, float[], int, int)},
+ * at the natural size of the font, relative to the top left corner of the
+ * text with the y-axis pointing down.
+ *
+ * @see Font#getGlyphRun(CharSequence)
+ * @see Canvas#drawTextRun(GlyphRun, float, float, Paint)
+ */
+public final class GlyphRun {
+
+  @NonNull final Font mFont;
+  @NonNull final String mText;
+  @NonNull final float[][] mVertices;
+  @NonNull final int[] mVertexCounts;
+  final float mWidth;
+  final float mHeight;
+  final int mGlyphCount;
+
+  GlyphRun(@NonNull Font font, @NonNull String text, @NonNull float[][] vertices,
+           @NonNull int[] vertexCounts, float width, float height) {
+    mFont = font;
+    mText = text;
+    mVertices = vertices;
+    mVertexCounts = vertexCounts;
+    mWidth = width;
+    mHeight = height;
+
+    int glyphCount = 0;
+    for (int count : vertexCounts) {
+      glyphCount += count / Canvas.QUAD_SIZE;
+    }
+
+    mGlyphCount = glyphCount;
+  }
+
+  /**
+   * Returns the font used to lay out this run.
+   */
+  @NonNull
+  public Font getFont() {
+    return mFont;
+  }
+
+  /**
+   * Returns the text of this run.
+   */
+  @NonNull
+  public String getText() {
+    return mText;
+  }
+
+  /**
+   * Returns the width of this run at the natural size of its font, in pixels.
+   */
+  public float getWidth() {
+    return mWidth;
+  }
+
+  /**
+   * Returns the height of this run at the natural size of its font, in pixels.
+   */
+  public float getHeight() {
+    return mHeight;
+  }
+
+  /**
+   * Returns the number of visible glyphs in this run.
+   */
+  public int getGlyphCount() {
+    return mGlyphCount;
+  }
+}
@@ -0,0 +1,318 @@
+package unifi.graphics;
+
+import android.support.annotation.NonNull;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.KTXTextureData;
+import com.badlogic.gdx.math.MathUtils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes images downsampled to the size at which they are displayed, so that
+ * a large image drawn small does not cost the texture memory and upload time
+ * of its full resolution.
+ *
+ * <p>Requested sizes are rounded up to {@linkplain #getSizeBucket(int)
+ * buckets}, so that an image displayed at slightly different sizes is only
+ * decoded and cached once. Images are halved with a box filter while they are
+ * at least twice the bucket size, and then scaled to it with a bilinear
+ * filter, preserving their aspect ratio. Images are never upscaled.
+ *
+ * <p>Images in {@linkplain #isCompressed(String) compressed GPU formats} are
+ * uploaded as they are, and are not downsampled, since they cannot be
+ * decoded into pixmaps. Their mip levels serve the same purpose.
+ *
+ * <p>Note: libGDX decodes images at their full resolution, so the full image
+ * is still decoded, but only the downsampled image is uploaded and retained.
+ */
+public class ImageDecoder {
+  private ImageDecoder() {}
+
+  /**
+   * Requested width or height which does not constrain the size of an image.
+   */
+  public static final int ORIGINAL_SIZE = 0;
+
+  /**
+   * Indicates whether or not the image at the specified path is in a
+   * compressed GPU format supported by libGDX, i.e., an ETC1 ({@code .etc1})
+   * or KTX ({@code .ktx}, or zlib-compressed {@code .zktx}) file, which is
+   * uploaded as is instead of being decoded.
+   */
+  public static boolean isCompressed(@NonNull String path) {
+    return path.endsWith(".etc1") || path.endsWith(".ktx") || path.endsWith(".zktx");
+  }
+
+  /**
+   * Returns new texture data of the specified image in a compressed GPU
+   * format, which is not {@linkplain TextureData#prepare() prepared} yet.
+   * Mipmaps are never generated for it, since OpenGL ES 2 cannot generate
+   * them for compressed textures, but the mip levels of KTX files are
+   * uploaded.
+   *
+   * @see #hasMipLevels(TextureData)
+   */
+  @NonNull
+  public static TextureData loadCompressed(@NonNull FileHandle file) {
+    if (file == null) {
+      throw new IllegalArgumentException("file cannot be null");
+    }
+
+    return TextureData.Factory.loadFromFile(file, false);
+  }
+
+  /**
+   * Indicates whether or not the specified prepared texture data has mip
+   * levels, either generated or read from a KTX file, so that its texture
+   * should be sampled with a mipmapped filter.
+   */
+  public static boolean hasMipLevels(@NonNull TextureData data) {
+    return data.useMipMaps()
+        || (data instanceof KTXTextureData
+            && ((KTXTextureData) data).getNumberOfMipMapLevels() > 1);
+  }
+
+  /**
+   * Returns the size bucket of the specified requested size, i.e., the
+   * smallest power of two which is greater than or equal to it, or
+   * {@link #ORIGINAL_SIZE} if it is not positive.
+   */
+  public static int getSizeBucket(int size) {
+    return size <= 0 ? ORIGINAL_SIZE : MathUtils.nextPowerOfTwo(size);
+  }
+
+  /**
+   * Returns the key under which the image at the specified path downsampled
+   * to the given size should be cached, which is the path itself if the size
+   * does not constrain the image, or if the image is compressed.
+   */
+  @NonNull
+  public static String getCacheKey(@NonNull String path, int width, int height) {
+    if (isCompressed(path)) {
+      return path;
+    }
+
+    width = getSizeBucket(width);
+    height = getSizeBucket(height);
+    if (width == ORIGINAL_SIZE && height == ORIGINAL_SIZE) {
+      return path;
+    }
+
+    return path + '@' + width + 'x' + height;
+  }
+
+  /**
+   * Decodes the specified image, downsampled to cover the size bucket of the
+   * given size. This may be called from any thread.
+   *
+   * @param file   The image file
+   * @param width  The width at which the image is displayed, in pixels, or
+   *               {@link #ORIGINAL_SIZE}
+   * @param height The height at which the image is displayed, in pixels, or
+   *               {@link #ORIGINAL_SIZE}
+   */
+  @NonNull
+  public static Pixmap decode(@NonNull FileHandle file, int width, int height) {
+    if (file == null) {
+      throw new IllegalArgumentException("file cannot be null");
+    }
+
+    return downsample(new Pixmap(file), width, height);
+  }
+
+  /**
+   * Downsamples the specified image to cover the size bucket of the given
+   * size, preserving its aspect ratio. If the image is downsampled, then it is
+   * disposed and a new RGBA8888 image is returned, otherwise it is returned
+   * as is.
+   *
+   * @param pixmap The image
+   * @param width  The width at which the image is displayed, in pixels, or
+   *               {@link #ORIGINAL_SIZE}
+   * @param height The height at which the image is displayed, in pixels, or
+   *               {@link #ORIGINAL_SIZE}
+   */
+  @NonNull
+  public static Pixmap downsample(@NonNull Pixmap pixmap, int width, int height) {
+    if (pixmap == null) {
+      throw new IllegalArgumentException("pixmap cannot be null");
+    }
+
+    width = getSizeBucket(width);
+    height = getSizeBucket(height);
+    final int srcWidth = pixmap.getWidth();
+    final int srcHeight = pixmap.getHeight();
+    final float scale = Math.max(
+        width == ORIGINAL_SIZE ? 0 : (float) width / srcWidth,
+        height == ORIGINAL_SIZE ? 0 : (float) height / srcHeight);
+    if (scale == 0 || scale >= 1) {
+      return pixmap;
+    }
+
+    final int dstWidth = Math.max(1, (int) Math.ceil(srcWidth * scale));
+    final int dstHeight = Math.max(1, (int) Math.ceil(srcHeight * scale));
+    Pixmap result = toRgba8888(pixmap);
+    while ((result.getWidth() > dstWidth || result.getHeight() > dstHeight)
+        && (result.getWidth() + 1) / 2 >= dstWidth
+        && (result.getHeight() + 1) / 2 >= dstHeight) {
+      final Pixmap halved = halve(result);
+      result.dispose();
+      result = halved;
+    }
+
+    if (result.getWidth() != dstWidth || result.getHeight() != dstHeight) {
+      final Pixmap scaled = scale(result, dstWidth, dstHeight);
+      result.dispose();
+      result = scaled;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the specified image in the RGBA8888 format, disposing it if it
+   * was converted. Pixels are copied one by one rather than drawn, since the
+   * blending of pixmaps is global state in libGDX, shared with the other
+   * threads decoding images.
+   */
+  @NonNull
+  private static Pixmap toRgba8888(@NonNull Pixmap pixmap) {
+    if (pixmap.getFormat() == Pixmap.Format.RGBA8888) {
+      return pixmap;
+    }
+
+    final int width = pixmap.getWidth();
+    final int height = pixmap.getHeight();
+    final Pixmap converted = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+    final ByteBuffer out = converted.getPixels();
+    if (pixmap.getFormat() == Pixmap.Format.RGB888) {
+      final ByteBuffer in = pixmap.getPixels();
+      for (int i = 0, o = 0, size = width * height * 3; i < size; i += 3, o += 4) {
+        out.put(o, in.get(i));
+        out.put(o + 1, in.get(i + 1));
+        out.put(o + 2, in.get(i + 2));
+        out.put(o + 3, (byte) 0xFF);
+      }
+    } else {
+      int o = 0;
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          final int rgba = pixmap.getPixel(x, y);
+          out.put(o, (byte) (rgba >>> 24));
+          out.put(o + 1, (byte) (rgba >>> 16));
+          out.put(o + 2, (byte) (rgba >>> 8));
+          out.put(o + 3, (byte) rgba);
+          o += 4;
+        }
+      }
+    }
+
+    pixmap.dispose();
+    return converted;
+  }
+
+  /**
+   * Returns a new RGBA8888 image half the size of the specified one, rounded
+   * up, where each pixel is the average of a 2x2 block of pixels weighted by
+   * their alpha, so that the colors of transparent pixels do not bleed. The
+   * blocks of the last column and row of odd-sized images repeat it.
+   */
+  @NonNull
+  private static Pixmap halve(@NonNull Pixmap src) {
+    final int srcWidth = src.getWidth();
+    final int srcHeight = src.getHeight();
+    final int width = (srcWidth + 1) / 2;
+    final int height = (srcHeight + 1) / 2;
+    final int stride = srcWidth * 4;
+    final Pixmap dst = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+    final ByteBuffer in = src.getPixels();
+    final ByteBuffer out = dst.getPixels();
+    int o = 0;
+    for (int y = 0; y < height; y++) {
+      final int row0 = 2 * y * stride;
+      final int row1 = Math.min(2 * y + 1, srcHeight - 1) * stride;
+      for (int x = 0; x < width; x++) {
+        final int col0 = 8 * x;
+        final int col1 = Math.min(2 * x + 1, srcWidth - 1) * 4;
+        int r = 0, g = 0, b = 0, a = 0;
+        for (int k = 0; k < 4; k++) {
+          final int j = ((k & 1) == 0 ? col0 : col1) + ((k >> 1) == 0 ? row0 : row1);
+          final int alpha = in.get(j + 3) & 0xFF;
+          r += (in.get(j) & 0xFF) * alpha;
+          g += (in.get(j + 1) & 0xFF) * alpha;
+          b += (in.get(j + 2) & 0xFF) * alpha;
+          a += alpha;
+        }
+
+        if (a == 0) {
+          out.putInt(o, 0);
+        } else {
+          out.put(o, (byte) (r / a));
+          out.put(o + 1, (byte) (g / a));
+          out.put(o + 2, (byte) (b / a));
+          out.put(o + 3, (byte) ((a + 2) / 4));
+        }
+
+        o += 4;
+      }
+    }
+
+    return dst;
+  }
+
+  /**
+   * Returns a new RGBA8888 image of the specified size scaled from the given
+   * one, which is less than twice as large, with a bilinear filter weighted
+   * by alpha like {@link #halve(Pixmap)}.
+   */
+  @NonNull
+  private static Pixmap scale(@NonNull Pixmap src, int width, int height) {
+    final int srcWidth = src.getWidth();
+    final int srcHeight = src.getHeight();
+    final int stride = srcWidth * 4;
+    final float scaleX = (float) srcWidth / width;
+    final float scaleY = (float) srcHeight / height;
+    final Pixmap dst = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+    final ByteBuffer in = src.getPixels();
+    final ByteBuffer out = dst.getPixels();
+    int o = 0;
+    for (int y = 0; y < height; y++) {
+      final float sy = MathUtils.clamp((y + 0.5f) * scaleY - 0.5f, 0, srcHeight - 1);
+      final int y0 = (int) sy;
+      final int y1 = Math.min(y0 + 1, srcHeight - 1);
+      final float fy = sy - y0;
+      for (int x = 0; x < width; x++) {
+        final float sx = MathUtils.clamp((x + 0.5f) * scaleX - 0.5f, 0, srcWidth - 1);
+        final int x0 = (int) sx;
+        final int x1 = Math.min(x0 + 1, srcWidth - 1);
+        final float fx = sx - x0;
+        float r = 0, g = 0, b = 0, a = 0;
+        for (int k = 0; k < 4; k++) {
+          final int j = ((k & 1) == 0 ? x0 : x1) * 4 + ((k >> 1) == 0 ? y0 : y1) * stride;
+          final float weight = ((k & 1) == 0 ? 1 - fx : fx) * ((k >> 1) == 0 ? 1 - fy : fy);
+          final float alpha = (in.get(j + 3) & 0xFF) * weight;
+          r += (in.get(j) & 0xFF) * alpha;
+          g += (in.get(j + 1) & 0xFF) * alpha;
+          b += (in.get(j + 2) & 0xFF) * alpha;
+          a += alpha;
+        }
+
+        if (a == 0) {
+          out.putInt(o, 0);
+        } else {
+          out.put(o, (byte) Math.round(r / a));
+          out.put(o + 1, (byte) Math.round(g / a));
+          out.put(o + 2, (byte) Math.round(b / a));
+          out.put(o + 3, (byte) Math.round(a));
+        }
+
+        o += 4;
+      }
+    }
+
+    return dst;
+  }
+}
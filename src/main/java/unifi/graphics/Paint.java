@@ -2,9 +2,12 @@ package unifi.graphics;
 
 import com.google.common.base.Preconditions;
 
+import com.badlogic.gdx.utils.NumberUtils;
+
 import android.support.annotation.ColorInt;
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 public class Paint {
 
@@ -14,10 +17,29 @@ public class Paint {
 
   @ColorInt int mColor = Color.WHITE;
 
+  /** {@link #mColor} packed for vertex data, valid iff {@link #mPackedColorValid} */
+  private float mPackedColor;
+  private boolean mPackedColorValid;
+
   @NonNull Style mStyle = Style.FILL;
 
   float mStrokeWidth = 1.0f;
 
+  @Nullable Font mFont;
+
+  /** Line height of text, or {@code 0} for the natural size of the font */
+  float mTextSize;
+
+  /** Width of the outline of distance field text, or {@code 0} for none */
+  float mTextOutlineWidth;
+  @ColorInt int mTextOutlineColor = Color.BLACK;
+
+  /** Blur radius of the shadow of distance field text, or {@code 0} for none */
+  float mShadowRadius;
+  float mShadowDx;
+  float mShadowDy;
+  @ColorInt int mShadowColor;
+
   public Paint() {
     this(0);
   }
@@ -29,8 +51,18 @@ public class Paint {
   public Paint(@NonNull Paint src) {
     mFlags = src.mFlags;
     mColor = src.mColor;
+    mPackedColor = src.mPackedColor;
+    mPackedColorValid = src.mPackedColorValid;
     mStyle = src.mStyle;
     mStrokeWidth = src.mStrokeWidth;
+    mFont = src.mFont;
+    mTextSize = src.mTextSize;
+    mTextOutlineWidth = src.mTextOutlineWidth;
+    mTextOutlineColor = src.mTextOutlineColor;
+    mShadowRadius = src.mShadowRadius;
+    mShadowDx = src.mShadowDx;
+    mShadowDy = src.mShadowDy;
+    mShadowColor = src.mShadowColor;
   }
 
   public int getFlags() {
@@ -47,7 +79,26 @@ public class Paint {
   }
 
   public void setColor(@ColorInt int color) {
-    mColor = color;
+    if (mColor != color) {
+      mColor = color;
+      mPackedColorValid = false;
+    }
+  }
+
+  /**
+   * Returns the color of this paint packed into a float as expected by
+   * {@link com.badlogic.gdx.graphics.g2d.Batch#setColor(float)}, i.e., the
+   * straight (non-premultiplied) {@code abgr} bits. The value is computed
+   * lazily and cached until the color changes, so repeated draws with the same
+   * paint do no color conversion.
+   */
+  public float getPackedColor() {
+    if (!mPackedColorValid) {
+      mPackedColor = NumberUtils.intToFloatColor(Color.abgr(mColor));
+      mPackedColorValid = true;
+    }
+
+    return mPackedColor;
   }
 
   @IntRange(from = 0, to = 255)
@@ -60,7 +111,7 @@ public class Paint {
       throw new IllegalArgumentException("alpha must be in range [0..255] inclusive");
     }
 
-    mColor = Color.setAlpha(mColor, alpha);
+    setColor(Color.setAlpha(mColor, alpha));
   }
 
   @NonNull
@@ -80,6 +131,156 @@ public class Paint {
     mStrokeWidth = Math.max(strokeWidth, 1.0f);
   }
 
+  @Nullable
+  public Font getFont() {
+    return mFont;
+  }
+
+  public void setFont(@Nullable Font font) {
+    mFont = font;
+  }
+
+  /**
+   * Returns the line height of text drawn with this paint, in pixels, or
+   * {@code 0} if text is drawn at the natural size of its font.
+   */
+  public float getTextSize() {
+    return mTextSize;
+  }
+
+  /**
+   * Sets the line height of text drawn with this paint, in pixels, or
+   * {@code 0} to draw text at the natural size of its font.
+   */
+  public void setTextSize(float textSize) {
+    mTextSize = Math.max(textSize, 0.0f);
+  }
+
+  /**
+   * Returns the width of the outline drawn around text with a
+   * {@linkplain Font#isDistanceField() distance field font}, in pixels, or
+   * {@code 0} if none is drawn.
+   */
+  public float getTextOutlineWidth() {
+    return mTextOutlineWidth;
+  }
+
+  /**
+   * Returns the color of the outline drawn around text.
+   */
+  @ColorInt
+  public int getTextOutlineColor() {
+    return mTextOutlineColor;
+  }
+
+  /**
+   * Sets the outline drawn around text with a
+   * {@linkplain Font#isDistanceField() distance field font}. The outline is
+   * drawn outside of the glyphs by the same shader as their fill, and its
+   * opacity follows the alpha of the color of this paint.
+   *
+   * @param width The width of the outline, in pixels, or {@code 0} for none
+   * @param color The color of the outline, whose alpha is ignored
+   */
+  public void setTextOutline(float width, @ColorInt int color) {
+    mTextOutlineWidth = Math.max(width, 0.0f);
+    mTextOutlineColor = color;
+  }
+
+  /**
+   * Sets the shadow drawn below text with a
+   * {@linkplain Font#isDistanceField() distance field font}. The shadow is
+   * drawn from the same glyphs as the text, in the same batch, blurred by
+   * widening the edges of their distance fields.
+   *
+   * @param radius The blur radius of the shadow, in pixels
+   * @param dx     The x-axis offset of the shadow, in pixels
+   * @param dy     The y-axis offset of the shadow, in pixels
+   * @param color  The color of the shadow, which is not drawn if transparent
+   */
+  public void setShadowLayer(float radius, float dx, float dy, @ColorInt int color) {
+    mShadowRadius = Math.max(radius, 0.0f);
+    mShadowDx = dx;
+    mShadowDy = dy;
+    mShadowColor = color;
+  }
+
+  /**
+   * Removes the shadow drawn below text.
+   */
+  public void clearShadowLayer() {
+    setShadowLayer(0, 0, 0, Color.TRANSPARENT);
+  }
+
+  /**
+   * Indicates whether or not a shadow is drawn below text.
+   */
+  public boolean hasShadowLayer() {
+    return Color.alpha(mShadowColor) != 0;
+  }
+
+  public float getShadowLayerRadius() {
+    return mShadowRadius;
+  }
+
+  public float getShadowLayerDx() {
+    return mShadowDx;
+  }
+
+  public float getShadowLayerDy() {
+    return mShadowDy;
+  }
+
+  @ColorInt
+  public int getShadowLayerColor() {
+    return mShadowColor;
+  }
+
+  /**
+   * Returns the factor by which the glyphs of the font of this paint are
+   * scaled to draw text with its text size.
+   *
+   * @throws IllegalStateException if no font is set
+   */
+  public float getTextScale() {
+    return getTextScale(font());
+  }
+
+  /**
+   * Returns the factor by which the glyphs of the font are scaled to draw text
+   * with the text size of this paint.
+   */
+  float getTextScale(@NonNull Font font) {
+    return mTextSize > 0 ? mTextSize / font.getLineHeight() : 1.0f;
+  }
+
+  /**
+   * Returns the recommended line spacing of text drawn with this paint, or
+   * {@code 0} if no font is set.
+   */
+  public float getFontSpacing() {
+    return mFont == null ? 0 : font().getLineHeight() * getTextScale(mFont);
+  }
+
+  /**
+   * Returns the width of the specified text drawn with this paint.
+   *
+   * @throws IllegalStateException if no font is set
+   */
+  public float measureText(@NonNull CharSequence text) {
+    final Font font = font();
+    return font.measureText(text) * getTextScale(font);
+  }
+
+  @NonNull
+  Font font() {
+    if (mFont == null) {
+      throw new IllegalStateException("paint has no font");
+    }
+
+    return mFont;
+  }
+
   public enum Style {
     FILL,
     STROKE,
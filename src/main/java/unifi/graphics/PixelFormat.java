@@ -1,8 +1,11 @@
 package unifi.graphics;
 
 import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
 
 import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -73,5 +76,20 @@ public final class PixelFormat {
     return OPAQUE;
   }
 
+  /**
+   * Indicates whether or not the specified texture is fully opaque, i.e., its
+   * format has no alpha channel. Textures whose format is not known, e.g.,
+   * compressed textures, are assumed to have one.
+   */
+  public static boolean isOpaque(@NonNull Texture texture) {
+    final TextureData data = texture.getTextureData();
+    if (data == null) {
+      return false;
+    }
+
+    final Pixmap.Format format = data.getFormat();
+    return format == Pixmap.Format.RGB888 || format == Pixmap.Format.RGB565;
+  }
+
   private PixelFormat() {}
 }
@@ -0,0 +1,144 @@
+package unifi.graphics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.FileTextureData;
+
+/**
+ * A texture loaded from a file, whose OpenGL texture can be deleted to free
+ * GPU memory while the texture, and so the regions of it, are still in use,
+ * and which is loaded again from its file when it is next needed. Eviction is
+ * driven by the {@link TextureRegistry}, with which these textures register
+ * themselves.
+ */
+public class ReloadableTexture extends Texture {
+
+  @NonNull private final FileHandle mFile;
+
+  /**
+   * Constructs a texture loaded from the specified file. Files in compressed
+   * GPU formats (see {@link ImageDecoder#isCompressed(String)}) are uploaded
+   * with the mip levels of the file, if any.
+   */
+  public ReloadableTexture(@NonNull FileHandle file) {
+    this(file, ImageDecoder.isCompressed(file.name())
+        ? ImageDecoder.loadCompressed(file)
+        : TextureData.Factory.loadFromFile(file, false));
+  }
+
+  /**
+   * Constructs a texture of the specified file, uploading the given pixmap
+   * already decoded from it, e.g., by a background thread. The pixmap is
+   * disposed once uploaded, and the file is decoded again if the texture is
+   * reloaded.
+   *
+   * @param file   The file of the texture
+   * @param pixmap The image decoded from {@code file}, or {@code null} to
+   *               decode it now
+   */
+  public ReloadableTexture(@NonNull FileHandle file, @Nullable Pixmap pixmap) {
+    this(file, new FileTextureData(file, pixmap, null, false));
+  }
+
+  /**
+   * Constructs a texture of the specified file {@linkplain ImageDecoder
+   * downsampled} to the size at which it is displayed, which it keeps when it
+   * is reloaded.
+   *
+   * @param file       The file of the texture
+   * @param pixmap     The image decoded from {@code file} and downsampled, or
+   *                   {@code null} to decode it now
+   * @param width      The width at which the image is displayed, in pixels,
+   *                   or {@link ImageDecoder#ORIGINAL_SIZE}
+   * @param height     The height at which the image is displayed, in pixels,
+   *                   or {@link ImageDecoder#ORIGINAL_SIZE}
+   * @param useMipMaps Whether or not to generate mipmaps, which are sampled
+   *                   when the texture is drawn smaller than its size
+   */
+  public ReloadableTexture(@NonNull FileHandle file, @Nullable Pixmap pixmap,
+                           int width, int height, boolean useMipMaps) {
+    this(file, new DownsampledTextureData(file, pixmap, width, height, useMipMaps));
+  }
+
+  /**
+   * Constructs a texture of the specified file from the given texture data,
+   * which may have been {@linkplain TextureData#prepare() prepared} already,
+   * e.g., by a background thread.
+   *
+   * @param file The file of the texture
+   * @param data The texture data of {@code file}, which must be managed, i.e.,
+   *             able to load the file again
+   *
+   * @throws IllegalArgumentException if {@code data} is not managed
+   */
+  public ReloadableTexture(@NonNull FileHandle file, @NonNull TextureData data) {
+    super(checkManaged(data));
+    mFile = file;
+    if (ImageDecoder.hasMipLevels(data)) {
+      setFilter(TextureFilter.MipMapLinearLinear, TextureFilter.Linear);
+    }
+
+    TextureRegistry.getInstance().register(this);
+  }
+
+  @NonNull
+  private static TextureData checkManaged(@NonNull TextureData data) {
+    if (data == null) {
+      throw new IllegalArgumentException("data cannot be null");
+    } else if (!data.isManaged()) {
+      throw new IllegalArgumentException("data must be managed");
+    }
+
+    return data;
+  }
+
+  /**
+   * Returns the file this texture is loaded from.
+   */
+  @NonNull
+  public FileHandle getFile() {
+    return mFile;
+  }
+
+  /**
+   * Indicates whether or not the OpenGL texture of this texture has been
+   * deleted by {@link #evict()}.
+   */
+  public boolean isEvicted() {
+    return getTextureObjectHandle() == 0;
+  }
+
+  /**
+   * Deletes the OpenGL texture of this texture, if it exists. This texture
+   * stays usable, and must be {@linkplain #restore() restored} before it is
+   * drawn again.
+   */
+  void evict() {
+    // Also releases the texture from the textures libGDX reloads when the
+    // context is lost, which would otherwise hold it forever once evicted
+    super.dispose();
+  }
+
+  /**
+   * Loads this texture again from its file, if it was evicted.
+   *
+   * <p>Note: A restored texture is not reloaded by libGDX if the OpenGL
+   * context is lost.
+   */
+  void restore() {
+    if (isEvicted()) {
+      reload();
+    }
+  }
+
+  @Override
+  public void dispose() {
+    TextureRegistry.getInstance().unregister(this);
+    super.dispose();
+  }
+}
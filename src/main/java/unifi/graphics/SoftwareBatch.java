@@ -0,0 +1,1207 @@
+package unifi.graphics;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.NumberUtils;
+import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.viewport.ScalingViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@link Batch} implementation which rasterizes quads in software into an
+ * ARGB pixel buffer, without issuing any OpenGL calls. A {@link Canvas}
+ * drawing with this batch renders views on machines without a GPU, e.g., to
+ * take snapshots of them on a server, or to profile the whole view pipeline
+ * on headless CI machines.
+ *
+ * <ul>
+ *   <li>Textures are sampled with nearest filtering from the pixmaps of their
+ *       {@link TextureData}, which are read once and cached, so
+ *       {@link #invalidateTexture(Texture)} must be called if the contents of
+ *       a texture change. The textures themselves still need to be created,
+ *       which libGDX's headless backend supports without a GPU.
+ *   <li>Quads are clipped to the {@linkplain #setScissor scissor box}, given
+ *       in window coordinates as with {@link GL20#glScissor}, and blended
+ *       with the current blend function.
+ *   <li>Each quad is tinted with the color of its first vertex, and shaders
+ *       are ignored.
+ * </ul>
+ *
+ * <p>By default, quads are rasterized as they are drawn, so {@link #flush()}
+ * does nothing. A batch constructed with a {@link ForkJoinPool} is tiled
+ * instead: quads are recorded along with the state they are drawn with, and
+ * on each flush, binned into square tiles of the surface which are rasterized
+ * in parallel. Each pixel is computed from its coordinates and the recorded
+ * quads covering it, in the order they were drawn, so tiled rendering is
+ * pixel-identical to immediate rendering.
+ *
+ * <p>Edges shared by adjacent triangles follow the top-left fill rule, so no
+ * pixel is blended twice along the diagonal of a quad.
+ */
+public class SoftwareBatch implements Batch {
+
+  /**
+   * Default width and height of the tiles of a tiled batch, in pixels.
+   */
+  public static final int DEFAULT_TILE_SIZE = 64;
+
+  private static final int BLEND_DISABLED = 0;
+  private static final int BLEND_SRC_OVER = 1;
+  private static final int BLEND_GENERIC = 2;
+
+  /** Size of a sprite in the vertex format of {@link Batch#draw(Texture, float[], int, int)} */
+  private static final int BATCH_SPRITE_SIZE = 20;
+
+  /** x, y, u, v of the 4 corners of a recorded quad, in pixels */
+  private static final int QUAD_VERTICES_SIZE = 16;
+
+  /** tint, blend mode, blend functions and clip bounds of a recorded quad */
+  private static final int QUAD_STATE_SIZE = 10;
+  private static final int STATE_TINT = 0;
+  private static final int STATE_BLEND_MODE = 1;
+  private static final int STATE_BLEND_SRC_FUNC = 2;
+  private static final int STATE_BLEND_DST_FUNC = 3;
+  private static final int STATE_BLEND_SRC_FUNC_ALPHA = 4;
+  private static final int STATE_BLEND_DST_FUNC_ALPHA = 5;
+  private static final int STATE_CLIP_LEFT = 6;
+  private static final int STATE_CLIP_TOP = 7;
+  private static final int STATE_CLIP_RIGHT = 8;
+  private static final int STATE_CLIP_BOTTOM = 9;
+
+  /**
+   * Number of quads rasterized since {@link #begin()}.
+   */
+  public int quadsRasterized = 0;
+
+  /**
+   * Number of tiles rasterized since {@link #begin()}, or {@code 0} if this
+   * batch is not tiled.
+   */
+  public int tilesRasterized = 0;
+
+  private final int mWidth;
+  private final int mHeight;
+
+  /** Pixels of the surface, in ARGB, row by row from the top left corner */
+  @NonNull private final int[] mPixels;
+
+  @NonNull private final Map<Texture, Image> mImages = new IdentityHashMap<>();
+
+  @NonNull private final Matrix4 mProjectionMatrix = new Matrix4();
+  @NonNull private final Matrix4 mTransformMatrix = new Matrix4();
+  @NonNull private final Matrix4 mCombinedMatrix = new Matrix4();
+
+  /**
+   * Pool rasterizing the tiles in parallel, or {@code null} if quads are
+   * rasterized as they are drawn.
+   */
+  @Nullable private final ForkJoinPool mPool;
+  private final int mTileSize;
+  private final int mTileColumns;
+
+  /** Indexes of the recorded quads overlapping each tile, in drawing order */
+  @Nullable private final int[][] mTileQuads;
+  @Nullable private final int[] mTileQuadCounts;
+
+  // Recorded quads, of which there is at most one if this batch is not tiled
+  private int mQuadCount;
+  @NonNull private float[] mQuadVertices = new float[QUAD_VERTICES_SIZE];
+  @NonNull private int[] mQuadStates = new int[QUAD_STATE_SIZE];
+  @NonNull private Image[] mQuadImages = new Image[1];
+
+  private boolean mDrawing = false;
+
+  private boolean mBlendingDisabled = false;
+  private int mBlendSrcFunc = GL20.GL_SRC_ALPHA;
+  private int mBlendDstFunc = GL20.GL_ONE_MINUS_SRC_ALPHA;
+  private int mBlendSrcFuncAlpha = GL20.GL_SRC_ALPHA;
+  private int mBlendDstFuncAlpha = GL20.GL_ONE_MINUS_SRC_ALPHA;
+  private int mBlendMode = BLEND_SRC_OVER;
+
+  private boolean mScissorTest = false;
+  private int mScissorX;
+  private int mScissorY;
+  private int mScissorWidth;
+  private int mScissorHeight;
+
+  @Nullable private ShaderProgram mShader;
+
+  @NonNull private final com.badlogic.gdx.graphics.Color mColor
+      = new com.badlogic.gdx.graphics.Color(1, 1, 1, 1);
+  private float mPackedColor = com.badlogic.gdx.graphics.Color.WHITE.toFloatBits();
+
+  /**
+   * Constructs a batch rasterizing into a transparent surface of the
+   * specified size.
+   *
+   * @param width  The width of the surface, in pixels
+   * @param height The height of the surface, in pixels
+   */
+  public SoftwareBatch(@IntRange(from = 1) int width, @IntRange(from = 1) int height) {
+    this(width, height, DEFAULT_TILE_SIZE, null);
+  }
+
+  /**
+   * Constructs a batch rasterizing into a transparent surface of the
+   * specified size, tiled if a pool is given.
+   *
+   * @param width    The width of the surface, in pixels
+   * @param height   The height of the surface, in pixels
+   * @param tileSize The width and height of the tiles, in pixels
+   * @param pool     The pool rasterizing the tiles in parallel, e.g.,
+   *                 {@code new ForkJoinPool()} to use every core, or
+   *                 {@code null} to rasterize quads as they are drawn
+   */
+  public SoftwareBatch(@IntRange(from = 1) int width, @IntRange(from = 1) int height,
+                       @IntRange(from = 1) int tileSize, @Nullable ForkJoinPool pool) {
+    if (width <= 0) {
+      throw new IllegalArgumentException("width must be > 0");
+    } else if (height <= 0) {
+      throw new IllegalArgumentException("height must be > 0");
+    } else if (tileSize <= 0) {
+      throw new IllegalArgumentException("tileSize must be > 0");
+    }
+
+    mWidth = width;
+    mHeight = height;
+    mPixels = new int[width * height];
+    mProjectionMatrix.setToOrtho2D(0, 0, width, height);
+
+    mPool = pool;
+    mTileSize = tileSize;
+    mTileColumns = (width + tileSize - 1) / tileSize;
+    if (pool != null) {
+      final int tileCount = mTileColumns * ((height + tileSize - 1) / tileSize);
+      mTileQuads = new int[tileCount][];
+      mTileQuadCounts = new int[tileCount];
+    } else {
+      mTileQuads = null;
+      mTileQuadCounts = null;
+    }
+  }
+
+  /**
+   * Returns a new viewport mapping one unit to one pixel of this batch, with
+   * the y-axis pointing down, as expected by {@link Canvas}. The viewport is
+   * set up without any OpenGL calls, so it should not be
+   * {@linkplain Viewport#update(int, int) updated}.
+   */
+  @NonNull
+  public Viewport createViewport() {
+    final OrthographicCamera camera = new OrthographicCamera();
+    camera.setToOrtho(true, mWidth, mHeight);
+    final Viewport viewport = new ScalingViewport(Scaling.none, mWidth, mHeight, camera);
+    viewport.setScreenBounds(0, 0, mWidth, mHeight);
+    return viewport;
+  }
+
+  /**
+   * Returns the width of the surface, in pixels.
+   */
+  public int getWidth() {
+    return mWidth;
+  }
+
+  /**
+   * Returns the height of the surface, in pixels.
+   */
+  public int getHeight() {
+    return mHeight;
+  }
+
+  /**
+   * Indicates whether or not quads are recorded and rasterized in parallel by
+   * tiles when this batch is flushed.
+   */
+  public boolean isTiled() {
+    return mPool != null;
+  }
+
+  /**
+   * Returns the width and height of the tiles, in pixels.
+   */
+  public int getTileSize() {
+    return mTileSize;
+  }
+
+  /**
+   * Returns the pixels of the surface, in ARGB, row by row from the top left
+   * corner. The array is the one rasterized into, so it should not be
+   * modified while drawing, and quads recorded by a tiled batch are only
+   * rasterized into it when it is {@linkplain #flush() flushed}.
+   */
+  @NonNull
+  public int[] getPixels() {
+    return mPixels;
+  }
+
+  /**
+   * Returns the pixel of the surface at the specified coordinates, in ARGB.
+   */
+  @ColorInt
+  public int getPixel(int x, int y) {
+    if (x < 0 || x >= mWidth || y < 0 || y >= mHeight) {
+      throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside of the surface");
+    }
+
+    return mPixels[y * mWidth + x];
+  }
+
+  /**
+   * Fills the whole surface with the specified color, ignoring the scissor
+   * box and the blend function.
+   */
+  public void clear(@ColorInt int color) {
+    flush();
+    Arrays.fill(mPixels, color);
+  }
+
+  /**
+   * Returns a new {@link Pixmap.Format#RGBA8888 RGBA8888} pixmap containing
+   * the pixels of the surface, e.g., to write them with
+   * {@link com.badlogic.gdx.graphics.PixmapIO}. The caller is responsible for
+   * disposing it.
+   */
+  @NonNull
+  public Pixmap toPixmap() {
+    flush();
+    final Pixmap pixmap = new Pixmap(mWidth, mHeight, Pixmap.Format.RGBA8888);
+    final ByteBuffer buffer = pixmap.getPixels();
+    buffer.clear();
+    for (int argb : mPixels) {
+      buffer.put((byte) (argb >> 16));
+      buffer.put((byte) (argb >> 8));
+      buffer.put((byte) argb);
+      buffer.put((byte) (argb >>> 24));
+    }
+
+    buffer.flip();
+    return pixmap;
+  }
+
+  /**
+   * Discards the cached pixels of the specified texture, so that they are
+   * read again the next time it is drawn.
+   */
+  public void invalidateTexture(@NonNull Texture texture) {
+    mImages.remove(texture);
+  }
+
+  /**
+   * Returns whether or not the scissor test is enabled.
+   */
+  public boolean isScissorTestEnabled() {
+    return mScissorTest;
+  }
+
+  /**
+   * Enables or disables the scissor test.
+   *
+   * @see GL20#GL_SCISSOR_TEST
+   */
+  public void setScissorTestEnabled(boolean enabled) {
+    mScissorTest = enabled;
+  }
+
+  /**
+   * Sets the scissor box, in window coordinates, i.e., with the origin at the
+   * bottom left corner of the surface, as with {@link GL20#glScissor}.
+   */
+  public void setScissor(int x, int y, int width, int height) {
+    mScissorX = x;
+    mScissorY = y;
+    mScissorWidth = Math.max(width, 0);
+    mScissorHeight = Math.max(height, 0);
+  }
+
+  @Override
+  public void begin() {
+    if (mDrawing) {
+      throw new IllegalStateException("SoftwareBatch.end must be called before begin.");
+    }
+
+    quadsRasterized = 0;
+    tilesRasterized = 0;
+    mDrawing = true;
+  }
+
+  @Override
+  public void end() {
+    if (!mDrawing) {
+      throw new IllegalStateException("SoftwareBatch.begin must be called before end.");
+    }
+
+    flush();
+    mDrawing = false;
+  }
+
+  @Override
+  public void setColor(@NonNull com.badlogic.gdx.graphics.Color tint) {
+    mColor.set(tint);
+    mPackedColor = tint.toFloatBits();
+  }
+
+  @Override
+  public void setColor(float r, float g, float b, float a) {
+    mColor.set(r, g, b, a);
+    mPackedColor = mColor.toFloatBits();
+  }
+
+  /**
+   * Sets the color used to tint subsequent draws, packed as
+   * {@link com.badlogic.gdx.graphics.Color#toFloatBits()}.
+   */
+  public void setColor(float packedColor) {
+    setPackedColor(packedColor);
+  }
+
+  /**
+   * Sets the color used to tint subsequent draws, packed as
+   * {@link com.badlogic.gdx.graphics.Color#toFloatBits()}.
+   */
+  public void setPackedColor(float packedColor) {
+    com.badlogic.gdx.graphics.Color.abgr8888ToColor(mColor, packedColor);
+    mPackedColor = packedColor;
+  }
+
+  @NonNull
+  @Override
+  public com.badlogic.gdx.graphics.Color getColor() {
+    return mColor;
+  }
+
+  @Override
+  public float getPackedColor() {
+    return mPackedColor;
+  }
+
+  @NonNull
+  private Image getImage(@NonNull Texture texture) {
+    Image image = mImages.get(texture);
+    if (image == null) {
+      image = Image.read(texture);
+      mImages.put(texture, image);
+    }
+
+    return image;
+  }
+
+  /**
+   * Rasterizes a quad whose corners are given in world coordinates, in the
+   * order of {@link Batch#draw(Texture, float[], int, int)}.
+   */
+  private void putQuad(@NonNull Texture texture,
+                       float x1, float y1, float u1, float v1,
+                       float x2, float y2, float u2, float v2,
+                       float x3, float y3, float u3, float v3,
+                       float x4, float y4, float u4, float v4,
+                       float color) {
+    if (!mDrawing) {
+      throw new IllegalStateException("SoftwareBatch.begin must be called before draw.");
+    }
+
+    int left = 0;
+    int top = 0;
+    int right = mWidth;
+    int bottom = mHeight;
+    if (mScissorTest) {
+      // The scissor box is given with the origin at the bottom left corner
+      left = Math.max(left, mScissorX);
+      right = Math.min(right, mScissorX + mScissorWidth);
+      top = Math.max(top, mHeight - (mScissorY + mScissorHeight));
+      bottom = Math.min(bottom, mHeight - mScissorY);
+      if (left >= right || top >= bottom) {
+        return;
+      }
+    }
+
+    if (mQuadCount == mQuadImages.length) {
+      final int capacity = mQuadCount * 2;
+      mQuadVertices = Arrays.copyOf(mQuadVertices, capacity * QUAD_VERTICES_SIZE);
+      mQuadStates = Arrays.copyOf(mQuadStates, capacity * QUAD_STATE_SIZE);
+      mQuadImages = Arrays.copyOf(mQuadImages, capacity);
+    }
+
+    // Canvas translates the transform matrix in place, so combine on each quad
+    final float[] m = mCombinedMatrix.set(mProjectionMatrix).mul(mTransformMatrix).val;
+    final int quad = mQuadCount;
+    final float[] vertices = mQuadVertices;
+    final int offset = quad * QUAD_VERTICES_SIZE;
+    toSurface(m, vertices, offset, x1, y1, u1, v1);
+    toSurface(m, vertices, offset + 4, x2, y2, u2, v2);
+    toSurface(m, vertices, offset + 8, x3, y3, u3, v3);
+    toSurface(m, vertices, offset + 12, x4, y4, u4, v4);
+
+    final int[] states = mQuadStates;
+    final int state = quad * QUAD_STATE_SIZE;
+    states[state + STATE_TINT] = argb(color);
+    states[state + STATE_BLEND_MODE] = mBlendMode;
+    states[state + STATE_BLEND_SRC_FUNC] = mBlendSrcFunc;
+    states[state + STATE_BLEND_DST_FUNC] = mBlendDstFunc;
+    states[state + STATE_BLEND_SRC_FUNC_ALPHA] = mBlendSrcFuncAlpha;
+    states[state + STATE_BLEND_DST_FUNC_ALPHA] = mBlendDstFuncAlpha;
+    states[state + STATE_CLIP_LEFT] = left;
+    states[state + STATE_CLIP_TOP] = top;
+    states[state + STATE_CLIP_RIGHT] = right;
+    states[state + STATE_CLIP_BOTTOM] = bottom;
+    mQuadImages[quad] = getImage(texture);
+    mQuadCount++;
+
+    if (mPool == null) {
+      rasterize(quad, 0, 0, mWidth, mHeight);
+      quadsRasterized++;
+      mQuadImages[quad] = null;
+      mQuadCount = 0;
+    }
+  }
+
+  /**
+   * Transforms the specified vertex into pixels of the surface, with the
+   * y-axis pointing down.
+   */
+  private void toSurface(@NonNull float[] m, @NonNull float[] dst, int offset,
+                         float x, float y, float u, float v) {
+    final float ndcX = m[Matrix4.M00] * x + m[Matrix4.M01] * y + m[Matrix4.M03];
+    final float ndcY = m[Matrix4.M10] * x + m[Matrix4.M11] * y + m[Matrix4.M13];
+    dst[offset]     = (ndcX + 1) * 0.5f * mWidth;
+    dst[offset + 1] = (1 - ndcY) * 0.5f * mHeight;
+    dst[offset + 2] = u;
+    dst[offset + 3] = v;
+  }
+
+  /**
+   * Rasterizes the part of the specified recorded quad within its clip bounds
+   * and the given bounds. This only reads the recorded quads and writes the
+   * pixels within the bounds, so tiles can be rasterized concurrently.
+   */
+  private void rasterize(int quad, int left, int top, int right, int bottom) {
+    final int[] states = mQuadStates;
+    final int state = quad * QUAD_STATE_SIZE;
+    left = Math.max(left, states[state + STATE_CLIP_LEFT]);
+    top = Math.max(top, states[state + STATE_CLIP_TOP]);
+    right = Math.min(right, states[state + STATE_CLIP_RIGHT]);
+    bottom = Math.min(bottom, states[state + STATE_CLIP_BOTTOM]);
+    if (left >= right || top >= bottom) {
+      return;
+    }
+
+    final float[] vertices = mQuadVertices;
+    final int offset = quad * QUAD_VERTICES_SIZE;
+    final Image image = mQuadImages[quad];
+    fillTriangle(image, states, state, vertices, offset, offset + 4, offset + 8,
+        left, top, right, bottom);
+    fillTriangle(image, states, state, vertices, offset, offset + 8, offset + 12,
+        left, top, right, bottom);
+  }
+
+  /**
+   * Rasterizes a triangle of a recorded quad within the given bounds. Pixels
+   * are covered if their center is inside of the triangle, or on one of its
+   * top or left edges. Every pixel is computed independently of the others,
+   * directly from the vertices of the triangle, so the result does not depend
+   * on the bounds it is rasterized within.
+   *
+   * @param a The offset of the first vertex in {@code quad}
+   * @param b The offset of the second vertex in {@code quad}
+   * @param c The offset of the third vertex in {@code quad}
+   */
+  private void fillTriangle(@NonNull Image image, @NonNull int[] states, int state,
+                            @NonNull float[] quad, int a, int b, int c,
+                            int left, int top, int right, int bottom) {
+    float area = edge(quad, a, b, quad[c], quad[c + 1]);
+    if (area == 0) {
+      return;
+    } else if (area < 0) {
+      final int tmp = b;
+      b = c;
+      c = tmp;
+      area = -area;
+    }
+
+    final float xa = quad[a], ya = quad[a + 1];
+    final float xb = quad[b], yb = quad[b + 1];
+    final float xc = quad[c], yc = quad[c + 1];
+    final int minX = Math.max(left, (int) Math.floor(Math.min(xa, Math.min(xb, xc))));
+    final int maxX = Math.min(right, (int) Math.ceil(Math.max(xa, Math.max(xb, xc))));
+    final int minY = Math.max(top, (int) Math.floor(Math.min(ya, Math.min(yb, yc))));
+    final int maxY = Math.min(bottom, (int) Math.ceil(Math.max(ya, Math.max(yb, yc))));
+    if (minX >= maxX || minY >= maxY) {
+      return;
+    }
+
+    final int tint = states[state + STATE_TINT];
+    final int blendMode = states[state + STATE_BLEND_MODE];
+    final int srcFunc = states[state + STATE_BLEND_SRC_FUNC];
+    final int dstFunc = states[state + STATE_BLEND_DST_FUNC];
+    final int srcFuncAlpha = states[state + STATE_BLEND_SRC_FUNC_ALPHA];
+    final int dstFuncAlpha = states[state + STATE_BLEND_DST_FUNC_ALPHA];
+
+    final boolean topLeftA = isTopLeft(quad, b, c);
+    final boolean topLeftB = isTopLeft(quad, c, a);
+    final boolean topLeftC = isTopLeft(quad, a, b);
+    final float invArea = 1 / area;
+    final int[] texels = image.mPixels;
+    final int imageWidth = image.mWidth;
+    final int imageHeight = image.mHeight;
+    final int[] pixels = mPixels;
+    for (int y = minY; y < maxY; y++) {
+      final float py = y + 0.5f;
+      final int row = y * mWidth;
+      for (int x = minX; x < maxX; x++) {
+        final float px = x + 0.5f;
+        final float wa = edge(quad, b, c, px, py);
+        if (wa < 0 || (wa == 0 && !topLeftA)) continue;
+        final float wb = edge(quad, c, a, px, py);
+        if (wb < 0 || (wb == 0 && !topLeftB)) continue;
+        final float wc = edge(quad, a, b, px, py);
+        if (wc < 0 || (wc == 0 && !topLeftC)) continue;
+
+        final float u = (wa * quad[a + 2] + wb * quad[b + 2] + wc * quad[c + 2]) * invArea;
+        final float v = (wa * quad[a + 3] + wb * quad[b + 3] + wc * quad[c + 3]) * invArea;
+        final int tx = MathUtils.clamp((int) Math.floor(u * imageWidth), 0, imageWidth - 1);
+        final int ty = MathUtils.clamp((int) Math.floor(v * imageHeight), 0, imageHeight - 1);
+        final int src = modulate(texels[ty * imageWidth + tx], tint);
+        pixels[row + x] = blend(src, pixels[row + x], blendMode,
+            srcFunc, dstFunc, srcFuncAlpha, dstFuncAlpha);
+      }
+    }
+  }
+
+  /**
+   * Returns the edge function of the edge from {@code a} to {@code b} at the
+   * specified point, which is positive on the inside of a triangle whose
+   * vertices are in the order of the edges.
+   */
+  private static float edge(@NonNull float[] quad, int a, int b, float px, float py) {
+    return (quad[b] - quad[a]) * (py - quad[a + 1]) - (quad[b + 1] - quad[a + 1]) * (px - quad[a]);
+  }
+
+  /**
+   * Indicates whether the edge from {@code a} to {@code b} is a top or left
+   * edge, whose pixel centers are covered by the triangle.
+   */
+  private static boolean isTopLeft(@NonNull float[] quad, int a, int b) {
+    final float dx = quad[b] - quad[a];
+    final float dy = quad[b + 1] - quad[a + 1];
+    return dy < 0 || (dy == 0 && dx > 0);
+  }
+
+  /**
+   * Converts a color packed as {@link com.badlogic.gdx.graphics.Color#toFloatBits()}
+   * into ARGB.
+   */
+  private static int argb(float packedColor) {
+    final int abgr = NumberUtils.floatToIntColor(packedColor);
+    return (abgr & 0xFF00FF00) | ((abgr & 0xFF) << 16) | ((abgr >> 16) & 0xFF);
+  }
+
+  private static int modulate(int color, int tint) {
+    if (tint == 0xFFFFFFFF) {
+      return color;
+    }
+
+    return mul(color >>> 24, tint >>> 24) << 24
+        | mul((color >> 16) & 0xFF, (tint >> 16) & 0xFF) << 16
+        | mul((color >> 8) & 0xFF, (tint >> 8) & 0xFF) << 8
+        | mul(color & 0xFF, tint & 0xFF);
+  }
+
+  /**
+   * Returns the product of two channels in {@code [0..255]}, rounded.
+   */
+  private static int mul(int a, int b) {
+    return (a * b + 127) / 255;
+  }
+
+  private static int blend(int src, int dst, int mode,
+                           int srcFunc, int dstFunc, int srcFuncAlpha, int dstFuncAlpha) {
+    switch (mode) {
+      case BLEND_DISABLED:
+        return src;
+      case BLEND_SRC_OVER: {
+        final int sa = src >>> 24;
+        if (sa == 0xFF) {
+          return src;
+        } else if (sa == 0) {
+          return dst;
+        }
+
+        final int da = 0xFF - sa;
+        return (mul(sa, sa) + mul(dst >>> 24, da)) << 24
+            | (mul((src >> 16) & 0xFF, sa) + mul((dst >> 16) & 0xFF, da)) << 16
+            | (mul((src >> 8) & 0xFF, sa) + mul((dst >> 8) & 0xFF, da)) << 8
+            | (mul(src & 0xFF, sa) + mul(dst & 0xFF, da));
+      }
+      default:
+        return blendChannel(src, dst, 24, srcFuncAlpha, dstFuncAlpha) << 24
+            | blendChannel(src, dst, 16, srcFunc, dstFunc) << 16
+            | blendChannel(src, dst, 8, srcFunc, dstFunc) << 8
+            | blendChannel(src, dst, 0, srcFunc, dstFunc);
+    }
+  }
+
+  private static int blendChannel(int src, int dst, int shift, int srcFunc, int dstFunc) {
+    final int s = (src >>> shift) & 0xFF;
+    final int d = (dst >>> shift) & 0xFF;
+    final int value = mul(s, factor(srcFunc, s, d, src >>> 24, dst >>> 24))
+        + mul(d, factor(dstFunc, s, d, src >>> 24, dst >>> 24));
+    return Math.min(value, 0xFF);
+  }
+
+  private static int factor(int func, int s, int d, int sa, int da) {
+    switch (func) {
+      case GL20.GL_ZERO:                return 0;
+      case GL20.GL_ONE:                 return 0xFF;
+      case GL20.GL_SRC_COLOR:           return s;
+      case GL20.GL_ONE_MINUS_SRC_COLOR: return 0xFF - s;
+      case GL20.GL_DST_COLOR:           return d;
+      case GL20.GL_ONE_MINUS_DST_COLOR: return 0xFF - d;
+      case GL20.GL_SRC_ALPHA:           return sa;
+      case GL20.GL_ONE_MINUS_SRC_ALPHA: return 0xFF - sa;
+      case GL20.GL_DST_ALPHA:           return da;
+      case GL20.GL_ONE_MINUS_DST_ALPHA: return 0xFF - da;
+      default:
+        throw new IllegalArgumentException("Unsupported blend function: " + func);
+    }
+  }
+
+  private static void checkBlendFunction(int func) {
+    factor(func, 0, 0, 0, 0);
+  }
+
+  private void updateBlendMode() {
+    if (mBlendingDisabled) {
+      mBlendMode = BLEND_DISABLED;
+    } else if (mBlendSrcFunc == GL20.GL_SRC_ALPHA
+        && mBlendDstFunc == GL20.GL_ONE_MINUS_SRC_ALPHA
+        && mBlendSrcFuncAlpha == GL20.GL_SRC_ALPHA
+        && mBlendDstFuncAlpha == GL20.GL_ONE_MINUS_SRC_ALPHA) {
+      mBlendMode = BLEND_SRC_OVER;
+    } else {
+      mBlendMode = BLEND_GENERIC;
+    }
+  }
+
+  /**
+   * Draws a quad scaled and rotated around its origin.
+   */
+  private void putTransformed(@NonNull Texture texture, float x, float y,
+                              float originX, float originY,
+                              float width, float height, float scaleX, float scaleY,
+                              float rotation,
+                              float u1, float v1, float u2, float v2,
+                              float u3, float v3, float u4, float v4) {
+    // bottom left and top right corner points relative to origin
+    final float worldOriginX = x + originX;
+    final float worldOriginY = y + originY;
+    float fx = -originX;
+    float fy = -originY;
+    float fx2 = width - originX;
+    float fy2 = height - originY;
+
+    if (scaleX != 1 || scaleY != 1) {
+      fx *= scaleX;
+      fy *= scaleY;
+      fx2 *= scaleX;
+      fy2 *= scaleY;
+    }
+
+    float x1, y1, x2, y2, x3, y3, x4, y4;
+    if (rotation != 0) {
+      final float cos = MathUtils.cosDeg(rotation);
+      final float sin = MathUtils.sinDeg(rotation);
+      x1 = cos * fx - sin * fy;
+      y1 = sin * fx + cos * fy;
+      x2 = cos * fx - sin * fy2;
+      y2 = sin * fx + cos * fy2;
+      x3 = cos * fx2 - sin * fy2;
+      y3 = sin * fx2 + cos * fy2;
+      x4 = x1 + (x3 - x2);
+      y4 = y3 - (y2 - y1);
+    } else {
+      x1 = fx;
+      y1 = fy;
+      x2 = fx;
+      y2 = fy2;
+      x3 = fx2;
+      y3 = fy2;
+      x4 = fx2;
+      y4 = fy;
+    }
+
+    putQuad(texture,
+        x1 + worldOriginX, y1 + worldOriginY, u1, v1,
+        x2 + worldOriginX, y2 + worldOriginY, u2, v2,
+        x3 + worldOriginX, y3 + worldOriginY, u3, v3,
+        x4 + worldOriginX, y4 + worldOriginY, u4, v4,
+        mPackedColor);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y, float originX, float originY,
+                   float width, float height, float scaleX, float scaleY, float rotation,
+                   int srcX, int srcY, int srcWidth, int srcHeight,
+                   boolean flipX, boolean flipY) {
+    final float invTexWidth = 1.0f / texture.getWidth();
+    final float invTexHeight = 1.0f / texture.getHeight();
+    float u = srcX * invTexWidth;
+    float v = (srcY + srcHeight) * invTexHeight;
+    float u2 = (srcX + srcWidth) * invTexWidth;
+    float v2 = srcY * invTexHeight;
+    if (flipX) {
+      float tmp = u;
+      u = u2;
+      u2 = tmp;
+    }
+
+    if (flipY) {
+      float tmp = v;
+      v = v2;
+      v2 = tmp;
+    }
+
+    putTransformed(texture, x, y, originX, originY, width, height, scaleX, scaleY, rotation,
+        u, v, u, v2, u2, v2, u2, v);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y, float width, float height,
+                   int srcX, int srcY, int srcWidth, int srcHeight,
+                   boolean flipX, boolean flipY) {
+    final float invTexWidth = 1.0f / texture.getWidth();
+    final float invTexHeight = 1.0f / texture.getHeight();
+    float u = srcX * invTexWidth;
+    float v = (srcY + srcHeight) * invTexHeight;
+    float u2 = (srcX + srcWidth) * invTexWidth;
+    float v2 = srcY * invTexHeight;
+    if (flipX) {
+      float tmp = u;
+      u = u2;
+      u2 = tmp;
+    }
+
+    if (flipY) {
+      float tmp = v;
+      v = v2;
+      v2 = tmp;
+    }
+
+    draw(texture, x, y, width, height, u, v, u2, v2);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y,
+                   int srcX, int srcY, int srcWidth, int srcHeight) {
+    final float invTexWidth = 1.0f / texture.getWidth();
+    final float invTexHeight = 1.0f / texture.getHeight();
+    final float u = srcX * invTexWidth;
+    final float v = (srcY + srcHeight) * invTexHeight;
+    final float u2 = (srcX + srcWidth) * invTexWidth;
+    final float v2 = srcY * invTexHeight;
+    draw(texture, x, y, srcWidth, srcHeight, u, v, u2, v2);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y, float width, float height,
+                   float u, float v, float u2, float v2) {
+    final float fx2 = x + width;
+    final float fy2 = y + height;
+    putQuad(texture,
+        x, y, u, v,
+        x, fy2, u, v2,
+        fx2, fy2, u2, v2,
+        fx2, y, u2, v,
+        mPackedColor);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y) {
+    draw(texture, x, y, texture.getWidth(), texture.getHeight());
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y, float width, float height) {
+    draw(texture, x, y, width, height, 0, 1, 1, 0);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, @NonNull float[] spriteVertices,
+                   int offset, int count) {
+    final int end = offset + count - count % BATCH_SPRITE_SIZE;
+    for (int i = offset; i < end; i += BATCH_SPRITE_SIZE) {
+      putQuad(texture,
+          spriteVertices[i], spriteVertices[i + 1], spriteVertices[i + 3], spriteVertices[i + 4],
+          spriteVertices[i + 5], spriteVertices[i + 6], spriteVertices[i + 8],
+          spriteVertices[i + 9],
+          spriteVertices[i + 10], spriteVertices[i + 11], spriteVertices[i + 13],
+          spriteVertices[i + 14],
+          spriteVertices[i + 15], spriteVertices[i + 16], spriteVertices[i + 18],
+          spriteVertices[i + 19],
+          spriteVertices[i + 2]);
+    }
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float x, float y) {
+    draw(region, x, y, region.getRegionWidth(), region.getRegionHeight());
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float x, float y, float width, float height) {
+    draw(region.getTexture(), x, y, width, height,
+        region.getU(), region.getV2(), region.getU2(), region.getV());
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float x, float y,
+                   float originX, float originY, float width, float height,
+                   float scaleX, float scaleY, float rotation) {
+    final float u = region.getU();
+    final float v = region.getV2();
+    final float u2 = region.getU2();
+    final float v2 = region.getV();
+    putTransformed(region.getTexture(), x, y, originX, originY, width, height,
+        scaleX, scaleY, rotation,
+        u, v, u, v2, u2, v2, u2, v);
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float x, float y,
+                   float originX, float originY, float width, float height,
+                   float scaleX, float scaleY, float rotation, boolean clockwise) {
+    if (clockwise) {
+      putTransformed(region.getTexture(), x, y, originX, originY, width, height,
+          scaleX, scaleY, rotation,
+          region.getU2(), region.getV2(),
+          region.getU(), region.getV2(),
+          region.getU(), region.getV(),
+          region.getU2(), region.getV());
+    } else {
+      putTransformed(region.getTexture(), x, y, originX, originY, width, height,
+          scaleX, scaleY, rotation,
+          region.getU(), region.getV(),
+          region.getU2(), region.getV(),
+          region.getU2(), region.getV2(),
+          region.getU(), region.getV2());
+    }
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float width, float height,
+                   @NonNull Affine2 transform) {
+    final float u = region.getU();
+    final float v = region.getV2();
+    final float u2 = region.getU2();
+    final float v2 = region.getV();
+    putQuad(region.getTexture(),
+        transform.m02, transform.m12, u, v,
+        transform.m01 * height + transform.m02,
+        transform.m11 * height + transform.m12, u, v2,
+        transform.m00 * width + transform.m01 * height + transform.m02,
+        transform.m10 * width + transform.m11 * height + transform.m12, u2, v2,
+        transform.m00 * width + transform.m02,
+        transform.m10 * width + transform.m12, u2, v,
+        mPackedColor);
+  }
+
+  /**
+   * Rasterizes the quads recorded since the last flush if this batch is
+   * tiled, binning them into the tiles they overlap and rasterizing the tiles
+   * in parallel, otherwise does nothing.
+   */
+  @Override
+  public void flush() {
+    if (mQuadCount == 0 || mPool == null) {
+      return;
+    }
+
+    assert mTileQuads != null && mTileQuadCounts != null;
+    final int[][] tileQuads = mTileQuads;
+    final int[] tileQuadCounts = mTileQuadCounts;
+    Arrays.fill(tileQuadCounts, 0);
+
+    final int tileSize = mTileSize;
+    final float[] vertices = mQuadVertices;
+    final int[] states = mQuadStates;
+    for (int quad = 0; quad < mQuadCount; quad++) {
+      final int offset = quad * QUAD_VERTICES_SIZE;
+      final int state = quad * QUAD_STATE_SIZE;
+      float minX = vertices[offset], maxX = minX;
+      float minY = vertices[offset + 1], maxY = minY;
+      for (int i = offset + 4; i < offset + QUAD_VERTICES_SIZE; i += 4) {
+        minX = Math.min(minX, vertices[i]);
+        maxX = Math.max(maxX, vertices[i]);
+        minY = Math.min(minY, vertices[i + 1]);
+        maxY = Math.max(maxY, vertices[i + 1]);
+      }
+
+      final int left = Math.max(states[state + STATE_CLIP_LEFT], (int) Math.floor(minX));
+      final int top = Math.max(states[state + STATE_CLIP_TOP], (int) Math.floor(minY));
+      final int right = Math.min(states[state + STATE_CLIP_RIGHT], (int) Math.ceil(maxX));
+      final int bottom = Math.min(states[state + STATE_CLIP_BOTTOM], (int) Math.ceil(maxY));
+      if (left >= right || top >= bottom) {
+        continue;
+      }
+
+      for (int row = top / tileSize, lastRow = (bottom - 1) / tileSize; row <= lastRow; row++) {
+        for (int column = left / tileSize, lastColumn = (right - 1) / tileSize;
+            column <= lastColumn; column++) {
+          final int tile = row * mTileColumns + column;
+          int[] quads = tileQuads[tile];
+          final int count = tileQuadCounts[tile];
+          if (quads == null) {
+            quads = tileQuads[tile] = new int[16];
+          } else if (count == quads.length) {
+            quads = tileQuads[tile] = Arrays.copyOf(quads, count * 2);
+          }
+
+          quads[count] = quad;
+          tileQuadCounts[tile] = count + 1;
+        }
+      }
+    }
+
+    mPool.invoke(new RasterizeTiles(0, tileQuads.length));
+    quadsRasterized += mQuadCount;
+    for (int count : tileQuadCounts) {
+      if (count > 0) tilesRasterized++;
+    }
+
+    Arrays.fill(mQuadImages, 0, mQuadCount, null);
+    mQuadCount = 0;
+  }
+
+  /**
+   * Rasterizes the recorded quads overlapping the specified tile, in the
+   * order they were drawn.
+   */
+  private void rasterizeTile(int tile) {
+    assert mTileQuads != null && mTileQuadCounts != null;
+    final int count = mTileQuadCounts[tile];
+    if (count == 0) {
+      return;
+    }
+
+    final int left = (tile % mTileColumns) * mTileSize;
+    final int top = (tile / mTileColumns) * mTileSize;
+    final int right = Math.min(left + mTileSize, mWidth);
+    final int bottom = Math.min(top + mTileSize, mHeight);
+    final int[] quads = mTileQuads[tile];
+    for (int i = 0; i < count; i++) {
+      rasterize(quads[i], left, top, right, bottom);
+    }
+  }
+
+  /**
+   * Rasterizes a range of tiles, splitting it in halves until single tiles
+   * remain, so idle workers can steal the other halves.
+   */
+  private final class RasterizeTiles extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    final int mStart;
+    final int mEnd;
+
+    RasterizeTiles(int start, int end) {
+      mStart = start;
+      mEnd = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (mEnd - mStart == 1) {
+        rasterizeTile(mStart);
+        return;
+      }
+
+      final int middle = (mStart + mEnd) >>> 1;
+      invokeAll(new RasterizeTiles(mStart, middle), new RasterizeTiles(middle, mEnd));
+    }
+  }
+
+  @Override
+  public void disableBlending() {
+    flush();
+    mBlendingDisabled = true;
+    updateBlendMode();
+  }
+
+  @Override
+  public void enableBlending() {
+    flush();
+    mBlendingDisabled = false;
+    updateBlendMode();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalArgumentException if a blend factor is not supported, i.e.,
+   *         if it depends on the constant blend color
+   */
+  @Override
+  public void setBlendFunction(int srcFunc, int dstFunc) {
+    setBlendFunctionSeparate(srcFunc, dstFunc, srcFunc, dstFunc);
+  }
+
+  /**
+   * Sets the blend function, using separate factors for the alpha channel.
+   *
+   * @throws IllegalArgumentException if a blend factor is not supported, i.e.,
+   *         if it depends on the constant blend color
+   *
+   * @see GL20#glBlendFuncSeparate(int, int, int, int)
+   */
+  public void setBlendFunctionSeparate(int srcFuncColor, int dstFuncColor,
+                                       int srcFuncAlpha, int dstFuncAlpha) {
+    checkBlendFunction(srcFuncColor);
+    checkBlendFunction(dstFuncColor);
+    checkBlendFunction(srcFuncAlpha);
+    checkBlendFunction(dstFuncAlpha);
+    flush();
+    mBlendSrcFunc = srcFuncColor;
+    mBlendDstFunc = dstFuncColor;
+    mBlendSrcFuncAlpha = srcFuncAlpha;
+    mBlendDstFuncAlpha = dstFuncAlpha;
+    updateBlendMode();
+  }
+
+  @Override
+  public int getBlendSrcFunc() {
+    return mBlendSrcFunc;
+  }
+
+  @Override
+  public int getBlendDstFunc() {
+    return mBlendDstFunc;
+  }
+
+  public int getBlendSrcFuncAlpha() {
+    return mBlendSrcFuncAlpha;
+  }
+
+  public int getBlendDstFuncAlpha() {
+    return mBlendDstFuncAlpha;
+  }
+
+  @NonNull
+  @Override
+  public Matrix4 getProjectionMatrix() {
+    return mProjectionMatrix;
+  }
+
+  @NonNull
+  @Override
+  public Matrix4 getTransformMatrix() {
+    return mTransformMatrix;
+  }
+
+  @Override
+  public void setProjectionMatrix(@NonNull Matrix4 projection) {
+    flush();
+    mProjectionMatrix.set(projection);
+  }
+
+  @Override
+  public void setTransformMatrix(@NonNull Matrix4 transform) {
+    flush();
+    mTransformMatrix.set(transform);
+  }
+
+  /**
+   * Sets the shader, which is only retained, since quads are not rasterized
+   * with shaders.
+   */
+  @Override
+  public void setShader(@Nullable ShaderProgram shader) {
+    mShader = shader;
+  }
+
+  @Nullable
+  public ShaderProgram getShader() {
+    return mShader;
+  }
+
+  @Override
+  public boolean isBlendingEnabled() {
+    return !mBlendingDisabled;
+  }
+
+  @Override
+  public boolean isDrawing() {
+    return mDrawing;
+  }
+
+  @Override
+  public void dispose() {
+    mImages.clear();
+  }
+
+  /**
+   * Pixels of a texture, in ARGB, row by row from the top left corner.
+   */
+  private static final class Image {
+    final int mWidth;
+    final int mHeight;
+    @NonNull final int[] mPixels;
+
+    Image(int width, int height, @NonNull int[] pixels) {
+      mWidth = width;
+      mHeight = height;
+      mPixels = pixels;
+    }
+
+    @NonNull
+    static Image read(@NonNull Texture texture) {
+      final TextureData data = texture.getTextureData();
+      if (data == null || data.getType() != TextureData.TextureDataType.Pixmap) {
+        throw new IllegalArgumentException(
+            "Cannot sample a texture without pixmap texture data: " + texture);
+      }
+
+      if (!data.isPrepared()) {
+        data.prepare();
+      }
+
+      final Pixmap pixmap = data.consumePixmap();
+      try {
+        final int width = pixmap.getWidth();
+        final int height = pixmap.getHeight();
+        final int[] pixels = new int[width * height];
+        for (int y = 0, i = 0; y < height; y++) {
+          for (int x = 0; x < width; x++, i++) {
+            final int rgba = pixmap.getPixel(x, y);
+            pixels[i] = (rgba >>> 8) | (rgba << 24);
+          }
+        }
+
+        return new Image(width, height, pixels);
+      } finally {
+        if (data.disposePixmap()) {
+          pixmap.dispose();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package unifi.graphics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide registry of the textures used by Unifi, which accounts the GPU
+ * memory they use and keeps it within a budget. Every texture drawn through a
+ * {@link Canvas} is {@linkplain #touch(Texture) touched}, and once per frame
+ * the view root {@linkplain #trim() trims} the registry, which evicts the
+ * least recently drawn {@link ReloadableTexture reloadable textures} that were
+ * not drawn in that frame until the budget is met. Evicted textures are
+ * reloaded from their files when they are next drawn.
+ *
+ * <p>Other textures, e.g., the pages of an {@link AtlasManager}, are accounted
+ * but never evicted, so the budget may be exceeded if they alone exceed it.
+ *
+ * <p>Note: This class is not thread-safe, and should only be used from the
+ * rendering thread.
+ */
+public final class TextureRegistry {
+
+  /**
+   * Default budget of the registry, in bytes.
+   */
+  public static final long DEFAULT_BUDGET = 128L * 1024 * 1024;
+
+  /**
+   * Budget which never evicts textures.
+   */
+  public static final long UNLIMITED = Long.MAX_VALUE;
+
+  @Nullable private static TextureRegistry sInstance;
+
+  /**
+   * Returns the process-wide registry.
+   */
+  @NonNull
+  public static TextureRegistry getInstance() {
+    if (sInstance == null) {
+      sInstance = new TextureRegistry(DEFAULT_BUDGET);
+    }
+
+    return sInstance;
+  }
+
+  /**
+   * Entries of the registered textures, from least to most recently drawn.
+   */
+  @NonNull private final Map<Texture, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long mBudget;
+  private long mResidentBytes;
+
+  /**
+   * Number of the current frame, incremented by {@link #trim()}.
+   */
+  private int mFrame;
+
+  private int mEvictions;
+  private int mReloads;
+
+  /**
+   * Constructs a registry with the specified budget.
+   */
+  public TextureRegistry(long budget) {
+    setBudget(budget);
+  }
+
+  /**
+   * Returns the budget of this registry, in bytes.
+   */
+  public long getBudget() {
+    return mBudget;
+  }
+
+  /**
+   * Sets the budget of this registry, in bytes, or {@link #UNLIMITED}. The
+   * budget is enforced by the next call to {@link #trim()}.
+   */
+  public void setBudget(long budget) {
+    if (budget < 0) {
+      throw new IllegalArgumentException("budget must be >= 0");
+    }
+
+    mBudget = budget;
+  }
+
+  /**
+   * Registers the specified texture, accounting its memory. Registering a
+   * texture which is already registered has no effect.
+   */
+  public void register(@NonNull Texture texture) {
+    if (texture == null) {
+      throw new IllegalArgumentException("texture cannot be null");
+    }
+
+    if (mEntries.containsKey(texture)) {
+      return;
+    }
+
+    final Entry entry = new Entry(getByteCount(texture), texture instanceof ReloadableTexture);
+    entry.mFrame = mFrame;
+    mEntries.put(texture, entry);
+    mResidentBytes += entry.mBytes;
+  }
+
+  /**
+   * Unregisters the specified texture, e.g., when it is disposed.
+   */
+  public void unregister(@NonNull Texture texture) {
+    final Entry entry = mEntries.remove(texture);
+    if (entry != null && !entry.mEvicted) {
+      mResidentBytes -= entry.mBytes;
+    }
+  }
+
+  /**
+   * Indicates whether or not the specified texture is registered.
+   */
+  public boolean isRegistered(@NonNull Texture texture) {
+    return mEntries.containsKey(texture);
+  }
+
+  /**
+   * Marks the specified texture as drawn in the current frame, and reloads it
+   * if it was evicted. Textures which are not registered are ignored.
+   *
+   * @return {@code true} if the texture was reloaded, which changes the
+   *         texture bound to the active texture unit, {@code false} otherwise
+   */
+  public boolean touch(@NonNull Texture texture) {
+    final Entry entry = mEntries.get(texture);
+    if (entry == null) {
+      return false;
+    }
+
+    entry.mFrame = mFrame;
+    if (!entry.mEvicted) {
+      return false;
+    }
+
+    ((ReloadableTexture) texture).restore();
+    entry.mEvicted = false;
+    mResidentBytes += entry.mBytes;
+    mReloads++;
+    return true;
+  }
+
+  /**
+   * Evicts the least recently drawn reloadable textures which were not drawn
+   * in the current frame until the memory used by the registered textures is
+   * within the budget, and then starts a new frame. This is called once per
+   * frame by the view root, after it has been drawn.
+   *
+   * @return The number of textures evicted
+   */
+  public int trim() {
+    int evicted = 0;
+    if (mResidentBytes > mBudget) {
+      final Iterator<Map.Entry<Texture, Entry>> it = mEntries.entrySet().iterator();
+      while (mResidentBytes > mBudget && it.hasNext()) {
+        final Map.Entry<Texture, Entry> e = it.next();
+        final Entry entry = e.getValue();
+        if (entry.mFrame == mFrame) {
+          // Entries after this one were all drawn in this frame
+          break;
+        } else if (!entry.mReloadable || entry.mEvicted) {
+          continue;
+        }
+
+        ((ReloadableTexture) e.getKey()).evict();
+        entry.mEvicted = true;
+        mResidentBytes -= entry.mBytes;
+        evicted++;
+      }
+    }
+
+    mEvictions += evicted;
+    mFrame++;
+    return evicted;
+  }
+
+  /**
+   * Returns the memory used by the registered textures which are not evicted,
+   * in bytes.
+   */
+  public long getResidentBytes() {
+    return mResidentBytes;
+  }
+
+  /**
+   * Returns the number of registered textures.
+   */
+  public int getTextureCount() {
+    return mEntries.size();
+  }
+
+  /**
+   * Returns the number of textures evicted since the last call to
+   * {@link #resetStatistics()}.
+   */
+  public int getEvictions() {
+    return mEvictions;
+  }
+
+  /**
+   * Returns the number of evicted textures reloaded since the last call to
+   * {@link #resetStatistics()}.
+   */
+  public int getReloads() {
+    return mReloads;
+  }
+
+  /**
+   * Resets the eviction and reload counters.
+   */
+  public void resetStatistics() {
+    mEvictions = 0;
+    mReloads = 0;
+  }
+
+  /**
+   * Returns an estimate of the GPU memory used by the specified texture, in
+   * bytes.
+   */
+  public static long getByteCount(@NonNull Texture texture) {
+    final TextureData data = texture.getTextureData();
+    final long pixels = (long) texture.getWidth() * texture.getHeight();
+    long bytes;
+    if (data.getType() == TextureData.TextureDataType.Custom) {
+      // Compressed data, e.g., ETC1 or KTX, does not report its format, so
+      // assume the 4 bits per pixel of ETC1
+      bytes = pixels / 2;
+    } else {
+      bytes = pixels * getBytesPerPixel(data.getFormat());
+    }
+
+    if (ImageDecoder.hasMipLevels(data)) {
+      // The mipmap chain adds a third of the base level
+      bytes += bytes / 3;
+    }
+
+    return bytes;
+  }
+
+  private static int getBytesPerPixel(@Nullable Pixmap.Format format) {
+    if (format == null) {
+      return 4;
+    }
+
+    switch (format) {
+      case Alpha:
+      case Intensity:
+        return 1;
+      case LuminanceAlpha:
+      case RGB565:
+      case RGBA4444:
+        return 2;
+      case RGB888:
+        return 3;
+      case RGBA8888:
+      default:
+        return 4;
+    }
+  }
+
+  private static final class Entry {
+    final long mBytes;
+    final boolean mReloadable;
+    int mFrame;
+    boolean mEvicted;
+
+    Entry(long bytes, boolean reloadable) {
+      mBytes = bytes;
+      mReloadable = reloadable;
+    }
+  }
+}
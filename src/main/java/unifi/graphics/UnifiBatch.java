@@ -0,0 +1,1114 @@
+package unifi.graphics;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link Batch} implementation tuned for the dense, texture-heavy frames drawn
+ * by {@link Canvas}. Compared to {@link com.badlogic.gdx.graphics.g2d.SpriteBatch}:
+ * <ul>
+ *   <li>Its capacity can be up to {@value #MAX_SIZE} quads, and vertices are
+ *       written directly into the direct buffer uploaded to OpenGL, rather
+ *       than into a heap array which is copied on each flush.
+ *   <li>Up to {@link #getMaxTextures()} textures are bound to separate texture
+ *       units and sampled within a single batch. The index of the unit is
+ *       stored per vertex, so switching between these textures does not flush
+ *       the batch.
+ *   <li>Quads can be drawn with an explicit packed color, without changing the
+ *       color of the batch, and clipped on the CPU to axis-aligned bounds,
+ *       without flushing the batch to change the scissor box.
+ *   <li>Anti-aliased rounded rects, ovals and their outlines can be drawn
+ *       {@linkplain #drawShape from their signed distance fields} in the
+ *       same batch as textured quads.
+ * </ul>
+ *
+ * <p>Blend state changes, texture binds and shader program changes go through
+ * a {@link GLStateCache}, which can be shared with the {@link Canvas} drawing
+ * with this batch, so that textures still bound from the previous flush are
+ * not bound again.
+ *
+ * <p>A custom shader set with {@link #setShader(ShaderProgram)} is given the
+ * same attributes, plus the {@value #TEXTURE_INDEX_ATTRIBUTE} and
+ * {@value #SHAPE_ATTRIBUTE} attributes, and
+ * samples a single texture bound to {@code u_texture}, as with a
+ * {@code SpriteBatch}.
+ */
+public class UnifiBatch implements Batch {
+
+  /**
+   * Default capacity of a batch, in quads.
+   */
+  public static final int DEFAULT_SIZE = 4096;
+
+  /**
+   * Maximum capacity of a batch, in quads. Vertices are indexed with unsigned
+   * shorts, so the number of vertices cannot exceed {@code 65536}.
+   */
+  public static final int MAX_SIZE = 16383;
+
+  /**
+   * Default maximum number of textures sampled within a single batch. The
+   * actual maximum is also limited by the number of texture units.
+   */
+  public static final int DEFAULT_MAX_TEXTURES = 8;
+
+  /**
+   * Name of the attribute storing the index of the texture sampled by each
+   * vertex.
+   */
+  public static final String TEXTURE_INDEX_ATTRIBUTE = "a_texIndex";
+
+  /**
+   * Name of the attribute storing the half width, half height, corner radius
+   * and stroke width of shapes, in pixels, or the smoothing, outline width and
+   * outline color of distance field glyphs.
+   */
+  public static final String SHAPE_ATTRIBUTE = "a_shape";
+
+  /**
+   * Shape of a rectangle with rounded corners. A radius of {@code 0} draws a
+   * rectangle, and a radius of half the smallest side draws a circle or pill.
+   *
+   * @see #drawShape
+   */
+  public static final int SHAPE_ROUND_RECT = -1;
+
+  /**
+   * Shape of an ellipse inscribed in its bounds.
+   *
+   * @see #drawShape
+   */
+  public static final int SHAPE_OVAL = -2;
+
+  /**
+   * Distance beyond the edges of shapes which is covered by their quads, so
+   * their edges can be anti-aliased, in pixels.
+   */
+  private static final float SHAPE_MARGIN = 1;
+
+  /**
+   * Minimum smoothing of distance field glyphs, in units of the distance
+   * fields.
+   */
+  private static final float MIN_SMOOTHING = 1 / 1024f;
+
+  /**
+   * x, y, color, u, v, texture, shape (half width, half height, radius, stroke
+   * width) or distance field (smoothing, outline width, outline color, unused)
+   */
+  private static final int VERTEX_SIZE = 10;
+  private static final int SPRITE_SIZE = 4 * VERTEX_SIZE;
+
+  /** Size of a sprite in the vertex format of {@link Batch#draw(Texture, float[], int, int)} */
+  private static final int BATCH_SPRITE_SIZE = 20;
+
+  /**
+   * Number of render calls since the last call to {@link #begin()}.
+   */
+  public int renderCalls = 0;
+
+  /**
+   * Number of render calls since the batch was created.
+   */
+  public int totalRenderCalls = 0;
+
+  /**
+   * Maximum number of quads rendered in one batch so far.
+   */
+  public int maxSpritesInBatch = 0;
+
+  /**
+   * Maximum number of textures sampled in one batch so far.
+   */
+  public int maxTexturesInBatch = 0;
+
+  @NonNull private final Mesh mMesh;
+  @NonNull private final FloatBuffer mVertices;
+  private final int mCapacity;
+  private int mIdx = 0;
+
+  @NonNull private final Texture[] mTextures;
+  @NonNull private final int[] mTextureUnits;
+  private final int mMaxTextures;
+  private int mTextureCount = 0;
+
+  @NonNull private final GLStateCache mGLState;
+
+  @NonNull private final Matrix4 mProjectionMatrix = new Matrix4();
+  @NonNull private final Matrix4 mTransformMatrix = new Matrix4();
+  @NonNull private final Matrix4 mCombinedMatrix = new Matrix4();
+
+  private boolean mDrawing = false;
+
+  private boolean mBlendingDisabled = false;
+  private int mBlendSrcFunc = GL20.GL_SRC_ALPHA;
+  private int mBlendDstFunc = GL20.GL_ONE_MINUS_SRC_ALPHA;
+  private int mBlendSrcFuncAlpha = GL20.GL_SRC_ALPHA;
+  private int mBlendDstFuncAlpha = GL20.GL_ONE_MINUS_SRC_ALPHA;
+
+  @NonNull private final ShaderProgram mShader;
+  @Nullable private ShaderProgram mCustomShader;
+
+  @NonNull private final com.badlogic.gdx.graphics.Color mColor
+      = new com.badlogic.gdx.graphics.Color(1, 1, 1, 1);
+  private float mPackedColor = com.badlogic.gdx.graphics.Color.WHITE.toFloatBits();
+
+  /**
+   * Constructs a batch with a capacity of {@value #DEFAULT_SIZE} quads
+   * sampling up to {@value #DEFAULT_MAX_TEXTURES} textures per batch.
+   */
+  public UnifiBatch() {
+    this(DEFAULT_SIZE, DEFAULT_MAX_TEXTURES, null);
+  }
+
+  /**
+   * Constructs a batch with a capacity of {@value #DEFAULT_SIZE} quads
+   * sampling up to {@value #DEFAULT_MAX_TEXTURES} textures per batch, which
+   * sets its blend, texture and shader state through the specified state
+   * cache.
+   */
+  public UnifiBatch(@Nullable GLStateCache state) {
+    this(DEFAULT_SIZE, DEFAULT_MAX_TEXTURES, state);
+  }
+
+  /**
+   * Constructs a batch with the specified capacity.
+   *
+   * @param size        The maximum number of quads in a single batch
+   * @param maxTextures The maximum number of textures sampled in a single
+   *                    batch, which will be limited to the number of texture
+   *                    units supported by the device
+   * @param state       The cache through which the blend, texture and
+   *                    shader state is set, or {@code null} to create one
+   */
+  public UnifiBatch(@IntRange(from = 1, to = MAX_SIZE) int size,
+                    @IntRange(from = 1) int maxTextures,
+                    @Nullable GLStateCache state) {
+    if (size <= 0 || size > MAX_SIZE) {
+      throw new IllegalArgumentException("size must be in range [1.." + MAX_SIZE + "]");
+    } else if (maxTextures <= 0) {
+      throw new IllegalArgumentException("maxTextures must be > 0");
+    }
+
+    mGLState = state != null ? state : new GLStateCache();
+    mMaxTextures = Math.min(maxTextures, getMaxTextureUnits());
+    mTextures = new Texture[mMaxTextures];
+    mTextureUnits = new int[mMaxTextures];
+    for (int i = 0; i < mMaxTextures; i++) {
+      mTextureUnits[i] = i;
+    }
+
+    mMesh = new Mesh(Mesh.VertexDataType.VertexBufferObject, false, size * 4, size * 6,
+        new VertexAttribute(VertexAttributes.Usage.Position, 2,
+            ShaderProgram.POSITION_ATTRIBUTE),
+        new VertexAttribute(VertexAttributes.Usage.ColorPacked, 4,
+            ShaderProgram.COLOR_ATTRIBUTE),
+        new VertexAttribute(VertexAttributes.Usage.TextureCoordinates, 2,
+            ShaderProgram.TEXCOORD_ATTRIBUTE + "0"),
+        new VertexAttribute(VertexAttributes.Usage.Generic, 1,
+            TEXTURE_INDEX_ATTRIBUTE),
+        new VertexAttribute(VertexAttributes.Usage.Generic, 4,
+            SHAPE_ATTRIBUTE));
+
+    // Vertices are written directly into the buffer backing the mesh
+    mVertices = mMesh.getVerticesBuffer();
+    // The mesh creates the buffer flipped, with a limit of 0, which would
+    // reject every absolute put
+    mVertices.limit(mVertices.capacity());
+    mCapacity = size * SPRITE_SIZE;
+
+    final short[] indices = new short[size * 6];
+    for (int i = 0, j = 0; i < indices.length; i += 6, j += 4) {
+      indices[i]     = (short) j;
+      indices[i + 1] = (short) (j + 1);
+      indices[i + 2] = (short) (j + 2);
+      indices[i + 3] = (short) (j + 2);
+      indices[i + 4] = (short) (j + 3);
+      indices[i + 5] = (short) j;
+    }
+
+    mMesh.setIndices(indices);
+
+    mProjectionMatrix.setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+    mShader = createDefaultShader(mMaxTextures);
+  }
+
+  private static int getMaxTextureUnits() {
+    final IntBuffer buffer = BufferUtils.newIntBuffer(16);
+    Gdx.gl.glGetIntegerv(GL20.GL_MAX_TEXTURE_IMAGE_UNITS, buffer);
+    return Math.max(1, buffer.get(0));
+  }
+
+  /**
+   * Returns a new instance of the default shader sampling the specified number
+   * of textures, indexed by the {@value #TEXTURE_INDEX_ATTRIBUTE} attribute.
+   *
+   * @throws IllegalArgumentException if the shader could not be compiled
+   */
+  @NonNull
+  public static ShaderProgram createDefaultShader(@IntRange(from = 1) int maxTextures) {
+    if (maxTextures <= 0) {
+      throw new IllegalArgumentException("maxTextures must be > 0");
+    }
+
+    final String vertexShader = ""
+        + "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+        + "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+        + "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+        + "attribute float " + TEXTURE_INDEX_ATTRIBUTE + ";\n"
+        + "attribute vec4 " + SHAPE_ATTRIBUTE + ";\n"
+        + "uniform mat4 u_projTrans;\n"
+        + "varying vec4 v_color;\n"
+        + "varying vec2 v_texCoords;\n"
+        + "varying float v_texIndex;\n"
+        + "varying vec4 v_shape;\n"
+        + "varying vec3 v_outlineColor;\n"
+        + "\n"
+        + "void main() {\n"
+        + "  v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+        + "  v_color.a = v_color.a * (255.0/254.0);\n"
+        + "  v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+        + "  v_texIndex = " + TEXTURE_INDEX_ATTRIBUTE + ";\n"
+        + "  v_shape = " + SHAPE_ATTRIBUTE + ";\n"
+        // Outline colors of distance field glyphs are packed as 0xRRGGBB,
+        // which vertex shaders can unpack exactly with their highp floats
+        + "  float rgb = " + SHAPE_ATTRIBUTE + ".z;\n"
+        + "  v_outlineColor = vec3(floor(rgb / 65536.0), mod(floor(rgb / 256.0), 256.0),"
+        + " mod(rgb, 256.0)) / 255.0;\n"
+        + "  gl_Position = u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+        + "}\n";
+
+    // GLSL ES 1.0 can only index sampler arrays with constant expressions
+    final StringBuilder sampler = new StringBuilder();
+    for (int i = 0; i < maxTextures - 1; i++) {
+      sampler.append("  ").append(i == 0 ? "if" : "else if")
+          .append(" (v_texIndex < ").append(i).append(".5) texel = texture2D(u_textures[")
+          .append(i).append("], v_texCoords);\n");
+    }
+
+    sampler.append(maxTextures > 1 ? "  else texel" : "  texel")
+        .append(" = texture2D(u_textures[").append(maxTextures - 1).append("], v_texCoords);\n");
+
+    final String fragmentShader = ""
+        + "#ifdef GL_ES\n"
+        + "#define LOWP lowp\n"
+        + "#ifdef GL_FRAGMENT_PRECISION_HIGH\n"
+        + "precision highp float;\n"
+        + "#else\n"
+        + "precision mediump float;\n"
+        + "#endif\n"
+        + "#else\n"
+        + "#define LOWP \n"
+        + "#endif\n"
+        + "varying LOWP vec4 v_color;\n"
+        + "varying vec2 v_texCoords;\n"
+        + "varying float v_texIndex;\n"
+        + "varying vec4 v_shape;\n"
+        + "varying vec3 v_outlineColor;\n"
+        + "uniform sampler2D u_textures[" + maxTextures + "];\n"
+        + "\n"
+        + "void main() {\n"
+        + "  if (v_texIndex < -0.5) {\n"
+        // Shapes: v_texCoords is the position relative to the center, and
+        // v_shape is (half width, half height, corner radius, stroke width)
+        + "    vec2 halfSize = v_shape.xy;\n"
+        + "    float d;\n"
+        + "    if (v_texIndex < " + (SHAPE_OVAL + 0.5f) + ") {\n"
+        // Approximate distance to the ellipse, exact for circles
+        + "      d = (length(v_texCoords / halfSize) - 1.0) * min(halfSize.x, halfSize.y);\n"
+        + "    } else {\n"
+        + "      vec2 q = abs(v_texCoords) - halfSize + v_shape.z;\n"
+        + "      d = length(max(q, 0.0)) + min(max(q.x, q.y), 0.0) - v_shape.z;\n"
+        + "    }\n"
+        + "    float coverage = clamp(0.5 - d, 0.0, 1.0);\n"
+        + "    if (v_shape.w > 0.0) coverage *= clamp(0.5 + d + v_shape.w, 0.0, 1.0);\n"
+        + "    gl_FragColor = vec4(v_color.rgb, v_color.a * coverage);\n"
+        + "    return;\n"
+        + "  }\n"
+        + "\n"
+        + "  vec4 texel;\n"
+        + sampler
+        + "  if (v_shape.x != 0.0) {\n"
+        // Distance field glyphs: v_shape.x is the smoothing, negative for
+        // multi-channel fields, and v_shape.y is the outline width
+        + "    float dist = v_shape.x < 0.0\n"
+        + "        ? max(min(texel.r, texel.g), min(max(texel.r, texel.g), texel.b))\n"
+        + "        : texel.a;\n"
+        + "    float smoothing = abs(v_shape.x);\n"
+        + "    float fill = smoothstep(0.5 - smoothing, 0.5 + smoothing, dist);\n"
+        + "    if (v_shape.y > 0.0) {\n"
+        + "      float edge = 0.5 - v_shape.y;\n"
+        + "      float outline = smoothstep(edge - smoothing, edge + smoothing, dist);\n"
+        + "      gl_FragColor = vec4(mix(v_outlineColor, v_color.rgb, fill),\n"
+        + "          v_color.a * outline);\n"
+        + "    } else {\n"
+        + "      gl_FragColor = vec4(v_color.rgb, v_color.a * fill);\n"
+        + "    }\n"
+        + "    return;\n"
+        + "  }\n"
+        + "\n"
+        + "  gl_FragColor = v_color * texel;\n"
+        + "}\n";
+
+    final ShaderProgram shader = new ShaderProgram(vertexShader, fragmentShader);
+    if (!shader.isCompiled()) {
+      throw new IllegalArgumentException("Error compiling shader: " + shader.getLog());
+    }
+
+    return shader;
+  }
+
+  /**
+   * Returns the maximum number of textures sampled within a single batch using
+   * the default shader.
+   */
+  public int getMaxTextures() {
+    return mMaxTextures;
+  }
+
+  /**
+   * Returns the maximum number of quads in a single batch.
+   */
+  public int getSize() {
+    return mCapacity / SPRITE_SIZE;
+  }
+
+  /**
+   * Returns the cache through which this batch sets its blend state.
+   */
+  @NonNull
+  public GLStateCache getGLStateCache() {
+    return mGLState;
+  }
+
+  @Override
+  public void begin() {
+    if (mDrawing) {
+      throw new IllegalStateException("UnifiBatch.end must be called before begin.");
+    }
+
+    renderCalls = 0;
+    mGLState.invalidate();
+    Gdx.gl.glDepthMask(false);
+    mGLState.useProgram(getShader());
+    setupMatrices();
+    mDrawing = true;
+  }
+
+  @Override
+  public void end() {
+    if (!mDrawing) {
+      throw new IllegalStateException("UnifiBatch.begin must be called before end.");
+    }
+
+    if (mIdx > 0) {
+      flush();
+    }
+
+    mDrawing = false;
+    Gdx.gl.glDepthMask(true);
+    if (isBlendingEnabled()) {
+      mGLState.setBlendingEnabled(false);
+    }
+
+    mGLState.useProgram(0);
+  }
+
+  @Override
+  public void setColor(@NonNull com.badlogic.gdx.graphics.Color tint) {
+    mColor.set(tint);
+    mPackedColor = tint.toFloatBits();
+  }
+
+  @Override
+  public void setColor(float r, float g, float b, float a) {
+    mColor.set(r, g, b, a);
+    mPackedColor = mColor.toFloatBits();
+  }
+
+  /**
+   * Sets the color used to tint subsequent draws, packed as
+   * {@link com.badlogic.gdx.graphics.Color#toFloatBits()}.
+   */
+  public void setColor(float packedColor) {
+    setPackedColor(packedColor);
+  }
+
+  /**
+   * Sets the color used to tint subsequent draws, packed as
+   * {@link com.badlogic.gdx.graphics.Color#toFloatBits()}.
+   */
+  public void setPackedColor(float packedColor) {
+    com.badlogic.gdx.graphics.Color.abgr8888ToColor(mColor, packedColor);
+    mPackedColor = packedColor;
+  }
+
+  @NonNull
+  @Override
+  public com.badlogic.gdx.graphics.Color getColor() {
+    return mColor;
+  }
+
+  @Override
+  public float getPackedColor() {
+    return mPackedColor;
+  }
+
+  /**
+   * Returns the index of the texture unit to which the specified texture will
+   * be bound, flushing the batch first if it is full.
+   */
+  private float prepare(@NonNull Texture texture) {
+    if (!mDrawing) {
+      throw new IllegalStateException("UnifiBatch.begin must be called before draw.");
+    }
+
+    if (mIdx == mCapacity) {
+      flush();
+    }
+
+    final Texture[] textures = mTextures;
+    for (int i = 0; i < mTextureCount; i++) {
+      if (textures[i] == texture) {
+        return i;
+      }
+    }
+
+    final int maxTextures = mCustomShader == null ? mMaxTextures : 1;
+    if (mTextureCount == maxTextures) {
+      flush();
+    }
+
+    textures[mTextureCount] = texture;
+    return mTextureCount++;
+  }
+
+  private void putQuad(float x1, float y1, float u1, float v1,
+                       float x2, float y2, float u2, float v2,
+                       float x3, float y3, float u3, float v3,
+                       float x4, float y4, float u4, float v4,
+                       float color, float texture) {
+    int idx = mIdx;
+    idx = putVertex(idx, x1, y1, color, u1, v1, texture, 0, 0, 0, 0);
+    idx = putVertex(idx, x2, y2, color, u2, v2, texture, 0, 0, 0, 0);
+    idx = putVertex(idx, x3, y3, color, u3, v3, texture, 0, 0, 0, 0);
+    idx = putVertex(idx, x4, y4, color, u4, v4, texture, 0, 0, 0, 0);
+    mIdx = idx;
+  }
+
+  private int putVertex(int idx, float x, float y, float color, float u, float v, float texture,
+                        float halfWidth, float halfHeight, float radius, float strokeWidth) {
+    final FloatBuffer vertices = mVertices;
+    vertices.put(idx++, x);
+    vertices.put(idx++, y);
+    vertices.put(idx++, color);
+    vertices.put(idx++, u);
+    vertices.put(idx++, v);
+    vertices.put(idx++, texture);
+    vertices.put(idx++, halfWidth);
+    vertices.put(idx++, halfHeight);
+    vertices.put(idx++, radius);
+    vertices.put(idx++, strokeWidth);
+    return idx;
+  }
+
+  /**
+   * Draws a quad scaled and rotated around its origin.
+   */
+  private void putTransformed(float texture, float x, float y, float originX, float originY,
+                              float width, float height, float scaleX, float scaleY,
+                              float rotation,
+                              float u1, float v1, float u2, float v2,
+                              float u3, float v3, float u4, float v4) {
+    // bottom left and top right corner points relative to origin
+    final float worldOriginX = x + originX;
+    final float worldOriginY = y + originY;
+    float fx = -originX;
+    float fy = -originY;
+    float fx2 = width - originX;
+    float fy2 = height - originY;
+
+    if (scaleX != 1 || scaleY != 1) {
+      fx *= scaleX;
+      fy *= scaleY;
+      fx2 *= scaleX;
+      fy2 *= scaleY;
+    }
+
+    float x1, y1, x2, y2, x3, y3, x4, y4;
+    if (rotation != 0) {
+      final float cos = MathUtils.cosDeg(rotation);
+      final float sin = MathUtils.sinDeg(rotation);
+      x1 = cos * fx - sin * fy;
+      y1 = sin * fx + cos * fy;
+      x2 = cos * fx - sin * fy2;
+      y2 = sin * fx + cos * fy2;
+      x3 = cos * fx2 - sin * fy2;
+      y3 = sin * fx2 + cos * fy2;
+      x4 = x1 + (x3 - x2);
+      y4 = y3 - (y2 - y1);
+    } else {
+      x1 = fx;
+      y1 = fy;
+      x2 = fx;
+      y2 = fy2;
+      x3 = fx2;
+      y3 = fy2;
+      x4 = fx2;
+      y4 = fy;
+    }
+
+    putQuad(
+        x1 + worldOriginX, y1 + worldOriginY, u1, v1,
+        x2 + worldOriginX, y2 + worldOriginY, u2, v2,
+        x3 + worldOriginX, y3 + worldOriginY, u3, v3,
+        x4 + worldOriginX, y4 + worldOriginY, u4, v4,
+        mPackedColor, texture);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y, float originX, float originY,
+                   float width, float height, float scaleX, float scaleY, float rotation,
+                   int srcX, int srcY, int srcWidth, int srcHeight,
+                   boolean flipX, boolean flipY) {
+    final float index = prepare(texture);
+    final float invTexWidth = 1.0f / texture.getWidth();
+    final float invTexHeight = 1.0f / texture.getHeight();
+    float u = srcX * invTexWidth;
+    float v = (srcY + srcHeight) * invTexHeight;
+    float u2 = (srcX + srcWidth) * invTexWidth;
+    float v2 = srcY * invTexHeight;
+    if (flipX) {
+      float tmp = u;
+      u = u2;
+      u2 = tmp;
+    }
+
+    if (flipY) {
+      float tmp = v;
+      v = v2;
+      v2 = tmp;
+    }
+
+    putTransformed(index, x, y, originX, originY, width, height, scaleX, scaleY, rotation,
+        u, v, u, v2, u2, v2, u2, v);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y, float width, float height,
+                   int srcX, int srcY, int srcWidth, int srcHeight,
+                   boolean flipX, boolean flipY) {
+    final float invTexWidth = 1.0f / texture.getWidth();
+    final float invTexHeight = 1.0f / texture.getHeight();
+    float u = srcX * invTexWidth;
+    float v = (srcY + srcHeight) * invTexHeight;
+    float u2 = (srcX + srcWidth) * invTexWidth;
+    float v2 = srcY * invTexHeight;
+    if (flipX) {
+      float tmp = u;
+      u = u2;
+      u2 = tmp;
+    }
+
+    if (flipY) {
+      float tmp = v;
+      v = v2;
+      v2 = tmp;
+    }
+
+    draw(texture, x, y, width, height, u, v, u2, v2, mPackedColor);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y,
+                   int srcX, int srcY, int srcWidth, int srcHeight) {
+    final float invTexWidth = 1.0f / texture.getWidth();
+    final float invTexHeight = 1.0f / texture.getHeight();
+    final float u = srcX * invTexWidth;
+    final float v = (srcY + srcHeight) * invTexHeight;
+    final float u2 = (srcX + srcWidth) * invTexWidth;
+    final float v2 = srcY * invTexHeight;
+    draw(texture, x, y, srcWidth, srcHeight, u, v, u2, v2, mPackedColor);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y, float width, float height,
+                   float u, float v, float u2, float v2) {
+    draw(texture, x, y, width, height, u, v, u2, v2, mPackedColor);
+  }
+
+  /**
+   * Draws a quad tinted with the specified packed color, without changing the
+   * color of this batch.
+   *
+   * @param color The tint, packed as {@link com.badlogic.gdx.graphics.Color#toFloatBits()}
+   */
+  public void draw(@NonNull Texture texture, float x, float y, float width, float height,
+                   float u, float v, float u2, float v2, float color) {
+    final float index = prepare(texture);
+    final float fx2 = x + width;
+    final float fy2 = y + height;
+    putQuad(
+        x, y, u, v,
+        x, fy2, u, v2,
+        fx2, fy2, u2, v2,
+        fx2, y, u2, v,
+        color, index);
+  }
+
+  /**
+   * Draws the part of a quad within the specified bounds, tinted with the
+   * specified packed color. The texture coordinates are clipped along with the
+   * quad, so that the visible part of the texture is not distorted. The bounds
+   * are given in the same coordinate system as the quad, so this is only
+   * equivalent to a scissor test while the transformation matrix does not
+   * rotate.
+   *
+   * @param color The tint, packed as {@link com.badlogic.gdx.graphics.Color#toFloatBits()}
+   *
+   * @return {@code true} if any part of the quad was drawn, {@code false} if it
+   *         was entirely outside of the bounds
+   */
+  public boolean drawClipped(@NonNull Texture texture, float x, float y, float width, float height,
+                             float u, float v, float u2, float v2, float color,
+                             float clipLeft, float clipTop, float clipRight, float clipBottom) {
+    final float x2 = x + width;
+    final float left = Math.max(Math.min(x, x2), clipLeft);
+    final float right = Math.min(Math.max(x, x2), clipRight);
+    if (left >= right) {
+      return false;
+    }
+
+    final float y2 = y + height;
+    final float top = Math.max(Math.min(y, y2), clipTop);
+    final float bottom = Math.min(Math.max(y, y2), clipBottom);
+    if (top >= bottom) {
+      return false;
+    }
+
+    // Keep the orientation of the quad, since width and height may be negative
+    final float cx = width >= 0 ? left : right;
+    final float cx2 = width >= 0 ? right : left;
+    final float cy = height >= 0 ? top : bottom;
+    final float cy2 = height >= 0 ? bottom : top;
+
+    final float du = (u2 - u) / width;
+    final float dv = (v2 - v) / height;
+    draw(texture, cx, cy, cx2 - cx, cy2 - cy,
+        u + (cx - x) * du, v + (cy - y) * dv,
+        u + (cx2 - x) * du, v + (cy2 - y) * dv,
+        color);
+    return true;
+  }
+
+  /**
+   * Draws an anti-aliased shape, rendered with its signed distance field by
+   * the default shader. Shapes use the same vertex format as textured quads,
+   * so they do not flush the batch.
+   *
+   * @param shape       The shape, either {@link #SHAPE_ROUND_RECT} or {@link #SHAPE_OVAL}
+   * @param centerX     The x-coordinate of the center of the shape
+   * @param centerY     The y-coordinate of the center of the shape
+   * @param halfWidth   Half the width of the shape, before rotation
+   * @param halfHeight  Half the height of the shape, before rotation
+   * @param radius      The corner radius of a {@link #SHAPE_ROUND_RECT}
+   * @param strokeWidth The width of the outline to draw inside of the edges of
+   *                    the shape, or {@code 0} to fill it
+   * @param rotation    The rotation around the center, in degrees
+   * @param color       The color, packed as {@link com.badlogic.gdx.graphics.Color#toFloatBits()}
+   *
+   * @throws IllegalStateException if a custom shader is set
+   */
+  public void drawShape(int shape, float centerX, float centerY,
+                        float halfWidth, float halfHeight, float radius, float strokeWidth,
+                        float rotation, float color) {
+    if (shape != SHAPE_ROUND_RECT && shape != SHAPE_OVAL) {
+      throw new IllegalArgumentException("Unsupported shape: " + shape);
+    } else if (!mDrawing) {
+      throw new IllegalStateException("UnifiBatch.begin must be called before draw.");
+    } else if (mCustomShader != null) {
+      throw new IllegalStateException("Shapes can only be drawn with the default shader");
+    }
+
+    if (halfWidth <= 0 || halfHeight <= 0) {
+      return;
+    }
+
+    if (mIdx == mCapacity) {
+      flush();
+    }
+
+    radius = Math.max(0, Math.min(radius, Math.min(halfWidth, halfHeight)));
+    final float lx = halfWidth + SHAPE_MARGIN;
+    final float ly = halfHeight + SHAPE_MARGIN;
+    final float cos, sin;
+    if (rotation != 0) {
+      cos = MathUtils.cosDeg(rotation);
+      sin = MathUtils.sinDeg(rotation);
+    } else {
+      cos = 1;
+      sin = 0;
+    }
+
+    // Corners of the quad relative to the center, rotated
+    final float ax = cos * lx;
+    final float ay = sin * lx;
+    final float bx = -sin * ly;
+    final float by = cos * ly;
+
+    final float type = shape;
+    int idx = mIdx;
+    idx = putVertex(idx, centerX - ax - bx, centerY - ay - by, color, -lx, -ly, type,
+        halfWidth, halfHeight, radius, strokeWidth);
+    idx = putVertex(idx, centerX - ax + bx, centerY - ay + by, color, -lx, ly, type,
+        halfWidth, halfHeight, radius, strokeWidth);
+    idx = putVertex(idx, centerX + ax + bx, centerY + ay + by, color, lx, ly, type,
+        halfWidth, halfHeight, radius, strokeWidth);
+    idx = putVertex(idx, centerX + ax - bx, centerY + ay - by, color, lx, -ly, type,
+        halfWidth, halfHeight, radius, strokeWidth);
+    mIdx = idx;
+  }
+
+  /**
+   * Draws glyphs of a distance field font from precomputed vertex data in the
+   * format of {@link #draw(Texture, float[], int, int)}. The edges of the
+   * glyphs are reconstructed from their distance fields by the default shader,
+   * which also draws their outline, so they stay sharp at any scale.
+   *
+   * @param texture        The page containing the distance fields of the glyphs
+   * @param spriteVertices The vertex data
+   * @param offset         The index of the first vertex component to draw
+   * @param count          The number of vertex components to draw
+   * @param multiChannel   Whether the page stores multi-channel distance fields
+   *                       in its color channels, or single-channel distance
+   *                       fields in its alpha channel
+   * @param smoothing      Half the width of the anti-aliased edges, in units of
+   *                       the distance fields
+   * @param outlineWidth   The width of the outline outside of the edges, in
+   *                       units of the distance fields, or {@code 0} for none
+   * @param outlineColor   The color of the outline, whose alpha is ignored
+   *
+   * @throws IllegalStateException if a custom shader is set
+   */
+  public void drawDistanceField(@NonNull Texture texture, @NonNull float[] spriteVertices,
+                                int offset, int count, boolean multiChannel,
+                                float smoothing, float outlineWidth,
+                                @ColorInt int outlineColor) {
+    if (mCustomShader != null) {
+      throw new IllegalStateException(
+          "Distance fields can only be drawn with the default shader");
+    }
+
+    // A smoothing of 0 would mark the glyphs as regular sprites
+    smoothing = Math.max(smoothing, MIN_SMOOTHING);
+    final float field = multiChannel ? -smoothing : smoothing;
+    final float outline = Math.max(0, Math.min(outlineWidth, 0.5f - smoothing));
+    final float outlineRgb = outlineColor & 0x00FFFFFF;
+    final int end = offset + count - count % BATCH_SPRITE_SIZE;
+    for (int i = offset; i < end; i += BATCH_SPRITE_SIZE) {
+      final float index = prepare(texture);
+      int idx = mIdx;
+      for (int j = i; j < i + BATCH_SPRITE_SIZE; j += 5) {
+        idx = putVertex(idx, spriteVertices[j], spriteVertices[j + 1], spriteVertices[j + 2],
+            spriteVertices[j + 3], spriteVertices[j + 4], index,
+            field, outline, outlineRgb, 0);
+      }
+
+      mIdx = idx;
+    }
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y) {
+    draw(texture, x, y, texture.getWidth(), texture.getHeight());
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, float x, float y, float width, float height) {
+    draw(texture, x, y, width, height, 0, 1, 1, 0, mPackedColor);
+  }
+
+  @Override
+  public void draw(@NonNull Texture texture, @NonNull float[] spriteVertices,
+                   int offset, int count) {
+    final int end = offset + count - count % BATCH_SPRITE_SIZE;
+    for (int i = offset; i < end; i += BATCH_SPRITE_SIZE) {
+      final float index = prepare(texture);
+      int idx = mIdx;
+      for (int j = i; j < i + BATCH_SPRITE_SIZE; j += 5) {
+        idx = putVertex(idx, spriteVertices[j], spriteVertices[j + 1], spriteVertices[j + 2],
+            spriteVertices[j + 3], spriteVertices[j + 4], index, 0, 0, 0, 0);
+      }
+
+      mIdx = idx;
+    }
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float x, float y) {
+    draw(region, x, y, region.getRegionWidth(), region.getRegionHeight());
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float x, float y, float width, float height) {
+    draw(region.getTexture(), x, y, width, height,
+        region.getU(), region.getV2(), region.getU2(), region.getV(), mPackedColor);
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float x, float y,
+                   float originX, float originY, float width, float height,
+                   float scaleX, float scaleY, float rotation) {
+    final float index = prepare(region.getTexture());
+    final float u = region.getU();
+    final float v = region.getV2();
+    final float u2 = region.getU2();
+    final float v2 = region.getV();
+    putTransformed(index, x, y, originX, originY, width, height, scaleX, scaleY, rotation,
+        u, v, u, v2, u2, v2, u2, v);
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float x, float y,
+                   float originX, float originY, float width, float height,
+                   float scaleX, float scaleY, float rotation, boolean clockwise) {
+    final float index = prepare(region.getTexture());
+    if (clockwise) {
+      putTransformed(index, x, y, originX, originY, width, height, scaleX, scaleY, rotation,
+          region.getU2(), region.getV2(),
+          region.getU(), region.getV2(),
+          region.getU(), region.getV(),
+          region.getU2(), region.getV());
+    } else {
+      putTransformed(index, x, y, originX, originY, width, height, scaleX, scaleY, rotation,
+          region.getU(), region.getV(),
+          region.getU2(), region.getV(),
+          region.getU2(), region.getV2(),
+          region.getU(), region.getV2());
+    }
+  }
+
+  @Override
+  public void draw(@NonNull TextureRegion region, float width, float height,
+                   @NonNull Affine2 transform) {
+    final float index = prepare(region.getTexture());
+    final float u = region.getU();
+    final float v = region.getV2();
+    final float u2 = region.getU2();
+    final float v2 = region.getV();
+    putQuad(
+        transform.m02, transform.m12, u, v,
+        transform.m01 * height + transform.m02,
+        transform.m11 * height + transform.m12, u, v2,
+        transform.m00 * width + transform.m01 * height + transform.m02,
+        transform.m10 * width + transform.m11 * height + transform.m12, u2, v2,
+        transform.m00 * width + transform.m02,
+        transform.m10 * width + transform.m12, u2, v,
+        mPackedColor, index);
+  }
+
+  @Override
+  public void flush() {
+    if (mIdx == 0) {
+      return;
+    }
+
+    renderCalls++;
+    totalRenderCalls++;
+    final int spritesInBatch = mIdx / SPRITE_SIZE;
+    if (spritesInBatch > maxSpritesInBatch) maxSpritesInBatch = spritesInBatch;
+    if (mTextureCount > maxTexturesInBatch) maxTexturesInBatch = mTextureCount;
+
+    // Textures still bound to their unit since the previous flush are elided,
+    // and unit 0 is left active as libGDX expects
+    final Texture[] textures = mTextures;
+    for (int i = mTextureCount - 1; i >= 0; i--) {
+      mGLState.bindTexture(i, textures[i].getTextureObjectHandle());
+    }
+
+    mGLState.setActiveTexture(0);
+
+    // The program is still current unless the cache was invalidated, e.g.,
+    // after a texture was reloaded
+    mGLState.useProgram(getShader());
+
+    if (mBlendingDisabled) {
+      mGLState.setBlendingEnabled(false);
+    } else {
+      mGLState.setBlendingEnabled(true);
+      if (mBlendSrcFunc != -1) {
+        mGLState.setBlendFuncSeparate(mBlendSrcFunc, mBlendDstFunc,
+            mBlendSrcFuncAlpha, mBlendDstFuncAlpha);
+      }
+    }
+
+    // Marks the buffer dirty, so that only the written range is uploaded
+    final FloatBuffer vertices = mMesh.getVerticesBuffer();
+    vertices.position(0);
+    vertices.limit(mIdx);
+    mMesh.render(getShader(), GL20.GL_TRIANGLES, 0, spritesInBatch * 6);
+    vertices.limit(vertices.capacity());
+
+    mIdx = 0;
+    Arrays.fill(textures, 0, mTextureCount, null);
+    mTextureCount = 0;
+  }
+
+  @Override
+  public void disableBlending() {
+    if (mBlendingDisabled) {
+      return;
+    }
+
+    flush();
+    mBlendingDisabled = true;
+  }
+
+  @Override
+  public void enableBlending() {
+    if (!mBlendingDisabled) {
+      return;
+    }
+
+    flush();
+    mBlendingDisabled = false;
+  }
+
+  @Override
+  public void setBlendFunction(int srcFunc, int dstFunc) {
+    setBlendFunctionSeparate(srcFunc, dstFunc, srcFunc, dstFunc);
+  }
+
+  /**
+   * Sets the blend function, using separate factors for the alpha channel.
+   *
+   * @see GL20#glBlendFuncSeparate(int, int, int, int)
+   */
+  public void setBlendFunctionSeparate(int srcFuncColor, int dstFuncColor,
+                                       int srcFuncAlpha, int dstFuncAlpha) {
+    if (mBlendSrcFunc == srcFuncColor && mBlendDstFunc == dstFuncColor
+        && mBlendSrcFuncAlpha == srcFuncAlpha && mBlendDstFuncAlpha == dstFuncAlpha) {
+      return;
+    }
+
+    flush();
+    mBlendSrcFunc = srcFuncColor;
+    mBlendDstFunc = dstFuncColor;
+    mBlendSrcFuncAlpha = srcFuncAlpha;
+    mBlendDstFuncAlpha = dstFuncAlpha;
+  }
+
+  @Override
+  public int getBlendSrcFunc() {
+    return mBlendSrcFunc;
+  }
+
+  @Override
+  public int getBlendDstFunc() {
+    return mBlendDstFunc;
+  }
+
+  public int getBlendSrcFuncAlpha() {
+    return mBlendSrcFuncAlpha;
+  }
+
+  public int getBlendDstFuncAlpha() {
+    return mBlendDstFuncAlpha;
+  }
+
+  @NonNull
+  @Override
+  public Matrix4 getProjectionMatrix() {
+    return mProjectionMatrix;
+  }
+
+  @NonNull
+  @Override
+  public Matrix4 getTransformMatrix() {
+    return mTransformMatrix;
+  }
+
+  @Override
+  public void setProjectionMatrix(@NonNull Matrix4 projection) {
+    if (mDrawing) flush();
+    mProjectionMatrix.set(projection);
+    if (mDrawing) setupMatrices();
+  }
+
+  @Override
+  public void setTransformMatrix(@NonNull Matrix4 transform) {
+    if (mDrawing) flush();
+    mTransformMatrix.set(transform);
+    if (mDrawing) setupMatrices();
+  }
+
+  private void setupMatrices() {
+    mCombinedMatrix.set(mProjectionMatrix).mul(mTransformMatrix);
+    final ShaderProgram shader = getShader();
+    shader.setUniformMatrix("u_projTrans", mCombinedMatrix);
+    if (mCustomShader != null) {
+      shader.setUniformi("u_texture", 0);
+    } else {
+      Gdx.gl.glUniform1iv(shader.fetchUniformLocation("u_textures", false), mMaxTextures,
+          mTextureUnits, 0);
+    }
+  }
+
+  @Override
+  public void setShader(@Nullable ShaderProgram shader) {
+    if (mDrawing) {
+      flush();
+    }
+
+    mCustomShader = shader;
+    if (mDrawing) {
+      mGLState.useProgram(getShader());
+      setupMatrices();
+    }
+  }
+
+  /**
+   * Returns the current shader, which is the default one if no custom shader
+   * has been set.
+   */
+  @NonNull
+  public ShaderProgram getShader() {
+    return mCustomShader != null ? mCustomShader : mShader;
+  }
+
+  @Override
+  public boolean isBlendingEnabled() {
+    return !mBlendingDisabled;
+  }
+
+  @Override
+  public boolean isDrawing() {
+    return mDrawing;
+  }
+
+  @Override
+  public void dispose() {
+    mMesh.dispose();
+    mShader.dispose();
+  }
+}
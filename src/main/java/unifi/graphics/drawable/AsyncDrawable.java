@@ -0,0 +1,156 @@
+package unifi.graphics.drawable;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import unifi.graphics.Canvas;
+import unifi.graphics.PixelFormat;
+import unifi.graphics.Rect;
+import unifi.runtime.SystemClock;
+
+/**
+ * A drawable that draws a placeholder until the drawable it stands for has
+ * been loaded, e.g., by {@link unifi.content.res.ImageLoader}, and then draws
+ * that drawable instead. Swapping the drawables {@linkplain #invalidateSelf()
+ * invalidates} this drawable, and so the view it is drawn by.
+ *
+ * <p>The time at which this drawable was last drawn is recorded, so loaders
+ * can load the drawables which are on screen before those which are not.
+ *
+ * <p>Note: The intrinsic size of this drawable is that of its current
+ * drawable, so views sized by it should request a new layout once it has
+ * {@linkplain #isLoaded() loaded}, if its size differs from the placeholder.
+ */
+public class AsyncDrawable extends AbstractDrawable {
+
+  @Nullable private Drawable mDrawable;
+  private boolean mLoaded;
+
+  @IntRange(from = 0, to = 255) private int mAlpha = 255;
+
+  /**
+   * Time at which this drawable was last drawn, in milliseconds, or
+   * {@code Long.MIN_VALUE} if it has never been drawn.
+   */
+  private volatile long mDrawTime = Long.MIN_VALUE;
+
+  /**
+   * Constructs an async drawable which draws the specified placeholder until
+   * it is loaded.
+   *
+   * @param placeholder The drawable drawn until this drawable is loaded, or
+   *                    {@code null} to draw nothing
+   */
+  public AsyncDrawable(@Nullable Drawable placeholder) {
+    mDrawable = placeholder;
+  }
+
+  /**
+   * Returns the drawable currently drawn by this drawable, i.e., the
+   * placeholder until it is loaded, and the loaded drawable after.
+   */
+  @Nullable
+  public Drawable getDrawable() {
+    return mDrawable;
+  }
+
+  /**
+   * Indicates whether or not the drawable this drawable stands for has been
+   * loaded.
+   */
+  public boolean isLoaded() {
+    return mLoaded;
+  }
+
+  /**
+   * Sets the drawable this drawable stands for, which replaces the
+   * placeholder. This must be called on the rendering thread.
+   */
+  public void setLoadedDrawable(@NonNull Drawable drawable) {
+    if (drawable == null) {
+      throw new IllegalArgumentException("drawable cannot be null");
+    }
+
+    mDrawable = drawable;
+    mLoaded = true;
+    drawable.setBounds(getBounds());
+    drawable.setAlpha(mAlpha);
+    drawable.setVisible(isVisible(), false);
+    invalidateSelf();
+  }
+
+  /**
+   * Returns the time at which this drawable was last drawn, in milliseconds
+   * (see {@link SystemClock#millisTime()}), or {@code Long.MIN_VALUE} if it
+   * has never been drawn. This may be called from any thread.
+   */
+  public long getDrawTime() {
+    return mDrawTime;
+  }
+
+  @Override
+  public void draw(@NonNull Canvas canvas) {
+    mDrawTime = SystemClock.millisTime();
+    if (mDrawable != null) {
+      mDrawable.draw(canvas);
+    }
+  }
+
+  @Override
+  protected void onBoundsChange(@NonNull Rect bounds) {
+    if (mDrawable != null) {
+      mDrawable.setBounds(bounds);
+    }
+  }
+
+  @Override
+  public boolean setVisible(boolean visible, boolean restart) {
+    if (mDrawable != null) {
+      mDrawable.setVisible(visible, restart);
+    }
+
+    return super.setVisible(visible, restart);
+  }
+
+  @Override
+  public int getOpacity() {
+    return mDrawable != null ? mDrawable.getOpacity() : PixelFormat.TRANSPARENT;
+  }
+
+  @Override
+  public int getAlpha() {
+    return mAlpha;
+  }
+
+  @Override
+  public void setAlpha(@IntRange(from = 0, to = 255) int alpha) {
+    if (mAlpha != alpha) {
+      mAlpha = alpha;
+      if (mDrawable != null) {
+        mDrawable.setAlpha(alpha);
+      }
+
+      invalidateSelf();
+    }
+  }
+
+  @Override
+  public boolean getPadding(@NonNull Rect dst) {
+    if (mDrawable != null) {
+      return mDrawable.getPadding(dst);
+    }
+
+    return super.getPadding(dst);
+  }
+
+  @Override
+  public int getIntrinsicWidth() {
+    return mDrawable != null ? mDrawable.getIntrinsicWidth() : -1;
+  }
+
+  @Override
+  public int getIntrinsicHeight() {
+    return mDrawable != null ? mDrawable.getIntrinsicHeight() : -1;
+  }
+}
@@ -14,8 +14,6 @@ import unifi.graphics.PixelFormat;
  */
 public class ColorDrawable extends AbstractDrawable {
 
-  private static final Paint sPaint = new Paint();
-
   @NonNull
   private ConstantState mColorState;
   private boolean mMutated;
@@ -50,7 +48,8 @@ public class ColorDrawable extends AbstractDrawable {
    */
   public void setColor(@ColorInt int color) {
     if (mColorState.mBaseColor != color || mColorState.mUseColor != color) {
-      mColorState.mBaseColor = mColorState.mUseColor = color;
+      mColorState.mBaseColor = color;
+      mColorState.setUseColor(color);
       invalidateSelf();
     }
   }
@@ -72,11 +71,16 @@ public class ColorDrawable extends AbstractDrawable {
     mMutated = false;
   }
 
+  @NonNull
+  @Override
+  public Drawable.ConstantState getConstantState() {
+    return mColorState;
+  }
+
   @Override
   public void draw(@NonNull Canvas canvas) {
     if (Color.alpha(mColorState.mUseColor) != 0) {
-      sPaint.setColor(mColorState.mUseColor);
-      canvas.drawRect(getBounds(), sPaint);
+      canvas.drawRect(getBounds(), mColorState.mPaint);
     }
   }
 
@@ -101,7 +105,7 @@ public class ColorDrawable extends AbstractDrawable {
     final int useAlpha = baseAlpha * alpha >> 8;
     final int useColor = Color.setAlpha(mColorState.mBaseColor, useAlpha);
     if (mColorState.mUseColor != useColor) {
-      mColorState.mUseColor = useColor;
+      mColorState.setUseColor(useColor);
       invalidateSelf();
     }
   }
@@ -126,12 +130,29 @@ public class ColorDrawable extends AbstractDrawable {
     @ColorInt int mBaseColor;
     /** Base color, modulated by {@link #setAlpha(int)} */
     @ColorInt int mUseColor;
+    /** Paint of {@link #mUseColor}, retained so its packed color stays cached */
+    @NonNull final Paint mPaint;
 
-    ConstantState() {}
+    ConstantState() {
+      mPaint = new Paint();
+      setUseColor(Color.TRANSPARENT);
+    }
 
     ConstantState(@NonNull ConstantState state) {
       mBaseColor = state.mBaseColor;
       mUseColor = state.mUseColor;
+      mPaint = new Paint(state.mPaint);
+    }
+
+    @NonNull
+    @Override
+    public Drawable newDrawable() {
+      return new ColorDrawable(this);
+    }
+
+    void setUseColor(@ColorInt int color) {
+      mUseColor = color;
+      mPaint.setColor(color);
     }
   }
 }
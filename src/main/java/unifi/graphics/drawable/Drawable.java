@@ -483,5 +483,14 @@ public interface Drawable {
    * Abstract class used by drawables to store shared constant state and data
    * between drawable instances.
    */
-  interface ConstantState {}
+  interface ConstantState {
+    /**
+     * Returns a new drawable sharing this state, e.g., one of the drawables
+     * returned by {@link unifi.content.res.Resources#getDrawable(String)}.
+     * Changes to the state of the new drawable propagate to all others sharing
+     * it until it is {@linkplain #mutate() mutated}.
+     */
+    @NonNull
+    Drawable newDrawable();
+  }
 }
@@ -0,0 +1,383 @@
+package unifi.graphics.drawable;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import unifi.graphics.Canvas;
+import unifi.graphics.Insets;
+import unifi.graphics.Paint;
+import unifi.graphics.PixelFormat;
+import unifi.graphics.Rect;
+
+/**
+ * A drawable that stretches a {@link TextureRegion} to fill its bounds while
+ * preserving its edges and corners, e.g., the frame of a panel or button. The
+ * region is divided into 9 patches by its fixed left, top, right and bottom
+ * edges: the corners are never stretched, the edges are only stretched along
+ * their length, and the center is stretched in both directions.
+ *
+ * <p>The quads of the patches are computed whenever the bounds change and
+ * cached as vertex data, so drawing copies them into the batch at once. The
+ * region may belong to an {@link unifi.graphics.AtlasManager} page, in which
+ * case the quads are recomputed once the region is resolved.
+ */
+public class NinePatchDrawable extends AbstractDrawable {
+
+  private static final int MAX_PATCHES = 9;
+
+  // Scratch arrays used while computing the vertices
+  private static final float[] sTmpX = new float[4];
+  private static final float[] sTmpY = new float[4];
+  private static final float[] sTmpU = new float[4];
+  private static final float[] sTmpV = new float[4];
+
+  @NonNull private ConstantState mNinePatchState;
+  private boolean mMutated;
+
+  /**
+   * Vertices of the quads of each visible patch, see
+   * {@link Canvas#draw(Texture, float[], int, int)}.
+   */
+  @NonNull private final float[] mVertices = new float[MAX_PATCHES * Canvas.QUAD_SIZE];
+  private int mVertexCount;
+
+  /**
+   * Indicates whether or not {@link #mVertices} needs to be recomputed.
+   */
+  private boolean mVerticesDirty = true;
+
+  /**
+   * Texture coordinates of the region when {@link #mVertices} was computed,
+   * since those of an atlas region change when it is resolved.
+   */
+  private float mU, mV, mU2, mV2;
+
+  /**
+   * Packed color of the vertices, since the paint may be shared.
+   */
+  private float mColor;
+
+  /**
+   * Constructs a nine-patch drawable with the specified region and fixed
+   * edges. The padding is the size of the fixed edges, and there are no
+   * optical insets.
+   *
+   * @param region The region to stretch
+   * @param left   The width of the fixed left edge, in pixels
+   * @param top    The height of the fixed top edge, in pixels
+   * @param right  The width of the fixed right edge, in pixels
+   * @param bottom The height of the fixed bottom edge, in pixels
+   */
+  public NinePatchDrawable(@NonNull TextureRegion region,
+                           @IntRange(from = 0) int left, @IntRange(from = 0) int top,
+                           @IntRange(from = 0) int right, @IntRange(from = 0) int bottom) {
+    this(region, left, top, right, bottom, new Rect(left, top, right, bottom), Insets.NONE);
+  }
+
+  /**
+   * Constructs a nine-patch drawable with the specified region, fixed edges,
+   * padding and optical insets.
+   *
+   * @param region        The region to stretch
+   * @param left          The width of the fixed left edge, in pixels
+   * @param top           The height of the fixed top edge, in pixels
+   * @param right         The width of the fixed right edge, in pixels
+   * @param bottom        The height of the fixed bottom edge, in pixels
+   * @param padding       The padding of the content, in pixels, where each
+   *                      side of the rect is the padding of that side
+   * @param opticalInsets The optical insets, in pixels
+   */
+  public NinePatchDrawable(@NonNull TextureRegion region,
+                           @IntRange(from = 0) int left, @IntRange(from = 0) int top,
+                           @IntRange(from = 0) int right, @IntRange(from = 0) int bottom,
+                           @NonNull Rect padding, @NonNull Insets opticalInsets) {
+    if (region == null) {
+      throw new IllegalArgumentException("Cannot create a NinePatchDrawable with a null region");
+    } else if (left < 0 || top < 0 || right < 0 || bottom < 0) {
+      throw new IllegalArgumentException("Fixed edges must be >= 0");
+    } else if (padding == null) {
+      throw new IllegalArgumentException("padding cannot be null");
+    } else if (opticalInsets == null) {
+      throw new IllegalArgumentException("opticalInsets cannot be null");
+    }
+
+    mNinePatchState = new ConstantState(region, left, top, right, bottom,
+        new Rect(padding), opticalInsets);
+  }
+
+  /**
+   * Returns the region stretched by this drawable.
+   */
+  @NonNull
+  public TextureRegion getTextureRegion() {
+    return mNinePatchState.mRegion;
+  }
+
+  @NonNull
+  @Override
+  public Drawable mutate() {
+    if (!mMutated && super.mutate() == this) {
+      mNinePatchState = new ConstantState(mNinePatchState);
+      mMutated = true;
+    }
+
+    return this;
+  }
+
+  @Override
+  public void clearMutated() {
+    super.clearMutated();
+    mMutated = false;
+  }
+
+  @NonNull
+  @Override
+  public Drawable.ConstantState getConstantState() {
+    return mNinePatchState;
+  }
+
+  @Override
+  protected void onBoundsChange(@NonNull Rect bounds) {
+    mVerticesDirty = true;
+  }
+
+  @Override
+  public void draw(@NonNull Canvas canvas) {
+    final TextureRegion region = mNinePatchState.mRegion;
+    final Texture texture = region.getTexture();
+    if (texture == null || mNinePatchState.mPaint.getAlpha() == 0) {
+      // Atlas region not resolved yet, or nothing to draw
+      return;
+    }
+
+    if (mVerticesDirty
+        || mU != region.getU() || mV != region.getV()
+        || mU2 != region.getU2() || mV2 != region.getV2()
+        || mColor != mNinePatchState.mPaint.getPackedColor()) {
+      computeVertices();
+    }
+
+    if (mVertexCount > 0) {
+      canvas.draw(texture, mVertices, 0, mVertexCount);
+    }
+  }
+
+  /**
+   * Computes the quads of the visible patches within the bounds.
+   */
+  private void computeVertices() {
+    final ConstantState state = mNinePatchState;
+    final TextureRegion region = state.mRegion;
+    final Rect bounds = getBounds();
+    mU = region.getU();
+    mV = region.getV();
+    mU2 = region.getU2();
+    mV2 = region.getV2();
+    mColor = state.mPaint.getPackedColor();
+    mVerticesDirty = false;
+    mVertexCount = 0;
+
+    final float width = bounds.width();
+    final float height = bounds.height();
+    if (width <= 0 || height <= 0) {
+      return;
+    }
+
+    // Shrink the fixed edges if the bounds cannot fit them
+    float left = state.mLeft;
+    float right = state.mRight;
+    if (left + right > width) {
+      final float scale = width / (left + right);
+      left *= scale;
+      right *= scale;
+    }
+
+    float top = state.mTop;
+    float bottom = state.mBottom;
+    if (top + bottom > height) {
+      final float scale = height / (top + bottom);
+      top *= scale;
+      bottom *= scale;
+    }
+
+    final float[] xs = sTmpX;
+    xs[0] = bounds.left;
+    xs[1] = bounds.left + left;
+    xs[2] = bounds.right - right;
+    xs[3] = bounds.right;
+
+    final float[] ys = sTmpY;
+    ys[0] = bounds.top;
+    ys[1] = bounds.top + top;
+    ys[2] = bounds.bottom - bottom;
+    ys[3] = bounds.bottom;
+
+    // v is the top of the region, which is drawn at the top since the y-axis is down
+    final float du = (mU2 - mU) / region.getRegionWidth();
+    final float dv = (mV2 - mV) / region.getRegionHeight();
+    final float[] us = sTmpU;
+    us[0] = mU;
+    us[1] = mU + state.mLeft * du;
+    us[2] = mU2 - state.mRight * du;
+    us[3] = mU2;
+
+    final float[] vs = sTmpV;
+    vs[0] = mV;
+    vs[1] = mV + state.mTop * dv;
+    vs[2] = mV2 - state.mBottom * dv;
+    vs[3] = mV2;
+
+    final float color = mColor;
+    final float[] vertices = mVertices;
+    int idx = 0;
+    for (int row = 0; row < 3; row++) {
+      final float y = ys[row];
+      final float y2 = ys[row + 1];
+      if (y >= y2) {
+        continue;
+      }
+
+      for (int col = 0; col < 3; col++) {
+        final float x = xs[col];
+        final float x2 = xs[col + 1];
+        if (x >= x2) {
+          continue;
+        }
+
+        final float u = us[col];
+        final float u2 = us[col + 1];
+        final float v = vs[row];
+        final float v2 = vs[row + 1];
+
+        vertices[idx++] = x;
+        vertices[idx++] = y;
+        vertices[idx++] = color;
+        vertices[idx++] = u;
+        vertices[idx++] = v;
+
+        vertices[idx++] = x;
+        vertices[idx++] = y2;
+        vertices[idx++] = color;
+        vertices[idx++] = u;
+        vertices[idx++] = v2;
+
+        vertices[idx++] = x2;
+        vertices[idx++] = y2;
+        vertices[idx++] = color;
+        vertices[idx++] = u2;
+        vertices[idx++] = v2;
+
+        vertices[idx++] = x2;
+        vertices[idx++] = y;
+        vertices[idx++] = color;
+        vertices[idx++] = u2;
+        vertices[idx++] = v;
+      }
+    }
+
+    mVertexCount = idx;
+  }
+
+  @Override
+  public boolean getPadding(@NonNull Rect dst) {
+    final Rect padding = mNinePatchState.mPadding;
+    dst.set(padding);
+    return (padding.left | padding.top | padding.right | padding.bottom) != 0;
+  }
+
+  @NonNull
+  @Override
+  public Insets getOpticalInsets() {
+    return mNinePatchState.mOpticalInsets;
+  }
+
+  @Override
+  public int getOpacity() {
+    return mNinePatchState.mPaint.getAlpha() == 0
+        ? PixelFormat.TRANSPARENT
+        : PixelFormat.TRANSLUCENT;
+  }
+
+  @Override
+  public int getAlpha() {
+    return mNinePatchState.mPaint.getAlpha();
+  }
+
+  @Override
+  public void setAlpha(@IntRange(from = 0, to = 255) int alpha) {
+    if (mNinePatchState.mPaint.getAlpha() != alpha) {
+      mNinePatchState.mPaint.setAlpha(alpha);
+      invalidateSelf();
+    }
+  }
+
+  @Override
+  public int getIntrinsicWidth() {
+    return mNinePatchState.mRegion.getRegionWidth();
+  }
+
+  @Override
+  public int getIntrinsicHeight() {
+    return mNinePatchState.mRegion.getRegionHeight();
+  }
+
+  @Override
+  public int getMinimumWidth() {
+    return mNinePatchState.mLeft + mNinePatchState.mRight;
+  }
+
+  @Override
+  public int getMinimumHeight() {
+    return mNinePatchState.mTop + mNinePatchState.mBottom;
+  }
+
+  private NinePatchDrawable(@NonNull ConstantState state) {
+    assert state != null;
+    mNinePatchState = state;
+  }
+
+  final static class ConstantState implements Drawable.ConstantState {
+
+    @NonNull final TextureRegion mRegion;
+    final int mLeft;
+    final int mTop;
+    final int mRight;
+    final int mBottom;
+    @NonNull final Rect mPadding;
+    @NonNull final Insets mOpticalInsets;
+    @NonNull final Paint mPaint;
+
+    ConstantState(@NonNull TextureRegion region, int left, int top, int right, int bottom,
+                  @NonNull Rect padding, @NonNull Insets opticalInsets) {
+      mRegion = region;
+      mLeft = left;
+      mTop = top;
+      mRight = right;
+      mBottom = bottom;
+      mPadding = padding;
+      mOpticalInsets = opticalInsets;
+      mPaint = new Paint();
+    }
+
+    ConstantState(@NonNull ConstantState state) {
+      mRegion = state.mRegion;
+      mLeft = state.mLeft;
+      mTop = state.mTop;
+      mRight = state.mRight;
+      mBottom = state.mBottom;
+      mPadding = new Rect(state.mPadding);
+      mOpticalInsets = state.mOpticalInsets;
+      mPaint = new Paint(state.mPaint);
+    }
+
+    @NonNull
+    @Override
+    public Drawable newDrawable() {
+      return new NinePatchDrawable(this);
+    }
+
+  }
+}
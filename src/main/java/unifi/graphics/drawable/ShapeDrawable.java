@@ -0,0 +1,311 @@
+package unifi.graphics.drawable;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.IntDef;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import unifi.graphics.Canvas;
+import unifi.graphics.Color;
+import unifi.graphics.Paint;
+import unifi.graphics.PixelFormat;
+import unifi.graphics.Rect;
+
+/**
+ * A drawable that draws a resolution independent shape filling its bounds,
+ * optionally with an outline, e.g., a rounded card, a circular badge or a
+ * divider. Shapes are drawn by {@link Canvas} from their signed distance
+ * fields, so they do not require a texture for each size and do not break the
+ * batch of the textures drawn around them.
+ */
+public class ShapeDrawable extends AbstractDrawable {
+
+  @IntDef({ RECTANGLE, OVAL, LINE })
+  @Retention(RetentionPolicy.SOURCE)
+  public @interface Shape {}
+
+  /**
+   * Shape is a rectangle, possibly with rounded corners.
+   *
+   * @see #setCornerRadius(float)
+   */
+  public static final int RECTANGLE = 0;
+
+  /**
+   * Shape is an ellipse inscribed in the bounds.
+   */
+  public static final int OVAL = 1;
+
+  /**
+   * Shape is a horizontal line through the vertical center of the bounds, as
+   * thick as the stroke width.
+   *
+   * @see #setStroke(float, int)
+   */
+  public static final int LINE = 2;
+
+  @NonNull private ConstantState mShapeState;
+  private boolean mMutated;
+
+  /**
+   * Constructs a transparent rectangle.
+   */
+  public ShapeDrawable() {
+    this(RECTANGLE);
+  }
+
+  /**
+   * Constructs a transparent shape of the specified type.
+   */
+  public ShapeDrawable(@Shape int shape) {
+    mShapeState = new ConstantState();
+    setShape(shape);
+  }
+
+  /**
+   * Returns the type of shape drawn by this drawable.
+   */
+  @Shape
+  public int getShape() {
+    return mShapeState.mShape;
+  }
+
+  /**
+   * Sets the type of shape drawn by this drawable.
+   */
+  public void setShape(@Shape int shape) {
+    if (shape != RECTANGLE && shape != OVAL && shape != LINE) {
+      throw new IllegalArgumentException("Unsupported shape: " + shape);
+    }
+
+    if (mShapeState.mShape != shape) {
+      mShapeState.mShape = shape;
+      invalidateSelf();
+    }
+  }
+
+  /**
+   * Returns the radius of the corners of a {@link #RECTANGLE}, in pixels.
+   */
+  public float getCornerRadius() {
+    return mShapeState.mCornerRadius;
+  }
+
+  /**
+   * Sets the radius of the corners of a {@link #RECTANGLE}, in pixels. The
+   * radius is limited to half the smallest side, so large radii draw pills.
+   */
+  public void setCornerRadius(float radius) {
+    radius = Math.max(0, radius);
+    if (mShapeState.mCornerRadius != radius) {
+      mShapeState.mCornerRadius = radius;
+      invalidateSelf();
+    }
+  }
+
+  /**
+   * Returns the color filling the shape.
+   */
+  @ColorInt
+  public int getColor() {
+    return mShapeState.mBaseColor;
+  }
+
+  /**
+   * Sets the color filling the shape, which may be {@link Color#TRANSPARENT}
+   * to only draw the outline.
+   */
+  public void setColor(@ColorInt int color) {
+    if (mShapeState.mBaseColor != color) {
+      mShapeState.mBaseColor = color;
+      mShapeState.updatePaints();
+      invalidateSelf();
+    }
+  }
+
+  /**
+   * Returns the width of the outline, in pixels.
+   */
+  public float getStrokeWidth() {
+    return mShapeState.mStrokeWidth;
+  }
+
+  /**
+   * Returns the color of the outline.
+   */
+  @ColorInt
+  public int getStrokeColor() {
+    return mShapeState.mBaseStrokeColor;
+  }
+
+  /**
+   * Sets the outline drawn inside of the edges of the shape. A {@link #LINE}
+   * is drawn with this width and color.
+   *
+   * @param width The width of the outline, in pixels, or {@code 0} for none
+   * @param color The color of the outline
+   */
+  public void setStroke(float width, @ColorInt int color) {
+    width = Math.max(0, width);
+    if (mShapeState.mStrokeWidth != width || mShapeState.mBaseStrokeColor != color) {
+      mShapeState.mStrokeWidth = width;
+      mShapeState.mBaseStrokeColor = color;
+      mShapeState.updatePaints();
+      invalidateSelf();
+    }
+  }
+
+  @NonNull
+  @Override
+  public Drawable mutate() {
+    if (!mMutated && super.mutate() == this) {
+      mShapeState = new ConstantState(mShapeState);
+      mMutated = true;
+    }
+
+    return this;
+  }
+
+  @Override
+  public void clearMutated() {
+    super.clearMutated();
+    mMutated = false;
+  }
+
+  @NonNull
+  @Override
+  public Drawable.ConstantState getConstantState() {
+    return mShapeState;
+  }
+
+  @Override
+  public void draw(@NonNull Canvas canvas) {
+    final ConstantState state = mShapeState;
+    final Rect bounds = getBounds();
+    final boolean hasStroke = state.mStrokeWidth > 0
+        && state.mStrokePaint.getAlpha() != 0;
+    switch (state.mShape) {
+      case LINE:
+        if (hasStroke) {
+          final float y = bounds.exactCenterY();
+          canvas.drawLine(bounds.left, y, bounds.right, y, state.mStrokePaint);
+        }
+
+        break;
+      case OVAL:
+        if (state.mFillPaint.getAlpha() != 0) {
+          canvas.drawOval(bounds, state.mFillPaint);
+        }
+
+        if (hasStroke) {
+          canvas.drawOval(bounds, state.mStrokePaint);
+        }
+
+        break;
+      case RECTANGLE:
+      default:
+        if (state.mFillPaint.getAlpha() != 0) {
+          canvas.drawRoundRect(bounds, state.mCornerRadius, state.mFillPaint);
+        }
+
+        if (hasStroke) {
+          canvas.drawRoundRect(bounds, state.mCornerRadius, state.mStrokePaint);
+        }
+    }
+  }
+
+  @Override
+  public int getOpacity() {
+    final ConstantState state = mShapeState;
+    if (state.mFillPaint.getAlpha() == 0
+        && (state.mStrokeWidth == 0 || state.mStrokePaint.getAlpha() == 0)) {
+      return PixelFormat.TRANSPARENT;
+    }
+
+    // Anti-aliased edges are always translucent
+    return PixelFormat.TRANSLUCENT;
+  }
+
+  @Override
+  public int getAlpha() {
+    return mShapeState.mAlpha;
+  }
+
+  @Override
+  public void setAlpha(@IntRange(from = 0, to = 255) int alpha) {
+    if (mShapeState.mAlpha != alpha) {
+      mShapeState.mAlpha = alpha;
+      mShapeState.updatePaints();
+      invalidateSelf();
+    }
+  }
+
+  @Override
+  protected boolean onStateChange(@NonNull int[] stateSet) {
+    return false;
+  }
+
+  @Override
+  public boolean isStateful() {
+    return false;
+  }
+
+  private ShapeDrawable(@NonNull ConstantState state) {
+    assert state != null;
+    mShapeState = state;
+  }
+
+  final static class ConstantState implements Drawable.ConstantState {
+    @Shape int mShape = RECTANGLE;
+    float mCornerRadius;
+    float mStrokeWidth;
+    /** Fill color, independent of  {@link #setAlpha(int)} */
+    @ColorInt int mBaseColor = Color.TRANSPARENT;
+    /** Stroke color, independent of  {@link #setAlpha(int)} */
+    @ColorInt int mBaseStrokeColor = Color.TRANSPARENT;
+    @IntRange(from = 0, to = 255) int mAlpha = 255;
+
+    /** Paints of the base colors modulated by {@link #mAlpha} */
+    @NonNull final Paint mFillPaint;
+    @NonNull final Paint mStrokePaint;
+
+    ConstantState() {
+      mFillPaint = new Paint();
+      mStrokePaint = new Paint();
+      mStrokePaint.setStyle(Paint.Style.STROKE);
+      updatePaints();
+    }
+
+    ConstantState(@NonNull ConstantState state) {
+      mShape = state.mShape;
+      mCornerRadius = state.mCornerRadius;
+      mStrokeWidth = state.mStrokeWidth;
+      mBaseColor = state.mBaseColor;
+      mBaseStrokeColor = state.mBaseStrokeColor;
+      mAlpha = state.mAlpha;
+      mFillPaint = new Paint(state.mFillPaint);
+      mStrokePaint = new Paint(state.mStrokePaint);
+    }
+
+    @NonNull
+    @Override
+    public Drawable newDrawable() {
+      return new ShapeDrawable(this);
+    }
+
+    void updatePaints() {
+      mFillPaint.setColor(modulateAlpha(mBaseColor, mAlpha));
+      mStrokePaint.setColor(modulateAlpha(mBaseStrokeColor, mAlpha));
+      mStrokePaint.setStrokeWidth(mStrokeWidth);
+    }
+
+    @ColorInt
+    private static int modulateAlpha(@ColorInt int color, int alpha) {
+      alpha += alpha >> 7; // make it 0..256
+      return Color.setAlpha(color, Color.alpha(color) * alpha >> 8);
+    }
+  }
+}
@@ -5,18 +5,20 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
 import unifi.graphics.Canvas;
-import unifi.graphics.Color;
 import unifi.graphics.Paint;
 import unifi.graphics.PixelFormat;
 
 /**
- * A drawable that will draw a {@link Texture}.
+ * A drawable that will draw a {@link Texture}, or a {@link TextureRegion} of
+ * one, e.g., an image packed into a {@link unifi.graphics.AtlasManager}.
  */
 public class TextureDrawable extends AbstractDrawable {
 
   @Nullable private ConstantState mTextureState;
+  private boolean mMutated;
 
   /**
    * Constructs a texture drawable with a {@code null} texture. This is intended
@@ -44,7 +46,20 @@ public class TextureDrawable extends AbstractDrawable {
       throw new IllegalArgumentException("Alpha must be between [0..255] (inclusive)");
     }
 
-    mTextureState = new ConstantState(texture);
+    mTextureState = new ConstantState(new TextureRegion(texture));
+    mTextureState.mPaint.setAlpha(alpha);
+  }
+
+  /**
+   * Constructs a texture drawable with the specified texture region and alpha
+   * set to {@code 255}.
+   */
+  public TextureDrawable(@NonNull TextureRegion region) {
+    if (region == null) {
+      throw new IllegalArgumentException("Cannot create a TextureDrawable with a null region");
+    }
+
+    mTextureState = new ConstantState(region);
   }
 
   /**
@@ -54,7 +69,11 @@ public class TextureDrawable extends AbstractDrawable {
    */
   @Nullable
   public Texture getTexture() {
-    return mTextureState.mTexture;
+    if (mTextureState.mRegion == null) {
+      return null;
+    }
+
+    return mTextureState.mRegion.getTexture();
   }
 
   /**
@@ -65,30 +84,89 @@ public class TextureDrawable extends AbstractDrawable {
       throw new IllegalArgumentException("Cannot create a TextureDrawable with a null texture");
     }
 
-    if (mTextureState.mTexture != texture) {
-      mTextureState.mTexture = texture;
+    if (getTexture() != texture) {
+      mTextureState.mRegion = new TextureRegion(texture);
+      invalidateSelf();
+    }
+  }
+
+  /**
+   * Returns the texture region drawn by this drawable, or {@code null} if no
+   * texture has been set yet.
+   *
+   * @see #getTexture()
+   */
+  @Nullable
+  public TextureRegion getTextureRegion() {
+    return mTextureState.mRegion;
+  }
+
+  /**
+   * Sets the texture region drawn by this drawable.
+   */
+  public void setTextureRegion(@NonNull TextureRegion region) {
+    if (region == null) {
+      throw new IllegalArgumentException("Cannot create a TextureDrawable with a null region");
+    }
+
+    if (mTextureState.mRegion != region) {
+      mTextureState.mRegion = region;
       invalidateSelf();
     }
   }
 
+  @NonNull
+  @Override
+  public Drawable mutate() {
+    if (!mMutated && super.mutate() == this) {
+      mTextureState = new ConstantState(mTextureState);
+      mMutated = true;
+    }
+
+    return this;
+  }
+
+  @Override
+  public void clearMutated() {
+    super.clearMutated();
+    mMutated = false;
+  }
+
+  @NonNull
+  @Override
+  public Drawable.ConstantState getConstantState() {
+    return mTextureState;
+  }
+
   @Override
   public void draw(@NonNull Canvas canvas) {
-    if (mTextureState.mTexture != null) {
-      final Paint p = mTextureState.mPaint;
-      final int alpha = mTextureState.mPaint.getAlpha();
-      mTextureState.mPaint.setColor(alpha == 255
-          ? Color.WHITE : Color.setAlpha(Color.WHITE, alpha));
-      canvas.draw(mTextureState.mTexture, getBounds(), mTextureState.mPaint);
+    final TextureRegion region = mTextureState.mRegion;
+    if (region == null || region.getTexture() == null) {
+      // Atlas region not resolved yet
+      return;
     }
+
+    canvas.draw(region, getBounds(), mTextureState.mPaint);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Only textures whose format has no alpha channel are opaque, since the
+   * pixels of the others may be transparent whatever the alpha of this
+   * drawable, e.g., those of images packed into an atlas.
+   */
   @Override
   public int getOpacity() {
-    switch (mTextureState.mPaint.getAlpha()) {
-      case 0:   return PixelFormat.TRANSPARENT;
-      case 255: return PixelFormat.OPAQUE;
-      default:  return PixelFormat.TRANSLUCENT;
+    final int alpha = mTextureState.mPaint.getAlpha();
+    final Texture texture = getTexture();
+    if (alpha == 0 || texture == null) {
+      return PixelFormat.TRANSPARENT;
+    } else if (alpha == 255 && PixelFormat.isOpaque(texture)) {
+      return PixelFormat.OPAQUE;
     }
+
+    return PixelFormat.TRANSLUCENT;
   }
 
   @Override
@@ -98,25 +176,28 @@ public class TextureDrawable extends AbstractDrawable {
 
   @Override
   public void setAlpha(@IntRange(from = 0, to = 255) int alpha) {
-    mTextureState.mPaint.setAlpha(255);
+    if (mTextureState.mPaint.getAlpha() != alpha) {
+      mTextureState.mPaint.setAlpha(alpha);
+      invalidateSelf();
+    }
   }
 
   @Override
   public int getIntrinsicWidth() {
-    if (mTextureState.mTexture == null) {
+    if (mTextureState.mRegion == null) {
       return 0;
     }
 
-    return mTextureState.mTexture.getWidth();
+    return mTextureState.mRegion.getRegionWidth();
   }
 
   @Override
   public int getIntrinsicHeight() {
-    if (mTextureState.mTexture == null) {
+    if (mTextureState.mRegion == null) {
       return 0;
     }
 
-    return mTextureState.mTexture.getHeight();
+    return mTextureState.mRegion.getRegionHeight();
   }
 
   private TextureDrawable(ConstantState state) {
@@ -127,22 +208,28 @@ public class TextureDrawable extends AbstractDrawable {
 
     @NonNull final Paint mPaint;
 
-    @Nullable Texture mTexture;
+    @Nullable TextureRegion mRegion;
 
     ConstantState() {
-      mTexture = null;
+      mRegion = null;
       mPaint = new Paint();
     }
 
-    ConstantState(@Nullable Texture texture) {
-      mTexture = texture;
+    ConstantState(@Nullable TextureRegion region) {
+      mRegion = region;
       mPaint = new Paint();
     }
 
     ConstantState(@NonNull ConstantState state) {
-      mTexture = state.mTexture;
+      mRegion = state.mRegion;
       mPaint = new Paint(state.mPaint);
     }
 
+    @NonNull
+    @Override
+    public Drawable newDrawable() {
+      return new TextureDrawable(this);
+    }
+
   }
 }
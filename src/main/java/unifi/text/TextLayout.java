@@ -0,0 +1,242 @@
+package unifi.text;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+import unifi.graphics.Font;
+
+/**
+ * Immutable result of breaking a text into lines which fit within a width,
+ * when drawn with a given font and text size. Lines are broken at newlines,
+ * and at spaces or, for words which are too long to fit on their own, between
+ * characters. Layouts are shared through a {@link TextLayoutCache}.
+ *
+ * @see TextLayoutCache#getLayout
+ */
+public final class TextLayout {
+
+  @NonNull private final String mText;
+  @NonNull private final Font mFont;
+  private final float mTextSize;
+  private final int mWidthConstraint;
+
+  private final int mLineCount;
+  @NonNull private final int[] mLineStarts;
+  @NonNull private final int[] mLineEnds;
+  @NonNull private final float[] mLineWidths;
+  private final float mLineHeight;
+  private final float mWidth;
+
+  private TextLayout(@NonNull String text, @NonNull Font font, float textSize,
+                     int widthConstraint, int lineCount, @NonNull int[] lineStarts,
+                     @NonNull int[] lineEnds, @NonNull float[] lineWidths, float lineHeight) {
+    mText = text;
+    mFont = font;
+    mTextSize = textSize;
+    mWidthConstraint = widthConstraint;
+    mLineCount = lineCount;
+    mLineStarts = lineStarts;
+    mLineEnds = lineEnds;
+    mLineWidths = lineWidths;
+    mLineHeight = lineHeight;
+
+    float width = 0;
+    for (int i = 0; i < lineCount; i++) {
+      width = Math.max(width, lineWidths[i]);
+    }
+
+    mWidth = width;
+  }
+
+  /**
+   * Breaks the specified text into lines.
+   *
+   * @param text            The text
+   * @param font            The font of the text
+   * @param textSize        The text size, see {@link unifi.graphics.Paint#getTextSize()}
+   * @param scale           The factor by which the glyphs of the font are scaled
+   *                        for {@code textSize}
+   * @param widthConstraint The maximum width of a line, in pixels, or
+   *                        {@link TextLayoutCache#UNBOUNDED}
+   */
+  @NonNull
+  static TextLayout create(@NonNull String text, @NonNull Font font, float textSize,
+                           float scale, int widthConstraint) {
+    final float maxWidth = widthConstraint == TextLayoutCache.UNBOUNDED
+        ? Float.POSITIVE_INFINITY
+        : widthConstraint / scale;
+    final int length = text.length();
+
+    int lineCount = 0;
+    int[] lineStarts = new int[4];
+    int[] lineEnds = new int[4];
+    float[] lineWidths = new float[4];
+
+    int paragraphStart = 0;
+    while (true) {
+      int paragraphEnd = text.indexOf('\n', paragraphStart);
+      if (paragraphEnd == -1) {
+        paragraphEnd = length;
+      }
+
+      int start = paragraphStart;
+      do {
+        float width = 0;
+        int end = paragraphEnd;
+        int next = paragraphEnd;
+        int lastSpace = -1;
+        float widthAtLastSpace = 0;
+        for (int i = start; i < paragraphEnd; i++) {
+          final char ch = text.charAt(i);
+          if (ch == ' ') {
+            lastSpace = i;
+            widthAtLastSpace = width;
+          }
+
+          final float advance = font.getAdvance(ch, i + 1 < paragraphEnd ? text.charAt(i + 1) : 0);
+          if (width + advance > maxWidth && i > start && ch != ' ') {
+            if (lastSpace > start) {
+              end = lastSpace;
+              next = lastSpace + 1;
+              width = widthAtLastSpace;
+            } else {
+              end = next = i;
+            }
+
+            break;
+          }
+
+          width += advance;
+        }
+
+        if (lineCount == lineStarts.length) {
+          final int newLength = lineCount * 2;
+          lineStarts = Arrays.copyOf(lineStarts, newLength);
+          lineEnds = Arrays.copyOf(lineEnds, newLength);
+          lineWidths = Arrays.copyOf(lineWidths, newLength);
+        }
+
+        lineStarts[lineCount] = start;
+        lineEnds[lineCount] = end;
+        lineWidths[lineCount] = width * scale;
+        lineCount++;
+
+        // Spaces at a line break are not carried over to the next line
+        start = next;
+        while (start < paragraphEnd && text.charAt(start) == ' ') {
+          start++;
+        }
+      } while (start < paragraphEnd);
+
+      if (paragraphEnd == length) {
+        break;
+      }
+
+      paragraphStart = paragraphEnd + 1;
+    }
+
+    return new TextLayout(text, font, textSize, widthConstraint, lineCount,
+        lineStarts, lineEnds, lineWidths, font.getLineHeight() * scale);
+  }
+
+  /**
+   * Returns the text of this layout.
+   */
+  @NonNull
+  public String getText() {
+    return mText;
+  }
+
+  /**
+   * Returns the font used to measure the text.
+   */
+  @NonNull
+  public Font getFont() {
+    return mFont;
+  }
+
+  /**
+   * Returns the text size used to measure the text.
+   */
+  public float getTextSize() {
+    return mTextSize;
+  }
+
+  /**
+   * Returns the maximum width of a line given when breaking the text, in
+   * pixels, or {@link TextLayoutCache#UNBOUNDED}.
+   */
+  public int getWidthConstraint() {
+    return mWidthConstraint;
+  }
+
+  /**
+   * Returns the number of lines.
+   */
+  public int getLineCount() {
+    return mLineCount;
+  }
+
+  /**
+   * Returns the index of the first character of the specified line.
+   */
+  public int getLineStart(int line) {
+    checkLine(line);
+    return mLineStarts[line];
+  }
+
+  /**
+   * Returns the index after the last character of the specified line.
+   */
+  public int getLineEnd(int line) {
+    checkLine(line);
+    return mLineEnds[line];
+  }
+
+  /**
+   * Returns the text of the specified line.
+   */
+  @NonNull
+  public String getLineText(int line) {
+    checkLine(line);
+    return mText.substring(mLineStarts[line], mLineEnds[line]);
+  }
+
+  /**
+   * Returns the width of the specified line, in pixels.
+   */
+  public float getLineWidth(int line) {
+    checkLine(line);
+    return mLineWidths[line];
+  }
+
+  /**
+   * Returns the y-coordinate of the top of the specified line, relative to the
+   * top of the first line, in pixels.
+   */
+  public float getLineTop(int line) {
+    checkLine(line);
+    return line * mLineHeight;
+  }
+
+  /**
+   * Returns the width of the widest line, in pixels.
+   */
+  public float getWidth() {
+    return mWidth;
+  }
+
+  /**
+   * Returns the height of all lines, in pixels.
+   */
+  public float getHeight() {
+    return mLineCount * mLineHeight;
+  }
+
+  private void checkLine(int line) {
+    if (line < 0 || line >= mLineCount) {
+      throw new IndexOutOfBoundsException("line must be in range [0.." + mLineCount + ")");
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package unifi.text;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import unifi.graphics.Font;
+import unifi.graphics.Paint;
+
+/**
+ * Process-wide cache of the most recently used {@link TextLayout text layouts},
+ * keyed by their text, font, text size and width constraint. Views measuring
+ * the same text under the same constraints, or the same view measured again
+ * in a later layout pass, share the result instead of breaking the text into
+ * lines again.
+ *
+ * <p>Note: This class is not thread-safe, and should only be used from the
+ * thread measuring the views.
+ */
+public final class TextLayoutCache {
+
+  /**
+   * Default maximum number of layouts in the cache.
+   */
+  public static final int DEFAULT_MAX_SIZE = 512;
+
+  /**
+   * Width constraint of text which is not broken into lines, except at
+   * newlines.
+   */
+  public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  @Nullable private static TextLayoutCache sInstance;
+
+  /**
+   * Returns the process-wide cache.
+   */
+  @NonNull
+  public static TextLayoutCache getInstance() {
+    if (sInstance == null) {
+      sInstance = new TextLayoutCache(DEFAULT_MAX_SIZE);
+    }
+
+    return sInstance;
+  }
+
+  @NonNull private final Map<Key, TextLayout> mLayouts;
+
+  /**
+   * Key reused to look up layouts, so that cache hits do not allocate.
+   */
+  @NonNull private final Key mLookupKey = new Key();
+
+  private int mHits;
+  private int mMisses;
+  private int mEvictions;
+
+  /**
+   * Constructs a cache holding up to the specified number of layouts.
+   */
+  public TextLayoutCache(@IntRange(from = 1) final int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be > 0");
+    }
+
+    mLayouts = new LinkedHashMap<Key, TextLayout>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, TextLayout> eldest) {
+        if (size() > maxSize) {
+          mEvictions++;
+          return true;
+        }
+
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the layout of the specified text drawn with the given paint,
+   * breaking it into lines no wider than the given width if it is not cached.
+   *
+   * @param text  The text
+   * @param paint The paint, which must have a font
+   * @param width The maximum width of a line, in pixels, or {@link #UNBOUNDED}
+   *
+   * @throws IllegalStateException if the paint has no font
+   */
+  @NonNull
+  public TextLayout getLayout(@NonNull CharSequence text, @NonNull Paint paint,
+                              @IntRange(from = 0) int width) {
+    if (text == null) {
+      throw new IllegalArgumentException("text cannot be null");
+    } else if (paint == null) {
+      throw new IllegalArgumentException("paint cannot be null");
+    } else if (paint.getFont() == null) {
+      throw new IllegalStateException("paint has no font");
+    }
+
+    width = Math.max(width, 0);
+    final Key key = mLookupKey;
+    key.set(text.toString(), paint.getFont(), paint.getTextSize(), width);
+    TextLayout layout = mLayouts.get(key);
+    if (layout != null) {
+      mHits++;
+      return layout;
+    }
+
+    mMisses++;
+    layout = TextLayout.create(key.mText, key.mFont, key.mTextSize, paint.getTextScale(), width);
+    mLayouts.put(new Key(key), layout);
+    return layout;
+  }
+
+  /**
+   * Removes all layouts measured with the specified font, e.g., when it is
+   * disposed.
+   */
+  public void remove(@NonNull Font font) {
+    final Iterator<Key> it = mLayouts.keySet().iterator();
+    while (it.hasNext()) {
+      if (it.next().mFont == font) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Removes all layouts.
+   */
+  public void clear() {
+    mLayouts.clear();
+  }
+
+  /**
+   * Returns the number of layouts in the cache.
+   */
+  public int size() {
+    return mLayouts.size();
+  }
+
+  /**
+   * Returns the number of layouts found in the cache since the last call to
+   * {@link #resetStatistics()}.
+   */
+  public int getHits() {
+    return mHits;
+  }
+
+  /**
+   * Returns the number of layouts created because they were not in the cache
+   * since the last call to {@link #resetStatistics()}.
+   */
+  public int getMisses() {
+    return mMisses;
+  }
+
+  /**
+   * Returns the number of layouts evicted because the cache was full since
+   * the last call to {@link #resetStatistics()}.
+   */
+  public int getEvictions() {
+    return mEvictions;
+  }
+
+  /**
+   * Resets the hit, miss and eviction counters.
+   */
+  public void resetStatistics() {
+    mHits = 0;
+    mMisses = 0;
+    mEvictions = 0;
+  }
+
+  private static final class Key {
+    String mText;
+    Font mFont;
+    float mTextSize;
+    int mWidth;
+
+    Key() {}
+
+    Key(@NonNull Key src) {
+      set(src.mText, src.mFont, src.mTextSize, src.mWidth);
+    }
+
+    void set(@NonNull String text, @NonNull Font font, float textSize, int width) {
+      mText = text;
+      mFont = font;
+      mTextSize = textSize;
+      mWidth = width;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      } else if (!(obj instanceof Key)) {
+        return false;
+      }
+
+      final Key other = (Key) obj;
+      return mFont == other.mFont
+          && mWidth == other.mWidth
+          && Float.compare(mTextSize, other.mTextSize) == 0
+          && mText.equals(other.mText);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = mText.hashCode();
+      result = 31 * result + System.identityHashCode(mFont);
+      result = 31 * result + Float.floatToIntBits(mTextSize);
+      result = 31 * result + mWidth;
+      return result;
+    }
+  }
+}
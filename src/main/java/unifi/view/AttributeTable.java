@@ -0,0 +1,200 @@
+package unifi.view;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * The attribute values of a theme and a style, flattened along with those of
+ * their parents into a table indexed by attribute, so that reading an
+ * attribute is a single array access. Tables are immutable and shared by
+ * every view with the same theme and style.
+ *
+ * @see StyleResolver#resolve(Style)
+ */
+public final class AttributeTable {
+
+  /**
+   * Table without any attribute values.
+   */
+  @NonNull static final AttributeTable EMPTY
+      = new AttributeTable(new int[0], new String[LayoutAttributes.NAMES.length]);
+
+  /**
+   * Returns the index of the attribute with the specified name, ignoring its
+   * namespace prefix, if any, or {@code -1} if it is not supported. Views
+   * should look up the indexes of the attributes they read once.
+   */
+  public static int getIndex(@NonNull String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    return LayoutAttributes.getId(name);
+  }
+
+  /**
+   * Attributes of this table in increasing index order, as id, type and datum
+   * like those of layouts, so that they can be applied like them. The datum of
+   * string attributes is their index, in {@link #mStrings}.
+   */
+  @NonNull final int[] mAttrs;
+
+  /**
+   * Values of string attributes, indexed by attribute.
+   */
+  @NonNull final String[] mStrings;
+
+  /**
+   * Indexes of the attributes in {@link #mAttrs}, indexed by attribute, or
+   * {@code -1} for attributes without a value.
+   */
+  @NonNull private final int[] mOffsets;
+
+  private AttributeTable(@NonNull int[] attrs, @NonNull String[] strings) {
+    mAttrs = attrs;
+    mStrings = strings;
+    mOffsets = new int[LayoutAttributes.NAMES.length];
+    for (int i = 0; i < mOffsets.length; i++) {
+      mOffsets[i] = -1;
+    }
+
+    for (int i = 0; i < attrs.length; i += LayoutAttributes.STRIDE) {
+      mOffsets[attrs[i]] = i;
+    }
+  }
+
+  /**
+   * Flattens the specified styles into a table, where the values of later
+   * styles override those of earlier ones.
+   *
+   * @param chain The styles, from the least to the most specific
+   */
+  @NonNull
+  static AttributeTable flatten(@NonNull Iterable<Style> chain) {
+    final int count = LayoutAttributes.NAMES.length;
+    final int[] types = new int[count];
+    final int[] data = new int[count];
+    final String[] strings = new String[count];
+    final boolean[] set = new boolean[count];
+    int size = 0;
+    for (Style style : chain) {
+      final int[] attrs = style.mAttrs;
+      for (int i = 0; i < attrs.length; i += LayoutAttributes.STRIDE) {
+        final int id = attrs[i];
+        if (!set[id]) {
+          set[id] = true;
+          size++;
+        }
+
+        types[id] = attrs[i + 1];
+        if (types[id] == LayoutAttributes.TYPE_STRING) {
+          strings[id] = style.mStrings[attrs[i + 2]];
+          data[id] = id;
+        } else {
+          strings[id] = null;
+          data[id] = attrs[i + 2];
+        }
+      }
+    }
+
+    if (size == 0) {
+      return EMPTY;
+    }
+
+    final int[] attrs = new int[size * LayoutAttributes.STRIDE];
+    int i = 0;
+    for (int id = 0; id < count; id++) {
+      if (set[id]) {
+        attrs[i] = id;
+        attrs[i + 1] = types[id];
+        attrs[i + 2] = data[id];
+        i += LayoutAttributes.STRIDE;
+      }
+    }
+
+    return new AttributeTable(attrs, strings);
+  }
+
+  /**
+   * Indicates whether or not this table has no attribute values.
+   */
+  public boolean isEmpty() {
+    return mAttrs.length == 0;
+  }
+
+  /**
+   * Returns the number of attributes with a value in this table.
+   */
+  public int getAttributeCount() {
+    return mAttrs.length / LayoutAttributes.STRIDE;
+  }
+
+  /**
+   * Indicates whether or not the attribute at the specified index has a value.
+   */
+  public boolean hasValue(int index) {
+    return offset(index) != -1;
+  }
+
+  /**
+   * Returns the value of the integer attribute at the specified index, e.g., a
+   * dimension or an enum value, or {@code defValue} if it has none.
+   */
+  public int getInt(int index, int defValue) {
+    final int offset = offset(index);
+    return offset != -1 && mAttrs[offset + 1] == LayoutAttributes.TYPE_INT
+        ? mAttrs[offset + 2]
+        : defValue;
+  }
+
+  /**
+   * Returns the value of the color attribute at the specified index, or
+   * {@code defValue} if it has none.
+   */
+  @ColorInt
+  public int getColor(int index, @ColorInt int defValue) {
+    final int offset = offset(index);
+    return offset != -1 && mAttrs[offset + 1] == LayoutAttributes.TYPE_COLOR
+        ? mAttrs[offset + 2]
+        : defValue;
+  }
+
+  /**
+   * Returns the value of the float attribute at the specified index, or
+   * {@code defValue} if it has none.
+   */
+  public float getFloat(int index, float defValue) {
+    final int offset = offset(index);
+    return offset != -1 && mAttrs[offset + 1] == LayoutAttributes.TYPE_FLOAT
+        ? Float.intBitsToFloat(mAttrs[offset + 2])
+        : defValue;
+  }
+
+  /**
+   * Returns the value of the boolean attribute at the specified index, or
+   * {@code defValue} if it has none.
+   */
+  public boolean getBoolean(int index, boolean defValue) {
+    final int offset = offset(index);
+    return offset != -1 && mAttrs[offset + 1] == LayoutAttributes.TYPE_BOOLEAN
+        ? mAttrs[offset + 2] != 0
+        : defValue;
+  }
+
+  /**
+   * Returns the value of the string attribute at the specified index, e.g.,
+   * the path of a font, or {@code null} if it has none.
+   */
+  @Nullable
+  public String getString(int index) {
+    final int offset = offset(index);
+    return offset != -1 && mAttrs[offset + 1] == LayoutAttributes.TYPE_STRING
+        ? mStrings[index]
+        : null;
+  }
+
+  private int offset(int index) {
+    return index >= 0 && index < mOffsets.length ? mOffsets[index] : -1;
+  }
+}
@@ -0,0 +1,277 @@
+package unifi.view;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A layout compiled from XML into a compact form which is inflated without
+ * parsing or looking anything up by name: the strings of the layout are
+ * pooled, attributes are identified by integer ids and their values are
+ * parsed, and view classes are resolved to their fully qualified names when
+ * compiling, and to their {@linkplain LayoutInflater.Factory factories} once
+ * per layout when first inflated.
+ *
+ * <p>Compiled layouts are written by {@link LayoutCompiler} at build time as
+ * follows, in big-endian order:
+ * <pre>
+ * header   magic (int), version (int)
+ * strings  count (int), for each: UTF-8 length (int), UTF-8 bytes
+ * classes  count (int), for each: index of the class name in the strings (int)
+ * nodes    count (int), the ints of the nodes
+ * </pre>
+ * The nodes are the views of the layout in depth-first order, each stored as
+ * the index of its class, its attribute count, the id, type and datum of each
+ * attribute, and its child count, followed by its children.
+ *
+ * @see LayoutInflater#inflate(CompiledLayout, ViewGroup, boolean)
+ */
+public final class CompiledLayout {
+
+  /**
+   * Magic number of compiled layout files, {@code "UNFL"}.
+   */
+  static final int MAGIC = 0x554E464C;
+  static final int VERSION = 1;
+
+  /**
+   * Extension of compiled layout files.
+   */
+  public static final String EXTENSION = ".layout";
+
+  @NonNull private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @NonNull final String[] mStrings;
+  @NonNull final String[] mClassNames;
+  @NonNull final int[] mNodes;
+
+  /**
+   * Factories of {@link #mClassNames}, resolved when first inflated.
+   */
+  @Nullable private LayoutInflater.Factory[] mFactories;
+
+  CompiledLayout(@NonNull String[] strings, @NonNull String[] classNames,
+                 @NonNull int[] nodes) {
+    mStrings = strings;
+    mClassNames = classNames;
+    mNodes = nodes;
+  }
+
+  /**
+   * Compiles the layout read by the specified parser, which must be positioned
+   * before its root element.
+   *
+   * @throws InflateException if the layout refers to an unknown view class or
+   *                          attribute, or has an invalid attribute value
+   */
+  @NonNull
+  public static CompiledLayout compile(@NonNull XmlPullParser parser)
+      throws XmlPullParserException, IOException {
+    if (parser == null) {
+      throw new IllegalArgumentException("parser cannot be null");
+    }
+
+    int type;
+    while ((type = parser.next()) != XmlPullParser.START_TAG
+        && type != XmlPullParser.END_DOCUMENT) {
+      // Skip the prolog
+    }
+
+    if (type != XmlPullParser.START_TAG) {
+      throw new InflateException("No root element: " + parser.getPositionDescription());
+    }
+
+    final StringPool strings = new StringPool();
+    final StringPool classNames = new StringPool();
+    final IntArray nodes = new IntArray();
+    compileNode(parser, strings, classNames, nodes);
+    return new CompiledLayout(strings.toArray(), classNames.toArray(), nodes.toArray());
+  }
+
+  private static void compileNode(@NonNull XmlPullParser parser, @NonNull StringPool strings,
+                                  @NonNull StringPool classNames, @NonNull IntArray nodes)
+      throws XmlPullParserException, IOException {
+    final int classIndex = classNames.intern(LayoutInflater.resolveClassName(parser.getName()));
+
+    final int attributeCount = parser.getAttributeCount();
+    final int[] attrs = new int[attributeCount * LayoutAttributes.STRIDE];
+    int size = 0;
+    for (int i = 0; i < attributeCount; i++) {
+      final String name = parser.getAttributeName(i);
+      if (name.startsWith("xmlns")) {
+        continue;
+      }
+
+      final int id = LayoutAttributes.getId(name);
+      if (id == -1) {
+        throw new InflateException("Unknown attribute " + name + ": "
+            + parser.getPositionDescription());
+      }
+
+      LayoutAttributes.parse(id, parser.getAttributeValue(i), strings, attrs, size);
+      size += LayoutAttributes.STRIDE;
+    }
+
+    nodes.add(classIndex);
+    nodes.add(size / LayoutAttributes.STRIDE);
+    nodes.addAll(attrs, 0, size);
+
+    final int childCountIndex = nodes.size;
+    nodes.add(0);
+    int childCount = 0;
+    int type;
+    while ((type = parser.next()) != XmlPullParser.END_TAG) {
+      if (type == XmlPullParser.START_TAG) {
+        compileNode(parser, strings, classNames, nodes);
+        childCount++;
+      } else if (type == XmlPullParser.END_DOCUMENT) {
+        throw new InflateException("Unexpected end of layout: "
+            + parser.getPositionDescription());
+      }
+    }
+
+    nodes.set(childCountIndex, childCount);
+  }
+
+  /**
+   * Reads a layout compiled by {@link #write(OutputStream)}.
+   *
+   * @throws InflateException if the bytes are not a compiled layout
+   */
+  @NonNull
+  public static CompiledLayout read(@NonNull byte[] bytes) {
+    if (bytes == null) {
+      throw new IllegalArgumentException("bytes cannot be null");
+    }
+
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new InflateException("Not a compiled layout");
+      }
+
+      final int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new InflateException("Unsupported compiled layout version " + version);
+      }
+
+      final String[] strings = new String[buffer.getInt()];
+      for (int i = 0; i < strings.length; i++) {
+        final int length = buffer.getInt();
+        strings[i] = new String(bytes, buffer.position(), length, UTF_8);
+        buffer.position(buffer.position() + length);
+      }
+
+      final String[] classNames = new String[buffer.getInt()];
+      for (int i = 0; i < classNames.length; i++) {
+        classNames[i] = strings[buffer.getInt()];
+      }
+
+      final int[] nodes = new int[buffer.getInt()];
+      buffer.asIntBuffer().get(nodes);
+      return new CompiledLayout(strings, classNames, nodes);
+    } catch (BufferUnderflowException | IllegalArgumentException
+        | IndexOutOfBoundsException e) {
+      throw new InflateException("Corrupt compiled layout", e);
+    }
+  }
+
+  /**
+   * Writes this layout to the specified stream, which is not closed.
+   */
+  public void write(@NonNull OutputStream stream) throws IOException {
+    // mClassNames are written as indexes into the strings
+    final List<String> strings = new ArrayList<>(mStrings.length + mClassNames.length);
+    for (String string : mStrings) {
+      strings.add(string);
+    }
+
+    final int[] classIndexes = new int[mClassNames.length];
+    for (int i = 0; i < mClassNames.length; i++) {
+      classIndexes[i] = strings.size();
+      strings.add(mClassNames[i]);
+    }
+
+    final DataOutputStream out = new DataOutputStream(stream);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(strings.size());
+    for (String string : strings) {
+      final byte[] bytes = string.getBytes(UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+
+    out.writeInt(classIndexes.length);
+    for (int classIndex : classIndexes) {
+      out.writeInt(classIndex);
+    }
+
+    out.writeInt(mNodes.length);
+    for (int node : mNodes) {
+      out.writeInt(node);
+    }
+
+    out.flush();
+  }
+
+  /**
+   * Returns this layout as it is written by {@link #write(OutputStream)}.
+   */
+  @NonNull
+  public byte[] toByteArray() {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(mNodes.length * 4 + 256);
+    try {
+      write(out);
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns the number of views in this layout.
+   */
+  public int getViewCount() {
+    int count = 0;
+    for (int i = 0; i < mNodes.length; count++) {
+      // Skip the class, the attributes and the child count
+      i += 2 + mNodes[i + 1] * LayoutAttributes.STRIDE + 1;
+    }
+
+    return count;
+  }
+
+  /**
+   * Returns the factories of the view classes of this layout, indexed like
+   * {@link #mClassNames}, resolving them if necessary.
+   */
+  @NonNull
+  LayoutInflater.Factory[] getFactories() {
+    if (mFactories == null) {
+      final LayoutInflater.Factory[] factories = new LayoutInflater.Factory[mClassNames.length];
+      for (int i = 0; i < factories.length; i++) {
+        factories[i] = LayoutInflater.getFactory(mClassNames[i]);
+      }
+
+      mFactories = factories;
+    }
+
+    return mFactories;
+  }
+}
@@ -0,0 +1,21 @@
+package unifi.view;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that a view class is inflated from layouts, so that
+ * {@link InflatableProcessor} generates its factory, and its views are
+ * inflated without reflection once the generated factories are registered.
+ * The class must be public, concrete, and static if it is nested, and must
+ * have a public {@code (Context)} constructor.
+ *
+ * @see LayoutInflater#registerFactory(String, LayoutInflater.Factory)
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Inflatable {}
@@ -0,0 +1,219 @@
+package unifi.view;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor which generates the factories of the view classes
+ * annotated with {@link Inflatable}, so that they are inflated without
+ * reflection. It generates a class named {@value #CLASS_NAME} in each package
+ * with annotated classes, in the round which processes them, whose
+ * {@code register()} method registers a factory for each class of the package
+ * with the {@link LayoutInflater}. Static nested classes are registered under
+ * both their binary name, e.g., {@code com.example.Badge$Large}, and their
+ * canonical name, {@code com.example.Badge.Large}, which is the one layouts
+ * refer to them by, since {@code $} cannot appear in an XML element name.
+ * The factories share a single
+ * implementation, which dispatches on the index of their class with a switch,
+ * so a view is created by a direct constructor call.
+ *
+ * <p>The {@code register()} method of each package should be called once at
+ * startup, before any layout is inflated.
+ */
+public class InflatableProcessor extends AbstractProcessor {
+
+  /**
+   * Simple name of the class generated in each package.
+   */
+  public static final String CLASS_NAME = "GeneratedViewFactories";
+
+  private static final String VIEW_CLASS_NAME = "unifi.view.View";
+  private static final String CONTEXT_CLASS_NAME = "unifi.content.Context";
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(Inflatable.class.getCanonicalName());
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    final Map<String, List<TypeElement>> packages = new LinkedHashMap<>();
+    for (Element element : roundEnv.getElementsAnnotatedWith(Inflatable.class)) {
+      if (!validate(element)) {
+        continue;
+      }
+
+      final String packageName = processingEnv.getElementUtils().getPackageOf(element)
+          .getQualifiedName().toString();
+      List<TypeElement> views = packages.get(packageName);
+      if (views == null) {
+        views = new ArrayList<>();
+        packages.put(packageName, views);
+      }
+
+      views.add((TypeElement) element);
+    }
+
+    for (Map.Entry<String, List<TypeElement>> entry : packages.entrySet()) {
+      generate(entry.getKey(), entry.getValue());
+    }
+
+    return true;
+  }
+
+  /**
+   * Checks that the specified annotated element is a view class which can be
+   * instantiated by the generated code, reporting an error if it is not.
+   */
+  private boolean validate(@NonNull Element element) {
+    final Messager messager = processingEnv.getMessager();
+    if (element.getKind() != ElementKind.CLASS) {
+      messager.printMessage(Diagnostic.Kind.ERROR, "@Inflatable only applies to classes",
+          element);
+      return false;
+    }
+
+    final TypeElement type = (TypeElement) element;
+    final Set<Modifier> modifiers = type.getModifiers();
+    final TypeMirror view = processingEnv.getElementUtils()
+        .getTypeElement(VIEW_CLASS_NAME).asType();
+    if (!processingEnv.getTypeUtils().isSubtype(type.asType(), view)) {
+      messager.printMessage(Diagnostic.Kind.ERROR,
+          "@Inflatable classes must extend " + VIEW_CLASS_NAME, type);
+      return false;
+    } else if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+      messager.printMessage(Diagnostic.Kind.ERROR,
+          "@Inflatable classes must be public and not abstract", type);
+      return false;
+    } else if (type.getNestingKind() == NestingKind.MEMBER
+        && !modifiers.contains(Modifier.STATIC)) {
+      messager.printMessage(Diagnostic.Kind.ERROR,
+          "@Inflatable nested classes must be static", type);
+      return false;
+    }
+
+    for (ExecutableElement constructor
+        : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      final List<? extends VariableElement> params = constructor.getParameters();
+      if (constructor.getModifiers().contains(Modifier.PUBLIC)
+          && params.size() == 1
+          && params.get(0).asType().toString().equals(CONTEXT_CLASS_NAME)) {
+        return true;
+      }
+    }
+
+    messager.printMessage(Diagnostic.Kind.ERROR,
+        "@Inflatable classes must have a public (" + CONTEXT_CLASS_NAME + ") constructor",
+        type);
+    return false;
+  }
+
+  /**
+   * Generates the factories of the specified classes of a package.
+   *
+   * @param packageName The name of the package, which is empty for the
+   *                    unnamed package
+   * @param views       The classes of the package
+   */
+  private void generate(@NonNull String packageName, @NonNull List<TypeElement> views) {
+    final String className = packageName.isEmpty() ? CLASS_NAME : packageName + '.' + CLASS_NAME;
+    final Element[] originatingElements = views.toArray(new Element[views.size()]);
+    try {
+      final JavaFileObject file = processingEnv.getFiler()
+          .createSourceFile(className, originatingElements);
+      try (Writer writer = file.openWriter()) {
+        writer.write(generateSource(packageName, views));
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Cannot write " + className + ": " + e.getMessage());
+    }
+  }
+
+  @NonNull
+  private String generateSource(@NonNull String packageName, @NonNull List<TypeElement> views) {
+    final StringBuilder out = new StringBuilder(1024 + views.size() * 128);
+    if (!packageName.isEmpty()) {
+      out.append("package ").append(packageName).append(";\n\n");
+    }
+
+    out.append("/**\n")
+        .append(" * Factories of the views of this package annotated with\n")
+        .append(" * {@link unifi.view.Inflatable}.\n")
+        .append(" * Generated by ").append(InflatableProcessor.class.getName())
+        .append(", do not edit.\n")
+        .append(" */\n")
+        .append("public final class ").append(CLASS_NAME).append(" {\n")
+        .append("  private ").append(CLASS_NAME).append("() {}\n\n")
+        .append("  /**\n")
+        .append("   * Registers the factories with the layout inflater.\n")
+        .append("   */\n")
+        .append("  public static void register() {\n");
+    for (int i = 0; i < views.size(); i++) {
+      final TypeElement view = views.get(i);
+      final String binaryName = processingEnv.getElementUtils().getBinaryName(view).toString();
+      appendRegistration(out, binaryName, i);
+      final String canonicalName = view.getQualifiedName().toString();
+      if (!canonicalName.equals(binaryName)) {
+        appendRegistration(out, canonicalName, i);
+      }
+    }
+
+    out.append("  }\n\n")
+        .append("  private static final class Factory\n")
+        .append("      implements unifi.view.LayoutInflater.Factory {\n")
+        .append("    private final int mIndex;\n\n")
+        .append("    Factory(int index) {\n")
+        .append("      mIndex = index;\n")
+        .append("    }\n\n")
+        .append("    @Override\n")
+        .append("    public unifi.view.View createView(unifi.content.Context context) {\n")
+        .append("      switch (mIndex) {\n");
+    for (int i = 0; i < views.size(); i++) {
+      out.append("        case ").append(i).append(": return new ")
+          .append(views.get(i).getQualifiedName()).append("(context);\n");
+    }
+
+    out.append("        default: throw new AssertionError(mIndex);\n")
+        .append("      }\n")
+        .append("    }\n")
+        .append("  }\n")
+        .append("}\n");
+    return out.toString();
+  }
+
+  private static void appendRegistration(@NonNull StringBuilder out, @NonNull String className,
+                                         int index) {
+    out.append("    unifi.view.LayoutInflater.registerFactory(\"").append(className)
+        .append("\", new Factory(").append(index).append("));\n");
+  }
+}
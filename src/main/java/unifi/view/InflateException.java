@@ -0,0 +1,27 @@
+package unifi.view;
+
+import unifi.util.UnifiRuntimeException;
+
+/**
+ * Thrown when a layout cannot be inflated or compiled, e.g., because it refers
+ * to a view class which does not exist or has an invalid attribute.
+ *
+ * @see LayoutInflater
+ */
+public class InflateException extends UnifiRuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public InflateException(String message) {
+    super(message);
+  }
+
+  public InflateException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public InflateException(Throwable cause) {
+    super(cause);
+  }
+
+}
@@ -0,0 +1,477 @@
+package unifi.view;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+
+import unifi.content.Context;
+
+/**
+ * Builds view trees from JSON layouts, e.g., of remotely configured screens,
+ * as they are parsed, without building an object model of the JSON, so that
+ * the memory used while loading a layout is proportional to its depth rather
+ * than to its size. Each view is an object whose {@code "class"} member names
+ * its class, like the elements of XML layouts, whose other members are its
+ * attributes, as strings, numbers or booleans, and whose optional
+ * {@code "children"} member is an array of its children:
+ * <pre>
+ * {
+ *   "class": "TextView",
+ *   "layout_width": "match_parent",
+ *   "layout_height": "wrap_content",
+ *   "textSize": 16,
+ *   "text": "Hello"
+ * }
+ * </pre>
+ * Since views are built as their members are read, {@code "children"} must be
+ * the last member of a view.
+ *
+ * <p>The root view may declare the {@linkplain Style styles} of the layout
+ * with a {@code "styles"} member, which must precede its {@code "children"}.
+ * It maps the name of each style to its attributes, and to the name of its
+ * optional {@code "parent"}, which must already be known, e.g., declared
+ * earlier. The styles are added to the {@linkplain StyleResolver style
+ * resolver} of the context, so they replace the styles with the same names,
+ * and remain available to later layouts:
+ * <pre>
+ * "styles": {
+ *   "Title": { "textSize": 20, "textColor": "#FF202020" },
+ *   "Subtitle": { "parent": "Title", "textSize": 14 }
+ * }
+ * </pre>
+ *
+ * <p>In {@linkplain #setLazy(boolean) lazy mode}, the children of views which
+ * are {@link View#GONE GONE} when loaded are not built, but are compiled into
+ * a compact {@link CompiledLayout}, and inflated when their parent first
+ * stops being {@code GONE}. This only applies to views whose
+ * {@code "visibility"} precedes their {@code "children"}.
+ *
+ * <p>Note: This class is not thread-safe, and should only be used from the
+ * rendering thread.
+ *
+ * @see LayoutInflater
+ */
+public class JsonLayoutLoader {
+
+  static final String KEY_CLASS = "class";
+  static final String KEY_CHILDREN = "children";
+  static final String KEY_STYLES = "styles";
+  static final String KEY_PARENT = "parent";
+
+  @NonNull private static final JsonParserFactory sParserFactory = Json.createParserFactory(null);
+
+  @Nullable private final Context mContext;
+
+  /**
+   * Inflater of the deferred children of {@code GONE} views.
+   */
+  @NonNull private final LayoutInflater mInflater;
+
+  private boolean mLazy;
+
+  private int mViewCount;
+  private int mDeferredCount;
+
+  /**
+   * Constructs a loader of views with the specified context, whose resources
+   * resolve the paths of layouts and load the resources they refer to.
+   */
+  public JsonLayoutLoader(@Nullable Context context) {
+    mContext = context;
+    mInflater = new LayoutInflater(context);
+  }
+
+  /**
+   * Indicates whether or not the children of {@code GONE} views are built
+   * when they first stop being {@code GONE} instead of when they are loaded.
+   */
+  public boolean isLazy() {
+    return mLazy;
+  }
+
+  /**
+   * Sets whether or not the children of {@code GONE} views are built when they
+   * first stop being {@code GONE} instead of when they are loaded.
+   *
+   * @see ViewGroup#hasDeferredChildren()
+   */
+  public void setLazy(boolean lazy) {
+    mLazy = lazy;
+  }
+
+  /**
+   * Loads the JSON layout at the specified path.
+   *
+   * @param path         The path of the layout, resolved by the asset manager
+   * @param root         The view group to which the root of the layout is
+   *                     added if {@code attachToRoot} is {@code true}
+   * @param attachToRoot Whether or not the root of the layout is added to
+   *                     {@code root}
+   *
+   * @return {@code root} if the layout was added to it, otherwise the root of
+   *         the layout
+   *
+   * @throws InflateException if the layout cannot be parsed or built
+   */
+  @NonNull
+  public View load(@NonNull String path, @Nullable ViewGroup root, boolean attachToRoot) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    } else if (mContext == null) {
+      throw new InflateException("A context is required to resolve " + path);
+    }
+
+    final Reader reader = mContext.getResources().getAssets().getFileHandleResolver()
+        .resolve(path).reader("UTF-8");
+    try {
+      return load(reader, root, attachToRoot);
+    } catch (InflateException e) {
+      throw new InflateException(path + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Loads the JSON layout read by the specified reader, which is closed once
+   * it has been read.
+   *
+   * @see #load(String, ViewGroup, boolean)
+   */
+  @NonNull
+  public View load(@NonNull Reader reader, @Nullable ViewGroup root, boolean attachToRoot) {
+    if (reader == null) {
+      throw new IllegalArgumentException("reader cannot be null");
+    } else if (attachToRoot && root == null) {
+      throw new IllegalArgumentException("root cannot be null when attachToRoot is true");
+    }
+
+    try (JsonParser parser = sParserFactory.createParser(reader)) {
+      if (!parser.hasNext() || parser.next() != JsonParser.Event.START_OBJECT) {
+        throw error(parser, "The root of a layout must be an object");
+      }
+
+      final View view = loadNode(parser, attachToRoot ? root : null, true);
+      return attachToRoot ? root : view;
+    } catch (JsonException e) {
+      throw new InflateException("Cannot parse layout: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Builds the view whose object the parser has just started, and its
+   * children, and adds it to its parent, if any.
+   *
+   * @param root Whether or not the view is the root of the layout, which may
+   *             declare styles
+   */
+  @NonNull
+  private View loadNode(@NonNull JsonParser parser, @Nullable ViewGroup parent, boolean root) {
+    final Node node = new Node();
+    final StringPool strings = new StringPool();
+    final boolean hasChildren = readNode(parser, node, strings, root ? mContext : null, root);
+    final View view = LayoutInflater.getFactory(node.mClassName).createView(mContext);
+    final String[] pool = strings.toArray();
+    final AttributeTable style
+        = LayoutAttributes.resolveStyle(mContext, node.mAttrs, 0, node.mSize, pool);
+    LayoutAttributes.apply(view, mContext, style, node.mAttrs, 0, node.mSize, pool);
+    final ViewGroup.LayoutParams params
+        = LayoutAttributes.createLayoutParams(style, node.mAttrs, 0, node.mSize);
+    mViewCount++;
+
+    if (hasChildren) {
+      if (!(view instanceof ViewGroup)) {
+        throw error(parser, node.mClassName + " cannot have children, it is not a ViewGroup");
+      }
+
+      final ViewGroup group = (ViewGroup) view;
+      if (mLazy && node.mGone) {
+        final CompiledLayout children = compileChildren(parser, node.mClassName);
+        group.setDeferredChildren(new Runnable() {
+          @Override
+          public void run() {
+            mInflater.inflateChildren(children, group);
+          }
+        });
+        mDeferredCount++;
+      } else {
+        while (nextChild(parser)) {
+          loadNode(parser, group, false);
+        }
+      }
+
+      readEnd(parser);
+    }
+
+    if (parent != null) {
+      if (params != null) {
+        parent.addView(view, params);
+      } else {
+        parent.addView(view);
+      }
+    } else if (params != null) {
+      view.setLayoutParams(params);
+    }
+
+    return view;
+  }
+
+  /**
+   * Compiles the children of a view, up to the end of its children array,
+   * into a layout whose root is a placeholder of the view.
+   */
+  @NonNull
+  private static CompiledLayout compileChildren(@NonNull JsonParser parser,
+                                                @NonNull String className) {
+    final StringPool strings = new StringPool();
+    final StringPool classNames = new StringPool();
+    classNames.intern(className);
+    final IntArray nodes = new IntArray();
+    nodes.add(0);
+    nodes.add(0);
+    final int childCountIndex = nodes.size;
+    nodes.add(0);
+    int childCount = 0;
+    while (nextChild(parser)) {
+      compileNode(parser, strings, classNames, nodes);
+      childCount++;
+    }
+
+    nodes.set(childCountIndex, childCount);
+    return new CompiledLayout(strings.toArray(), classNames.toArray(), nodes.toArray());
+  }
+
+  private static void compileNode(@NonNull JsonParser parser, @NonNull StringPool strings,
+                                  @NonNull StringPool classNames, @NonNull IntArray nodes) {
+    final Node node = new Node();
+    final boolean hasChildren = readNode(parser, node, strings, null, false);
+    nodes.add(classNames.intern(node.mClassName));
+    nodes.add(node.mSize / LayoutAttributes.STRIDE);
+    nodes.addAll(node.mAttrs, 0, node.mSize);
+    final int childCountIndex = nodes.size;
+    nodes.add(0);
+    if (hasChildren) {
+      int childCount = 0;
+      while (nextChild(parser)) {
+        compileNode(parser, strings, classNames, nodes);
+        childCount++;
+      }
+
+      nodes.set(childCountIndex, childCount);
+      readEnd(parser);
+    }
+  }
+
+  /**
+   * Reads the class and attributes of the view whose object the parser has
+   * just started, up to its children array or the end of the object.
+   *
+   * @param context The context to whose style resolver the styles of the
+   *                view are added
+   * @param root    Whether or not the view is the root of the layout, which
+   *                may declare styles
+   *
+   * @return {@code true} if the parser is at the start of the children array
+   *         of the view, {@code false} if it is at the end of its object
+   */
+  private static boolean readNode(@NonNull JsonParser parser, @NonNull Node node,
+                                  @NonNull StringPool strings, @Nullable Context context,
+                                  boolean root) {
+    boolean hasChildren = false;
+    while (!hasChildren) {
+      final JsonParser.Event event = parser.next();
+      if (event == JsonParser.Event.END_OBJECT) {
+        break;
+      }
+
+      final String key = parser.getString();
+      final JsonParser.Event valueEvent = parser.next();
+      if (KEY_CHILDREN.equals(key)) {
+        if (valueEvent != JsonParser.Event.START_ARRAY) {
+          throw error(parser, "\"" + KEY_CHILDREN + "\" must be an array");
+        }
+
+        hasChildren = true;
+        continue;
+      } else if (KEY_STYLES.equals(key)) {
+        if (!root) {
+          throw error(parser, "\"" + KEY_STYLES + "\" can only be declared by the root view");
+        } else if (context == null) {
+          throw error(parser, "\"" + KEY_STYLES + "\" requires a context");
+        } else if (valueEvent != JsonParser.Event.START_OBJECT) {
+          throw error(parser, "\"" + KEY_STYLES + "\" must be an object");
+        }
+
+        readStyles(parser, context.getStyleResolver());
+        continue;
+      }
+
+      final String value = readValue(parser, key, valueEvent);
+      if (KEY_CLASS.equals(key)) {
+        node.mClassName = LayoutInflater.resolveClassName(value);
+        continue;
+      }
+
+      final int id = LayoutAttributes.getId(key);
+      if (id == -1) {
+        throw error(parser, "Unknown attribute \"" + key + "\"");
+      }
+
+      node.add(id, value, strings);
+    }
+
+    if (node.mClassName == null) {
+      throw error(parser, "Missing \"" + KEY_CLASS + "\"");
+    }
+
+    return hasChildren;
+  }
+
+  /**
+   * Reads the styles of a layout, whose object the parser has just started,
+   * and adds them to the specified resolver in the order they are declared.
+   */
+  private static void readStyles(@NonNull JsonParser parser, @NonNull StyleResolver resolver) {
+    while (parser.next() != JsonParser.Event.END_OBJECT) {
+      final String name = parser.getString();
+      if (parser.next() != JsonParser.Event.START_OBJECT) {
+        throw error(parser, "Style \"" + name + "\" must be an object");
+      }
+
+      Style parent = null;
+      final Map<String, String> attributes = new LinkedHashMap<>();
+      while (parser.next() != JsonParser.Event.END_OBJECT) {
+        final String key = parser.getString();
+        final String value = readValue(parser, key, parser.next());
+        if (KEY_PARENT.equals(key)) {
+          parent = resolver.getStyle(value);
+          if (parent == null) {
+            throw error(parser, "Unknown parent style \"" + value + "\" of \"" + name + "\"");
+          }
+        } else {
+          attributes.put(key, value);
+        }
+      }
+
+      try {
+        resolver.addStyle(new Style(name, parent, attributes));
+      } catch (InflateException e) {
+        throw error(parser, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns the value of a member of a view or style as a string, like the
+   * values of XML attributes.
+   *
+   * @param key   The name of the member
+   * @param event The event of its value
+   */
+  @NonNull
+  private static String readValue(@NonNull JsonParser parser, @NonNull String key,
+                                  @NonNull JsonParser.Event event) {
+    switch (event) {
+      case VALUE_STRING:
+      case VALUE_NUMBER:
+        return parser.getString();
+      case VALUE_TRUE:
+        return "true";
+      case VALUE_FALSE:
+        return "false";
+      default:
+        throw error(parser, "Invalid value for \"" + key + "\"");
+    }
+  }
+
+  /**
+   * Advances the parser to the next child in a children array.
+   *
+   * @return {@code true} if the parser is at the start of a child,
+   *         {@code false} if it is at the end of the array
+   */
+  private static boolean nextChild(@NonNull JsonParser parser) {
+    final JsonParser.Event event = parser.next();
+    if (event == JsonParser.Event.END_ARRAY) {
+      return false;
+    } else if (event != JsonParser.Event.START_OBJECT) {
+      throw error(parser, "Children must be objects");
+    }
+
+    return true;
+  }
+
+  /**
+   * Reads the end of the object of a view after its children array.
+   */
+  private static void readEnd(@NonNull JsonParser parser) {
+    if (parser.next() != JsonParser.Event.END_OBJECT) {
+      throw error(parser, "\"" + KEY_CHILDREN + "\" must be the last member of a view");
+    }
+  }
+
+  @NonNull
+  private static InflateException error(@NonNull JsonParser parser, @NonNull String message) {
+    final JsonLocation location = parser.getLocation();
+    return new InflateException(message + " at line " + location.getLineNumber()
+        + ", column " + location.getColumnNumber());
+  }
+
+  /**
+   * Returns the number of views built since the last call to
+   * {@link #resetStatistics()}, excluding the deferred children of
+   * {@code GONE} views.
+   */
+  public int getViewCount() {
+    return mViewCount;
+  }
+
+  /**
+   * Returns the number of views whose children were deferred because they
+   * were {@code GONE} since the last call to {@link #resetStatistics()}.
+   */
+  public int getDeferredCount() {
+    return mDeferredCount;
+  }
+
+  /**
+   * Resets the view counters.
+   */
+  public void resetStatistics() {
+    mViewCount = 0;
+    mDeferredCount = 0;
+  }
+
+  /**
+   * Class and attributes of a view, read before it is built or compiled.
+   */
+  private static final class Node {
+    @Nullable String mClassName;
+    @NonNull int[] mAttrs = new int[8 * LayoutAttributes.STRIDE];
+    int mSize;
+    boolean mGone;
+
+    void add(int id, @NonNull String value, @NonNull StringPool strings) {
+      if (mSize == mAttrs.length) {
+        mAttrs = Arrays.copyOf(mAttrs, mSize * 2);
+      }
+
+      LayoutAttributes.parse(id, value, strings, mAttrs, mSize);
+      if (id == LayoutAttributes.VISIBILITY) {
+        mGone = mAttrs[mSize + 2] == View.GONE;
+      }
+
+      mSize += LayoutAttributes.STRIDE;
+    }
+  }
+}
@@ -0,0 +1,466 @@
+package unifi.view;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import unifi.content.Context;
+import unifi.content.res.Resources;
+import unifi.graphics.Color;
+import unifi.widget.TextView;
+
+/**
+ * The attributes supported by layouts, identified by integer ids. Attribute
+ * values are parsed once into a type and an integer datum, e.g., a color-int,
+ * the bits of a float or the index of a string in a pool, which is how they
+ * are stored in {@linkplain CompiledLayout compiled layouts}, so applying an
+ * attribute never parses its value.
+ */
+final class LayoutAttributes {
+  private LayoutAttributes() {}
+
+  static final int ID = 0;
+  static final int LAYOUT_WIDTH = 1;
+  static final int LAYOUT_HEIGHT = 2;
+  static final int LAYOUT_MARGIN = 3;
+  static final int LAYOUT_MARGIN_LEFT = 4;
+  static final int LAYOUT_MARGIN_TOP = 5;
+  static final int LAYOUT_MARGIN_RIGHT = 6;
+  static final int LAYOUT_MARGIN_BOTTOM = 7;
+  static final int PADDING = 8;
+  static final int PADDING_LEFT = 9;
+  static final int PADDING_TOP = 10;
+  static final int PADDING_RIGHT = 11;
+  static final int PADDING_BOTTOM = 12;
+  static final int VISIBILITY = 13;
+  static final int BACKGROUND = 14;
+  static final int FOCUSABLE = 15;
+  static final int TEXT = 16;
+  static final int TEXT_COLOR = 17;
+  static final int TEXT_SIZE = 18;
+  static final int FONT = 19;
+  static final int STYLE = 20;
+
+  /**
+   * Names of the attributes, indexed by id. Ids are stored in compiled
+   * layouts, so new attributes must be appended.
+   */
+  @NonNull static final String[] NAMES = {
+      "id",
+      "layout_width",
+      "layout_height",
+      "layout_margin",
+      "layout_marginLeft",
+      "layout_marginTop",
+      "layout_marginRight",
+      "layout_marginBottom",
+      "padding",
+      "paddingLeft",
+      "paddingTop",
+      "paddingRight",
+      "paddingBottom",
+      "visibility",
+      "background",
+      "focusable",
+      "text",
+      "textColor",
+      "textSize",
+      "font",
+      "style",
+  };
+
+  static final int TYPE_INT = 0;
+  static final int TYPE_FLOAT = 1;
+  static final int TYPE_BOOLEAN = 2;
+  static final int TYPE_COLOR = 3;
+  static final int TYPE_STRING = 4;
+
+  /**
+   * Number of ints used by each attribute: its id, type and datum.
+   */
+  static final int STRIDE = 3;
+
+  @NonNull private static final Map<String, Integer> IDS = new HashMap<>();
+  static {
+    for (int id = 0; id < NAMES.length; id++) {
+      IDS.put(NAMES[id], id);
+    }
+  }
+
+  /**
+   * Returns the id of the attribute with the specified name, ignoring its
+   * namespace prefix, if any, or {@code -1} if it is not supported.
+   */
+  static int getId(@NonNull String name) {
+    final int colon = name.indexOf(':');
+    final Integer id = IDS.get(colon == -1 ? name : name.substring(colon + 1));
+    return id != null ? id : -1;
+  }
+
+  /**
+   * Parses the value of the specified attribute and stores its id, type and
+   * datum at the specified index of an attribute array.
+   *
+   * @param id      The id of the attribute
+   * @param value   The value of the attribute
+   * @param strings The pool of the strings referred to by string values,
+   *                which strings are appended to
+   * @param out     The attribute array
+   * @param index   The index at which to store the attribute
+   *
+   * @throws InflateException if the value is not valid for the attribute
+   */
+  static void parse(int id, @NonNull String value, @NonNull StringPool strings,
+                    @NonNull int[] out, int index) {
+    out[index] = id;
+    try {
+      switch (id) {
+        case ID:
+          set(out, index, TYPE_INT, Integer.parseInt(value));
+          break;
+        case LAYOUT_WIDTH:
+        case LAYOUT_HEIGHT:
+          switch (value) {
+            case "match_parent":
+            case "fill_parent":
+              set(out, index, TYPE_INT, ViewGroup.LayoutParams.MATCH_PARENT);
+              break;
+            case "wrap_content":
+              set(out, index, TYPE_INT, ViewGroup.LayoutParams.WRAP_CONTENT);
+              break;
+            default:
+              set(out, index, TYPE_INT, parseDimension(value));
+          }
+          break;
+        case LAYOUT_MARGIN:
+        case LAYOUT_MARGIN_LEFT:
+        case LAYOUT_MARGIN_TOP:
+        case LAYOUT_MARGIN_RIGHT:
+        case LAYOUT_MARGIN_BOTTOM:
+        case PADDING:
+        case PADDING_LEFT:
+        case PADDING_TOP:
+        case PADDING_RIGHT:
+        case PADDING_BOTTOM:
+          set(out, index, TYPE_INT, parseDimension(value));
+          break;
+        case VISIBILITY:
+          switch (value) {
+            case "visible":
+              set(out, index, TYPE_INT, View.VISIBLE);
+              break;
+            case "invisible":
+              set(out, index, TYPE_INT, View.INVISIBLE);
+              break;
+            case "gone":
+              set(out, index, TYPE_INT, View.GONE);
+              break;
+            default:
+              throw new IllegalArgumentException("Unknown visibility: " + value);
+          }
+          break;
+        case BACKGROUND:
+          if (value.startsWith("#")) {
+            set(out, index, TYPE_COLOR, Color.parseColor(value));
+          } else {
+            set(out, index, TYPE_STRING, strings.intern(value));
+          }
+          break;
+        case FOCUSABLE:
+          set(out, index, TYPE_BOOLEAN, parseBoolean(value) ? 1 : 0);
+          break;
+        case TEXT:
+        case FONT:
+        case STYLE:
+          set(out, index, TYPE_STRING, strings.intern(value));
+          break;
+        case TEXT_COLOR:
+          set(out, index, TYPE_COLOR, Color.parseColor(value));
+          break;
+        case TEXT_SIZE:
+          set(out, index, TYPE_FLOAT, Float.floatToIntBits(
+              Float.parseFloat(stripUnit(value))));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown attribute id: " + id);
+      }
+    } catch (IllegalArgumentException e) {
+      throw new InflateException("Invalid value for " + NAMES[id] + ": \"" + value + "\"", e);
+    }
+  }
+
+  private static void set(@NonNull int[] out, int index, int type, int data) {
+    out[index + 1] = type;
+    out[index + 2] = data;
+  }
+
+  private static int parseDimension(@NonNull String value) {
+    return Integer.parseInt(stripUnit(value));
+  }
+
+  /**
+   * Strips the {@code px} unit of a dimension, which is the only unit
+   * supported.
+   */
+  @NonNull
+  private static String stripUnit(@NonNull String value) {
+    return value.endsWith("px") ? value.substring(0, value.length() - 2) : value;
+  }
+
+  private static boolean parseBoolean(@NonNull String value) {
+    switch (value) {
+      case "true":
+        return true;
+      case "false":
+        return false;
+      default:
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+  }
+
+  /**
+   * Returns whether or not the attribute with the specified id is a
+   * {@code layout_} attribute, which is applied to the layout params of a
+   * view instead of the view itself.
+   */
+  static boolean isLayoutAttribute(int id) {
+    return id >= LAYOUT_WIDTH && id <= LAYOUT_MARGIN_BOTTOM;
+  }
+
+  /**
+   * Creates the layout params of a view from its {@code layout_} attributes
+   * and those of its style, which its own attributes override. Dimensions
+   * which are not specified default to
+   * {@link ViewGroup.LayoutParams#WRAP_CONTENT WRAP_CONTENT}.
+   *
+   * @param style The resolved style of the view, or {@code null}
+   * @param attrs The attribute array
+   * @param start The index of the first attribute of the view
+   * @param end   The index after the last attribute of the view
+   *
+   * @return The layout params, or {@code null} if neither the view nor its
+   *         style have {@code layout_} attributes
+   */
+  @Nullable
+  static ViewGroup.LayoutParams createLayoutParams(@Nullable AttributeTable style,
+                                                   @NonNull int[] attrs, int start, int end) {
+    // Width, height, left, top, right and bottom margins, and whether or not
+    // any dimension and any margin are specified
+    final int[] values = {
+        ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT,
+        0, 0, 0, 0, 0, 0
+    };
+
+    if (style != null) {
+      readLayoutAttributes(style.mAttrs, 0, style.mAttrs.length, values);
+    }
+
+    readLayoutAttributes(attrs, start, end, values);
+    if (values[7] == 0) {
+      return values[6] != 0 ? new ViewGroup.LayoutParams(values[0], values[1]) : null;
+    }
+
+    final ViewGroup.MarginLayoutParams params
+        = new ViewGroup.MarginLayoutParams(values[0], values[1]);
+    params.leftMargin = values[2];
+    params.topMargin = values[3];
+    params.rightMargin = values[4];
+    params.bottomMargin = values[5];
+    return params;
+  }
+
+  private static void readLayoutAttributes(@NonNull int[] attrs, int start, int end,
+                                           @NonNull int[] values) {
+    for (int i = start; i < end; i += STRIDE) {
+      final int data = attrs[i + 2];
+      switch (attrs[i]) {
+        case LAYOUT_WIDTH:
+          values[0] = data;
+          values[6] = 1;
+          break;
+        case LAYOUT_HEIGHT:
+          values[1] = data;
+          values[6] = 1;
+          break;
+        case LAYOUT_MARGIN:
+          values[2] = values[3] = values[4] = values[5] = data;
+          values[7] = 1;
+          break;
+        case LAYOUT_MARGIN_LEFT:
+          values[2] = data;
+          values[7] = 1;
+          break;
+        case LAYOUT_MARGIN_TOP:
+          values[3] = data;
+          values[7] = 1;
+          break;
+        case LAYOUT_MARGIN_RIGHT:
+          values[4] = data;
+          values[7] = 1;
+          break;
+        case LAYOUT_MARGIN_BOTTOM:
+          values[5] = data;
+          values[7] = 1;
+          break;
+      }
+    }
+  }
+
+  /**
+   * Resolves the style of a view, i.e., the attributes of the theme of its
+   * context overridden by those of the style named by its {@code style}
+   * attribute, if any.
+   *
+   * @return The resolved style, or {@code null} if there is no context, or
+   *         neither a theme nor a style
+   *
+   * @throws InflateException if the view has a style but no context, or its
+   *                          style does not exist
+   */
+  @Nullable
+  static AttributeTable resolveStyle(@Nullable Context context, @NonNull int[] attrs,
+                                     int start, int end, @NonNull String[] strings) {
+    String name = null;
+    for (int i = start; i < end; i += STRIDE) {
+      if (attrs[i] == STYLE) {
+        name = strings[attrs[i + 2]];
+      }
+    }
+
+    if (context == null) {
+      if (name != null) {
+        throw new InflateException(NAMES[STYLE] + " requires a context to resolve " + name);
+      }
+
+      return null;
+    }
+
+    final StyleResolver resolver = context.getStyleResolver();
+    final AttributeTable table = name != null
+        ? resolver.resolve(name)
+        : resolver.resolve((Style) null);
+    return table.isEmpty() ? null : table;
+  }
+
+  /**
+   * Applies the attributes of a view and of its style, other than their
+   * {@code layout_} attributes. The attributes of the style are applied first,
+   * and then those of the view, in the order they were declared.
+   *
+   * @param view    The view
+   * @param context The context of the view, whose resources load the
+   *                drawables and fonts referred to by the attributes
+   * @param style   The resolved style of the view, or {@code null}
+   * @param attrs   The attribute array
+   * @param start   The index of the first attribute of the view
+   * @param end     The index after the last attribute of the view
+   * @param strings The pool of the strings referred to by string values
+   *
+   * @throws InflateException if an attribute of the view does not apply to it
+   */
+  static void apply(@NonNull View view, @Nullable Context context,
+                    @Nullable AttributeTable style, @NonNull int[] attrs, int start, int end,
+                    @NonNull String[] strings) {
+    if (style != null) {
+      // Styles and themes are shared by views of different classes, which
+      // ignore the attributes which do not apply to them
+      apply(view, context, style.mAttrs, 0, style.mAttrs.length, style.mStrings, false);
+    }
+
+    apply(view, context, attrs, start, end, strings, true);
+  }
+
+  private static void apply(@NonNull View view, @Nullable Context context,
+                            @NonNull int[] attrs, int start, int end, @NonNull String[] strings,
+                            boolean strict) {
+    for (int i = start; i < end; i += STRIDE) {
+      final int id = attrs[i];
+      final int type = attrs[i + 1];
+      final int data = attrs[i + 2];
+      switch (id) {
+        case ID:
+          view.setId(data);
+          break;
+        case PADDING:
+          view.setPadding(data, data, data, data);
+          break;
+        case PADDING_LEFT:
+          view.setPadding(data, view.getPaddingTop(), view.getPaddingRight(),
+              view.getPaddingBottom());
+          break;
+        case PADDING_TOP:
+          view.setPadding(view.getPaddingLeft(), data, view.getPaddingRight(),
+              view.getPaddingBottom());
+          break;
+        case PADDING_RIGHT:
+          view.setPadding(view.getPaddingLeft(), view.getPaddingTop(), data,
+              view.getPaddingBottom());
+          break;
+        case PADDING_BOTTOM:
+          view.setPadding(view.getPaddingLeft(), view.getPaddingTop(), view.getPaddingRight(),
+              data);
+          break;
+        case VISIBILITY:
+          view.setVisibility(data);
+          break;
+        case BACKGROUND:
+          if (type == TYPE_COLOR) {
+            view.setBackgroundColor(data);
+          } else {
+            view.setBackground(resources(context, id).getDrawable(strings[data]));
+          }
+          break;
+        case FOCUSABLE:
+          view.setFocusable(data != 0);
+          break;
+        case TEXT:
+        case TEXT_COLOR:
+        case TEXT_SIZE:
+        case FONT:
+          if (view instanceof TextView) {
+            applyText((TextView) view, context, id, data, strings);
+          } else if (strict) {
+            throw new InflateException(NAMES[id] + " requires a TextView, not "
+                + view.getClass().getName());
+          }
+          break;
+        case STYLE:
+          // Resolved by resolveStyle()
+          break;
+        default:
+          if (!isLayoutAttribute(id)) {
+            throw new InflateException("Unknown attribute id: " + id);
+          }
+      }
+    }
+  }
+
+  private static void applyText(@NonNull TextView view, @Nullable Context context, int id,
+                                int data, @NonNull String[] strings) {
+    switch (id) {
+      case TEXT:
+        view.setText(strings[data]);
+        break;
+      case TEXT_COLOR:
+        view.setTextColor(data);
+        break;
+      case TEXT_SIZE:
+        view.setTextSize(Float.intBitsToFloat(data));
+        break;
+      case FONT:
+        view.setFont(resources(context, id).getFont(strings[data]));
+        break;
+    }
+  }
+
+  @NonNull
+  private static Resources resources(@Nullable Context context, int id) {
+    if (context == null) {
+      throw new InflateException(NAMES[id] + " requires a context to load its resource");
+    }
+
+    return context.getResources();
+  }
+}
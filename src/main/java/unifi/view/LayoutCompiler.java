@@ -0,0 +1,119 @@
+package unifi.view;
+
+import android.support.annotation.NonNull;
+
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build-time tool which compiles the XML layouts of a directory into
+ * {@linkplain CompiledLayout compiled layouts}, written to an output directory
+ * with the same relative paths and the {@value CompiledLayout#EXTENSION}
+ * extension. The view classes referred to by the layouts must be on the class
+ * path of the tool. The path of each compiled layout is written to the
+ * standard output, one per line.
+ *
+ * <p>Usage: {@code LayoutCompiler <layout directory> <output directory>}
+ */
+public class LayoutCompiler {
+  private LayoutCompiler() {}
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: LayoutCompiler <layout directory> <output directory>");
+      System.exit(1);
+    }
+
+    final File dir = new File(args[0]);
+    if (!dir.isDirectory()) {
+      System.err.println("Not a directory: " + dir);
+      System.exit(1);
+    }
+
+    final PrintStream out = System.out;
+    for (String path : compileAll(dir, new File(args[1]))) {
+      out.println(path);
+    }
+  }
+
+  /**
+   * Compiles the XML layouts of the specified directory and its
+   * subdirectories into the given output directory.
+   *
+   * @param dir    The layout directory
+   * @param outDir The output directory, whose compiled layouts are overwritten
+   *
+   * @return The paths of the compiled layouts, relative to {@code outDir} and
+   *         separated by {@code '/'}
+   *
+   * @throws InflateException if a layout is invalid
+   */
+  @NonNull
+  public static List<String> compileAll(@NonNull File dir, @NonNull File outDir)
+      throws IOException {
+    final List<String> paths = new ArrayList<>();
+    collect(dir, "", paths);
+    final List<String> compiled = new ArrayList<>(paths.size());
+    for (String path : paths) {
+      final String outPath = path.substring(0, path.length() - ".xml".length())
+          + CompiledLayout.EXTENSION;
+      final File outFile = new File(outDir, outPath);
+      final File parent = outFile.getParentFile();
+      if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+        throw new IOException("Cannot create directory: " + parent);
+      }
+
+      compile(new File(dir, path), outFile);
+      compiled.add(outPath);
+    }
+
+    return compiled;
+  }
+
+  /**
+   * Compiles the specified XML layout into the given file.
+   *
+   * @throws InflateException if the layout is invalid
+   */
+  public static void compile(@NonNull File xml, @NonNull File out) throws IOException {
+    final CompiledLayout layout;
+    try (Reader reader = new InputStreamReader(new FileInputStream(xml), "UTF-8")) {
+      layout = CompiledLayout.compile(LayoutInflater.newParser(reader));
+    } catch (XmlPullParserException e) {
+      throw new IOException("Cannot parse layout " + xml + ": " + e.getMessage(), e);
+    } catch (InflateException e) {
+      throw new InflateException(xml + ": " + e.getMessage(), e);
+    }
+
+    try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(out))) {
+      layout.write(stream);
+    }
+  }
+
+  private static void collect(@NonNull File dir, @NonNull String prefix,
+                              @NonNull List<String> paths) {
+    final File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    for (File file : files) {
+      if (file.isDirectory()) {
+        collect(file, prefix + file.getName() + '/', paths);
+      } else if (file.getName().endsWith(".xml")) {
+        paths.add(prefix + file.getName());
+      }
+    }
+  }
+}
@@ -0,0 +1,387 @@
+package unifi.view;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+
+import unifi.content.Context;
+import unifi.widget.TextView;
+
+/**
+ * Instantiates layout files into their corresponding {@link View} trees.
+ * Layouts are either XML files, whose elements are named after the classes of
+ * their views, or layouts {@linkplain CompiledLayout compiled} from them by
+ * {@link LayoutCompiler} at build time, whose files end with
+ * {@value CompiledLayout#EXTENSION}. Compiled layouts are inflated without
+ * parsing XML, and without reflection for the views of Unifi or those whose
+ * {@linkplain #registerFactory factories are registered}, e.g., by the classes
+ * which {@link InflatableProcessor} generates for the views annotated with
+ * {@link Inflatable}. Either kind of layout is only read once, and cached by
+ * path.
+ *
+ * <p>Element names which are not fully qualified refer to the classes of
+ * {@code unifi.widget} and {@code unifi.view}. The attributes of an element
+ * configure its view, e.g., {@code padding="8"} or {@code text="Hello"}, and
+ * those prefixed by {@code layout_} configure its layout params, e.g.,
+ * {@code layout_width="match_parent"}. Attributes may have a namespace
+ * prefix, which is ignored. The {@code style} attribute names a {@link Style}
+ * of the {@linkplain StyleResolver style resolver} of the context, whose
+ * attributes, and those of the theme, apply to the view unless it overrides
+ * them.
+ *
+ * <p>Note: This class is not thread-safe, and should only be used from the
+ * rendering thread.
+ */
+public class LayoutInflater {
+
+  /**
+   * Packages searched for view classes whose names are not fully qualified.
+   */
+  @NonNull private static final String[] CLASS_PREFIXES = { "unifi.widget.", "unifi.view." };
+
+  /**
+   * Creates the views of a class, so that they can be inflated without
+   * reflection.
+   */
+  public interface Factory {
+    /**
+     * Returns a new view with the specified context.
+     */
+    @NonNull
+    View createView(@Nullable Context context);
+  }
+
+  @NonNull private static final Map<String, Factory> sFactories = new HashMap<>();
+  @NonNull private static final Map<String, String> sClassNames = new HashMap<>();
+  static {
+    registerFactory(View.class.getName(), new Factory() {
+      @NonNull
+      @Override
+      public View createView(@Nullable Context context) {
+        return new View(context);
+      }
+    });
+    registerFactory(TextView.class.getName(), new Factory() {
+      @NonNull
+      @Override
+      public View createView(@Nullable Context context) {
+        return new TextView(context);
+      }
+    });
+  }
+
+  /**
+   * Registers the factory of the views of the specified class, so that they
+   * are inflated without reflection. Views of classes without a factory are
+   * instantiated through their {@code (Context)} constructor.
+   *
+   * @param className The fully qualified name of the class
+   * @param factory   The factory of its views
+   */
+  public static void registerFactory(@NonNull String className, @NonNull Factory factory) {
+    if (className == null) {
+      throw new IllegalArgumentException("className cannot be null");
+    } else if (factory == null) {
+      throw new IllegalArgumentException("factory cannot be null");
+    }
+
+    sFactories.put(className, factory);
+  }
+
+  /**
+   * Returns the factory of the views of the specified class, creating one
+   * which calls its {@code (Context)} constructor if none is registered.
+   *
+   * @throws InflateException if the class is not a view class with such a
+   *                          constructor
+   */
+  @NonNull
+  static Factory getFactory(@NonNull String className) {
+    Factory factory = sFactories.get(className);
+    if (factory == null) {
+      factory = new ConstructorFactory(className);
+      sFactories.put(className, factory);
+    }
+
+    return factory;
+  }
+
+  /**
+   * Returns the fully qualified name of the view class with the specified
+   * element name.
+   *
+   * @throws InflateException if there is no such class
+   */
+  @NonNull
+  static String resolveClassName(@NonNull String name) {
+    if (name.indexOf('.') != -1) {
+      return name;
+    }
+
+    String className = sClassNames.get(name);
+    if (className != null) {
+      return className;
+    }
+
+    for (String prefix : CLASS_PREFIXES) {
+      try {
+        Class.forName(prefix + name, false, LayoutInflater.class.getClassLoader());
+        className = prefix + name;
+        sClassNames.put(name, className);
+        return className;
+      } catch (ClassNotFoundException e) {
+        // Try the next package
+      }
+    }
+
+    throw new InflateException("Unknown view class: " + name);
+  }
+
+  @Nullable private final Context mContext;
+
+  /**
+   * Compiled layouts, by path.
+   */
+  @NonNull private final Map<String, CompiledLayout> mLayouts = new HashMap<>();
+
+  /**
+   * Constructs an inflater of views with the specified context, whose
+   * resources resolve the paths of layouts and load the resources they refer
+   * to.
+   */
+  public LayoutInflater(@Nullable Context context) {
+    mContext = context;
+  }
+
+  /**
+   * Returns the context of the views inflated by this inflater.
+   */
+  @Nullable
+  public Context getContext() {
+    return mContext;
+  }
+
+  /**
+   * Inflates the layout at the specified path, adding it to the specified
+   * root, if any.
+   *
+   * @see #inflate(String, ViewGroup, boolean)
+   */
+  @NonNull
+  public View inflate(@NonNull String path, @Nullable ViewGroup root) {
+    return inflate(path, root, root != null);
+  }
+
+  /**
+   * Inflates the layout at the specified path, which is either an XML layout
+   * or a {@linkplain CompiledLayout compiled layout}.
+   *
+   * @param path         The path of the layout, resolved by the asset manager
+   * @param root         The view group to which the root of the layout is
+   *                     added if {@code attachToRoot} is {@code true}
+   * @param attachToRoot Whether or not the root of the layout is added to
+   *                     {@code root}
+   *
+   * @return {@code root} if the layout was added to it, otherwise the root of
+   *         the layout
+   *
+   * @throws InflateException if the layout cannot be read or inflated
+   */
+  @NonNull
+  public View inflate(@NonNull String path, @Nullable ViewGroup root, boolean attachToRoot) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    return inflate(getLayout(path), root, attachToRoot);
+  }
+
+  /**
+   * Inflates the XML layout read by the specified parser, which is compiled
+   * every time it is inflated.
+   *
+   * @see #inflate(String, ViewGroup, boolean)
+   */
+  @NonNull
+  public View inflate(@NonNull XmlPullParser parser, @Nullable ViewGroup root,
+                      boolean attachToRoot) {
+    try {
+      return inflate(CompiledLayout.compile(parser), root, attachToRoot);
+    } catch (XmlPullParserException | IOException e) {
+      throw new InflateException("Cannot parse layout: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Inflates the specified compiled layout.
+   *
+   * @see #inflate(String, ViewGroup, boolean)
+   */
+  @NonNull
+  public View inflate(@NonNull CompiledLayout layout, @Nullable ViewGroup root,
+                      boolean attachToRoot) {
+    if (layout == null) {
+      throw new IllegalArgumentException("layout cannot be null");
+    } else if (attachToRoot && root == null) {
+      throw new IllegalArgumentException("root cannot be null when attachToRoot is true");
+    }
+
+    final int[] position = { 0 };
+    final View view = inflateNode(layout, layout.getFactories(), position,
+        attachToRoot ? root : null);
+    return attachToRoot ? root : view;
+  }
+
+  /**
+   * Inflates the children of the root of the specified compiled layout, and
+   * adds them to the specified parent.
+   */
+  void inflateChildren(@NonNull CompiledLayout layout, @NonNull ViewGroup parent) {
+    final int[] nodes = layout.mNodes;
+    final int end = 2 + nodes[1] * LayoutAttributes.STRIDE;
+    final int childCount = nodes[end];
+    final int[] position = { end + 1 };
+    final Factory[] factories = layout.getFactories();
+    for (int child = 0; child < childCount; child++) {
+      inflateNode(layout, factories, position, parent);
+    }
+  }
+
+  /**
+   * Inflates the view at the specified position of the nodes of a layout and
+   * its children, and adds it to its parent, if any.
+   *
+   * @param position The position of the node, which is advanced past it and
+   *                 its children
+   */
+  @NonNull
+  private View inflateNode(@NonNull CompiledLayout layout, @NonNull Factory[] factories,
+                           @NonNull int[] position, @Nullable ViewGroup parent) {
+    final int[] nodes = layout.mNodes;
+    int i = position[0];
+    final View view = factories[nodes[i++]].createView(mContext);
+    final int start = i + 1;
+    final int end = start + nodes[i] * LayoutAttributes.STRIDE;
+    final AttributeTable style
+        = LayoutAttributes.resolveStyle(mContext, nodes, start, end, layout.mStrings);
+    LayoutAttributes.apply(view, mContext, style, nodes, start, end, layout.mStrings);
+    final ViewGroup.LayoutParams params
+        = LayoutAttributes.createLayoutParams(style, nodes, start, end);
+
+    final int childCount = nodes[end];
+    position[0] = end + 1;
+    if (childCount > 0) {
+      if (!(view instanceof ViewGroup)) {
+        throw new InflateException(view.getClass().getName()
+            + " cannot have children, it is not a ViewGroup");
+      }
+
+      final ViewGroup group = (ViewGroup) view;
+      for (int child = 0; child < childCount; child++) {
+        inflateNode(layout, factories, position, group);
+      }
+    }
+
+    if (parent != null) {
+      if (params != null) {
+        parent.addView(view, params);
+      } else {
+        parent.addView(view);
+      }
+    } else if (params != null) {
+      view.setLayoutParams(params);
+    }
+
+    return view;
+  }
+
+  /**
+   * Returns the compiled layout at the specified path, reading and compiling
+   * it if necessary.
+   */
+  @NonNull
+  private CompiledLayout getLayout(@NonNull String path) {
+    CompiledLayout layout = mLayouts.get(path);
+    if (layout != null) {
+      return layout;
+    }
+
+    if (mContext == null) {
+      throw new InflateException("A context is required to resolve " + path);
+    }
+
+    final FileHandle file = mContext.getResources().getAssets().getFileHandleResolver()
+        .resolve(path);
+    if (path.endsWith(CompiledLayout.EXTENSION)) {
+      layout = CompiledLayout.read(file.readBytes());
+    } else {
+      try (Reader reader = file.reader("UTF-8")) {
+        layout = CompiledLayout.compile(newParser(reader));
+      } catch (XmlPullParserException | IOException e) {
+        throw new InflateException("Cannot parse layout " + path + ": " + e.getMessage(), e);
+      }
+    }
+
+    mLayouts.put(path, layout);
+    return layout;
+  }
+
+  /**
+   * Returns a new parser of the XML layout read by the specified reader.
+   */
+  @NonNull
+  public static XmlPullParser newParser(@NonNull Reader reader) throws XmlPullParserException {
+    final XmlPullParser parser = new KXmlParser();
+    parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+    parser.setInput(reader);
+    return parser;
+  }
+
+  /**
+   * Factory of the views of a class without a registered factory, which calls
+   * its {@code (Context)} constructor.
+   */
+  private static final class ConstructorFactory implements Factory {
+    @NonNull private final Constructor<? extends View> mConstructor;
+
+    ConstructorFactory(@NonNull String className) {
+      try {
+        final Class<? extends View> clazz = Class.forName(className, false,
+            LayoutInflater.class.getClassLoader()).asSubclass(View.class);
+        mConstructor = clazz.getConstructor(Context.class);
+      } catch (ClassNotFoundException e) {
+        throw new InflateException("Unknown view class: " + className, e);
+      } catch (ClassCastException e) {
+        throw new InflateException(className + " is not a View", e);
+      } catch (NoSuchMethodException e) {
+        throw new InflateException(className + " has no public (Context) constructor", e);
+      }
+    }
+
+    @NonNull
+    @Override
+    public View createView(@Nullable Context context) {
+      try {
+        return mConstructor.newInstance(context);
+      } catch (InvocationTargetException e) {
+        throw new InflateException("Cannot instantiate " + mConstructor.getDeclaringClass()
+            .getName(), e.getCause());
+      } catch (InstantiationException | IllegalAccessException e) {
+        throw new InflateException("Cannot instantiate " + mConstructor.getDeclaringClass()
+            .getName(), e);
+      }
+    }
+  }
+}
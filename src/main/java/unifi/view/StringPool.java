@@ -0,0 +1,49 @@
+package unifi.view;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool of the strings of a layout or a style, e.g., the values of its string
+ * attributes or the names of its classes, where each distinct string is added
+ * once and identified by its index, in the order strings were added.
+ */
+final class StringPool {
+
+  @NonNull private final List<String> mStrings = new ArrayList<>();
+  @NonNull private final Map<String, Integer> mIndexes = new HashMap<>();
+
+  /**
+   * Returns the index of the specified string, adding it if it is not in
+   * this pool yet.
+   */
+  int intern(@NonNull String string) {
+    Integer index = mIndexes.get(string);
+    if (index == null) {
+      index = mStrings.size();
+      mStrings.add(string);
+      mIndexes.put(string, index);
+    }
+
+    return index;
+  }
+
+  /**
+   * Returns the number of strings in this pool.
+   */
+  int size() {
+    return mStrings.size();
+  }
+
+  /**
+   * Returns the strings of this pool, indexed by their index.
+   */
+  @NonNull
+  String[] toArray() {
+    return mStrings.toArray(new String[mStrings.size()]);
+  }
+}
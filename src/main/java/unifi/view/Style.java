@@ -0,0 +1,93 @@
+package unifi.view;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Map;
+
+/**
+ * An immutable set of attribute values shared by views, e.g., every button of
+ * an application, which may inherit the values of a parent style. Views refer
+ * to a style by name with their {@code style} attribute, and a style applied
+ * to every view of a context is its {@linkplain StyleResolver#setTheme theme}.
+ * The attributes of a view override those of its style, which override those
+ * of the theme.
+ *
+ * @see StyleResolver
+ */
+public final class Style {
+
+  @NonNull private final String mName;
+  @Nullable private final Style mParent;
+
+  /**
+   * Attributes of this style, without those of its parent, parsed like those
+   * of layouts.
+   */
+  @NonNull final int[] mAttrs;
+  @NonNull final String[] mStrings;
+
+  /**
+   * Constructs a style.
+   *
+   * @param name       The name of the style
+   * @param parent     The style whose attributes this style inherits, or
+   *                   {@code null}
+   * @param attributes The values of the attributes of the style by name,
+   *                   e.g., {@code "textColor"} to {@code "#FF202020"}, which
+   *                   override those of its parent
+   *
+   * @throws InflateException if an attribute is unknown or has an invalid
+   *                          value
+   */
+  public Style(@NonNull String name, @Nullable Style parent,
+               @NonNull Map<String, String> attributes) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    } else if (attributes == null) {
+      throw new IllegalArgumentException("attributes cannot be null");
+    }
+
+    mName = name;
+    mParent = parent;
+
+    final StringPool strings = new StringPool();
+    final int[] attrs = new int[attributes.size() * LayoutAttributes.STRIDE];
+    int i = 0;
+    for (Map.Entry<String, String> entry : attributes.entrySet()) {
+      final int id = LayoutAttributes.getId(entry.getKey());
+      if (id == -1) {
+        throw new InflateException("Unknown attribute " + entry.getKey() + " in style " + name);
+      } else if (id == LayoutAttributes.ID || id == LayoutAttributes.STYLE) {
+        throw new InflateException(entry.getKey() + " cannot be styled: " + name);
+      }
+
+      LayoutAttributes.parse(id, entry.getValue(), strings, attrs, i);
+      i += LayoutAttributes.STRIDE;
+    }
+
+    mAttrs = attrs;
+    mStrings = strings.toArray();
+  }
+
+  /**
+   * Returns the name of this style.
+   */
+  @NonNull
+  public String getName() {
+    return mName;
+  }
+
+  /**
+   * Returns the style whose attributes this style inherits, or {@code null}.
+   */
+  @Nullable
+  public Style getParent() {
+    return mParent;
+  }
+
+  @Override
+  public String toString() {
+    return "Style{" + mName + (mParent != null ? " : " + mParent.mName : "") + '}';
+  }
+}
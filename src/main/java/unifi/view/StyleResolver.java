@@ -0,0 +1,185 @@
+package unifi.view;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the styles of the views of a context. The chain of a style, i.e.,
+ * the theme, its parents, the style and its parents, is only walked the first
+ * time the style is resolved, and flattened into an {@link AttributeTable}
+ * which is cached until the theme changes, so every view with the same style
+ * shares the same table.
+ *
+ * <p>Note: This class is not thread-safe, and should only be used from the
+ * rendering thread.
+ *
+ * @see unifi.content.Context#getStyleResolver()
+ */
+public final class StyleResolver {
+
+  /**
+   * Styles which views refer to by name, by name.
+   */
+  @NonNull private final Map<String, Style> mStyles = new HashMap<>();
+
+  /**
+   * Resolved tables of the styles, by style, for the current theme.
+   */
+  @NonNull private final Map<Style, AttributeTable> mTables = new IdentityHashMap<>();
+
+  /**
+   * Resolved table of the theme alone, or {@code null} if it has not been
+   * resolved yet.
+   */
+  @Nullable private AttributeTable mThemeTable;
+
+  @Nullable private Style mTheme;
+
+  private int mResolutions;
+  private int mCacheHits;
+
+  /**
+   * Adds the specified style, which views then refer to by name. A style with
+   * the same name is replaced.
+   */
+  public void addStyle(@NonNull Style style) {
+    if (style == null) {
+      throw new IllegalArgumentException("style cannot be null");
+    }
+
+    final Style previous = mStyles.put(style.getName(), style);
+    if (previous != null) {
+      mTables.remove(previous);
+    }
+  }
+
+  /**
+   * Returns the style with the specified name, or {@code null} if none was
+   * added.
+   */
+  @Nullable
+  public Style getStyle(@NonNull String name) {
+    return mStyles.get(name);
+  }
+
+  /**
+   * Returns the theme, i.e., the style applied to every view, or {@code null}
+   * if there is none.
+   */
+  @Nullable
+  public Style getTheme() {
+    return mTheme;
+  }
+
+  /**
+   * Sets the theme, i.e., the style applied to every view, and invalidates
+   * the resolved styles if it changed. Views which are already inflated keep
+   * the attributes of the previous theme.
+   *
+   * @param theme The theme, or {@code null} for none
+   */
+  public void setTheme(@Nullable Style theme) {
+    if (mTheme != theme) {
+      mTheme = theme;
+      invalidate();
+    }
+  }
+
+  /**
+   * Discards the resolved styles, which are resolved again when next used.
+   */
+  public void invalidate() {
+    mTables.clear();
+    mThemeTable = null;
+  }
+
+  /**
+   * Returns the resolved table of the style with the specified name.
+   *
+   * @throws InflateException if no style with that name was added
+   *
+   * @see #resolve(Style)
+   */
+  @NonNull
+  public AttributeTable resolve(@NonNull String name) {
+    final Style style = mStyles.get(name);
+    if (style == null) {
+      throw new InflateException("Unknown style: " + name);
+    }
+
+    return resolve(style);
+  }
+
+  /**
+   * Returns the resolved table of the specified style, i.e., the attributes
+   * of the theme overridden by those of the style. Each style is only
+   * resolved once for each theme.
+   *
+   * @param style The style, or {@code null} to resolve the theme alone
+   */
+  @NonNull
+  public AttributeTable resolve(@Nullable Style style) {
+    AttributeTable table = style != null ? mTables.get(style) : mThemeTable;
+    if (table != null) {
+      mCacheHits++;
+      return table;
+    }
+
+    final List<Style> chain = new ArrayList<>();
+    addChain(chain, mTheme);
+    addChain(chain, style);
+    table = AttributeTable.flatten(chain);
+    mResolutions++;
+    if (style != null) {
+      mTables.put(style, table);
+    } else {
+      mThemeTable = table;
+    }
+
+    return table;
+  }
+
+  /**
+   * Adds the specified style and its parents to the chain, from its root
+   * parent to itself.
+   */
+  private static void addChain(@NonNull List<Style> chain, @Nullable Style style) {
+    final int start = chain.size();
+    for (Style s = style; s != null; s = s.getParent()) {
+      chain.add(s);
+    }
+
+    Collections.reverse(chain.subList(start, chain.size()));
+  }
+
+  /**
+   * Returns the number of styles resolved, i.e., whose chains were flattened,
+   * since the last call to {@link #resetStatistics()}.
+   */
+  public int getResolutions() {
+    return mResolutions;
+  }
+
+  /**
+   * Returns the number of styles found already resolved since the last call
+   * to {@link #resetStatistics()}.
+   */
+  public int getCacheHits() {
+    return mCacheHits;
+  }
+
+  /**
+   * Resets the resolution counters.
+   */
+  public void resetStatistics() {
+    mResolutions = 0;
+    mCacheHits = 0;
+  }
+}
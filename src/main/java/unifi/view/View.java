@@ -149,6 +149,7 @@ public class View implements Drawable.Callback {
   static final int PFLAG_WANTS_FOCUS                  = 0x00020000;
   static final int PFLAG_FOCUSED                      = 0x00040000;
   static final int PFLAG_OVER                         = 0x00080000;
+  static final int PFLAG_OCCLUDED                     = 0x00100000;
 
 
   static final int PFLAG_LAYOUT_DIRECTION_MASK_SHIFT = 24;
@@ -877,7 +878,9 @@ public class View implements Drawable.Callback {
       mPrivateFlags &= ~PFLAG_OPAQUE_BACKGROUND;
     }
 
-    // TODO: Implement support for scrollbars opacity
+    // TODO: Implement support for scrollbars opacity. Until then there are no
+    //       scrollbars which could be translucent, so they are always opaque.
+    mPrivateFlags |= PFLAG_OPAQUE_SCROLLBARS;
   }
 
   /**
@@ -2388,6 +2391,10 @@ public class View implements Drawable.Callback {
         && (mAttachInfo == null || !mAttachInfo.mIgnoreDirtyState);
     mPrivateFlags = (privateFlags & ~PFLAG_DIRTY_MASK) | PFLAG_DRAWN;
 
+    if (mAttachInfo != null && (mBackground != null || !willNotDraw())) {
+      mAttachInfo.mDrawnArea += (long) (mRight - mLeft) * (mBottom - mTop);
+    }
+
     /**
      * Draw traversal performs several drawing steps which must be executed
      * in the appropriate order:
@@ -2486,6 +2493,11 @@ public class View implements Drawable.Callback {
   @Override
   public void invalidateDrawable(@NonNull Drawable drawable) {
     if (verifyDrawable(drawable)) {
+      if (drawable == mBackground) {
+        // Opacity of the background may have changed, e.g., via setAlpha
+        computeOpaqueFlags();
+      }
+
       final Rect dirty = drawable.getDirtyBounds();
       final int scrollX = mScrollX;
       final int scrollY = mScrollY;
@@ -3201,6 +3213,24 @@ public class View implements Drawable.Callback {
      */
     boolean mInTouchMode;
 
+    /**
+     * Total area, in pixels, of all views which drew themselves during the
+     * current frame. Compared against the window area, this is the overdraw.
+     */
+    long mDrawnArea;
+
+    /**
+     * Number of views which were skipped during the current frame because they
+     * were completely hidden behind opaque siblings.
+     */
+    int mOccludedViewCount;
+
+    /**
+     * Total area, in pixels, of all views which were skipped during the current
+     * frame because they were completely hidden behind opaque siblings.
+     */
+    long mOccludedArea;
+
     AttachInfo(@NonNull ViewRoot viewRoot) {
       mViewRoot = viewRoot;
     }
@@ -99,6 +99,12 @@ public abstract class ViewGroup extends View implements ViewManager, ViewParent
    */
   static final int FLAG_INVALIDATE_REQUIRED = 0x00000008;
 
+  /**
+   * Indicates that {@link #dispatchDraw} will skip children which are
+   * completely hidden behind opaque siblings. Set by default
+   */
+  private static final int FLAG_OCCLUSION_CULLING = 0x00000010;
+
   //region FLAG_MASK_FOCUSABILITY
   /**
    * Mask of all focus flags
@@ -147,6 +153,14 @@ public abstract class ViewGroup extends View implements ViewManager, ViewParent
    * {@code null} or not considered as children
    */
   private int mChildrenCount;
+
+  /**
+   * Adds the children of this group whose inflation was deferred while it was
+   * {@link #GONE}, or {@code null} if there are none.
+   *
+   * @see JsonLayoutLoader#setLazy(boolean)
+   */
+  @Nullable private Runnable mDeferredChildren;
   //endregion
 
   /**
@@ -170,6 +184,7 @@ public abstract class ViewGroup extends View implements ViewManager, ViewParent
 
     mGroupFlags |= FLAG_CLIP_CHILDREN;
     mGroupFlags |= FLAG_CLIP_TO_PADDING;
+    mGroupFlags |= FLAG_OCCLUSION_CULLING;
 
     setDescendantFocusability(FOCUS_BEFORE_DESCENDANTS);
 
@@ -423,6 +438,33 @@ public abstract class ViewGroup extends View implements ViewManager, ViewParent
    * Called when a child view is added to this view group.
    */
   protected void onViewAdded(@NonNull View child) {}
+
+  /**
+   * Indicates whether or not the children of this group have yet to be added
+   * because their inflation was deferred while it was {@link #GONE}.
+   */
+  public boolean hasDeferredChildren() {
+    return mDeferredChildren != null;
+  }
+
+  /**
+   * Sets the task which adds the children of this group when it first stops
+   * being {@link #GONE}.
+   */
+  void setDeferredChildren(@Nullable Runnable deferredChildren) {
+    mDeferredChildren = deferredChildren;
+  }
+
+  @Override
+  public void setVisibility(@Visibility int visibility) {
+    if (visibility != GONE && mDeferredChildren != null) {
+      final Runnable deferredChildren = mDeferredChildren;
+      mDeferredChildren = null;
+      deferredChildren.run();
+    }
+
+    super.setVisibility(visibility);
+  }
   //endregion
 
   //region removeView
@@ -507,11 +549,20 @@ public abstract class ViewGroup extends View implements ViewManager, ViewParent
 
     mGroupFlags &= ~FLAG_INVALIDATE_REQUIRED;
 
+    final boolean occlusionCulling = (flags & FLAG_OCCLUSION_CULLING) == FLAG_OCCLUSION_CULLING;
+    if (occlusionCulling) {
+      computeOccludedChildren(children, count);
+    }
+
     boolean more = false;
     for (int i = 0; i < count; i++) {
       int childIndex = i;
       final View child = children[childIndex];
       if ((child.mViewFlags & VISIBILITY_MASK) == VISIBLE) {
+        if (occlusionCulling && (child.mPrivateFlags & PFLAG_OCCLUDED) == PFLAG_OCCLUDED) {
+          continue;
+        }
+
         more |= drawChild(canvas, child);
       }
     }
@@ -530,6 +581,127 @@ public abstract class ViewGroup extends View implements ViewManager, ViewParent
     }
   }
 
+  /**
+   * Indicates whether or not this view group skips drawing children which are
+   * completely hidden behind opaque siblings.
+   *
+   * @see #setOcclusionCullingEnabled(boolean)
+   */
+  public boolean isOcclusionCullingEnabled() {
+    return (mGroupFlags & FLAG_OCCLUSION_CULLING) == FLAG_OCCLUSION_CULLING;
+  }
+
+  /**
+   * Sets whether or not this view group skips drawing children which are
+   * completely hidden behind opaque siblings. A child is considered hidden if
+   * its bounds are contained within the bounds of a single sibling which is
+   * drawn after it and which {@linkplain View#isOpqaue() is opaque}. This is
+   * enabled by default.
+   *
+   * <p>Note: This should be disabled by view groups which draw their children
+   * outside of their bounds, or in an order different than the child order.
+   */
+  public void setOcclusionCullingEnabled(boolean enabled) {
+    if (isOcclusionCullingEnabled() != enabled) {
+      setBooleanFlag(FLAG_OCCLUSION_CULLING, enabled);
+      invalidate();
+    }
+  }
+
+  /**
+   * Maximum number of opaque sibling bounds accumulated while culling. This
+   * bounds the culling pass to {@code O(n)} for large groups.
+   */
+  private static final int MAX_OCCLUDERS = 8;
+
+  /**
+   * Bounds of the opaque children accumulated by
+   * {@link #computeOccludedChildren}. Drawing only happens on the UI thread and
+   * the culling pass is not reentrant, so these are shared by all groups.
+   */
+  @NonNull private static final Rect[] sOccluders = new Rect[MAX_OCCLUDERS];
+
+  /**
+   * Walks the children front-to-back (from the last drawn to the first) while
+   * accumulating the bounds of the opaque children found, and marks every
+   * visible child which is completely covered by one of those bounds with
+   * {@link #PFLAG_OCCLUDED}.
+   *
+   * @return The number of children which were marked as occluded
+   */
+  private int computeOccludedChildren(@NonNull View[] children, int count) {
+    final Rect[] occluders = sOccluders;
+    int occludersCount = 0;
+    int occludedCount = 0;
+    long occludedArea = 0;
+    for (int i = count - 1; i >= 0; i--) {
+      final View child = children[i];
+      child.mPrivateFlags &= ~PFLAG_OCCLUDED;
+      if ((child.mViewFlags & VISIBILITY_MASK) != VISIBLE) {
+        continue;
+      }
+
+      final int left = child.mLeft;
+      final int top = child.mTop;
+      final int right = child.mRight;
+      final int bottom = child.mBottom;
+      if (left >= right || top >= bottom) {
+        continue;
+      }
+
+      boolean occluded = false;
+      for (int j = 0; j < occludersCount; j++) {
+        if (occluders[j].contains(left, top, right, bottom)) {
+          occluded = true;
+          break;
+        }
+      }
+
+      if (occluded) {
+        child.mPrivateFlags |= PFLAG_OCCLUDED;
+        occludedCount++;
+        occludedArea += (long) (right - left) * (bottom - top);
+        continue;
+      }
+
+      if (child.isOpqaue()) {
+        // Replace any bounds this child covers, otherwise append if possible
+        int j = 0;
+        while (j < occludersCount) {
+          final Rect occluder = occluders[j];
+          if (left <= occluder.left && top <= occluder.top
+              && right >= occluder.right && bottom >= occluder.bottom) {
+            break;
+          }
+
+          j++;
+        }
+
+        if (j == occludersCount) {
+          if (occludersCount == MAX_OCCLUDERS) {
+            continue;
+          }
+
+          if (occluders[j] == null) {
+            occluders[j] = new Rect();
+          }
+
+          occludersCount++;
+        }
+
+        occluders[j].set(left, top, right, bottom);
+      }
+    }
+
+    final AttachInfo ai = mAttachInfo;
+    if (ai != null) {
+      ai.mOccludedViewCount += occludedCount;
+      ai.mOccludedArea += occludedArea;
+    }
+
+    return occludedCount;
+  }
+
   protected boolean drawChild(@NonNull Canvas canvas, @NonNull View child) {
     // TODO: Support boolean draw(Canvas, ViewGroup, long) ?
     child.draw(canvas);
@@ -23,8 +23,11 @@ import java.util.Collection;
 import java.util.Collections;
 
 import unifi.content.Context;
+import unifi.content.res.ImageLoader;
+import unifi.content.res.Resources;
 import unifi.graphics.Canvas;
 import unifi.graphics.Rect;
+import unifi.graphics.TextureRegistry;
 import unifi.runtime.AbstractHandler;
 import unifi.runtime.Handler;
 import unifi.runtime.Message;
@@ -124,6 +127,9 @@ public class ViewRoot implements ViewParent, Disposable, InputProcessor {
     }
 
     ((OrthographicCamera) mCamera).setToOrtho(true);
+
+    // Draw solid colors from the atlas so they batch with packed images
+    mCanvas.setSolidColorRegion(mContext.getResources().getAtlas().getWhitePixel());
   }
   //endregion
 
@@ -214,12 +220,76 @@ public class ViewRoot implements ViewParent, Disposable, InputProcessor {
       }
     }
 
+    final View.AttachInfo ai = mAttachInfo;
+    ai.mDrawnArea = 0;
+    ai.mOccludedViewCount = 0;
+    ai.mOccludedArea = 0;
+
+    final Resources res = mContext.getResources();
+    res.updateImages(ImageLoader.DEFAULT_UPLOAD_BUDGET_NANOS);
+    res.getAtlas().update();
+
     Canvas canvas = mCanvas;
     canvas.begin();
     mView.draw(canvas);
     canvas.end();
+
+    // Evict the textures which were not drawn if over the budget
+    TextureRegistry.getInstance().trim();
+  }
+
+  //region Draw Statistics
+  /**
+   * Returns the overdraw of the last frame, that is, the total area of all
+   * views which drew themselves divided by the area of this view root. A value
+   * of {@code 1.0} means each pixel was drawn once on average.
+   */
+  public float getOverdraw() {
+    final long area = (long) mWidth * mHeight;
+    if (area <= 0) {
+      return 0;
+    }
+
+    return (float) mAttachInfo.mDrawnArea / area;
+  }
+
+  /**
+   * Returns the overdraw avoided during the last frame by skipping views which
+   * were completely hidden behind opaque siblings, that is, the total area of
+   * the skipped views divided by the area of this view root.
+   *
+   * @see ViewGroup#setOcclusionCullingEnabled(boolean)
+   */
+  public float getOccludedOverdraw() {
+    final long area = (long) mWidth * mHeight;
+    if (area <= 0) {
+      return 0;
+    }
+
+    return (float) mAttachInfo.mOccludedArea / area;
+  }
+
+  /**
+   * Returns the number of render calls issued while drawing the last frame, or
+   * {@code -1} if the batch used does not report it.
+   *
+   * @see Canvas#getRenderCalls()
+   */
+  public int getRenderCalls() {
+    return mCanvas.getRenderCalls();
   }
 
+  /**
+   * Returns the number of views which were skipped during the last frame
+   * because they were completely hidden behind opaque siblings.
+   *
+   * @see ViewGroup#setOcclusionCullingEnabled(boolean)
+   */
+  public int getOccludedViewCount() {
+    return mAttachInfo.mOccludedViewCount;
+  }
+  //endregion
+
   //region Layout
   /**
    * Invalidates the entire contents of the view root and requests that another
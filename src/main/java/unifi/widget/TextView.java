@@ -0,0 +1,221 @@
+package unifi.widget;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import unifi.content.Context;
+import unifi.graphics.Canvas;
+import unifi.graphics.Color;
+import unifi.graphics.Font;
+import unifi.graphics.GlyphRun;
+import unifi.graphics.Paint;
+import unifi.text.TextLayout;
+import unifi.text.TextLayoutCache;
+import unifi.view.MeasureSpec;
+import unifi.view.View;
+
+/**
+ * A view that displays text, broken into lines which fit within its width.
+ * Lines are broken through the {@link TextLayoutCache}, so measuring the same
+ * text again, e.g., in a later layout pass, does not break it again, and the
+ * {@link GlyphRun glyph runs} of its lines are retained between frames, so
+ * drawing static text does not lay out its glyphs again.
+ */
+public class TextView extends View {
+
+  @NonNull private CharSequence mText = "";
+
+  @NonNull private final Paint mTextPaint = new Paint();
+
+  /**
+   * Layout of {@link #mText} within the width of this view, or {@code null} if
+   * it has not been measured since the text or paint last changed.
+   */
+  @Nullable private TextLayout mLayout;
+
+  /**
+   * Glyph runs of the lines of {@link #mLayout}, lazily laid out.
+   */
+  @Nullable private GlyphRun[] mLineRuns;
+
+  public TextView(@Nullable Context context) {
+    super(context);
+    mTextPaint.setColor(Color.BLACK);
+    if (context != null) {
+      mTextPaint.setFont(context.getResources().getDefaultFont());
+    }
+
+    setWillNotDraw(false);
+  }
+
+  /**
+   * Returns the text displayed by this view.
+   */
+  @NonNull
+  public CharSequence getText() {
+    return mText;
+  }
+
+  /**
+   * Sets the text displayed by this view.
+   */
+  public void setText(@Nullable CharSequence text) {
+    if (text == null) {
+      text = "";
+    }
+
+    if (!mText.toString().contentEquals(text)) {
+      mText = text;
+      setLayout(null);
+      requestLayout();
+      invalidate();
+    }
+  }
+
+  /**
+   * Returns the color of the text.
+   */
+  @ColorInt
+  public int getTextColor() {
+    return mTextPaint.getColor();
+  }
+
+  /**
+   * Sets the color of the text.
+   */
+  public void setTextColor(@ColorInt int color) {
+    if (mTextPaint.getColor() != color) {
+      mTextPaint.setColor(color);
+      invalidate();
+    }
+  }
+
+  /**
+   * Returns the line height of the text, in pixels, or {@code 0} if the text
+   * is displayed at the natural size of its font.
+   */
+  public float getTextSize() {
+    return mTextPaint.getTextSize();
+  }
+
+  /**
+   * Sets the line height of the text, in pixels, or {@code 0} to display the
+   * text at the natural size of its font.
+   */
+  public void setTextSize(float size) {
+    if (mTextPaint.getTextSize() != size) {
+      mTextPaint.setTextSize(size);
+      setLayout(null);
+      requestLayout();
+      invalidate();
+    }
+  }
+
+  /**
+   * Returns the font of the text, or {@code null} if none has been set.
+   */
+  @Nullable
+  public Font getFont() {
+    return mTextPaint.getFont();
+  }
+
+  /**
+   * Sets the font of the text.
+   */
+  public void setFont(@Nullable Font font) {
+    if (mTextPaint.getFont() != font) {
+      mTextPaint.setFont(font);
+      setLayout(null);
+      requestLayout();
+      invalidate();
+    }
+  }
+
+  /**
+   * Returns the paint used to draw the text. Changes to the paint do not
+   * request a new layout or invalidate this view.
+   */
+  @NonNull
+  public Paint getPaint() {
+    return mTextPaint;
+  }
+
+  /**
+   * Returns the layout of the text within the specified width, or {@code null}
+   * if there is no font to measure it with.
+   */
+  @Nullable
+  private TextLayout getLayout(int width) {
+    if (mTextPaint.getFont() == null) {
+      return null;
+    }
+
+    if (mLayout == null
+        || mLayout.getFont() != mTextPaint.getFont()
+        || mLayout.getTextSize() != mTextPaint.getTextSize()
+        || mLayout.getWidthConstraint() != width) {
+      setLayout(TextLayoutCache.getInstance().getLayout(mText, mTextPaint, width));
+    }
+
+    return mLayout;
+  }
+
+  private void setLayout(@Nullable TextLayout layout) {
+    if (mLayout != layout) {
+      mLayout = layout;
+      mLineRuns = layout != null ? new GlyphRun[layout.getLineCount()] : null;
+    }
+  }
+
+  @Override
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+    final int availableWidth = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED
+        ? TextLayoutCache.UNBOUNDED
+        : MeasureSpec.getSize(widthMeasureSpec) - horizontalPadding;
+
+    int width = horizontalPadding;
+    int height = getPaddingTop() + getPaddingBottom();
+    final TextLayout layout = getLayout(Math.max(availableWidth, 0));
+    if (layout != null) {
+      width += (int) Math.ceil(layout.getWidth());
+      height += (int) Math.ceil(layout.getHeight());
+    }
+
+    width = Math.max(width, getSuggestedMinimumWidth());
+    height = Math.max(height, getSuggestedMinimumHeight());
+    setMeasuredDimension(
+        resolveSize(width, widthMeasureSpec),
+        resolveSize(height, heightMeasureSpec));
+  }
+
+  @Override
+  protected void onDraw(@NonNull Canvas canvas) {
+    final int availableWidth = getWidth() - getPaddingLeft() - getPaddingRight();
+    TextLayout layout = mLayout;
+    if (layout == null
+        || (layout.getWidthConstraint() != TextLayoutCache.UNBOUNDED
+            && layout.getWidthConstraint() != availableWidth)) {
+      layout = getLayout(Math.max(availableWidth, 0));
+      if (layout == null) {
+        return;
+      }
+    }
+
+    final Font font = layout.getFont();
+    final GlyphRun[] runs = mLineRuns;
+    final int left = getPaddingLeft();
+    final int top = getPaddingTop();
+    for (int i = 0, lineCount = layout.getLineCount(); i < lineCount; i++) {
+      GlyphRun run = runs[i];
+      if (run == null) {
+        run = runs[i] = font.getGlyphRun(layout.getLineText(i));
+      }
+
+      if (run.getGlyphCount() > 0) {
+        canvas.drawTextRun(run, left, top + layout.getLineTop(i), mTextPaint);
+      }
+    }
+  }
+}
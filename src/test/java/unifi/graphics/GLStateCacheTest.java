@@ -0,0 +1,121 @@
+package unifi.graphics;
+
+import com.badlogic.gdx.graphics.GL20;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class GLStateCacheTest {
+
+  private final List<String> mCalls = new ArrayList<>();
+  private GLStateCache mState;
+
+  @Before
+  public void setUp() {
+    final GL20 gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(),
+        new Class<?>[] { GL20.class }, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            mCalls.add(method.getName());
+            return null;
+          }
+        });
+    mState = new GLStateCache(gl);
+  }
+
+  @Test
+  public void setScissorElidesUnchangedState() {
+    mState.setScissorTestEnabled(true);
+    mState.setScissor(0, 0, 10, 10);
+    mState.setScissorTestEnabled(true);
+    mState.setScissor(0, 0, 10, 10);
+    assertFalse(mState.wouldChangeScissorTest(true));
+    assertFalse(mState.wouldChangeScissor(0, 0, 10, 10));
+    assertEquals(2, mState.getIssuedCalls());
+    assertEquals(2, mState.getElidedCalls());
+
+    mState.setScissor(0, 0, 10, 20);
+    mState.setScissorTestEnabled(false);
+    assertEquals(Arrays.asList("glEnable", "glScissor", "glScissor", "glDisable"), mCalls);
+    assertEquals(4, mState.getIssuedCalls());
+    assertEquals(2, mState.getElidedCalls());
+  }
+
+  @Test
+  public void setBlendingElidesUnchangedState() {
+    mState.setBlendingEnabled(true);
+    mState.setBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+    mState.setBlendingEnabled(true);
+    mState.setBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA,
+        GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+    assertEquals(2, mState.getIssuedCalls());
+    assertEquals(2, mState.getElidedCalls());
+
+    mState.setBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA,
+        GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+    mState.setBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA,
+        GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+    mState.setBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+    mState.setBlendingEnabled(false);
+    assertEquals(Arrays.asList("glEnable", "glBlendFunc", "glBlendFuncSeparate", "glBlendFunc",
+        "glDisable"), mCalls);
+    assertEquals(5, mState.getIssuedCalls());
+    assertEquals(3, mState.getElidedCalls());
+  }
+
+  @Test
+  public void bindTextureElidesBoundTextures() {
+    mState.bindTexture(1, 7);
+    mState.bindTexture(0, 3);
+    mState.bindTexture(1, 7);
+    mState.bindTexture(0, 3);
+    assertEquals(4, mCalls.size());
+    assertEquals(4, mState.getIssuedCalls());
+
+    mState.bindTexture(1, 8);
+    assertEquals(6, mCalls.size());
+    assertEquals("glActiveTexture", mCalls.get(4));
+    assertEquals("glBindTexture", mCalls.get(5));
+  }
+
+  @Test
+  public void setActiveTextureElidesActiveUnit() {
+    mState.bindTexture(2, 5);
+    mState.setActiveTexture(2);
+    assertEquals(2, mCalls.size());
+    mState.setActiveTexture(0);
+    assertEquals(3, mCalls.size());
+  }
+
+  @Test
+  public void useProgramElidesCurrentProgram() {
+    mState.useProgram(4);
+    mState.useProgram(4);
+    mState.useProgram(0);
+    assertEquals(2, mCalls.size());
+    assertEquals(1, mState.getElidedCalls());
+  }
+
+  @Test
+  public void invalidateForgetsState() {
+    mState.bindTexture(0, 3);
+    mState.useProgram(4);
+    mState.setScissorTestEnabled(true);
+    mCalls.clear();
+    mState.invalidate();
+    mState.bindTexture(0, 3);
+    mState.useProgram(4);
+    mState.setScissorTestEnabled(true);
+    assertEquals(4, mCalls.size());
+  }
+}
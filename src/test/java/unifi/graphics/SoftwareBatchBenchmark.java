@@ -0,0 +1,130 @@
+package unifi.graphics;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how tiled rendering with {@link SoftwareBatch} scales with the
+ * number of threads, by rendering the same 3840x2160 scene with a
+ * {@link ForkJoinPool} of every parallelism from 1 up to the number of
+ * available processors, after rendering it immediately as a baseline.
+ *
+ * <p>Usage: {@code SoftwareBatchBenchmark [frames] [tileSize]}
+ */
+public class SoftwareBatchBenchmark {
+
+  private static final int WIDTH = 3840;
+  private static final int HEIGHT = 2160;
+  private static final int QUAD_SIZE = 96;
+
+  private static final int WARMUP_FRAMES = 3;
+
+  private SoftwareBatchBenchmark() {}
+
+  public static void main(String[] args) {
+    final int frames = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    final int tileSize = args.length > 1
+        ? Integer.parseInt(args[1])
+        : SoftwareBatch.DEFAULT_TILE_SIZE;
+    GdxNativesLoader.load();
+    // Textures are created without a GPU, SoftwareBatch only reads their data
+    Gdx.gl = createGL();
+
+    final Pixmap pixmap = new Pixmap(32, 32, Pixmap.Format.RGBA8888);
+    for (int y = 0; y < 32; y++) {
+      for (int x = 0; x < 32; x++) {
+        pixmap.drawPixel(x, y, ((x / 4 + y / 4) & 1) == 0 ? 0xFF4080FF : 0x20C0407F);
+      }
+    }
+
+    final Texture texture = new Texture(pixmap);
+    final int processors = Runtime.getRuntime().availableProcessors();
+    System.out.println("surface: " + WIDTH + "x" + HEIGHT + ", tiles: " + tileSize
+        + "px, processors: " + processors);
+
+    report("immediate", run(new SoftwareBatch(WIDTH, HEIGHT), texture, frames), frames);
+    for (int n = 1; n <= processors; n++) {
+      final ForkJoinPool pool = new ForkJoinPool(n);
+      final SoftwareBatch batch = new SoftwareBatch(WIDTH, HEIGHT, tileSize, pool);
+      report("threads=" + n, run(batch, texture, frames), frames);
+      pool.shutdown();
+    }
+
+    texture.dispose();
+    pixmap.dispose();
+    Gdx.gl = null;
+  }
+
+  /**
+   * Draws the scene with the specified batch for a number of frames, after
+   * warming it up.
+   *
+   * @return The time taken, in nanoseconds
+   */
+  private static long run(SoftwareBatch batch, Texture texture, int frames) {
+    for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+      drawFrame(batch, texture);
+    }
+
+    final long start = System.nanoTime();
+    for (int frame = 0; frame < frames; frame++) {
+      drawFrame(batch, texture);
+    }
+
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Draws an opaque background covering the surface, and over it a grid of
+   * translucent, tinted quads, every other one rotated.
+   */
+  private static void drawFrame(SoftwareBatch batch, Texture texture) {
+    batch.begin();
+    batch.setColor(1, 1, 1, 1);
+    batch.draw(texture, 0, 0, WIDTH, HEIGHT);
+    int i = 0;
+    for (int y = 0; y < HEIGHT; y += QUAD_SIZE) {
+      for (int x = 0; x < WIDTH; x += QUAD_SIZE) {
+        batch.setColor((i % 5) / 4f, (i % 3) / 2f, (i % 7) / 6f, 0.25f + (i % 4) / 4f);
+        batch.draw(texture, x, y, QUAD_SIZE / 2, QUAD_SIZE / 2, QUAD_SIZE, QUAD_SIZE,
+            1, 1, (i & 1) == 0 ? 0 : i * 13.5f, 0, 0, 32, 32, false, false);
+        i++;
+      }
+    }
+
+    batch.end();
+  }
+
+  private static void report(String name, long nanos, int frames) {
+    System.out.println(name + ": " + nanos / frames / 1000000f + "ms per frame");
+  }
+
+  /**
+   * Returns a {@link GL20} which does nothing, so textures can be created
+   * headless.
+   */
+  private static GL20 createGL() {
+    return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(),
+        new Class<?>[] { GL20.class }, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            final Class<?> type = method.getReturnType();
+            if (type == int.class) {
+              return 0;
+            } else if (type == boolean.class) {
+              return false;
+            }
+
+            return null;
+          }
+        });
+  }
+}
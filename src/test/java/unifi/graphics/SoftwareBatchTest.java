@@ -0,0 +1,111 @@
+package unifi.graphics;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SoftwareBatchTest {
+
+  private static final int WIDTH = 150;
+  private static final int HEIGHT = 97;
+  private static final int TILE_SIZE = 16;
+
+  private static Pixmap sPixmap;
+  private static Texture sTexture;
+  private static ForkJoinPool sPool;
+
+  @BeforeClass
+  public static void setUpClass() {
+    GdxNativesLoader.load();
+    // Textures are created without a GPU, SoftwareBatch only reads their data
+    Gdx.gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(),
+        new Class<?>[] { GL20.class }, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            final Class<?> type = method.getReturnType();
+            if (type == int.class) {
+              return 0;
+            } else if (type == boolean.class) {
+              return false;
+            }
+
+            return null;
+          }
+        });
+
+    sPixmap = new Pixmap(8, 8, Pixmap.Format.RGBA8888);
+    for (int y = 0; y < 8; y++) {
+      for (int x = 0; x < 8; x++) {
+        sPixmap.drawPixel(x, y, ((x + y) & 1) == 0 ? 0xFF4080FF : 0x20C0407F);
+      }
+    }
+
+    sTexture = new Texture(sPixmap);
+    sPool = new ForkJoinPool(4);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    sPool.shutdown();
+    sPixmap.dispose();
+    Gdx.gl = null;
+  }
+
+  /**
+   * Draws overlapping, rotated, scaled, translucent and clipped quads with
+   * the blend functions of {@link Canvas}.
+   */
+  private static void drawScene(SoftwareBatch batch) {
+    final TextureRegion region = new TextureRegion(sTexture, 1, 1, 6, 6);
+    batch.begin();
+    batch.setColor(1, 1, 1, 1);
+    batch.draw(sTexture, 0, 0, WIDTH, HEIGHT);
+    for (int i = 0; i < 40; i++) {
+      batch.setColor((i % 5) / 4f, (i % 3) / 2f, (i % 7) / 6f, 0.25f + (i % 4) / 4f);
+      batch.draw(region, (i * 37) % WIDTH - 10, (i * 23) % HEIGHT - 10, 12, 9,
+          24 + i % 17, 18 + i % 11, 1 + (i % 3) * 0.5f, 1, i * 13.5f);
+      if (i == 20) {
+        batch.flush();
+        batch.setScissorTestEnabled(true);
+        batch.setScissor(17, 9, 70, 51);
+        batch.setBlendFunctionSeparate(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA,
+            GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+      }
+    }
+
+    batch.disableBlending();
+    batch.setScissorTestEnabled(false);
+    batch.setColor(0, 1, 0, 0.5f);
+    batch.draw(sTexture, WIDTH - 20.5f, HEIGHT - 15.25f, 33, 21);
+    batch.end();
+  }
+
+  @Test
+  public void tiledRenderingIsPixelIdenticalToImmediate() {
+    final SoftwareBatch immediate = new SoftwareBatch(WIDTH, HEIGHT);
+    final SoftwareBatch tiled = new SoftwareBatch(WIDTH, HEIGHT, TILE_SIZE, sPool);
+    assertTrue(tiled.isTiled());
+
+    drawScene(immediate);
+    drawScene(tiled);
+    assertTrue(tiled.tilesRasterized > 0);
+    assertNotEquals(0, immediate.getPixel(WIDTH / 2, HEIGHT / 2));
+    assertArrayEquals(immediate.getPixels(), tiled.getPixels());
+  }
+}
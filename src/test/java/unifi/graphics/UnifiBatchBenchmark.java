@@ -0,0 +1,147 @@
+package unifi.graphics;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * Compares the render calls and the CPU time per frame of {@link SpriteBatch}
+ * and {@link UnifiBatch} drawing the same dense scene, a grid of small quads
+ * whose textures and tints alternate between neighbors, like a screen of
+ * icons loaded as their own textures.
+ *
+ * <p>The batches run headless against a {@link GL20} whose calls do nothing
+ * but be counted, so the time per frame is the CPU time spent filling and
+ * submitting the batches, not including the driver or the GPU.
+ *
+ * <p>Usage: {@code UnifiBatchBenchmark [frames] [textures]}
+ */
+public class UnifiBatchBenchmark {
+
+  private static final int COLUMNS = 120;
+  private static final int ROWS = 80;
+  private static final int QUAD_SIZE = 16;
+
+  private static final int WARMUP_FRAMES = 200;
+
+  private static int sGlCalls;
+
+  private UnifiBatchBenchmark() {}
+
+  public static void main(String[] args) {
+    final int frames = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    final int textureCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    // Textures are managed through Gdx.app
+    new HeadlessApplication(new ApplicationAdapter() {});
+    Gdx.gl = Gdx.gl20 = createGL();
+
+    final Texture[] textures = new Texture[textureCount];
+    final Pixmap pixmap = new Pixmap(QUAD_SIZE, QUAD_SIZE, Pixmap.Format.RGBA8888);
+    for (int i = 0; i < textureCount; i++) {
+      textures[i] = new Texture(pixmap);
+    }
+
+    pixmap.dispose();
+    System.out.println("quads: " + COLUMNS * ROWS + ", textures: " + textureCount);
+
+    final SpriteBatch spriteBatch = new SpriteBatch();
+    final UnifiBatch unifiBatch = new UnifiBatch();
+    run(spriteBatch, textures, WARMUP_FRAMES);
+    run(unifiBatch, textures, WARMUP_FRAMES);
+
+    final long spriteNanos = run(spriteBatch, textures, frames);
+    report("SpriteBatch", spriteNanos, spriteBatch.renderCalls, frames);
+    final long unifiNanos = run(unifiBatch, textures, frames);
+    report("UnifiBatch", unifiNanos, unifiBatch.renderCalls, frames);
+
+    spriteBatch.dispose();
+    unifiBatch.dispose();
+    for (Texture texture : textures) {
+      texture.dispose();
+    }
+
+    Gdx.app.exit();
+  }
+
+  /**
+   * Draws the scene with the specified batch for a number of frames.
+   *
+   * @return The time taken, in nanoseconds
+   */
+  private static long run(Batch batch, Texture[] textures, int frames) {
+    sGlCalls = 0;
+    final long start = System.nanoTime();
+    for (int frame = 0; frame < frames; frame++) {
+      drawFrame(batch, textures);
+    }
+
+    return System.nanoTime() - start;
+  }
+
+  private static void drawFrame(Batch batch, Texture[] textures) {
+    batch.begin();
+    for (int row = 0; row < ROWS; row++) {
+      for (int column = 0; column < COLUMNS; column++) {
+        final int i = row * COLUMNS + column;
+        batch.setColor(1f, 1f, 1f, i % 2 == 0 ? 1f : 0.5f);
+        batch.draw(textures[i % textures.length],
+            column * QUAD_SIZE, row * QUAD_SIZE, QUAD_SIZE, QUAD_SIZE);
+      }
+    }
+
+    batch.end();
+  }
+
+  private static void report(String name, long nanos, int renderCalls, int frames) {
+    System.out.println(name + ": " + renderCalls + " render calls, "
+        + sGlCalls / frames + " GL calls, " + nanos / frames + "ns per frame");
+  }
+
+  /**
+   * Returns a {@link GL20} which only counts its calls, and reports shaders
+   * as compiled and linked.
+   */
+  private static GL20 createGL() {
+    return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(),
+        new Class<?>[] { GL20.class }, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            sGlCalls++;
+            switch (method.getName()) {
+              case "glGetIntegerv":
+              case "glGetShaderiv":
+              case "glGetProgramiv":
+                // The name precedes the buffer receiving the value
+                final int pname = (Integer) args[args.length - 2];
+                final boolean count = pname == GL20.GL_ACTIVE_UNIFORMS
+                    || pname == GL20.GL_ACTIVE_ATTRIBUTES;
+                ((IntBuffer) args[args.length - 1]).put(0, count ? 0 : 16);
+                return null;
+              case "glGetShaderInfoLog":
+              case "glGetProgramInfoLog":
+                return "";
+            }
+
+            final Class<?> type = method.getReturnType();
+            if (type == int.class) {
+              // Non-zero handles and locations
+              return 1;
+            } else if (type == boolean.class) {
+              return false;
+            }
+
+            return null;
+          }
+        });
+  }
+}
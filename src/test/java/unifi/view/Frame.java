@@ -0,0 +1,15 @@
+package unifi.view;
+
+import unifi.content.Context;
+
+/**
+ * Concrete view group for tests, since Unifi does not provide one.
+ */
+public class Frame extends ViewGroup {
+  public Frame(Context context) {
+    super(context);
+  }
+
+  @Override
+  protected void onLayout(boolean changed, int left, int top, int right, int bottom) {}
+}
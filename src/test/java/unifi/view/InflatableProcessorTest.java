@@ -0,0 +1,159 @@
+package unifi.view;
+
+import com.google.common.io.ByteStreams;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static org.junit.Assert.assertEquals;
+
+public class InflatableProcessorTest {
+
+  private static final JavaFileObject BADGE = JavaFileObjects.forSourceLines("com.example.Badge",
+      "package com.example;",
+      "",
+      "import unifi.content.Context;",
+      "import unifi.view.Inflatable;",
+      "import unifi.view.View;",
+      "",
+      "@Inflatable",
+      "public class Badge extends View {",
+      "  public Badge(Context context) {",
+      "    super(context);",
+      "  }",
+      "",
+      "  @Inflatable",
+      "  public static class Large extends Badge {",
+      "    public Large(Context context) {",
+      "      super(context);",
+      "    }",
+      "  }",
+      "}");
+
+  private static Compilation compile(JavaFileObject... sources) {
+    return javac().withProcessors(new InflatableProcessor()).compile(sources);
+  }
+
+  @Test
+  public void generatesFactoriesInPackage() throws Exception {
+    final Compilation compilation = compile(BADGE);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("com.example." + InflatableProcessor.CLASS_NAME)
+        .contentsAsUtf8String()
+        .contains("registerFactory(\"com.example.Badge$Large\", new Factory(1));");
+    assertThat(compilation)
+        .generatedSourceFile("com.example." + InflatableProcessor.CLASS_NAME)
+        .contentsAsUtf8String()
+        .contains("registerFactory(\"com.example.Badge.Large\", new Factory(1));");
+
+    final ClassLoader loader = new CompilationClassLoader(compilation);
+    loader.loadClass("com.example." + InflatableProcessor.CLASS_NAME)
+        .getMethod("register")
+        .invoke(null);
+    assertEquals("com.example.Badge",
+        LayoutInflater.getFactory("com.example.Badge").createView(null).getClass().getName());
+    assertEquals("com.example.Badge$Large",
+        LayoutInflater.getFactory("com.example.Badge$Large").createView(null).getClass()
+            .getName());
+    assertEquals("com.example.Badge$Large",
+        LayoutInflater.getFactory("com.example.Badge.Large").createView(null).getClass()
+            .getName());
+  }
+
+  @Test
+  public void generatesOneClassPerPackage() {
+    final Compilation compilation = compile(BADGE, JavaFileObjects.forSourceLines(
+        "com.example.other.Chip",
+        "package com.example.other;",
+        "",
+        "@unifi.view.Inflatable",
+        "public class Chip extends unifi.view.View {",
+        "  public Chip(unifi.content.Context context) {",
+        "    super(context);",
+        "  }",
+        "}"));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("com.example." + InflatableProcessor.CLASS_NAME)
+        .contentsAsUtf8String()
+        .doesNotContain("Chip");
+    assertThat(compilation)
+        .generatedSourceFile("com.example.other." + InflatableProcessor.CLASS_NAME)
+        .contentsAsUtf8String()
+        .contains("new com.example.other.Chip(context)");
+  }
+
+  @Test
+  public void rejectsClassWhichIsNotView() {
+    final Compilation compilation = compile(JavaFileObjects.forSourceLines("com.example.Label",
+        "package com.example;",
+        "",
+        "@unifi.view.Inflatable",
+        "public class Label {",
+        "  public Label(unifi.content.Context context) {}",
+        "}"));
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorContaining("must extend unifi.view.View");
+  }
+
+  @Test
+  public void rejectsViewWithoutContextConstructor() {
+    final Compilation compilation = compile(JavaFileObjects.forSourceLines("com.example.Label",
+        "package com.example;",
+        "",
+        "@unifi.view.Inflatable",
+        "public class Label extends unifi.view.View {",
+        "  public Label() {",
+        "    super(null);",
+        "  }",
+        "}"));
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorContaining("public (unifi.content.Context) constructor");
+  }
+
+  /**
+   * Loads the classes of a compilation, and the other classes from the class
+   * loader of the test.
+   */
+  private static final class CompilationClassLoader extends ClassLoader {
+    private final Map<String, JavaFileObject> mClasses = new HashMap<>();
+
+    CompilationClassLoader(Compilation compilation) {
+      super(InflatableProcessorTest.class.getClassLoader());
+      for (JavaFileObject file : compilation.generatedFiles()) {
+        if (file.getKind() == JavaFileObject.Kind.CLASS) {
+          final String path = file.toUri().getPath();
+          final String name = path.substring(path.indexOf("/com/") + 1,
+              path.length() - JavaFileObject.Kind.CLASS.extension.length());
+          mClasses.put(name.replace('/', '.'), file);
+        }
+      }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      final JavaFileObject file = mClasses.get(name);
+      if (file == null) {
+        throw new ClassNotFoundException(name);
+      }
+
+      try (InputStream in = file.openInputStream()) {
+        final byte[] bytes = ByteStreams.toByteArray(in);
+        return defineClass(name, bytes, 0, bytes.length);
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
+}
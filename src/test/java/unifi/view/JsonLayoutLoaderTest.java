@@ -0,0 +1,123 @@
+package unifi.view;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import unifi.content.Context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonLayoutLoaderTest {
+
+  private Context mContext;
+  private JsonLayoutLoader mLoader;
+
+  @BeforeClass
+  public static void setUpClass() {
+    // Views log through Gdx.app when they are added to a group
+    Gdx.app = (Application) Proxy.newProxyInstance(Application.class.getClassLoader(),
+        new Class<?>[] { Application.class }, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            return method.getReturnType() == int.class ? 0 : null;
+          }
+        });
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    Gdx.app = null;
+  }
+
+  @Before
+  public void setUp() {
+    mContext = new Context();
+    mLoader = new JsonLayoutLoader(mContext);
+  }
+
+  private View load(String json) {
+    return mLoader.load(new StringReader(json.replace('\'', '"')), null, false);
+  }
+
+  @Test
+  public void rootDeclaresStyles() {
+    final ViewGroup root = (ViewGroup) load("{"
+        + "'class': 'unifi.view.Frame',"
+        + "'styles': {"
+        + "  'Card': { 'padding': 8, 'visibility': 'invisible' },"
+        + "  'Wide': { 'parent': 'Card', 'paddingLeft': 16 }"
+        + "},"
+        + "'style': 'Card',"
+        + "'children': ["
+        + "  { 'class': 'View', 'style': 'Wide', 'visibility': 'visible' }"
+        + "]}");
+    assertEquals(8, root.getPaddingLeft());
+    assertEquals(View.INVISIBLE, root.getVisibility());
+
+    final View child = root.getChildAt(0);
+    assertEquals(16, child.getPaddingLeft());
+    assertEquals(8, child.getPaddingTop());
+    assertEquals(View.VISIBLE, child.getVisibility());
+    assertNotNull(mContext.getStyleResolver().getStyle("Wide"));
+  }
+
+  @Test
+  public void rejectsStylesOfChildren() {
+    try {
+      load("{'class': 'unifi.view.Frame', 'children': ["
+          + "  { 'class': 'View', 'styles': {} }"
+          + "]}");
+      fail();
+    } catch (InflateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("root view"));
+    }
+  }
+
+  @Test
+  public void rejectsUnknownParentStyle() {
+    try {
+      load("{'class': 'View', 'styles': { 'Wide': { 'parent': 'Card' } }}");
+      fail();
+    } catch (InflateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("Unknown parent style"));
+    }
+  }
+
+  @Test
+  public void lazyChildrenShareStringsAndClasses() {
+    mLoader.setLazy(true);
+    final ViewGroup root = (ViewGroup) load("{"
+        + "'class': 'unifi.view.Frame', 'visibility': 'gone', 'children': ["
+        + "  { 'class': 'View', 'id': 1 },"
+        + "  { 'class': 'unifi.view.Frame', 'children': ["
+        + "    { 'class': 'View', 'id': 2 },"
+        + "    { 'class': 'View', 'id': 3 }"
+        + "  ]},"
+        + "  { 'class': 'View', 'id': 4 }"
+        + "]}");
+    assertTrue(root.hasDeferredChildren());
+    assertEquals(0, root.getChildCount());
+
+    root.setVisibility(View.VISIBLE);
+    assertFalse(root.hasDeferredChildren());
+    assertEquals(3, root.getChildCount());
+    assertEquals(View.class, root.getChildAt(0).getClass());
+    assertEquals(Frame.class, root.getChildAt(1).getClass());
+    assertEquals(2, ((ViewGroup) root.getChildAt(1)).getChildCount());
+    assertEquals(View.class, root.getChildAt(2).getClass());
+  }
+}
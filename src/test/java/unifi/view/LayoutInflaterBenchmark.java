@@ -0,0 +1,106 @@
+package unifi.view;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+
+import java.io.StringReader;
+
+import unifi.content.Context;
+
+/**
+ * Compares the time taken to inflate a screen of 500 views from its XML
+ * layout, from its compiled layout, and from its compiled layout once it has
+ * been read.
+ *
+ * <p>Usage: {@code LayoutInflaterBenchmark [iterations]}
+ */
+public class LayoutInflaterBenchmark {
+
+  private static final int GROUPS = 19;
+  private static final int CHILDREN_PER_GROUP = 25;
+  private static final int ROOT_CHILDREN = 5;
+
+  private static final int WARMUP_ITERATIONS = 200;
+
+  private LayoutInflaterBenchmark() {}
+
+  public static void main(String[] args) throws Exception {
+    final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    // Views log through Gdx.app
+    new HeadlessApplication(new ApplicationAdapter() {});
+    final String xml = createLayout();
+    final byte[] bytes = CompiledLayout.compile(
+        LayoutInflater.newParser(new StringReader(xml))).toByteArray();
+    final CompiledLayout compiled = CompiledLayout.read(bytes);
+    final LayoutInflater inflater = new LayoutInflater(new Context());
+    System.out.println("views: " + compiled.getViewCount()
+        + ", xml: " + xml.length() + " chars, compiled: " + bytes.length + " bytes");
+
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      inflater.inflate(LayoutInflater.newParser(new StringReader(xml)), null, false);
+      inflater.inflate(CompiledLayout.read(bytes), null, false);
+      inflater.inflate(compiled, null, false);
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      inflater.inflate(LayoutInflater.newParser(new StringReader(xml)), null, false);
+    }
+
+    report("xml", start, iterations);
+
+    start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      inflater.inflate(CompiledLayout.read(bytes), null, false);
+    }
+
+    report("compiled", start, iterations);
+
+    start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      inflater.inflate(compiled, null, false);
+    }
+
+    report("compiled (cached)", start, iterations);
+    Gdx.app.exit();
+  }
+
+  private static void report(String name, long start, int iterations) {
+    final long micros = (System.nanoTime() - start) / 1000 / iterations;
+    System.out.println(name + ": " + micros + "us per inflation");
+  }
+
+  private static String createLayout() {
+    final String frame = Frame.class.getName();
+    final StringBuilder xml = new StringBuilder(64 * 1024);
+    xml.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+    xml.append('<').append(frame)
+        .append(" layout_width=\"match_parent\" layout_height=\"match_parent\">\n");
+    for (int i = 0; i < ROOT_CHILDREN; i++) {
+      appendView(xml, i);
+    }
+
+    for (int group = 0; group < GROUPS; group++) {
+      xml.append("  <").append(frame)
+          .append(" layout_width=\"match_parent\" layout_height=\"wrap_content\"")
+          .append(" padding=\"8px\" background=\"#FF202020\">\n");
+      for (int i = 0; i < CHILDREN_PER_GROUP; i++) {
+        appendView(xml, ROOT_CHILDREN + group * CHILDREN_PER_GROUP + i);
+      }
+
+      xml.append("  </").append(frame).append(">\n");
+    }
+
+    xml.append("</").append(frame).append(">\n");
+    return xml.toString();
+  }
+
+  private static void appendView(StringBuilder xml, int id) {
+    xml.append("    <View id=\"").append(id + 1)
+        .append("\" layout_width=\"48\" layout_height=\"48\" layout_margin=\"4\"")
+        .append(" paddingLeft=\"2\" background=\"#FF").append(String.format("%06X", id * 997))
+        .append("\" visibility=\"").append(id % 7 == 0 ? "invisible" : "visible")
+        .append("\" focusable=\"").append(id % 2 == 0).append("\"/>\n");
+  }
+}
@@ -0,0 +1,61 @@
+package unifi.view;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import unifi.content.Context;
+
+import static org.junit.Assert.assertEquals;
+
+public class LayoutInflaterTest {
+
+  private Context mContext;
+  private LayoutInflater mInflater;
+
+  @Before
+  public void setUp() {
+    final Map<String, String> attributes = new HashMap<>();
+    attributes.put("padding", "8");
+    attributes.put("visibility", "invisible");
+    mContext = new Context();
+    mContext.setTheme(new Style("Theme", null, attributes));
+    mInflater = new LayoutInflater(mContext);
+  }
+
+  private View inflate(String xml) throws Exception {
+    return mInflater.inflate(LayoutInflater.newParser(new StringReader(xml)), null, false);
+  }
+
+  @Test
+  public void themeAppliesToViewWithoutStyle() throws Exception {
+    final View view = inflate("<View layout_width=\"48\" layout_height=\"48\"/>");
+    assertEquals(8, view.getPaddingLeft());
+    assertEquals(8, view.getPaddingBottom());
+    assertEquals(View.INVISIBLE, view.getVisibility());
+  }
+
+  @Test
+  public void viewOverridesTheme() throws Exception {
+    final View view = inflate("<View layout_width=\"48\" layout_height=\"48\""
+        + " paddingLeft=\"2\" visibility=\"visible\"/>");
+    assertEquals(2, view.getPaddingLeft());
+    assertEquals(8, view.getPaddingTop());
+    assertEquals(View.VISIBLE, view.getVisibility());
+  }
+
+  @Test
+  public void styleOverridesTheme() throws Exception {
+    final Map<String, String> attributes = new HashMap<>();
+    attributes.put("paddingTop", "4");
+    mContext.getStyleResolver().addStyle(new Style("Compact", null, attributes));
+    final View view = inflate("<View layout_width=\"48\" layout_height=\"48\""
+        + " style=\"Compact\"/>");
+    assertEquals(8, view.getPaddingLeft());
+    assertEquals(4, view.getPaddingTop());
+    assertEquals(View.INVISIBLE, view.getVisibility());
+  }
+}